@@ -13,6 +13,21 @@ repositories {
     mavenCentral()
 }
 
+// The SIMD storage kernels use the incubating Vector API; callers fall back to
+// scalar kernels when the module is not resolved at runtime.
+val vectorModuleArgs = listOf("--add-modules", "jdk.incubator.vector")
+
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     // Core
     implementation("io.netty:netty-all:4.1.106.Final")
@@ -26,6 +41,23 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
     testImplementation("org.mockito:mockito-core:5.8.0")
     testImplementation("org.mockito:mockito-junit-jupiter:5.8.0")
+
+    // Benchmarks
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.addAll(vectorModuleArgs)
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks in src/jmh. Pass -Pjmh.include=<regex> to filter."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs(vectorModuleArgs)
+    args(listOf(project.findProperty("jmh.include") as String? ?: ".*"))
 }
 
 tasks.test {
@@ -34,6 +66,7 @@ tasks.test {
         events("passed", "skipped", "failed")
     }
     maxHeapSize = "2g"
+    jvmArgs(vectorModuleArgs)
 }
 
 java {
@@ -44,4 +77,5 @@ java {
 
 application {
     mainClass.set(project.findProperty("mainClass") as String? ?: "io.supernode.DemoDashboard")
+    applicationDefaultJvmArgs = vectorModuleArgs
 }
@@ -0,0 +1,123 @@
+package io.supernode.storage.erasure;
+
+import io.supernode.storage.BufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parity generation throughput for one stripe on a single thread. Each
+ * operation codes all parity rows over {@code shardSize}-byte shards; divide
+ * ops/s by the data size ({@code data * shardSize}) for bytes/s. The scalar
+ * method is the exp/log loop ErasureCoder used before the kernels. The
+ * {@code encode*} methods run the full coder over one contiguous buffer:
+ * {@code encodeCopying} through {@link ErasureCoder#encode}, which allocates
+ * every shard, and {@code encodeSlices} through the blocked, pooled path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ErasureCoderBenchmark {
+
+    @Param({"4+2", "10+4"})
+    String layout;
+
+    @Param({"262144"})
+    int shardSize;
+
+    private int dataShards;
+    private int[][] matrix;
+    private byte[][] shards;
+    private GfKernel vector;
+    private ErasureCoder coder;
+    private byte[] data;
+    private BufferPool pool;
+
+    @Setup
+    public void setup() {
+        String[] parts = layout.split("\\+");
+        dataShards = Integer.parseInt(parts[0]);
+        int parityShards = Integer.parseInt(parts[1]);
+
+        matrix = new int[parityShards][dataShards];
+        for (int i = 0; i < parityShards; i++) {
+            for (int j = 0; j < dataShards; j++) {
+                matrix[i][j] = GaloisField.pow(i + 1, j);
+            }
+        }
+
+        Random random = new Random(42);
+        shards = new byte[dataShards + parityShards][shardSize];
+        for (int i = 0; i < dataShards; i++) {
+            random.nextBytes(shards[i]);
+        }
+        vector = GfKernel.vector() != null ? GfKernel.vector() : GfKernel.table();
+
+        coder = new ErasureCoder(dataShards, parityShards);
+        data = new byte[dataShards * shardSize];
+        random.nextBytes(data);
+        pool = new BufferPool(shardSize, dataShards + parityShards);
+    }
+
+    @Benchmark
+    public byte[][] scalar() {
+        for (int p = 0; p < matrix.length; p++) {
+            byte[] out = shards[dataShards + p];
+            for (int j = 0; j < shardSize; j++) {
+                int value = 0;
+                for (int k = 0; k < dataShards; k++) {
+                    value ^= GaloisField.mul(matrix[p][k], shards[k][j] & 0xFF);
+                }
+                out[j] = (byte) value;
+            }
+        }
+        return shards;
+    }
+
+    @Benchmark
+    public byte[][] table() {
+        return code(GfKernel.table());
+    }
+
+    @Benchmark
+    public byte[][] vector() {
+        return code(vector);
+    }
+
+    @Benchmark
+    public byte[][] encodeCopying() {
+        return coder.encode(data).shards();
+    }
+
+    @Benchmark
+    public int encodeSlices() {
+        try (ErasureCoder.EncodedStripe stripe = coder.encodeSlices(data, 0, data.length, pool)) {
+            return stripe.shard(stripe.shardCount() - 1).get(0);
+        }
+    }
+
+    private byte[][] code(GfKernel kernel) {
+        for (int p = 0; p < matrix.length; p++) {
+            byte[] out = shards[dataShards + p];
+            kernel.mul(matrix[p][0], shards[0], 0, out, 0, shardSize);
+            for (int k = 1; k < dataShards; k++) {
+                kernel.mulAdd(matrix[p][k], shards[k], 0, out, 0, shardSize);
+            }
+        }
+        return shards;
+    }
+}
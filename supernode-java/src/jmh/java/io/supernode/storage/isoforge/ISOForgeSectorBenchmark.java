@@ -0,0 +1,51 @@
+package io.supernode.storage.isoforge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@link ISOForge#generateSector} call by position in a
+ * {@link SizePreset#FULL} image. Content sectors seek the keystream rather
+ * than generating everything before them, so {@code near} and {@code far}
+ * should report about the same time per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ISOForgeSectorBenchmark {
+
+    @Param({"near", "far"})
+    String position;
+
+    private final ISOForge forge = new ISOForge();
+    private final long size = SizePreset.FULL.getBytes();
+    private byte[] seed;
+    private int sector;
+
+    @Setup
+    public void setup() {
+        seed = new byte[32];
+        Arrays.fill(seed, (byte) 0x42);
+        sector = position.equals("near") ? 20 : (int) (size / ISOForge.SECTOR_SIZE) - 1;
+    }
+
+    @Benchmark
+    public byte[] generateSector() {
+        return forge.generateSector(seed, sector, size);
+    }
+}
@@ -0,0 +1,64 @@
+package io.supernode.storage.mux;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the byte-at-a-time loop MuxEngine used to run against the
+ * long-word and Vector API XOR kernels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class XorKernelBenchmark {
+
+    @Param({"2048", "1048576"})
+    int size;
+
+    private byte[] dst;
+    private byte[] src;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        dst = new byte[size];
+        src = new byte[size];
+        random.nextBytes(dst);
+        random.nextBytes(src);
+    }
+
+    @Benchmark
+    public byte[] byteLoop() {
+        for (int i = 0; i < size; i++) {
+            dst[i] = (byte) (dst[i] ^ src[i]);
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] longWord() {
+        XorKernel.longWord().xorInto(dst, 0, src, 0, size);
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] vector() {
+        XorKernel.vector().xorInto(dst, 0, src, 0, size);
+        return dst;
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -37,6 +38,9 @@ public class WebController {
     // Here, we can use a fixed one for testing or accept it in headers.
     private static final byte[] DEFAULT_MASTER_KEY = new byte[32];
 
+    // Bytes served for an open-ended Range ("bytes=N-"); players request the rest as they go
+    private static final long STREAM_WINDOW = 4L * SupernodeStorage.CHUNK_SIZE;
+
     public WebController(int port, UnifiedNetwork network) {
         this.port = port;
         this.network = network;
@@ -308,51 +312,94 @@ public class WebController {
 
     private void handleStream(ChannelHandlerContext ctx, FullHttpRequest req) {
         String fileId = req.uri().substring("/api/stream/".length());
+        if (network.getStorage().getManifest(fileId).isEmpty()) {
+            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            return;
+        }
+
+        String range = req.headers().get(HttpHeaderNames.RANGE);
+        ByteRange requested = range == null ? null : parseRange(range);
+        if (range != null && requested == null) {
+            sendError(ctx, HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
 
+        ByteBuf buf = Unpooled.buffer();
         try {
-            SupernodeStorage.RetrieveResult result = network.retrieveFile(fileId, DEFAULT_MASTER_KEY);
-            byte[] data = result.data();
-
-            // Handle Range
-            String range = req.headers().get(HttpHeaderNames.RANGE);
-            if (range != null) {
-                // Simplified Range support (bytes=start-end)
-                String[] parts = range.replace("bytes=", "").split("-");
-                int start = Integer.parseInt(parts[0]);
-                int end = parts.length > 1 && !parts[1].isEmpty() ? Integer.parseInt(parts[1]) : data.length - 1;
-
-                if (start >= data.length) {
-                     sendError(ctx, HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
-                     return;
+            if (requested != null) {
+                // Only the chunks overlapping the range are fetched
+                long start = requested.start();
+                SupernodeStorage.RangeResult result = network.retrieveRange(
+                    fileId, DEFAULT_MASTER_KEY, start, requested.length(), new ByteBufOutputStream(buf));
+
+                if (result.length() == 0) {
+                    buf.release();
+                    sendError(ctx, HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
                 }
 
-                int len = end - start + 1;
-                ByteBuf buf = Unpooled.wrappedBuffer(data, start, len);
-
+                long end = result.offset() + result.length() - 1;
                 FullHttpResponse response = new DefaultFullHttpResponse(
                     HttpVersion.HTTP_1_1, HttpResponseStatus.PARTIAL_CONTENT, buf);
 
                 response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
-                response.headers().set(HttpHeaderNames.CONTENT_LENGTH, len);
-                response.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + data.length);
+                response.headers().set(HttpHeaderNames.CONTENT_LENGTH, result.length());
+                response.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + result.fileSize());
+                response.headers().set(HttpHeaderNames.ACCEPT_RANGES, "bytes");
                 response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, "*"); // Allow CORS
 
                 ctx.writeAndFlush(response);
             } else {
-                ByteBuf buf = Unpooled.wrappedBuffer(data);
+                SupernodeStorage.RangeResult result = network.retrieveRange(
+                    fileId, DEFAULT_MASTER_KEY, 0, Long.MAX_VALUE, new ByteBufOutputStream(buf));
                 FullHttpResponse response = new DefaultFullHttpResponse(
                     HttpVersion.HTTP_1_1, HttpResponseStatus.OK, buf);
                 response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/octet-stream");
-                response.headers().set(HttpHeaderNames.CONTENT_LENGTH, data.length);
+                response.headers().set(HttpHeaderNames.CONTENT_LENGTH, result.length());
+                response.headers().set(HttpHeaderNames.ACCEPT_RANGES, "bytes");
                 response.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
                 ctx.writeAndFlush(response);
             }
         } catch (Exception e) {
+            buf.release();
             e.printStackTrace();
-            sendError(ctx, HttpResponseStatus.NOT_FOUND);
+            sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Parses a single {@code bytes=start-end} or open-ended {@code bytes=start-}
+     * range; an open end is served as one {@link #STREAM_WINDOW}.
+     *
+     * @return null if the header is malformed, has several ranges or ends before it starts
+     */
+    private static ByteRange parseRange(String header) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash <= 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        try {
+            long start = Long.parseLong(spec.substring(0, dash));
+            String endSpec = spec.substring(dash + 1);
+            if (endSpec.isEmpty()) {
+                return new ByteRange(start, STREAM_WINDOW);
+            }
+            long end = Math.min(Long.parseLong(endSpec), Long.MAX_VALUE - 1);
+            if (end < start) {
+                return null;
+            }
+            return new ByteRange(start, end - start + 1);
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
+    private record ByteRange(long start, long length) {}
+
     private void handleKeyGenerate(ChannelHandlerContext ctx) {
         try {
             KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
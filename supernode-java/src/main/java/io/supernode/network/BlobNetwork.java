@@ -3,6 +3,8 @@ package io.supernode.network;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
@@ -15,10 +17,13 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.supernode.network.transport.Transport;
 import io.supernode.network.transport.TransportAddress;
 import io.supernode.network.transport.TransportType;
+import io.supernode.storage.BlobKey;
 import io.supernode.storage.BlobStore;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
@@ -47,8 +52,9 @@ public class BlobNetwork {
     private int port;
     
     private final Map<String, PeerConnection> peers = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> blobToPeers = new ConcurrentHashMap<>();
-    private final Set<String> announcedBlobs = ConcurrentHashMap.newKeySet();
+    // Keyed by BlobKey, so digests are held as four longs rather than hex
+    private final Map<BlobKey, Set<String>> blobToPeers = new ConcurrentHashMap<>();
+    private final Set<BlobKey> announcedBlobs = ConcurrentHashMap.newKeySet();
     private final Map<String, CompletableFuture<byte[]>> pendingRequests = new ConcurrentHashMap<>();
     
     private final Map<String, PeerHealth> peerHealth = new ConcurrentHashMap<>();
@@ -445,7 +451,7 @@ public class BlobNetwork {
     
     public void announceBlob(String blobId) {
         if (blobId == null) return;
-        announcedBlobs.add(blobId);
+        announcedBlobs.add(BlobKey.of(blobId));
         Message haveMsg = new Message("have", Map.of("blobId", blobId));
         broadcastMessage(haveMsg);
     }
@@ -470,13 +476,20 @@ public class BlobNetwork {
         
         CompletableFuture<byte[]> future = new CompletableFuture<>();
         pendingRequests.put(blobId, future);
+        // A cancelled caller no longer waits; a reply already on its way is still stored
+        future.whenComplete((data, ex) -> {
+            if (future.isCancelled()) {
+                pendingRequests.remove(blobId, future);
+            }
+        });
         totalRequestsSent.incrementAndGet();
         
         List<PeerConnection> sortedPeers = selectPeersByHealth(targetPeers);
         
         for (PeerConnection peer : sortedPeers) {
             if (peer.channel().isActive()) {
-                Message requestMsg = new Message("request", Map.of("blobId", blobId));
+                // "binary" lets the peer answer with a raw frame instead of base64 JSON
+                Message requestMsg = new Message("request", Map.of("blobId", blobId, "binary", true));
                 sendMessage(peer.channel(), requestMsg);
                 recordRequestSent(peer.peerId());
                 break;
@@ -527,7 +540,7 @@ public class BlobNetwork {
     
     public List<PeerConnection> findPeersWithBlob(String blobId) {
         if (blobId == null) return Collections.emptyList();
-        Set<String> peerIds = blobToPeers.get(blobId);
+        Set<String> peerIds = blobToPeers.get(BlobKey.of(blobId));
         if (peerIds == null) return Collections.emptyList();
         
         return peerIds.stream()
@@ -730,8 +743,8 @@ public class BlobNetwork {
                 TransportType.CLEARNET));
         }
         
-        for (String blobId : announcedBlobs) {
-            Message haveMsg = new Message("have", Map.of("blobId", blobId));
+        for (Object blobId : announcedBlobs) {
+            Message haveMsg = new Message("have", Map.of("blobId", blobId.toString()));
             sendMessage(channel, haveMsg);
         }
     }
@@ -741,7 +754,7 @@ public class BlobNetwork {
         String blobId = (String) message.payload().get("blobId");
         if (blobId == null) return;
         
-        blobToPeers.computeIfAbsent(blobId, k -> ConcurrentHashMap.newKeySet()).add(peerId);
+        blobToPeers.computeIfAbsent(BlobKey.of(blobId), k -> ConcurrentHashMap.newKeySet()).add(peerId);
         
         if (onHave != null) {
             onHave.accept(new HaveEvent(peerId, blobId));
@@ -755,7 +768,7 @@ public class BlobNetwork {
         
         totalRequestsReceived.incrementAndGet();
         
-        if (blobStore.has(blobId) || announcedBlobs.contains(blobId)) {
+        if (blobStore.has(blobId) || announcedBlobs.contains(BlobKey.of(blobId))) {
             Message haveMsg = new Message("have", Map.of("blobId", blobId));
             sendMessage(channel, haveMsg);
         }
@@ -767,17 +780,40 @@ public class BlobNetwork {
         if (blobId == null) return;
         
         totalRequestsReceived.incrementAndGet();
+        if (Boolean.TRUE.equals(message.payload().get("binary"))) {
+            sendBinaryBlob(channel, blobId);
+            return;
+        }
         Optional<byte[]> data = blobStore.get(blobId);
         
         if (data.isPresent()) {
             String base64Data = Base64.getEncoder().encodeToString(data.get());
             Message blobMsg = new Message("blob", Map.of("blobId", blobId, "data", base64Data));
             sendMessage(channel, blobMsg);
-            totalBytesUploaded.addAndGet(data.get().length);
-            
-            if (onUpload != null) {
-                onUpload.accept(new UploadEvent(blobId, data.get().length));
-            }
+            recordUpload(blobId, data.get().length);
+        }
+    }
+    
+    /**
+     * Sends [u16 id length][blob id][blob bytes] as one binary frame. The blob
+     * buffer is wrapped, not copied, so a mapped FileBlobStore blob goes from
+     * the page cache to the socket without touching the Java heap.
+     */
+    private void sendBinaryBlob(Channel channel, String blobId) {
+        Optional<ByteBuffer> data = blobStore.getBuffer(blobId);
+        if (data.isEmpty()) return;
+        
+        byte[] id = blobId.getBytes(StandardCharsets.UTF_8);
+        ByteBuf header = channel.alloc().buffer(2 + id.length).writeShort(id.length).writeBytes(id);
+        int length = data.get().remaining();
+        channel.writeAndFlush(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(header, Unpooled.wrappedBuffer(data.get()))));
+        recordUpload(blobId, length);
+    }
+    
+    private void recordUpload(String blobId, int length) {
+        totalBytesUploaded.addAndGet(length);
+        if (onUpload != null) {
+            onUpload.accept(new UploadEvent(blobId, length));
         }
     }
     
@@ -787,8 +823,21 @@ public class BlobNetwork {
         String base64Data = (String) message.payload().get("data");
         if (blobId == null || base64Data == null) return;
         
-        byte[] data = Base64.getDecoder().decode(base64Data);
+        receiveBlob(peerId, blobId, Base64.getDecoder().decode(base64Data));
+    }
+    
+    private void handleBinaryBlob(String peerId, ByteBuf content) {
+        if (peerId == null || content.readableBytes() < 2) return;
+        int idLength = content.readUnsignedShort();
+        if (content.readableBytes() < idLength) return;
+        String blobId = content.readCharSequence(idLength, StandardCharsets.UTF_8).toString();
+        byte[] data = new byte[content.readableBytes()];
+        content.readBytes(data);
         
+        receiveBlob(peerId, blobId, data);
+    }
+    
+    private void receiveBlob(String peerId, String blobId, byte[] data) {
         blobStore.put(blobId, data);
         totalBytesDownloaded.addAndGet(data.length);
         successfulTransfers.incrementAndGet();
@@ -872,8 +921,8 @@ public class BlobNetwork {
                         Message helloReply = new Message("hello", Map.of("peerId", peerId));
                         sendMessage(ctx.channel(), helloReply);
 
-                        for (String blobId : announcedBlobs) {
-                            Message haveMsg = new Message("have", Map.of("blobId", blobId));
+                        for (Object blobId : announcedBlobs) {
+                            Message haveMsg = new Message("have", Map.of("blobId", blobId.toString()));
                             sendMessage(ctx.channel(), haveMsg);
                         }
                     } else {
@@ -883,6 +932,8 @@ public class BlobNetwork {
                 if (remotePeerId != null) {
                     handleMessage(ctx.channel(), remotePeerId, msg);
                 }
+            } else if (frame instanceof BinaryWebSocketFrame binaryFrame) {
+                handleBinaryBlob(remotePeerId, binaryFrame.content());
             }
         }
         
@@ -943,14 +994,16 @@ public class BlobNetwork {
                             addr.getPort(), TransportType.CLEARNET));
                     }
                     
-                    for (String blobId : announcedBlobs) {
-                        Message haveMsg = new Message("have", Map.of("blobId", blobId));
+                    for (Object blobId : announcedBlobs) {
+                        Message haveMsg = new Message("have", Map.of("blobId", blobId.toString()));
                         sendMessage(ctx.channel(), haveMsg);
                     }
                 }
                 if (remotePeerId != null) {
                     handleMessage(ctx.channel(), remotePeerId, msg);
                 }
+            } else if (frame instanceof BinaryWebSocketFrame binaryFrame) {
+                handleBinaryBlob(remotePeerId, binaryFrame.content());
             }
         }
         
@@ -3,6 +3,7 @@ package io.supernode.network;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.supernode.network.transport.Transport;
 import io.supernode.network.transport.TransportType;
+import io.supernode.storage.BlobScrubber;
 import io.supernode.storage.StorageBenchmark;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -24,6 +25,7 @@ import java.util.concurrent.CompletableFuture;
 /**
  * A lightweight HTTP server providing a modern monitoring dashboard for Supernode metrics.
  * Serves an embedded HTML visualization at "/" and raw JSON at "/api/metrics".
+ * Blob scrubber progress and corruption counters are at "/api/scrub".
  */
 public class MetricsServer {
 
@@ -109,6 +111,13 @@ public class MetricsServer {
             } else if ("/api/health".equals(req.uri())) {
                 byte[] json = mapper.writeValueAsBytes(buildHealthPayload());
                 sendJson(ctx, req, json);
+            } else if ("/api/scrub".equals(req.uri())) {
+                BlobScrubber scrubber = network.getScrubber();
+                if (scrubber == null) {
+                    sendError(ctx, HttpResponseStatus.NOT_FOUND);
+                    return;
+                }
+                sendJson(ctx, req, mapper.writeValueAsBytes(scrubber.stats()));
             } else if ("/api/benchmark".equals(req.uri())) {
                 // Run async to avoid blocking Netty thread
                 ctx.channel().eventLoop().execute(() -> {
@@ -3,10 +3,12 @@ package io.supernode.network;
 import io.supernode.network.transport.*;
 import io.supernode.storage.BlobStore;
 import io.supernode.storage.InMemoryBlobStore;
+import io.supernode.storage.ShardFetcher;
 import io.supernode.storage.SupernodeStorage;
 import io.supernode.storage.SupernodeStorage.IngestResult;
 import io.supernode.storage.SupernodeStorage.RetrieveResult;
 import io.supernode.storage.SupernodeStorage.StorageOptions;
+import io.supernode.storage.erasure.ErasureCoderRegistry;
 import io.supernode.storage.mux.Manifest;
 import io.supernode.network.routing.FilecoinContentRouting;
 import io.supernode.network.routing.BitSwarmCoordinator;
@@ -26,6 +28,7 @@ public class SupernodeNetwork {
     
     private final BlobStore blobStore;
     private final SupernodeStorage storage;
+    private final ShardFetcher shardFetcher;
     private final BlobNetwork blobNetwork;
     private final DHTDiscovery dht;
     private final ManifestDistributor manifestDistributor;
@@ -64,6 +67,9 @@ public class SupernodeNetwork {
                 : StorageOptions.defaults());
         
         this.storage = new SupernodeStorage(blobStore, storageOpts);
+        this.shardFetcher = new ShardFetcher(blobStore,
+            blobId -> waitForBlob(blobId, options.blobTimeout().toMillis()),
+            ShardFetcher.FetchOptions.defaults());
         
         this.blobNetwork = new BlobNetwork(blobStore, BlobNetwork.BlobNetworkOptions.builder()
             .peerId(options.peerId())
@@ -267,6 +273,10 @@ public class SupernodeNetwork {
     public SupernodeStorage.StorageStats getStorageStats() {
         return storage.stats();
     }
+
+    public ShardFetcher.FetchStats getShardFetchStats() {
+        return shardFetcher.stats();
+    }
     
     public CompletableFuture<RetrieveResult> fetchFile(String fileId, Manifest manifest, byte[] masterKey) {
         return fetchFile(fileId, manifest, masterKey, null);
@@ -277,8 +287,13 @@ public class SupernodeNetwork {
             List<Manifest.Segment> segments = manifest.getSegments();
             for (Manifest.Segment segment : segments) {
                 if (segment.shards() != null && !segment.shards().isEmpty()) {
-                    for (Manifest.ShardInfo shard : segment.shards()) {
-                        ensureBlobAvailable(shard.hash());
+                    // Only dataShards shards are needed to decode; fetch those, hedging slow ones
+                    Manifest.ErasureConfig erasure = manifest.getErasure();
+                    try {
+                        shardFetcher.fetch(segment, ErasureCoderRegistry.shared().get(
+                            erasure.dataShards(), erasure.parityShards(), erasure.localGroupCount())).join();
+                    } catch (CompletionException e) {
+                        throw new RuntimeException("Failed to fetch shards of chunk: " + segment.chunkHash(), e.getCause());
                     }
                 } else {
                     ensureBlobAvailable(segment.chunkHash());
@@ -298,11 +313,17 @@ public class SupernodeNetwork {
         }
     }
     
+    /**
+     * Finds peers holding {@code blobId} and downloads it. Cancelling the
+     * returned future abandons the lookup and any request not yet sent; a
+     * request already sent still completes and stores the blob.
+     */
     public CompletableFuture<byte[]> waitForBlob(String blobId, long timeoutMs) {
         if (blobStore.has(blobId)) {
             return CompletableFuture.completedFuture(blobStore.get(blobId).orElse(null));
         }
         
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
         CompletableFuture<List<DHTDiscovery.PeerInfo>> peersFuture = dht.findPeers(blobId, timeoutMs / 2);
         
         if (filecoinRouting != null) {
@@ -313,7 +334,17 @@ public class SupernodeNetwork {
             });
         }
         
-        return peersFuture.thenCompose(dhtPeers -> {
+        CompletableFuture<List<DHTDiscovery.PeerInfo>> lookup = peersFuture;
+        result.whenComplete((data, ex) -> {
+            if (result.isCancelled()) {
+                lookup.cancel(true);
+            }
+        });
+        
+        lookup.thenCompose(dhtPeers -> {
+            if (result.isDone()) {
+                return CompletableFuture.failedFuture(new CancellationException("Blob request abandoned: " + blobId));
+            }
             List<BlobNetwork.PeerConnection> networkPeers = blobNetwork.findPeersWithBlob(blobId);
             if (!networkPeers.isEmpty()) {
                 return bitSwarmCoordinator.requestFromSwarm(blobId);
@@ -331,7 +362,9 @@ public class SupernodeNetwork {
                     CompletableFuture<byte[]> waitFuture = new CompletableFuture<>();
                     scheduler.schedule(() -> {
                         List<BlobNetwork.PeerConnection> peers = blobNetwork.findPeersWithBlob(blobId);
-                        if (!peers.isEmpty()) {
+                        if (result.isDone()) {
+                            waitFuture.cancel(false);
+                        } else if (!peers.isEmpty()) {
                             blobNetwork.requestBlob(blobId, peers).whenComplete((data, ex) -> {
                                 if (ex != null) waitFuture.completeExceptionally(ex);
                                 else waitFuture.complete(data);
@@ -345,7 +378,11 @@ public class SupernodeNetwork {
             }
             
             return CompletableFuture.failedFuture(new RuntimeException("No peers found for blob: " + blobId));
+        }).whenComplete((data, ex) -> {
+            if (ex != null) result.completeExceptionally(ex);
+            else result.complete(data);
         });
+        return result;
     }
     
     public CompletableFuture<byte[]> findManifest(String fileId, long timeoutMs) {
@@ -1,10 +1,13 @@
 package io.supernode.network;
 
 import io.supernode.network.transport.*;
+import io.supernode.storage.BlobScrubber;
 import io.supernode.storage.BlobStore;
+import io.supernode.storage.FileBlobStore;
 import io.supernode.storage.IPFSBlobStore;
 import io.supernode.storage.InMemoryBlobStore;
 import io.supernode.storage.SupernodeStorage;
+import io.supernode.storage.erasure.ErasureCoder;
 import io.supernode.intelligence.ResourceManager;
 import io.supernode.blockchain.BobcoinBridge;
 
@@ -19,6 +22,7 @@ public class UnifiedNetwork {
     private final BlobStore primaryBlobStore;
     private final IPFSBlobStore ipfsBlobStore;
     private final SupernodeStorage storage;
+    private final BlobScrubber scrubber;
     private final MetricsServer metricsServer;
     private final Map<String, PeerInfo> peers = new ConcurrentHashMap<>();
     
@@ -67,9 +71,30 @@ public class UnifiedNetwork {
         this.primaryBlobStore = options.blobStore != null ? options.blobStore : new InMemoryBlobStore();
         
         SupernodeStorage.StorageOptions storageOptions = options.enableErasure
-            ? SupernodeStorage.StorageOptions.withErasure(options.dataShards, options.parityShards)
+            ? SupernodeStorage.StorageOptions.builder()
+                .enableErasure(true)
+                .dataShards(options.dataShards)
+                .parityShards(options.parityShards)
+                .adaptiveErasure(options.adaptiveErasure)
+                .maxDataShards(options.maxDataShards)
+                .build()
             : SupernodeStorage.StorageOptions.defaults();
         this.storage = new SupernodeStorage(primaryBlobStore, storageOptions);
+
+        if (options.scrubOptions != null && primaryBlobStore instanceof FileBlobStore fileStore) {
+            byte[] repairKey = options.scrubRepairKey;
+            this.scrubber = new BlobScrubber(fileStore, options.scrubOptions,
+                repairKey == null ? null : corrupt -> storage.repairShards(corrupt, repairKey));
+        } else {
+            this.scrubber = null;
+        }
+        
+        this.dht = new DHTDiscovery();
+        this.manifestDistributor = new ManifestDistributor(
+            new ManifestDistributor.ManifestDistributorOptions(dht, storage)
+        );
+        this.resourceManager = new ResourceManager(this);
+        this.bobcoinBridge = new BobcoinBridge();
         
         if (options.enableDashboard) {
             this.metricsServer = new MetricsServer(this, options.dashboardPort);
@@ -84,6 +109,9 @@ public class UnifiedNetwork {
         // Start Components
         dht.start();
         resourceManager.start();
+        if (scrubber != null) {
+            scrubber.start();
+        }
 
         // Start Bridge (non-blocking)
         bobcoinBridge.connect().exceptionally(e -> {
@@ -113,6 +141,9 @@ public class UnifiedNetwork {
     public CompletableFuture<Void> stop() {
         destroyed = true;
         CompletableFuture<Void> future = transportManager.stopAll();
+        if (scrubber != null) {
+            future = future.thenCompose(v -> scrubber.stop());
+        }
         if (metricsServer != null) {
             return future.thenCompose(v -> metricsServer.stop());
         }
@@ -160,6 +191,11 @@ public class UnifiedNetwork {
         }
     }
 
+    public SupernodeStorage.RangeResult retrieveRange(String fileId, byte[] masterKey, long offset, long length,
+                                                      java.io.OutputStream out) throws java.io.IOException {
+        return storage.retrieveRange(fileId, masterKey, offset, length, out);
+    }
+
     public CompletableFuture<Void> announceBlob(String hash) {
         List<CompletableFuture<Void>> futures = new ArrayList<>();
         
@@ -223,6 +259,11 @@ public class UnifiedNetwork {
         return storage;
     }
 
+    /** The background scrubber, or {@code null} unless enabled over a {@link FileBlobStore}. */
+    public BlobScrubber getScrubber() {
+        return scrubber;
+    }
+
     public DHTDiscovery getDht() {
         return dht;
     }
@@ -254,7 +295,7 @@ public class UnifiedNetwork {
 
     public List<PeerDetail> getPeerDetails() {
         List<PeerDetail> details = new ArrayList<>();
-        io.supernode.storage.erasure.ErasureCoder.NetworkContext ctx = storage.getErasureNetworkContext();
+        ErasureCoder.NetworkContext ctx = storage.getErasureNetworkContext();
 
         for (PeerInfo peer : peers.values()) {
             double score = 0.0;
@@ -318,9 +359,11 @@ public class UnifiedNetwork {
         String peerId = conn.getId();
         PeerInfo peer = new PeerInfo(peerId, conn);
         peers.put(peerId, peer);
+        updateErasureContext();
         
         conn.setOnClose(v -> {
             peers.remove(peerId);
+            updateErasureContext();
             if (onDisconnect != null) {
                 onDisconnect.accept(new DisconnectEvent(peerId, conn.getTransportType()));
             }
@@ -333,6 +376,40 @@ public class UnifiedNetwork {
         }
     }
 
+    /**
+     * Feeds live peer count, transport health and measured latency to the
+     * erasure network context, which adaptive ingest sizes its data/parity
+     * layout from.
+     */
+    private void updateErasureContext() {
+        ErasureCoder.NetworkContext ctx = storage.getErasureNetworkContext();
+        if (ctx == null) return;
+        ctx.setActivePeers(peers.size());
+
+        long running = 0;
+        long healthy = 0;
+        long latencyTotal = 0;
+        long latencySamples = 0;
+        for (Transport.HealthStatus status : transportManager.getAllHealthStatuses().values()) {
+            if (status.state() == Transport.HealthState.STOPPED || status.state() == Transport.HealthState.UNKNOWN) continue;
+            running++;
+            if (status.state() == Transport.HealthState.HEALTHY) healthy++;
+            // 0 means the transport has not measured a round trip yet
+            if (status.latencyMs() > 0) {
+                latencyTotal += status.latencyMs();
+                latencySamples++;
+            }
+        }
+        if (latencySamples > 0) {
+            ctx.setAverageLatency((double) latencyTotal / latencySamples);
+        }
+        if (running > 0) {
+            ctx.setNetworkHealth(healthy == running ? Transport.HealthState.HEALTHY
+                : healthy > 0 ? Transport.HealthState.DEGRADED
+                : Transport.HealthState.UNHEALTHY);
+        }
+    }
+
     private void handleMessage(PeerInfo peer, byte[] data) {
         // Message handling logic - delegate to appropriate handler based on message type
     }
@@ -414,7 +491,15 @@ public class UnifiedNetwork {
         public boolean enableErasure = false;
         public int dataShards = 4;
         public int parityShards = 2;
+        // Pick the layout per file from the transport health this node observes
+        public boolean adaptiveErasure = false;
+        public int maxDataShards = 16;
         
+        // Scrubbing needs a FileBlobStore. Corrupt blobs are always quarantined, and
+        // rebuilt from parity only when a repair key is given.
+        public BlobScrubber.ScrubOptions scrubOptions;
+        public byte[] scrubRepairKey;
+
         public boolean enableDashboard = false;
         public int dashboardPort = 8080;
         
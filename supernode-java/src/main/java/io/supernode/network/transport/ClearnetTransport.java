@@ -22,6 +22,7 @@ import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
@@ -768,6 +769,33 @@ public class ClearnetTransport implements Transport {
             return future;
         }
 
+        /** Wraps the buffer instead of copying it, so direct and mapped buffers stay off heap. */
+        @Override
+        public CompletableFuture<Void> send(ByteBuffer buffer) {
+            if (paused) {
+                return CompletableFuture.failedFuture(new RuntimeException("Connection paused"));
+            }
+            
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            int len = buffer.remaining();
+            BinaryWebSocketFrame frame = new BinaryWebSocketFrame(Unpooled.wrappedBuffer(buffer));
+            writeQueueBytes += len;
+            
+            channel.writeAndFlush(frame).addListener(f -> {
+                writeQueueBytes -= len;
+                if (f.isSuccess()) {
+                    bytesSent.addAndGet(len);
+                    messagesSent.incrementAndGet();
+                    framesSent.incrementAndGet();
+                    lastActivityAt = System.currentTimeMillis();
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(f.cause());
+                }
+            });
+            return future;
+        }
+
         @Override
         public CompletableFuture<Void> send(String message) {
             if (paused) {
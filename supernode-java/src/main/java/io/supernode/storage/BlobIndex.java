@@ -0,0 +1,270 @@
+package io.supernode.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistent hash to size index for {@link FileBlobStore}, so opening a store
+ * reads one snapshot and a short journal instead of walking every shard
+ * directory, and {@code has} and {@code stats} never touch the disk.
+ *
+ * <p>Adds and removes are appended to a journal, each record carrying a CRC,
+ * after the blob file itself has been moved into place or deleted. Once the
+ * journal reaches {@code snapshotInterval} records the whole index is written
+ * to a snapshot and the journal restarts. Replaying a journal over a snapshot
+ * that already contains it is harmless, so a crash between the two is safe.
+ * Without a valid snapshot the caller's directory scan rebuilds the index.
+ */
+class BlobIndex {
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String JOURNAL = "journal";
+    private static final int SNAPSHOT_MAGIC = 0x534E4249; // "SNBI"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+
+    /** Supplies every blob on disk when the index must be rebuilt. */
+    @FunctionalInterface
+    interface Scan {
+        Map<String, Long> scan() throws IOException;
+    }
+
+    private final Path dir;
+    private final int snapshotInterval;
+    // Keyed by BlobKey, so digests are held as four longs rather than hex
+    private final Map<BlobKey, Long> sizes = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Object journalLock = new Object();
+    private FileChannel journal; // guarded by journalLock
+    private int journalRecords; // guarded by journalLock
+    private boolean rebuilt;
+
+    BlobIndex(Path dir, int snapshotInterval, Scan scan) {
+        this.dir = dir;
+        this.snapshotInterval = snapshotInterval;
+        try {
+            Files.createDirectories(dir);
+            if (loadSnapshot()) {
+                replayJournal();
+            } else {
+                // A journal is only meaningful on top of the snapshot it follows
+                Files.deleteIfExists(dir.resolve(JOURNAL));
+                scan.scan().forEach((hash, size) -> sizes.put(BlobKey.of(hash), size));
+                rebuilt = true;
+            }
+            sizes.values().forEach(totalBytes::addAndGet);
+            journal = FileChannel.open(dir.resolve(JOURNAL),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (rebuilt) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open blob index " + dir, e);
+        }
+    }
+
+    boolean contains(String hash) {
+        return sizes.containsKey(BlobKey.of(hash));
+    }
+
+    int count() {
+        return sizes.size();
+    }
+
+    long totalBytes() {
+        return totalBytes.get();
+    }
+
+    List<String> hashes() {
+        return sizes.keySet().stream().map(BlobKey::hash).toList();
+    }
+
+    /** Whether opening fell back to a directory scan. */
+    boolean wasRebuilt() {
+        return rebuilt;
+    }
+
+    /** @return false if the hash was already indexed */
+    boolean add(String hash, long size) {
+        synchronized (journalLock) {
+            if (sizes.putIfAbsent(BlobKey.of(hash), size) != null) {
+                return false;
+            }
+            totalBytes.addAndGet(size);
+            append(ADD, hash, size);
+            return true;
+        }
+    }
+
+    /** @return the removed blob's size, or -1 if it was not indexed */
+    long remove(String hash) {
+        synchronized (journalLock) {
+            Long size = sizes.remove(BlobKey.of(hash));
+            if (size == null) {
+                return -1;
+            }
+            totalBytes.addAndGet(-size);
+            append(REMOVE, hash, size);
+            return size;
+        }
+    }
+
+    /** Writes the whole index to the snapshot and restarts the journal. */
+    void snapshot() {
+        synchronized (journalLock) {
+            Path temp = dir.resolve(SNAPSHOT + ".tmp");
+            try {
+                CRC32 crc = new CRC32();
+                try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), crc))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_VERSION);
+                    out.writeInt(sizes.size());
+                    for (Map.Entry<BlobKey, Long> entry : sizes.entrySet()) {
+                        out.writeUTF(entry.getKey().hash());
+                        out.writeLong(entry.getValue());
+                    }
+                    out.flush();
+                    out.writeLong(crc.getValue());
+                }
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                try {
+                    Files.move(temp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING);
+                }
+                journal.truncate(0);
+                journalRecords = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write blob index snapshot", e);
+            }
+        }
+    }
+
+    void close() {
+        synchronized (journalLock) {
+            if (journal.isOpen()) {
+                snapshot();
+                try {
+                    journal.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // Callers hold journalLock
+    private void append(byte op, String hash, long size) {
+        byte[] hashBytes = hash.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + hashBytes.length + 8 + 4);
+        record.put(op).putShort((short) hashBytes.length).put(hashBytes).putLong(size);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue()).flip();
+        try {
+            while (record.hasRemaining()) {
+                journal.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal blob " + hash, e);
+        }
+        if (++journalRecords >= snapshotInterval) {
+            snapshot();
+        }
+    }
+
+    private boolean loadSnapshot() throws IOException {
+        Path path = dir.resolve(SNAPSHOT);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        Map<BlobKey, Long> loaded = new HashMap<>();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 64 * 1024), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                loaded.put(BlobKey.of(in.readUTF()), in.readLong());
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                return false;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+        sizes.putAll(loaded);
+        return true;
+    }
+
+    /** Applies journal records up to the first torn or corrupt one, which is cut off. */
+    private void replayJournal() throws IOException {
+        Path path = dir.resolve(JOURNAL);
+        if (!Files.exists(path)) {
+            return;
+        }
+        long valid = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+            CRC32 crc = new CRC32();
+            while (true) {
+                try {
+                    byte op = in.readByte();
+                    int hashLength = in.readUnsignedShort();
+                    byte[] hashBytes = new byte[hashLength];
+                    in.readFully(hashBytes);
+                    long size = in.readLong();
+                    int stored = in.readInt();
+
+                    ByteBuffer record = ByteBuffer.allocate(1 + 2 + hashLength + 8);
+                    record.put(op).putShort((short) hashLength).put(hashBytes).putLong(size);
+                    crc.reset();
+                    crc.update(record.array());
+                    if (stored != (int) crc.getValue() || (op != ADD && op != REMOVE)) break;
+
+                    String hash = new String(hashBytes, StandardCharsets.UTF_8);
+                    if (op == ADD) {
+                        sizes.put(BlobKey.of(hash), size);
+                    } else {
+                        sizes.remove(BlobKey.of(hash));
+                    }
+                    valid += record.capacity() + 4;
+                    journalRecords++;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+            }
+        }
+    }
+}
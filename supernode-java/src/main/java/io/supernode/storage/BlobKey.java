@@ -0,0 +1,24 @@
+package io.supernode.storage;
+
+/**
+ * Map key for a store hash. A SHA-256 hex digest, in either case, becomes a
+ * {@link BlobId}, so a hash and its uppercase twin find the same entry; any
+ * other String (test names, foreign ids) is kept as a {@link Name}.
+ */
+public sealed interface BlobKey permits BlobId, BlobKey.Name {
+
+    static BlobKey of(String hash) {
+        return BlobId.isDigestHex(hash) ? BlobId.fromHex(hash) : new Name(hash);
+    }
+
+    /** The hash in canonical form: lowercase hex for a digest, the name otherwise. */
+    String hash();
+
+    record Name(String hash) implements BlobKey {
+        public Name {
+            if (hash == null) {
+                throw new IllegalArgumentException("hash is null");
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package io.supernode.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Re-hashes every blob of a {@link FileBlobStore} in the background to catch
+ * silent corruption. Blobs are walked in shard-directory order and read
+ * straight from disk, bypassing any cache, under a bytes/sec budget. The last
+ * hash visited is persisted after every batch so a restarted scrubber carries
+ * on where it stopped.
+ *
+ * <p>A blob whose content no longer matches its hash is moved to the store's
+ * {@code .quarantine} directory, so it reads as missing but is not lost, and
+ * its hash is handed to the {@code onCorrupt} listener, typically
+ * {@link SupernodeStorage#repairShards} to rebuild it from erasure parity.
+ * A blob that cannot be read at all is only counted: an I/O error says
+ * nothing about its content, and the next pass tries it again.
+ */
+public class BlobScrubber {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final FileBlobStore store;
+    private final ScrubOptions options;
+    private final Consumer<List<String>> onCorrupt;
+    private final Path cursorFile;
+    private final Throttle throttle;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private volatile String cursor;
+    private volatile ScheduledExecutorService scheduler;
+
+    private final AtomicLong passesCompleted = new AtomicLong();
+    private final AtomicLong blobsScanned = new AtomicLong();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong corruptFound = new AtomicLong();
+    private final AtomicLong unreadable = new AtomicLong();
+
+    /**
+     * @param onCorrupt receives the hashes found corrupt in each batch, may be {@code null}
+     */
+    public BlobScrubber(FileBlobStore store, ScrubOptions options, Consumer<List<String>> onCorrupt) {
+        this.store = store;
+        this.options = options;
+        this.onCorrupt = onCorrupt;
+        this.cursorFile = options.cursorFile() != null
+            ? options.cursorFile()
+            : store.getRootDir().resolve(".scrub-cursor");
+        this.throttle = new Throttle(options.bytesPerSecond());
+        this.cursor = loadCursor();
+    }
+
+    /** Scrubs continuously on a daemon thread until {@link #stop()}. */
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blob-scrubber");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(this::runScheduled);
+    }
+
+    public synchronized CompletableFuture<Void> stop() {
+        ScheduledExecutorService s = scheduler;
+        scheduler = null;
+        if (s == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        s.shutdownNow();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                s.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void runScheduled() {
+        ScheduledExecutorService s = scheduler;
+        if (s == null || s.isShutdown()) return;
+        try {
+            boolean more = scrubBatch();
+            s.schedule(this::runScheduled, more ? 0 : options.passInterval().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            if (!s.isShutdown()) {
+                s.schedule(this::runScheduled, options.passInterval().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Verifies the next batch of blobs after the cursor and advances it. When
+     * the walk runs off the end the pass is counted and the cursor wraps.
+     *
+     * @return false once a pass has just completed
+     * @throws InterruptedException if interrupted while waiting for budget
+     */
+    public synchronized boolean scrubBatch() throws InterruptedException {
+        List<String> batch = store.listHashesAfter(cursor, options.batchSize());
+        List<String> corrupt = new ArrayList<>();
+        for (String hash : batch) {
+            Verdict verdict = verifyOnDisk(hash);
+            if (verdict == Verdict.CORRUPT) {
+                try {
+                    store.quarantine(hash);
+                    corrupt.add(hash);
+                } catch (IOException e) {
+                    verdict = Verdict.UNREADABLE;
+                }
+            }
+            if (verdict == Verdict.UNREADABLE) {
+                unreadable.incrementAndGet();
+            }
+            cursor = hash;
+        }
+        blobsScanned.addAndGet(batch.size());
+        corruptFound.addAndGet(corrupt.size());
+
+        boolean more = batch.size() == options.batchSize();
+        if (!more) {
+            cursor = null;
+            passesCompleted.incrementAndGet();
+        }
+        saveCursor();
+
+        if (!corrupt.isEmpty() && onCorrupt != null) {
+            onCorrupt.accept(corrupt);
+        }
+        return more;
+    }
+
+    /** Runs {@link #scrubBatch()} until the current pass completes. */
+    public void scrubPass() throws InterruptedException {
+        while (scrubBatch()) {
+            // keep going
+        }
+    }
+
+    private enum Verdict { INTACT, CORRUPT, UNREADABLE }
+
+    /**
+     * Hashes the blob file straight from disk. A blob that vanished since it
+     * was listed counts as intact; it is no longer there to repair.
+     */
+    private Verdict verifyOnDisk(String hash) throws InterruptedException {
+        MessageDigest digest = CryptoPool.sha256();
+        try (FileChannel channel = FileChannel.open(store.getPathForHash(hash), StandardOpenOption.READ)) {
+            readBuffer.clear();
+            int n;
+            while ((n = channel.read(readBuffer)) != -1) {
+                throttle.acquire(n);
+                readBuffer.flip();
+                digest.update(readBuffer);
+                readBuffer.clear();
+                bytesScanned.addAndGet(n);
+            }
+        } catch (NoSuchFileException e) {
+            return Verdict.INTACT;
+        } catch (ClosedByInterruptException e) {
+            throw new InterruptedException("Interrupted while reading " + hash);
+        } catch (IOException e) {
+            return Verdict.UNREADABLE;
+        }
+        return HexFormat.of().formatHex(digest.digest()).equals(hash) ? Verdict.INTACT : Verdict.CORRUPT;
+    }
+
+    private String loadCursor() {
+        try {
+            String saved = Files.readString(cursorFile, StandardCharsets.UTF_8).trim();
+            return saved.isEmpty() ? null : saved;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read scrub cursor", e);
+        }
+    }
+
+    private void saveCursor() {
+        try {
+            Path temp = cursorFile.resolveSibling(cursorFile.getFileName() + ".tmp");
+            Files.writeString(temp, cursor == null ? "" : cursor, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, cursorFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cursorFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save scrub cursor", e);
+        }
+    }
+
+    public ScrubStats stats() {
+        String at = cursor;
+        return new ScrubStats(
+            isRunning(),
+            passesCompleted.get(),
+            blobsScanned.get(),
+            bytesScanned.get(),
+            corruptFound.get(),
+            unreadable.get(),
+            at,
+            passProgress(at),
+            options.bytesPerSecond()
+        );
+    }
+
+    // Hashes are uniform, so the cursor's leading 16 bits place it within the pass
+    private static double passProgress(String cursor) {
+        if (cursor == null || cursor.length() < 4) return 0.0;
+        try {
+            return Integer.parseInt(cursor.substring(0, 4), 16) / 65536.0;
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Paces reads to the configured rate. A budget left unused for more than
+     * a second is dropped, so an idle scrubber does not burst afterwards.
+     */
+    private static final class Throttle {
+        private final long bytesPerSecond;
+        private long windowStart = System.nanoTime();
+        private long windowBytes;
+
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        void acquire(long bytes) throws InterruptedException {
+            if (bytesPerSecond <= 0) return;
+            long now = System.nanoTime();
+            long ahead = windowBytes * 1_000_000_000L / bytesPerSecond - (now - windowStart);
+            if (ahead < -1_000_000_000L) {
+                windowStart = now;
+                windowBytes = 0;
+                ahead = 0;
+            }
+            windowBytes += bytes;
+            if (ahead > 0) {
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            }
+        }
+    }
+
+    /**
+     * @param bytesPerSecond read budget, 0 for unthrottled
+     * @param batchSize blobs verified between cursor saves
+     * @param passInterval pause between the end of one pass and the start of the next
+     * @param cursorFile where the cursor is persisted, {@code null} for {@code .scrub-cursor} in the store root
+     */
+    public record ScrubOptions(
+        long bytesPerSecond,
+        int batchSize,
+        Duration passInterval,
+        Path cursorFile
+    ) {
+        public static ScrubOptions defaults() {
+            return new ScrubOptions(
+                32L * 1024 * 1024,   // 32 MB/s
+                256,                 // Blobs per cursor save
+                Duration.ofHours(1),
+                null
+            );
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        public static class Builder {
+            private long bytesPerSecond = 32L * 1024 * 1024;
+            private int batchSize = 256;
+            private Duration passInterval = Duration.ofHours(1);
+            private Path cursorFile;
+
+            public Builder bytesPerSecond(long rate) { this.bytesPerSecond = rate; return this; }
+            public Builder batchSize(int size) { this.batchSize = size; return this; }
+            public Builder passInterval(Duration interval) { this.passInterval = interval; return this; }
+            public Builder cursorFile(Path file) { this.cursorFile = file; return this; }
+
+            public ScrubOptions build() {
+                if (batchSize < 1) {
+                    throw new IllegalArgumentException("batchSize must be positive");
+                }
+                return new ScrubOptions(bytesPerSecond, batchSize, passInterval, cursorFile);
+            }
+        }
+    }
+
+    /**
+     * @param corruptFound blobs whose content did not match their hash, all quarantined
+     * @param unreadable blob reads that failed with an I/O error; those blobs are left in place
+     * @param cursor last hash verified in the current pass, {@code null} at the start of one
+     * @param passProgress estimated fraction of the current pass done
+     */
+    public record ScrubStats(
+        boolean running,
+        long passesCompleted,
+        long blobsScanned,
+        long bytesScanned,
+        long corruptFound,
+        long unreadable,
+        String cursor,
+        double passProgress,
+        long bytesPerSecond
+    ) {}
+}
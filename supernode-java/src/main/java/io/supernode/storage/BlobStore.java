@@ -27,6 +27,18 @@ public interface BlobStore {
      */
     void put(String hash, byte[] data);
     
+    /**
+     * Store the remaining bytes of a buffer as a blob. The buffer's position is
+     * not changed, so callers may reuse pooled buffers once this returns.
+     * @param hash SHA-256 hash of the blob (hex string)
+     * @param data The blob data
+     */
+    default void put(String hash, java.nio.ByteBuffer data) {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        put(hash, bytes);
+    }
+    
     /**
      * Retrieve a blob by hash.
      * @param hash SHA-256 hash of the blob
@@ -54,6 +66,42 @@ public interface BlobStore {
      */
     BlobStoreStats stats();
     
+    /**
+     * Store a blob under a binary hash.
+     * @param id SHA-256 hash of the blob
+     * @param data The blob data
+     */
+    default void put(BlobId id, byte[] data) {
+        put(id.toHex(), data);
+    }
+    
+    /**
+     * Retrieve a blob by binary hash.
+     * @param id SHA-256 hash of the blob
+     * @return The blob data, or empty if not found
+     */
+    default Optional<byte[]> get(BlobId id) {
+        return get(id.toHex());
+    }
+    
+    /**
+     * Check if a blob exists by binary hash.
+     * @param id SHA-256 hash of the blob
+     * @return true if the blob exists
+     */
+    default boolean has(BlobId id) {
+        return has(id.toHex());
+    }
+    
+    /**
+     * Delete a blob by binary hash.
+     * @param id SHA-256 hash of the blob
+     * @return true if the blob was deleted, false if it didn't exist
+     */
+    default boolean delete(BlobId id) {
+        return delete(id.toHex());
+    }
+    
     // ==================== Asynchronous Operations ====================
     
     /**
@@ -104,6 +152,17 @@ public interface BlobStore {
         return get(hash).map(java.io.ByteArrayInputStream::new);
     }
     
+    /**
+     * Get a blob as a read-only buffer. The default wraps {@link #get}; stores
+     * backed by files can map them instead, so callers handing the buffer to
+     * the network never copy it onto the heap.
+     * @param hash SHA-256 hash of the blob
+     * @return Buffer positioned at the start of the blob, or empty if not found
+     */
+    default Optional<java.nio.ByteBuffer> getBuffer(String hash) {
+        return get(hash).map(data -> java.nio.ByteBuffer.wrap(data).asReadOnlyBuffer());
+    }
+    
     /**
      * Store a blob from a stream.
      * @param hash SHA-256 hash of the blob (hex string)
@@ -132,6 +191,16 @@ public interface BlobStore {
         }
     }
     
+    /**
+     * Open a writer for a blob whose hash is only known once it is fully
+     * written. The default buffers the blob on heap; stores that can stage
+     * it elsewhere should override.
+     * @return A writer that stores the blob on {@link BlobWriter#commit()}
+     */
+    default BlobWriter openWriter() {
+        return new BlobWriter.Buffered(this);
+    }
+    
     /**
      * Get a blob and write to an output stream.
      * @param hash SHA-256 hash of the blob
@@ -495,17 +564,16 @@ public interface BlobStore {
      * @return Hex-encoded hash
      */
     default String computeHash(byte[] data) {
-        try {
-            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(data);
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (java.security.NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
-        }
+        return java.util.HexFormat.of().formatHex(CryptoPool.sha256().digest(data));
+    }
+    
+    /**
+     * Compute the SHA-256 hash of data as a BlobId.
+     * @param data Data to hash
+     * @return Binary hash, equal to {@code BlobId.fromHex(computeHash(data))}
+     */
+    default BlobId computeId(byte[] data) {
+        return BlobId.of(CryptoPool.sha256().digest(data));
     }
     
     // ==================== Records ====================
@@ -0,0 +1,96 @@
+package io.supernode.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Writes a blob whose hash is not known until the last byte, for content that
+ * is produced incrementally. Bytes are hashed as they pass; once writing is
+ * done, {@link #hash()} seals the writer and {@link #commit()} stores the blob
+ * under that hash. Closing a writer that was not committed discards it.
+ *
+ * <p>Writers keep their own digest rather than borrowing {@link CryptoPool}'s,
+ * since they stay open across other hashing on the same thread.
+ */
+public abstract class BlobWriter extends OutputStream {
+
+    private final MessageDigest digest;
+    private String hash;
+    private long size;
+
+    protected BlobWriter() {
+        try {
+            this.digest = MessageDigest.getInstance(CryptoPool.SHA256);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (hash != null) {
+            throw new IllegalStateException("Blob writer already sealed");
+        }
+        digest.update(b, off, len);
+        size += len;
+        append(b, off, len);
+    }
+
+    /** SHA-256 of everything written; no further writes are accepted. */
+    public String hash() {
+        if (hash == null) {
+            hash = HexFormat.of().formatHex(digest.digest());
+        }
+        return hash;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** Stores the blob under {@link #hash()}; a no-op if the store already has it. */
+    public void commit() throws IOException {
+        store(hash());
+    }
+
+    protected abstract void append(byte[] b, int off, int len) throws IOException;
+
+    protected abstract void store(String hash) throws IOException;
+
+    /** Buffers on heap and stores through {@link BlobStore#put(String, byte[])}. */
+    static final class Buffered extends BlobWriter {
+        private final BlobStore store;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        Buffered(BlobStore store) {
+            this.store = store;
+        }
+
+        @Override
+        protected void append(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        protected void store(String hash) {
+            if (buffer == null) {
+                throw new IllegalStateException("Blob writer closed");
+            }
+            store.put(hash, buffer.toByteArray());
+        }
+
+        @Override
+        public void close() {
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.supernode.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of fixed-capacity byte buffers for the ingest and retrieve hot
+ * paths. Buffers released beyond the pool's capacity are dropped for the GC.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final boolean direct;
+    private final BlockingQueue<ByteBuffer> free;
+
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this(bufferSize, maxPooled, false);
+    }
+
+    public BufferPool(int bufferSize, int maxPooled, boolean direct) {
+        if (bufferSize <= 0 || maxPooled <= 0) {
+            throw new IllegalArgumentException("Buffer size and pool size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * Returns a cleared buffer of {@link #bufferSize()} bytes.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer != null) {
+            reused.incrementAndGet();
+            return buffer.clear();
+        }
+        allocated.incrementAndGet();
+        return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize && buffer.isDirect() == direct) {
+            free.offer(buffer);
+        }
+    }
+
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    public PoolStats stats() {
+        return new PoolStats(bufferSize, free.size(), allocated.get(), reused.get());
+    }
+
+    public record PoolStats(int bufferSize, int pooled, long allocated, long reused) {}
+}
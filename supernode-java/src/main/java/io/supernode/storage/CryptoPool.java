@@ -0,0 +1,149 @@
+package io.supernode.storage;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-thread cache of JCA primitives for the storage hot paths.
+ * {@code getInstance} does a provider lookup and allocates fresh engine state on
+ * every call, so each thread keeps one instance per algorithm and re-initializes
+ * it instead.
+ *
+ * <p>Instances are only valid on the calling thread and must not be held across
+ * a call that may borrow the same primitive again.
+ */
+public final class CryptoPool {
+
+    public static final String AES_GCM = "AES/GCM/NoPadding";
+    public static final String AES_CTR = "AES/CTR/NoPadding";
+    public static final String HMAC_SHA256 = "HmacSHA256";
+    public static final String SHA256 = "SHA-256";
+
+    private static final int GCM_TAG_SIZE = 128;
+
+    private static final AtomicLong created = new AtomicLong();
+    private static final AtomicLong reused = new AtomicLong();
+
+    private static final ThreadLocal<Cipher> GCM = ThreadLocal.withInitial(() -> newCipher(AES_GCM));
+    private static final ThreadLocal<Cipher> CTR = ThreadLocal.withInitial(() -> newCipher(AES_CTR));
+    private static final ThreadLocal<Mac> HMAC = ThreadLocal.withInitial(CryptoPool::newHmac);
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(CryptoPool::newDigest);
+
+    private CryptoPool() {}
+
+    /** This thread's AES/GCM/NoPadding cipher; callers must {@code init} it. */
+    public static Cipher aesGcm() {
+        return borrow(GCM);
+    }
+
+    /** This thread's AES/CTR/NoPadding cipher; callers must {@code init} it. */
+    public static Cipher aesCtr() {
+        return borrow(CTR);
+    }
+
+    /** This thread's HmacSHA256 instance; callers must {@code init} it. */
+    public static Mac hmacSha256() {
+        return borrow(HMAC);
+    }
+
+    /** This thread's SHA-256 digest, reset and ready for input. */
+    public static MessageDigest sha256() {
+        MessageDigest digest = borrow(DIGEST);
+        digest.reset();
+        return digest;
+    }
+
+    /**
+     * This thread's GCM cipher initialized for {@code mode} with a 128-bit tag.
+     * GCM refuses to encrypt twice in a row under the same key and nonce, which the
+     * zero-nonce mux format does for repeated chunks, so that case swaps in a
+     * fresh instance.
+     */
+    public static Cipher initGcm(int mode, byte[] key, byte[] nonce) throws GeneralSecurityException {
+        Cipher cipher = aesGcm();
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_SIZE, nonce);
+        try {
+            cipher.init(mode, keySpec, spec);
+        } catch (InvalidAlgorithmParameterException e) {
+            if (mode != Cipher.ENCRYPT_MODE) {
+                throw e;
+            }
+            cipher = newCipher(AES_GCM);
+            cipher.init(mode, keySpec, spec);
+            GCM.set(cipher);
+        }
+        return cipher;
+    }
+
+    /** HMAC-SHA256 of {@code data} under {@code key}. */
+    public static byte[] hmacSha256(byte[] key, byte[] data) {
+        try {
+            Mac hmac = hmacSha256();
+            hmac.init(new SecretKeySpec(key, HMAC_SHA256));
+            return hmac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    public static PoolStats stats() {
+        return new PoolStats(created.get(), reused.get());
+    }
+
+    private static <T> T borrow(ThreadLocal<T> local) {
+        T instance = local.get();
+        reused.incrementAndGet();
+        return instance;
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            Cipher cipher = Cipher.getInstance(transformation);
+            onCreate();
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(transformation + " not available", e);
+        }
+    }
+
+    private static Mac newHmac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            onCreate();
+            return mac;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(SHA256);
+            onCreate();
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    // A first borrow creates the instance and is counted by borrow() as well,
+    // so creations are subtracted back out of the reuse count
+    private static void onCreate() {
+        created.incrementAndGet();
+        reused.decrementAndGet();
+    }
+
+    /**
+     * @param created instances constructed via {@code getInstance}
+     * @param reused borrows served by an existing per-thread instance
+     */
+    public record PoolStats(long created, long reused) {}
+}
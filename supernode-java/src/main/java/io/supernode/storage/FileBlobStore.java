@@ -4,42 +4,72 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 /**
  * Persistent implementation of BlobStore using the local filesystem.
  * Uses a 2-level directory sharding scheme (ab/cd/hash) to avoid directory
- * limits.
+ * limits. A {@link BlobIndex} under {@code .index} tracks every blob and its
+ * size, so startup, {@code has}, {@code listHashes} and {@code stats} do not
+ * scan the directories.
  */
 public class FileBlobStore implements BlobStore {
 
+    /** Default bound on the bytes of blob files kept mapped by {@link #getMapped}. */
+    public static final long DEFAULT_MAPPED_CACHE_BYTES = 256L * 1024 * 1024;
+
+    /** Journal records between blob index snapshots. */
+    static final int INDEX_SNAPSHOT_INTERVAL = 100_000;
+
     private final Path rootDir;
     private final Path tempDir;
+    private final Path indexDir;
+    private final Path quarantineDir;
     private volatile ChunkingStrategy chunkingStrategy = ChunkingStrategy.defaults();
     private volatile BlobStoreOptions options = BlobStoreOptions.defaults();
     private volatile BlobCache cache;
+    private final MappedRegions mapped;
+    private final BlobIndex index;
 
     // Stats
-    private final AtomicLong blobCount = new AtomicLong();
-    private final AtomicLong totalBytes = new AtomicLong();
     private volatile Instant lastModified = Instant.now();
     private volatile Instant lastAccessed = Instant.now();
 
     public FileBlobStore(Path rootDir) {
+        this(rootDir, DEFAULT_MAPPED_CACHE_BYTES);
+    }
+
+    /**
+     * @param mappedCacheBytes total size of blob files whose mappings are kept
+     *        for reuse by {@link #getMapped}; 0 maps on every call
+     */
+    public FileBlobStore(Path rootDir, long mappedCacheBytes) {
         this.rootDir = rootDir;
         this.tempDir = rootDir.resolve(".temp");
+        this.indexDir = rootDir.resolve(".index");
+        this.quarantineDir = rootDir.resolve(".quarantine");
+        this.mapped = new MappedRegions(mappedCacheBytes);
         initializeDirectories();
-        calculateStats(); // Initial stats calculation
+        this.index = new BlobIndex(indexDir, INDEX_SNAPSHOT_INTERVAL, this::scanBlobs);
     }
 
     private void initializeDirectories() {
@@ -51,33 +81,38 @@ public class FileBlobStore implements BlobStore {
         }
     }
 
-    private void calculateStats() {
-        // Run in background to avoid blocking constructor
-        CompletableFuture.runAsync(() -> {
-            try (Stream<Path> walk = Files.walk(rootDir)) {
-                long[] stats = walk.filter(Files::isRegularFile)
-                        .filter(p -> !p.startsWith(tempDir))
-                        .mapToLong(p -> {
-                            try {
-                                return Files.size(p);
-                            } catch (IOException e) {
-                                return 0;
-                            }
-                        })
-                        .toArray();
-
-                blobCount.set(stats.length);
-                long bytes = 0;
-                for (long size : stats)
-                    bytes += size;
-                totalBytes.set(bytes);
-            } catch (IOException e) {
-                // Ignore error during stats calc
-            }
-        });
+    /** Walks the shard directories; only needed when the index is missing or corrupt. */
+    private Map<String, Long> scanBlobs() throws IOException {
+        Map<String, Long> blobs = new HashMap<>();
+        try (Stream<Path> walk = Files.walk(rootDir)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(p -> !p.startsWith(tempDir) && !p.startsWith(indexDir) && !p.startsWith(quarantineDir))
+                    .filter(p -> !p.getFileName().toString().startsWith("."))
+                    .forEach(p -> {
+                        try {
+                            blobs.put(p.getFileName().toString(), Files.size(p));
+                        } catch (IOException ignored) {
+                            // Deleted while scanning
+                        }
+                    });
+        }
+        return blobs;
+    }
+
+    /** Whether opening this store had to rebuild its index by scanning the directories. */
+    boolean indexRebuilt() {
+        return index.wasRebuilt();
     }
 
-    private Path getPathForHash(String hash) {
+    Path getRootDir() {
+        return rootDir;
+    }
+
+    Path getPathForHash(String hash) {
+        // Digests are filed under their lowercase form, as the index keys them
+        if (BlobId.isDigestHex(hash)) {
+            hash = hash.toLowerCase(Locale.ROOT);
+        }
         // 2-level sharding: ab/cd/abcdef...
         if (hash.length() < 4) {
             return rootDir.resolve(hash);
@@ -89,17 +124,36 @@ public class FileBlobStore implements BlobStore {
 
     @Override
     public void put(String hash, byte[] data) {
-        Path target = getPathForHash(hash);
-        if (Files.exists(target)) {
+        write(hash, ByteBuffer.wrap(data), data);
+    }
+
+    /**
+     * Writes the buffer straight to the blob file through a channel, so pooled or
+     * direct buffers never need an intermediate heap copy.
+     */
+    @Override
+    public void put(String hash, ByteBuffer data) {
+        write(hash, data.duplicate(), null);
+    }
+
+    private void write(String hash, ByteBuffer data, byte[] cacheable) {
+        if (index.contains(hash)) {
             return; // Deduplication: already exists
         }
+        Path target = getPathForHash(hash);
 
         try {
             Files.createDirectories(target.getParent());
 
             // Write to temp file first
+            int start = data.position();
+            int size = data.remaining();
             Path tempFile = Files.createTempFile(tempDir, "blob-", ".tmp");
-            Files.write(tempFile, data);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
 
             // Atomic move
             try {
@@ -108,12 +162,15 @@ public class FileBlobStore implements BlobStore {
                 Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
             }
 
-            blobCount.incrementAndGet();
-            totalBytes.addAndGet(data.length);
+            index.add(hash, size);
             lastModified = Instant.now();
 
             if (cache != null) {
-                cache.put(hash, data);
+                if (cacheable == null) {
+                    cacheable = new byte[size];
+                    data.get(start, cacheable);
+                }
+                cache.put(hash, cacheable);
             }
 
         } catch (IOException e) {
@@ -132,28 +189,68 @@ public class FileBlobStore implements BlobStore {
             }
         }
 
-        Path path = getPathForHash(hash);
-        if (!Files.exists(path)) {
+        if (!index.contains(hash)) {
             return Optional.empty();
         }
 
         try {
-            byte[] data = Files.readAllBytes(path);
+            byte[] data = Files.readAllBytes(getPathForHash(hash));
             if (cache != null) {
                 cache.put(hash, data);
             }
             return Optional.of(data);
+        } catch (NoSuchFileException e) {
+            return Optional.empty(); // Deleted since the index lookup
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to read blob " + hash, e);
         }
     }
 
+    /**
+     * Maps the blob file rather than reading it, so serving it never copies
+     * the bytes onto the Java heap. Blob files are immutable once moved into
+     * place, which makes a mapping safe to share; recently used mappings are
+     * kept up to the store's mapped cache size.
+     *
+     * @return a read-only buffer over the whole blob, or empty if not found
+     */
+    public Optional<ByteBuffer> getMapped(String hash) {
+        lastAccessed = Instant.now();
+
+        if (!index.contains(hash)) {
+            return Optional.empty();
+        }
+        MappedByteBuffer region = mapped.get(hash);
+        if (region == null) {
+            Path path = getPathForHash(hash);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                region = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map blob " + hash, e);
+            }
+            mapped.put(hash, region);
+        }
+        // A view per caller, so positions never leak between readers
+        return Optional.of(region.asReadOnlyBuffer());
+    }
+
+    @Override
+    public Optional<ByteBuffer> getBuffer(String hash) {
+        return getMapped(hash);
+    }
+
+    public MappedStats mappedStats() {
+        return mapped.stats();
+    }
+
     @Override
     public boolean has(String hash) {
         if (cache != null && cache.has(hash)) {
             return true;
         }
-        return Files.exists(getPathForHash(hash));
+        return index.contains(hash);
     }
 
     @Override
@@ -161,37 +258,61 @@ public class FileBlobStore implements BlobStore {
         if (cache != null) {
             cache.invalidate(hash);
         }
+        mapped.invalidate(hash);
 
         Path path = getPathForHash(hash);
         try {
-            if (Files.deleteIfExists(path)) {
-                blobCount.decrementAndGet();
-                // Note: Exact size update would require reading before delete or storing
-                // metadata.
-                // For performance, we settle for eventual consistency or recalculation.
-                // Or better: read size before delete
-                long size = 0; // We accept minor stat drift for performance here, or could read attrs
-                lastModified = Instant.now();
-
-                // Cleanup empty parent directories
-                try {
-                    Path parent = path.getParent();
-                    if (Files.list(parent).findAny().isEmpty())
-                        Files.deleteIfExists(parent);
-                    Path grandParent = parent.getParent();
-                    if (Files.list(grandParent).findAny().isEmpty())
-                        Files.deleteIfExists(grandParent);
-                } catch (IOException ignored) {
-                }
+            boolean deleted = Files.deleteIfExists(path);
+            // Forget the blob even if its file was already gone, so the index heals
+            if (index.remove(hash) < 0 && !deleted) {
+                return false;
+            }
+            lastModified = Instant.now();
 
-                return true;
+            // Cleanup empty parent directories
+            try {
+                Path parent = path.getParent();
+                if (Files.list(parent).findAny().isEmpty())
+                    Files.deleteIfExists(parent);
+                Path grandParent = parent.getParent();
+                if (Files.list(grandParent).findAny().isEmpty())
+                    Files.deleteIfExists(grandParent);
+            } catch (IOException ignored) {
             }
-            return false;
+
+            return true;
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to delete blob " + hash, e);
         }
     }
 
+    /**
+     * Moves a blob's file out of the store into {@code .quarantine}, where it
+     * is kept for inspection. The blob then reads as missing, as after
+     * {@link #delete}.
+     *
+     * @return false if the blob was not present
+     */
+    boolean quarantine(String hash) throws IOException {
+        if (cache != null) {
+            cache.invalidate(hash);
+        }
+        mapped.invalidate(hash);
+
+        Path path = getPathForHash(hash);
+        Files.createDirectories(quarantineDir);
+        boolean moved = true;
+        try {
+            Files.move(path, quarantineDir.resolve(path.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            moved = false;
+        }
+        // Forget the blob even if its file was already gone, so the index heals
+        index.remove(hash);
+        lastModified = Instant.now();
+        return moved;
+    }
+
     @Override
     public BlobStoreStats stats() {
         int cachedCount = 0;
@@ -203,10 +324,10 @@ public class FileBlobStore implements BlobStore {
         }
 
         return new BlobStoreStats(
-                (int) blobCount.get(),
-                totalBytes.get(),
+                index.count(),
+                index.totalBytes(),
                 rootDir.toFile().getFreeSpace(),
-                totalBytes.get(),
+                index.totalBytes(),
                 cachedCount,
                 cacheBytes,
                 lastModified,
@@ -215,11 +336,12 @@ public class FileBlobStore implements BlobStore {
 
     @Override
     public Optional<InputStream> getStream(String hash) {
-        Path path = getPathForHash(hash);
-        if (!Files.exists(path))
+        if (!index.contains(hash))
             return Optional.empty();
         try {
-            return Optional.of(Files.newInputStream(path));
+            return Optional.of(Files.newInputStream(getPathForHash(hash)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -227,17 +349,18 @@ public class FileBlobStore implements BlobStore {
 
     @Override
     public void putStream(String hash, InputStream data, long size) throws IOException {
-        Path target = getPathForHash(hash);
-        if (Files.exists(target)) {
+        if (index.contains(hash)) {
             data.transferTo(OutputStream.nullOutputStream()); // Consume stream
             return;
         }
 
+        Path target = getPathForHash(hash);
         Files.createDirectories(target.getParent());
         Path tempFile = Files.createTempFile(tempDir, "blob-stream-", ".tmp");
 
+        long written;
         try (OutputStream out = Files.newOutputStream(tempFile)) {
-            data.transferTo(out);
+            written = data.transferTo(out);
         }
 
         try {
@@ -246,11 +369,72 @@ public class FileBlobStore implements BlobStore {
             Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
         }
 
-        blobCount.incrementAndGet();
-        totalBytes.addAndGet(size);
+        // Index what actually arrived, not the size the caller announced
+        index.add(hash, written);
         lastModified = Instant.now();
     }
 
+    /**
+     * Streams the blob into a temp file and moves it into place on commit, so
+     * large blobs never sit on heap.
+     */
+    @Override
+    public BlobWriter openWriter() {
+        try {
+            return new TempFileWriter(Files.createTempFile(tempDir, "blob-writer-", ".tmp"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open blob writer", e);
+        }
+    }
+
+    private final class TempFileWriter extends BlobWriter {
+        private final Path tempFile;
+        private final OutputStream out;
+        private boolean closed;
+
+        TempFileWriter(Path tempFile) throws IOException {
+            this.tempFile = tempFile;
+            this.out = new java.io.BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024);
+        }
+
+        @Override
+        protected void append(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        protected void store(String hash) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("Blob writer closed");
+            }
+            out.close();
+            if (index.contains(hash)) {
+                close();
+                return;
+            }
+            Path target = getPathForHash(hash);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            closed = true;
+
+            index.add(hash, size());
+            lastModified = Instant.now();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
     @Override
     public ChunkingStrategy getChunkingStrategy() {
         return chunkingStrategy;
@@ -283,20 +467,60 @@ public class FileBlobStore implements BlobStore {
 
     @Override
     public List<String> listHashes() {
-        try (Stream<Path> walk = Files.walk(rootDir)) {
-            return walk.filter(Files::isRegularFile)
-                    .filter(p -> !p.startsWith(tempDir))
-                    .map(Path::getFileName)
-                    .map(Path::toString)
-                    .filter(name -> !name.startsWith("."))
-                    .toList();
+        return index.hashes();
+    }
+
+    /**
+     * Lists up to {@code limit} hashes that sort after {@code cursor}, in
+     * shard-directory order. Hash order and directory order agree, so only the
+     * directories at or past the cursor are opened.
+     *
+     * @param cursor last hash already visited, or {@code null} to start from the beginning
+     */
+    List<String> listHashesAfter(String cursor, int limit) {
+        List<String> hashes = new ArrayList<>();
+        String from = cursor == null ? "" : cursor;
+        try {
+            for (Path first : sortedChildren(rootDir, Files::isDirectory)) {
+                String a = first.getFileName().toString();
+                if (a.length() != 2 || a.compareTo(prefix(from, 2)) < 0) continue;
+                for (Path second : sortedChildren(first, Files::isDirectory)) {
+                    String b = a + second.getFileName().toString();
+                    if (b.compareTo(prefix(from, 4)) < 0) continue;
+                    for (Path blob : sortedChildren(second, Files::isRegularFile)) {
+                        String hash = blob.getFileName().toString();
+                        if (hash.compareTo(from) <= 0) continue;
+                        hashes.add(hash);
+                        if (hashes.size() >= limit) return hashes;
+                    }
+                }
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        return hashes;
+    }
+
+    private static String prefix(String s, int length) {
+        return s.substring(0, Math.min(length, s.length()));
+    }
+
+    private static List<Path> sortedChildren(Path dir, java.util.function.Predicate<Path> filter) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(p -> !p.getFileName().toString().startsWith("."))
+                    .filter(filter)
+                    .sorted()
+                    .toList();
+        }
     }
 
     @Override
     public CompletableFuture<Void> shutdown() {
+        mapped.clear();
+        index.close();
         // Cleanup temp dir
         try (Stream<Path> walk = Files.walk(tempDir)) {
             walk.sorted((a, b) -> b.compareTo(a)) // Delete children first
@@ -310,4 +534,61 @@ public class FileBlobStore implements BlobStore {
         }
         return CompletableFuture.completedFuture(null);
     }
+
+    /**
+     * LRU of blob mappings bounded by total mapped bytes. Evicted mappings are
+     * released by the GC once no buffer handed out still refers to them.
+     */
+    private static final class MappedRegions {
+        private final long maxBytes;
+        private final LinkedHashMap<String, MappedByteBuffer> regions = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+        private long hits;
+        private long misses;
+
+        MappedRegions(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized MappedByteBuffer get(String hash) {
+            MappedByteBuffer region = regions.get(hash);
+            if (region != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return region;
+        }
+
+        synchronized void put(String hash, MappedByteBuffer region) {
+            if (region.capacity() > maxBytes || regions.containsKey(hash)) {
+                return;
+            }
+            regions.put(hash, region);
+            bytes += region.capacity();
+            Iterator<MappedByteBuffer> eldest = regions.values().iterator();
+            while (bytes > maxBytes) {
+                bytes -= eldest.next().capacity();
+                eldest.remove();
+            }
+        }
+
+        synchronized void invalidate(String hash) {
+            MappedByteBuffer region = regions.remove(hash);
+            if (region != null) {
+                bytes -= region.capacity();
+            }
+        }
+
+        synchronized void clear() {
+            regions.clear();
+            bytes = 0;
+        }
+
+        synchronized MappedStats stats() {
+            return new MappedStats(regions.size(), bytes, hits, misses);
+        }
+    }
+
+    public record MappedStats(int regions, long mappedBytes, long hits, long misses) {}
 }
@@ -12,7 +12,8 @@ import java.util.concurrent.atomic.AtomicLong;
 
 public class InMemoryBlobStore implements BlobStore {
     
-    private final Map<String, BlobData> blobs = new ConcurrentHashMap<>();
+    // Keyed by BlobKey, so digests are held as four longs rather than hex
+    private final Map<BlobKey, BlobData> blobs = new ConcurrentHashMap<>();
     private final AtomicLong cacheHits = new AtomicLong();
     private final AtomicLong cacheMisses = new AtomicLong();
     private volatile BlobCache cache;
@@ -23,7 +24,7 @@ public class InMemoryBlobStore implements BlobStore {
     
     @Override
     public void put(String hash, byte[] data) {
-        blobs.put(hash, new BlobData(data.clone(), Instant.now()));
+        blobs.put(BlobKey.of(hash), new BlobData(data.clone(), Instant.now()));
         lastModified = Instant.now();
         
         if (cache != null) {
@@ -44,7 +45,7 @@ public class InMemoryBlobStore implements BlobStore {
             cacheMisses.incrementAndGet();
         }
         
-        BlobData data = blobs.get(hash);
+        BlobData data = blobs.get(BlobKey.of(hash));
         if (data != null) {
             byte[] result = data.data.clone();
             if (cache != null) {
@@ -60,7 +61,7 @@ public class InMemoryBlobStore implements BlobStore {
         if (cache != null && cache.has(hash)) {
             return true;
         }
-        return blobs.containsKey(hash);
+        return blobs.containsKey(BlobKey.of(hash));
     }
     
     @Override
@@ -68,7 +69,46 @@ public class InMemoryBlobStore implements BlobStore {
         if (cache != null) {
             cache.invalidate(hash);
         }
-        boolean removed = blobs.remove(hash) != null;
+        boolean removed = blobs.remove(BlobKey.of(hash)) != null;
+        if (removed) {
+            lastModified = Instant.now();
+        }
+        return removed;
+    }
+    
+    // The cache is keyed by hex, so only the uncached path can skip the conversion
+
+    @Override
+    public void put(BlobId id, byte[] data) {
+        if (cache != null) {
+            put(id.toHex(), data);
+            return;
+        }
+        blobs.put(id, new BlobData(data.clone(), Instant.now()));
+        lastModified = Instant.now();
+    }
+    
+    @Override
+    public Optional<byte[]> get(BlobId id) {
+        if (cache != null) {
+            return get(id.toHex());
+        }
+        lastAccessed = Instant.now();
+        BlobData data = blobs.get(id);
+        return data == null ? Optional.empty() : Optional.of(data.data.clone());
+    }
+    
+    @Override
+    public boolean has(BlobId id) {
+        return cache != null ? has(id.toHex()) : blobs.containsKey(id);
+    }
+    
+    @Override
+    public boolean delete(BlobId id) {
+        if (cache != null) {
+            return delete(id.toHex());
+        }
+        boolean removed = blobs.remove(id) != null;
         if (removed) {
             lastModified = Instant.now();
         }
@@ -108,7 +148,7 @@ public class InMemoryBlobStore implements BlobStore {
     
     @Override
     public Optional<BlobMetadata> getMetadata(String hash) {
-        BlobData data = blobs.get(hash);
+        BlobData data = blobs.get(BlobKey.of(hash));
         if (data == null) {
             return Optional.empty();
         }
@@ -124,7 +164,11 @@ public class InMemoryBlobStore implements BlobStore {
     
     @Override
     public List<String> listHashes() {
-        return new ArrayList<>(blobs.keySet());
+        List<String> hashes = new ArrayList<>(blobs.size());
+        for (BlobKey key : blobs.keySet()) {
+            hashes.add(key.hash());
+        }
+        return hashes;
     }
     
     @Override
@@ -21,7 +21,8 @@ public class LRUBlobCache implements BlobCache {
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private volatile CacheOptions options;
 
-    private LinkedHashMap<String, byte[]> cacheMap;
+    // Keyed by BlobKey, so digests are held as four longs rather than hex
+    private LinkedHashMap<BlobKey, byte[]> cacheMap;
     
     // Stats
     private final AtomicLong hits = new AtomicLong();
@@ -45,13 +46,13 @@ public class LRUBlobCache implements BlobCache {
             this.options = options;
             
             // Re-initialize map with new capacity constraints
-            LinkedHashMap<String, byte[]> oldMap = this.cacheMap;
+            LinkedHashMap<BlobKey, byte[]> oldMap = this.cacheMap;
             
             this.cacheMap = new LinkedHashMap<>(16, 0.75f, true);
             
             if (oldMap != null) {
                 // Pre-fill with old data, which might trigger evictions naturally
-                for (Map.Entry<String, byte[]> entry : oldMap.entrySet()) {
+                for (Map.Entry<BlobKey, byte[]> entry : oldMap.entrySet()) {
                     this.cacheMap.put(entry.getKey(), entry.getValue());
                 }
             }
@@ -81,7 +82,7 @@ public class LRUBlobCache implements BlobCache {
     public Optional<byte[]> get(String hash) {
         lock.readLock().lock();
         try {
-            byte[] data = cacheMap.get(hash);
+            byte[] data = cacheMap.get(BlobKey.of(hash));
             if (data != null) {
                 hits.incrementAndGet();
                 return Optional.of(data);
@@ -100,7 +101,7 @@ public class LRUBlobCache implements BlobCache {
         
         lock.writeLock().lock();
         try {
-            byte[] oldData = cacheMap.put(hash, data);
+            byte[] oldData = cacheMap.put(BlobKey.of(hash), data);
             
             if (oldData != null) {
                 currentBytes.addAndGet(data.length - oldData.length);
@@ -117,7 +118,7 @@ public class LRUBlobCache implements BlobCache {
     public boolean has(String hash) {
         lock.readLock().lock();
         try {
-            return cacheMap.containsKey(hash);
+            return cacheMap.containsKey(BlobKey.of(hash));
         } finally {
             lock.readLock().unlock();
         }
@@ -127,7 +128,7 @@ public class LRUBlobCache implements BlobCache {
     public void invalidate(String hash) {
         lock.writeLock().lock();
         try {
-            byte[] removed = cacheMap.remove(hash);
+            byte[] removed = cacheMap.remove(BlobKey.of(hash));
             if (removed != null) {
                 currentBytes.addAndGet(-removed.length);
             }
@@ -0,0 +1,588 @@
+package io.supernode.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * RAM-backed BlobStore that keeps blob bytes outside the Java heap, for hot
+ * tiers far larger than {@link InMemoryBlobStore}'s byte[] per blob can hold
+ * without long GC pauses. The heap holds only a handful of primitive arrays
+ * whatever the blob count, so collection cost stays flat as the tier grows.
+ *
+ * <p>Blob bytes live in direct-buffer slabs of {@code slabBytes}, allocated on
+ * demand up to {@code capacityBytes}. Each blob takes one power-of-two block
+ * from a per-size free list, split from a larger free block or carved from the
+ * current slab when the list is empty. Freed blocks go back to their list and
+ * are not merged, so the store suits workloads of similar-sized blobs such as
+ * erasure shards. A blob must fit in one slab.
+ *
+ * <p>The index is an open-addressing table over parallel arrays holding the
+ * digest as four longs, so it costs about 65 bytes per blob. Keys that are not
+ * hex digests are indexed by the SHA-256 of their text and kept in the
+ * block so {@link #listHashes} can return them.
+ */
+public class OffHeapBlobStore implements BlobStore {
+
+    public static final int DEFAULT_SLAB_BYTES = 256 * 1024 * 1024;
+
+    private static final int MIN_BLOCK_SHIFT = 6; // 64-byte smallest block
+    private static final int HEADER_BYTES = 2; // u16 name length
+    private static final byte EMPTY = 0;
+    private static final byte DIGEST = 1;
+    private static final byte NAMED = 2;
+    private static final byte DELETED = 3;
+
+    private final long capacityBytes;
+    private final int slabBytes;
+    private final int maxBlockShift;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Allocator, guarded by lock
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int slabTail;
+    private final LongStack[] freeLists;
+    private long blockBytes;
+    private long freeBytes;
+    private long dataBytes;
+
+    // Index, guarded by lock
+    private long[] keys;      // 4 digest words per slot
+    private long[] locations; // slab << 32 | offset
+    private int[] lengths;
+    private byte[] states;
+    private int size;
+    private int occupied;     // live plus deleted slots
+
+    private volatile BlobCache cache;
+    private volatile ChunkingStrategy chunkingStrategy = ChunkingStrategy.defaults();
+    private volatile BlobStoreOptions options = BlobStoreOptions.defaults();
+    private volatile Instant lastModified = Instant.now();
+    private volatile Instant lastAccessed = Instant.now();
+
+    /** Uses {@link #DEFAULT_SLAB_BYTES} slabs, or one slab if the capacity is smaller. */
+    public OffHeapBlobStore(long capacityBytes) {
+        this(capacityBytes, (int) Math.min(DEFAULT_SLAB_BYTES, Long.highestOneBit(capacityBytes)));
+    }
+
+    /**
+     * @param capacityBytes total off-heap memory the slabs may take
+     * @param slabBytes size of each slab, a power of two of at least 64 KiB;
+     *        also the largest blob the store accepts
+     */
+    public OffHeapBlobStore(long capacityBytes, int slabBytes) {
+        if (slabBytes < 64 * 1024 || Integer.bitCount(slabBytes) != 1) {
+            throw new IllegalArgumentException("Slab size must be a power of two of at least 64 KiB: " + slabBytes);
+        }
+        if (capacityBytes < slabBytes) {
+            throw new IllegalArgumentException("Capacity must hold at least one slab");
+        }
+        this.capacityBytes = capacityBytes;
+        this.slabBytes = slabBytes;
+        this.maxBlockShift = Integer.numberOfTrailingZeros(slabBytes);
+        this.freeLists = new LongStack[maxBlockShift + 1];
+        for (int i = MIN_BLOCK_SHIFT; i <= maxBlockShift; i++) {
+            freeLists[i] = new LongStack();
+        }
+        resetIndex(1024);
+    }
+
+    // ==================== BlobStore ====================
+
+    @Override
+    public void put(String hash, byte[] data) {
+        store(Key.of(hash), ByteBuffer.wrap(data));
+        if (cache != null) {
+            cache.put(hash, data);
+        }
+    }
+
+    /** Copies the buffer straight into the slab, without a heap array in between. */
+    @Override
+    public void put(String hash, ByteBuffer data) {
+        store(Key.of(hash), data.duplicate());
+    }
+
+    @Override
+    public void put(BlobId id, byte[] data) {
+        if (cache != null) {
+            put(id.toHex(), data);
+            return;
+        }
+        store(Key.of(id), ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) {
+        if (cache != null) {
+            Optional<byte[]> cached = cache.get(hash);
+            if (cached.isPresent()) {
+                lastAccessed = Instant.now();
+                return cached;
+            }
+        }
+        Optional<byte[]> data = load(Key.of(hash));
+        if (cache != null) {
+            data.ifPresent(bytes -> cache.put(hash, bytes));
+        }
+        return data;
+    }
+
+    @Override
+    public Optional<byte[]> get(BlobId id) {
+        return cache != null ? get(id.toHex()) : load(Key.of(id));
+    }
+
+    @Override
+    public boolean has(String hash) {
+        if (cache != null && cache.has(hash)) {
+            return true;
+        }
+        return contains(Key.of(hash));
+    }
+
+    @Override
+    public boolean has(BlobId id) {
+        return contains(Key.of(id));
+    }
+
+    @Override
+    public boolean delete(String hash) {
+        if (cache != null) {
+            cache.invalidate(hash);
+        }
+        return remove(Key.of(hash));
+    }
+
+    @Override
+    public boolean delete(BlobId id) {
+        if (cache != null) {
+            cache.invalidate(id.toHex());
+        }
+        return remove(Key.of(id));
+    }
+
+    @Override
+    public BlobStoreStats stats() {
+        int cachedCount = 0;
+        long cacheBytes = 0;
+        if (cache != null) {
+            CacheStats cs = cache.stats();
+            cachedCount = cs.cachedCount();
+            cacheBytes = cs.cachedBytes();
+        }
+
+        lock.readLock().lock();
+        try {
+            return new BlobStoreStats(
+                size,
+                dataBytes,
+                capacityBytes - blockBytes,
+                blockBytes,
+                cachedCount,
+                cacheBytes,
+                lastModified,
+                lastAccessed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public OffHeapStats offHeapStats() {
+        lock.readLock().lock();
+        try {
+            return new OffHeapStats(size, slabs.size(), (long) slabs.size() * slabBytes,
+                blockBytes, freeBytes, dataBytes, keys.length / 4);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> listHashes() {
+        lock.readLock().lock();
+        try {
+            List<String> hashes = new ArrayList<>(size);
+            for (int slot = 0; slot < states.length; slot++) {
+                if (states[slot] == DIGEST) {
+                    int k = slot * 4;
+                    hashes.add(BlobId.ofWords(keys[k], keys[k + 1], keys[k + 2], keys[k + 3]).toHex());
+                } else if (states[slot] == NAMED) {
+                    hashes.add(readName(locations[slot]));
+                }
+            }
+            return hashes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Drops every blob and releases the slabs. */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slabs.clear();
+            slabTail = 0;
+            for (int i = MIN_BLOCK_SHIFT; i <= maxBlockShift; i++) {
+                freeLists[i] = new LongStack();
+            }
+            blockBytes = 0;
+            freeBytes = 0;
+            dataBytes = 0;
+            resetIndex(1024);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (cache != null) {
+            cache.clear();
+        }
+        lastModified = Instant.now();
+    }
+
+    // ==================== Storage ====================
+
+    private void store(Key key, ByteBuffer data) {
+        int length = data.remaining();
+        int blockSize = HEADER_BYTES + key.name.length + length;
+        if (blockSize > slabBytes) {
+            throw new IllegalArgumentException("Blob of " + length + " bytes does not fit a " + slabBytes + "-byte slab");
+        }
+        lock.writeLock().lock();
+        try {
+            if (find(key) >= 0) {
+                return; // Deduplication: already exists
+            }
+            int shift = blockShift(blockSize);
+            long location = allocate(shift);
+            ByteBuffer slab = slabs.get(slabOf(location));
+            int offset = offsetOf(location);
+            slab.putShort(offset, (short) key.name.length);
+            slab.put(offset + HEADER_BYTES, key.name);
+            slab.put(offset + HEADER_BYTES + key.name.length, data, data.position(), length);
+
+            insert(key, location, length);
+            blockBytes += 1L << shift;
+            dataBytes += length;
+            lastModified = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Optional<byte[]> load(Key key) {
+        lastAccessed = Instant.now();
+        lock.readLock().lock();
+        try {
+            int slot = find(key);
+            if (slot < 0) {
+                return Optional.empty();
+            }
+            long location = locations[slot];
+            ByteBuffer slab = slabs.get(slabOf(location));
+            int offset = offsetOf(location);
+            byte[] data = new byte[lengths[slot]];
+            // Absolute reads leave the slab's position alone, so readers can share it
+            slab.get(offset + HEADER_BYTES + Short.toUnsignedInt(slab.getShort(offset)), data);
+            return Optional.of(data);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean contains(Key key) {
+        lock.readLock().lock();
+        try {
+            return find(key) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean remove(Key key) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(key);
+            if (slot < 0) {
+                return false;
+            }
+            long location = locations[slot];
+            int nameLength = Short.toUnsignedInt(slabs.get(slabOf(location)).getShort(offsetOf(location)));
+            int shift = blockShift(HEADER_BYTES + nameLength + lengths[slot]);
+            release(location, shift);
+            blockBytes -= 1L << shift;
+            dataBytes -= lengths[slot];
+
+            states[slot] = DELETED;
+            size--;
+            lastModified = Instant.now();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String readName(long location) {
+        ByteBuffer slab = slabs.get(slabOf(location));
+        int offset = offsetOf(location);
+        byte[] name = new byte[Short.toUnsignedInt(slab.getShort(offset))];
+        slab.get(offset + HEADER_BYTES, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    // ==================== Allocator ====================
+
+    private static int blockShift(int bytes) {
+        return Math.max(MIN_BLOCK_SHIFT, 32 - Integer.numberOfLeadingZeros(bytes - 1));
+    }
+
+    // Callers hold the write lock
+    private long allocate(int shift) {
+        if (!freeLists[shift].isEmpty()) {
+            freeBytes -= 1L << shift;
+            return freeLists[shift].pop();
+        }
+        if (!slabs.isEmpty() && slabTail + (1L << shift) <= slabBytes) {
+            return bump(shift);
+        }
+        // Split the smallest larger free block, keeping the unused halves
+        for (int larger = shift + 1; larger <= maxBlockShift; larger++) {
+            if (!freeLists[larger].isEmpty()) {
+                long block = freeLists[larger].pop();
+                freeBytes -= 1L << larger;
+                for (int half = larger - 1; half >= shift; half--) {
+                    release(block + (1L << half), half);
+                }
+                return block;
+            }
+        }
+        if ((long) (slabs.size() + 1) * slabBytes > capacityBytes) {
+            throw new IllegalStateException("Off-heap blob store is full: " + capacityBytes + " bytes");
+        }
+        if (!slabs.isEmpty()) {
+            retireTail();
+        }
+        slabs.add(ByteBuffer.allocateDirect(slabBytes));
+        slabTail = 0;
+        return bump(shift);
+    }
+
+    private long bump(int shift) {
+        long location = ((long) (slabs.size() - 1) << 32) | slabTail;
+        slabTail += 1 << shift;
+        return location;
+    }
+
+    /** Hands what is left of the current slab to the free lists before starting a new one. */
+    private void retireTail() {
+        long base = (long) (slabs.size() - 1) << 32;
+        while (slabBytes - slabTail >= 1 << MIN_BLOCK_SHIFT) {
+            int shift = 31 - Integer.numberOfLeadingZeros(slabBytes - slabTail);
+            release(base | slabTail, shift);
+            slabTail += 1 << shift;
+        }
+    }
+
+    private void release(long location, int shift) {
+        freeLists[shift].push(location);
+        freeBytes += 1L << shift;
+    }
+
+    private static int slabOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    // ==================== Index ====================
+
+    private void resetIndex(int capacity) {
+        keys = new long[capacity * 4];
+        locations = new long[capacity];
+        lengths = new int[capacity];
+        states = new byte[capacity];
+        size = 0;
+        occupied = 0;
+    }
+
+    private static int mix(long word) {
+        // Key words are SHA-256 output, so folding one word is enough
+        return (int) (word ^ (word >>> 32));
+    }
+
+    private int find(Key key) {
+        int mask = states.length - 1;
+        for (int slot = mix(key.w0) & mask; ; slot = (slot + 1) & mask) {
+            byte state = states[slot];
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == key.kind && matches(slot, key)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(int slot, Key key) {
+        int k = slot * 4;
+        return keys[k] == key.w0 && keys[k + 1] == key.w1 && keys[k + 2] == key.w2 && keys[k + 3] == key.w3;
+    }
+
+    // Callers have checked the key is absent
+    private void insert(Key key, long location, int length) {
+        if ((occupied + 1) * 10L > states.length * 7L) {
+            rehash(Math.max(1024, Integer.highestOneBit(Math.max(1, size) * 4)));
+        }
+        int mask = states.length - 1;
+        int slot = mix(key.w0) & mask;
+        while (states[slot] == DIGEST || states[slot] == NAMED) {
+            slot = (slot + 1) & mask;
+        }
+        if (states[slot] == EMPTY) {
+            occupied++;
+        }
+        int k = slot * 4;
+        keys[k] = key.w0;
+        keys[k + 1] = key.w1;
+        keys[k + 2] = key.w2;
+        keys[k + 3] = key.w3;
+        locations[slot] = location;
+        lengths[slot] = length;
+        states[slot] = key.kind;
+        size++;
+    }
+
+    /** Rebuilds the table at {@code capacity}, dropping deleted slots. */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldLocations = locations;
+        int[] oldLengths = lengths;
+        byte[] oldStates = states;
+        resetIndex(capacity);
+        int mask = capacity - 1;
+        for (int old = 0; old < oldStates.length; old++) {
+            if (oldStates[old] != DIGEST && oldStates[old] != NAMED) continue;
+            int slot = mix(oldKeys[old * 4]) & mask;
+            while (states[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(oldKeys, old * 4, keys, slot * 4, 4);
+            locations[slot] = oldLocations[old];
+            lengths[slot] = oldLengths[old];
+            states[slot] = oldStates[old];
+            size++;
+            occupied++;
+        }
+    }
+
+    // ==================== Configuration ====================
+
+    @Override
+    public ChunkingStrategy getChunkingStrategy() {
+        return chunkingStrategy;
+    }
+
+    @Override
+    public void setChunkingStrategy(ChunkingStrategy strategy) {
+        this.chunkingStrategy = strategy;
+    }
+
+    @Override
+    public Optional<BlobCache> getCache() {
+        return Optional.ofNullable(cache);
+    }
+
+    @Override
+    public void setCache(BlobCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public BlobStoreOptions getOptions() {
+        return options;
+    }
+
+    @Override
+    public void configure(BlobStoreOptions options) {
+        this.options = options;
+    }
+
+    /** Releases the slabs; the store is empty afterwards. */
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        clear();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // ==================== Types ====================
+
+    /**
+     * Index key: digest words plus whether they are the hash itself or the
+     * SHA-256 of a non-digest name, which is then stored with the blob.
+     */
+    private record Key(byte kind, long w0, long w1, long w2, long w3, byte[] name) {
+        private static final byte[] NO_NAME = new byte[0];
+
+        static Key of(BlobId id) {
+            return new Key(DIGEST, id.word(0), id.word(1), id.word(2), id.word(3), NO_NAME);
+        }
+
+        static Key of(String hash) {
+            if (BlobId.isDigestHex(hash)) {
+                return of(BlobId.fromHex(hash));
+            }
+            byte[] name = hash.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new IllegalArgumentException("Hash too long: " + hash.length());
+            }
+            BlobId digest = BlobId.of(CryptoPool.sha256().digest(name));
+            return new Key(NAMED, digest.word(0), digest.word(1), digest.word(2), digest.word(3), name);
+        }
+    }
+
+    /** Growable stack of block locations, one per block size. */
+    private static final class LongStack {
+        private long[] items = new long[16];
+        private int count;
+
+        void push(long value) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+            }
+            items[count++] = value;
+        }
+
+        long pop() {
+            return items[--count];
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+    }
+
+    /**
+     * @param slabBytes off-heap memory reserved by slabs so far
+     * @param blockBytes bytes of blocks holding live blobs, headers and rounding included
+     * @param freeBytes bytes of blocks on the free lists
+     * @param dataBytes bytes of live blob data
+     * @param indexSlots capacity of the open-addressing index
+     */
+    public record OffHeapStats(
+        int blobs,
+        int slabs,
+        long slabBytes,
+        long blockBytes,
+        long freeBytes,
+        long dataBytes,
+        int indexSlots
+    ) {}
+}
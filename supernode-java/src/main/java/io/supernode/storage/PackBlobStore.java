@@ -0,0 +1,760 @@
+package io.supernode.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Log-structured BlobStore for many small blobs such as erasure shards. Blobs
+ * are appended to a few large segment files and found through an in-memory
+ * index of hash to (segment, offset, length), so a put is one append to an
+ * open file instead of a temp file, a write and a rename.
+ *
+ * <p>Every record carries a CRC. Deletes append a tombstone. The index is
+ * checkpointed to disk on a background thread once enough log has been
+ * written since the last checkpoint (see {@link PackOptions#checkpointBytes}),
+ * and on {@link #shutdown()}; opening a store loads the checkpoint and replays
+ * only the log written after it, truncating a torn record at the tail.
+ * Writers only wait for the checkpoint to note the log position: the index is
+ * streamed out while they carry on, and replaying from that position repairs
+ * whatever changed under the stream. Sealed segments whose dead fraction
+ * reaches {@link PackOptions#compactionThreshold} have their live blobs copied
+ * forward, one blob per hold of the append lock, and are removed after the
+ * next checkpoint.
+ */
+public class PackBlobStore implements BlobStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".pack";
+    private static final String CHECKPOINT = "index.checkpoint";
+    private static final int CHECKPOINT_MAGIC = 0x534E504B; // "SNPK"
+    private static final int CHECKPOINT_VERSION = 2;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path rootDir;
+    private final PackOptions packOptions;
+    // Keyed by BlobKey, so digests are held as four longs rather than hex
+    private final Map<BlobKey, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object appendLock = new Object();
+    // Serializes checkpoints and compactions; taken before appendLock, never while holding it
+    private final Object checkpointLock = new Object();
+    private final ExecutorService maintenance;
+
+    private Segment active; // guarded by appendLock
+    private long logSinceCheckpoint; // guarded by appendLock; record bytes appended since the last snapshot
+    private long lastCheckpointBytes; // guarded by appendLock
+    private boolean checkpointScheduled; // guarded by appendLock
+    private boolean closed; // guarded by appendLock
+    private int checkpointedSegment; // guarded by checkpointLock; segments from here on may be unsynced
+
+    private volatile ChunkingStrategy chunkingStrategy = ChunkingStrategy.defaults();
+    private volatile BlobStoreOptions options = BlobStoreOptions.defaults();
+    private volatile BlobCache cache;
+
+    // Stats
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private volatile Instant lastModified = Instant.now();
+    private volatile Instant lastAccessed = Instant.now();
+
+    public PackBlobStore(Path rootDir) {
+        this(rootDir, PackOptions.defaults());
+    }
+
+    public PackBlobStore(Path rootDir, PackOptions packOptions) {
+        this.rootDir = rootDir;
+        this.packOptions = packOptions;
+        this.maintenance = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "pack-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Files.createDirectories(rootDir);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open pack store " + rootDir, e);
+        }
+    }
+
+    // ==================== Recovery ====================
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> list = Files.list(rootDir)) {
+            list.map(p -> p.getFileName().toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .forEach(ids::add);
+        }
+
+        long[] replayFrom = loadCheckpoint();
+        int checkpointSegment = (int) replayFrom[0];
+        checkpointedSegment = checkpointSegment;
+        for (int id : ids) {
+            Segment segment = new Segment(id, segmentPath(id));
+            segments.put(id, segment);
+            if (id > checkpointSegment) {
+                replay(segment, 0);
+            } else if (id == checkpointSegment) {
+                replay(segment, replayFrom[1]);
+            }
+        }
+
+        // Entries whose segment is gone (a crash after compaction removed it) or whose
+        // record was torn off its tail (written after the checkpoint's position) cannot be served
+        index.values().removeIf(location -> {
+            Segment segment = segments.get(location.segment());
+            return segment == null || location.offset() + location.length() + 4 > segment.size;
+        });
+        for (Location location : index.values()) {
+            segments.get(location.segment()).liveBytes.addAndGet(location.length());
+            totalBytes.addAndGet(location.length());
+        }
+
+        active = segments.isEmpty() ? openSegment(1) : segments.lastEntry().getValue();
+    }
+
+    /** @return {segment, offset} to replay from; segment 0 replays everything */
+    private long[] loadCheckpoint() throws IOException {
+        Path path = rootDir.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return new long[]{0, 0};
+        }
+        Map<BlobKey, Location> loaded = new HashMap<>();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 64 * 1024), crc))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                return new long[]{0, 0};
+            }
+            int segment = in.readInt();
+            long offset = in.readLong();
+            while (in.readBoolean()) {
+                String hash = in.readUTF();
+                loaded.put(BlobKey.of(hash), new Location(in.readInt(), in.readLong(), in.readInt()));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                return new long[]{0, 0};
+            }
+            index.putAll(loaded);
+            return new long[]{segment, offset};
+        } catch (EOFException e) {
+            // Torn checkpoint: fall back to replaying the whole log
+            return new long[]{0, 0};
+        }
+    }
+
+    /**
+     * Applies the records of {@code segment} from {@code start}. A short or
+     * corrupt record ends the log; it and anything after it are truncated.
+     */
+    private void replay(Segment segment, long start) throws IOException {
+        FileChannel channel = segment.channel();
+        long size = channel.size();
+        long position = start;
+        channel.position(start);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+        CRC32 crc = new CRC32();
+        while (position < size) {
+            try {
+                crc.reset();
+                byte type = in.readByte();
+                int hashLength = in.readUnsignedShort();
+                byte[] hashBytes = new byte[hashLength];
+                in.readFully(hashBytes);
+                int length = in.readInt();
+                if (length < 0 || (type != PUT && type != DELETE) || (type == DELETE && length != 0)) break;
+                crc.update(type);
+                crc.update(hashLength >>> 8);
+                crc.update(hashLength);
+                crc.update(hashBytes);
+                updateInt(crc, length);
+                byte[] chunk = new byte[Math.min(length, 64 * 1024)];
+                for (int remaining = length; remaining > 0; ) {
+                    int n = Math.min(remaining, chunk.length);
+                    in.readFully(chunk, 0, n);
+                    crc.update(chunk, 0, n);
+                    remaining -= n;
+                }
+                if (in.readInt() != (int) crc.getValue()) break;
+
+                String hash = new String(hashBytes, StandardCharsets.UTF_8);
+                long dataOffset = position + headerSize(hashLength);
+                if (type == PUT) {
+                    index.put(BlobKey.of(hash), new Location(segment.id, dataOffset, length));
+                } else {
+                    index.remove(BlobKey.of(hash));
+                }
+                position = dataOffset + length + 4;
+            } catch (EOFException e) {
+                break;
+            }
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    // ==================== BlobStore ====================
+
+    @Override
+    public void put(String hash, byte[] data) {
+        write(hash, ByteBuffer.wrap(data), data);
+    }
+
+    /** Appends the buffer straight to the active segment without a heap copy. */
+    @Override
+    public void put(String hash, ByteBuffer data) {
+        write(hash, data.duplicate(), null);
+    }
+
+    private void write(String hash, ByteBuffer data, byte[] cacheable) {
+        BlobKey key = BlobKey.of(hash);
+        if (index.containsKey(key)) {
+            return; // Deduplication: already exists
+        }
+        int start = data.position();
+        int size = data.remaining();
+        synchronized (appendLock) {
+            if (index.containsKey(key)) {
+                return;
+            }
+            try {
+                index.put(key, append(PUT, hash, data));
+                totalBytes.addAndGet(size);
+                lastModified = Instant.now();
+                afterWrite();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store blob " + hash, e);
+            }
+        }
+        if (cache != null) {
+            if (cacheable == null) {
+                cacheable = new byte[size];
+                data.get(start, cacheable);
+            }
+            cache.put(hash, cacheable);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) {
+        lastAccessed = Instant.now();
+
+        if (cache != null) {
+            Optional<byte[]> cached = cache.get(hash);
+            if (cached.isPresent()) {
+                return cached;
+            }
+        }
+
+        // A concurrent compaction may move the blob and close its old segment; look it up again
+        BlobKey key = BlobKey.of(hash);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Location location = index.get(key);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Segment segment = segments.get(location.segment());
+            if (segment == null) {
+                continue;
+            }
+            try {
+                byte[] data = read(segment, location);
+                if (cache != null) {
+                    cache.put(hash, data);
+                }
+                return Optional.of(data);
+            } catch (ClosedChannelException e) {
+                // Retired by compaction, or closed by an interrupted reader
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read blob " + hash, e);
+            }
+        }
+        throw new IllegalStateException("Blob " + hash + " kept moving during compaction");
+    }
+
+    private static byte[] read(Segment segment, Location location) throws IOException {
+        byte[] data = new byte[location.length()];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        FileChannel channel = segment.channel();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, location.offset() + buffer.position()) < 0) {
+                throw new EOFException("Segment " + segment.id + " ends inside a blob");
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public boolean has(String hash) {
+        if (cache != null && cache.has(hash)) {
+            return true;
+        }
+        return index.containsKey(BlobKey.of(hash));
+    }
+
+    @Override
+    public boolean delete(String hash) {
+        if (cache != null) {
+            cache.invalidate(hash);
+        }
+        synchronized (appendLock) {
+            BlobKey key = BlobKey.of(hash);
+            Location location = index.remove(key);
+            if (location == null) {
+                return false;
+            }
+            try {
+                append(DELETE, hash, ByteBuffer.allocate(0));
+            } catch (IOException e) {
+                index.put(key, location);
+                throw new UncheckedIOException("Failed to delete blob " + hash, e);
+            }
+            Segment segment = segments.get(location.segment());
+            if (segment != null) {
+                segment.liveBytes.addAndGet(-location.length());
+            }
+            totalBytes.addAndGet(-location.length());
+            lastModified = Instant.now();
+            afterWrite();
+            return true;
+        }
+    }
+
+    @Override
+    public BlobStoreStats stats() {
+        int cachedCount = 0;
+        long cacheBytes = 0;
+        if (cache != null) {
+            CacheStats cs = cache.stats();
+            cachedCount = cs.cachedCount();
+            cacheBytes = cs.cachedBytes();
+        }
+
+        return new BlobStoreStats(
+                index.size(),
+                totalBytes.get(),
+                rootDir.toFile().getFreeSpace(),
+                segments.values().stream().mapToLong(s -> s.size).sum(),
+                cachedCount,
+                cacheBytes,
+                lastModified,
+                lastAccessed);
+    }
+
+    public PackStats packStats() {
+        long fileBytes = segments.values().stream().mapToLong(s -> s.size).sum();
+        return new PackStats(segments.size(), index.size(), totalBytes.get(), fileBytes,
+            checkpoints.get(), compactions.get(), reclaimedBytes.get());
+    }
+
+    @Override
+    public List<String> listHashes() {
+        return index.keySet().stream().map(BlobKey::hash).toList();
+    }
+
+    // ==================== Log ====================
+
+    // Callers hold appendLock
+    private Location append(byte type, String hash, ByteBuffer data) throws IOException {
+        byte[] hashBytes = hash.getBytes(StandardCharsets.UTF_8);
+        if (hashBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Hash too long: " + hash.length());
+        }
+        int length = data.remaining();
+        long recordSize = headerSize(hashBytes.length) + length + 4L;
+        if (active.size > 0 && active.size + recordSize > packOptions.segmentBytes()) {
+            active = openSegment(active.id + 1);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize(hashBytes.length));
+        header.put(type).putShort((short) hashBytes.length).put(hashBytes).putInt(length).flip();
+        CRC32 crc = new CRC32();
+        crc.update(header.duplicate());
+        crc.update(data.duplicate());
+        ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+
+        long recordStart = active.size;
+        FileChannel channel = active.channel();
+        ByteBuffer[] record = {header, data.duplicate(), trailer};
+        long position = recordStart;
+        for (ByteBuffer part : record) {
+            while (part.hasRemaining()) {
+                position += channel.write(part, position);
+            }
+        }
+        active.size = position;
+        if (type == PUT) {
+            active.liveBytes.addAndGet(length);
+        }
+        logSinceCheckpoint += recordSize;
+        return new Location(active.id, recordStart + header.capacity(), length);
+    }
+
+    private static int headerSize(int hashLength) {
+        return 1 + 2 + hashLength + 4;
+    }
+
+    private static void updateInt(CRC32 crc, int value) {
+        crc.update(value >>> 24);
+        crc.update(value >>> 16);
+        crc.update(value >>> 8);
+        crc.update(value);
+    }
+
+    /**
+     * Schedules a background checkpoint once the log since the last one
+     * reaches {@link PackOptions#checkpointBytes}, or the size of that
+     * checkpoint if larger, so the index is never rewritten more often than
+     * the log grows by its size. Callers hold appendLock.
+     */
+    private void afterWrite() {
+        if (!checkpointScheduled && !closed
+                && logSinceCheckpoint >= Math.max(packOptions.checkpointBytes(), lastCheckpointBytes)) {
+            checkpointScheduled = true;
+            maintenance.execute(this::backgroundCheckpoint);
+        }
+    }
+
+    private void backgroundCheckpoint() {
+        try {
+            checkpointAndCompact();
+        } catch (RuntimeException e) {
+            // The log still holds every write; the next trigger tries again
+        } finally {
+            synchronized (appendLock) {
+                checkpointScheduled = false;
+            }
+        }
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Segment segment = new Segment(id, segmentPath(id));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Path segmentPath(int id) {
+        return rootDir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    // ==================== Checkpoints and compaction ====================
+
+    /** Writes the index to disk so a restart replays only later writes. */
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Copies the live blobs of sealed segments at or past the compaction
+     * threshold into the active segment and removes those segments.
+     *
+     * @return segment bytes reclaimed
+     */
+    public long compact() {
+        return checkpointAndCompact();
+    }
+
+    private long checkpointAndCompact() {
+        synchronized (checkpointLock) {
+            List<Segment> retired = new ArrayList<>();
+            synchronized (appendLock) {
+                for (Segment segment : segments.values()) {
+                    if (segment != active && segment.deadFraction() >= packOptions.compactionThreshold()) {
+                        retired.add(segment);
+                    }
+                }
+            }
+            try {
+                copyForward(retired);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to compact pack store", e);
+            }
+            writeCheckpoint();
+
+            // Only now that the checkpoint points past them may the old segments go
+            long reclaimed = 0;
+            for (Segment segment : retired) {
+                segments.remove(segment.id);
+                reclaimed += segment.size;
+                segment.close();
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException ignored) {
+                }
+            }
+            if (!retired.isEmpty()) {
+                compactions.incrementAndGet();
+                reclaimedBytes.addAndGet(reclaimed);
+            }
+            return reclaimed;
+        }
+    }
+
+    /**
+     * Appends the live blobs of {@code retiring} to the active segment. Each
+     * blob is read without the append lock and moved only if it has not been
+     * deleted meanwhile; sealed segments take no new records, so no blob can
+     * arrive in one.
+     */
+    private void copyForward(List<Segment> retiring) throws IOException {
+        if (retiring.isEmpty()) return;
+        Map<Integer, Segment> byId = new HashMap<>();
+        retiring.forEach(segment -> byId.put(segment.id, segment));
+        for (Map.Entry<BlobKey, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            Segment segment = byId.get(location.segment());
+            if (segment == null) continue;
+            byte[] data = read(segment, location);
+            BlobKey key = entry.getKey();
+            synchronized (appendLock) {
+                if (!location.equals(index.get(key))) continue;
+                index.put(key, append(PUT, key.hash(), ByteBuffer.wrap(data)));
+            }
+            segment.liveBytes.addAndGet(-location.length());
+        }
+    }
+
+    /**
+     * Notes the end of the log under the append lock, then syncs the log up
+     * to there and streams the live index out without it. Entries that change
+     * while the index is streamed are repaired by replaying from the noted
+     * position. Callers hold checkpointLock.
+     */
+    private void writeCheckpoint() {
+        int segment;
+        long offset;
+        synchronized (appendLock) {
+            segment = active.id;
+            offset = active.size;
+            logSinceCheckpoint = 0;
+        }
+        Path temp = rootDir.resolve(CHECKPOINT + ".tmp");
+        try {
+            // Records the checkpoint covers must be on disk before it is. Recovery
+            // will not replay segments sealed since the last checkpoint, so
+            // those need syncing as well as the active one.
+            for (Segment covered : segments.subMap(checkpointedSegment, true, segment, true).values()) {
+                covered.channel().force(false);
+            }
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024), crc))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeInt(segment);
+                out.writeLong(offset);
+                for (Map.Entry<BlobKey, Location> entry : index.entrySet()) {
+                    Location location = entry.getValue();
+                    out.writeBoolean(true);
+                    out.writeUTF(entry.getKey().hash());
+                    out.writeInt(location.segment());
+                    out.writeLong(location.offset());
+                    out.writeInt(location.length());
+                }
+                out.writeBoolean(false);
+                out.flush();
+                out.writeLong(crc.getValue());
+            }
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+                size = channel.size();
+            }
+            try {
+                Files.move(temp, rootDir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, rootDir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (appendLock) {
+                lastCheckpointBytes = size;
+            }
+            checkpointedSegment = segment;
+            checkpoints.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to checkpoint pack index", e);
+        }
+    }
+
+    // ==================== Configuration ====================
+
+    @Override
+    public ChunkingStrategy getChunkingStrategy() {
+        return chunkingStrategy;
+    }
+
+    @Override
+    public void setChunkingStrategy(ChunkingStrategy strategy) {
+        this.chunkingStrategy = strategy;
+    }
+
+    @Override
+    public Optional<BlobCache> getCache() {
+        return Optional.ofNullable(cache);
+    }
+
+    @Override
+    public void setCache(BlobCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public BlobStoreOptions getOptions() {
+        return options;
+    }
+
+    @Override
+    public void configure(BlobStoreOptions options) {
+        this.options = options;
+    }
+
+    /** Waits for background maintenance, checkpoints the index and closes the segment files. */
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        synchronized (appendLock) {
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            closed = true;
+        }
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (checkpointLock) {
+            writeCheckpoint();
+            segments.values().forEach(Segment::close);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** Closes the segment files without a checkpoint, leaving the directory as a crash would. */
+    void abandon() {
+        synchronized (appendLock) {
+            closed = true;
+        }
+        maintenance.shutdownNow();
+        segments.values().forEach(Segment::close);
+    }
+
+    // ==================== Types ====================
+
+    private record Location(int segment, long offset, int length) {}
+
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final AtomicLong liveBytes = new AtomicLong();
+        volatile long size;
+        private volatile FileChannel channel;
+        private volatile boolean closed;
+
+        Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = open();
+            this.size = channel.size();
+        }
+
+        private FileChannel open() throws IOException {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /** The segment's channel, reopened if an interrupted read closed it. */
+        FileChannel channel() throws IOException {
+            FileChannel current = channel;
+            if (current.isOpen()) {
+                return current;
+            }
+            synchronized (this) {
+                if (!channel.isOpen() && !closed) {
+                    channel = open();
+                }
+                return channel;
+            }
+        }
+
+        double deadFraction() {
+            return size == 0 ? 0 : (double) (size - liveBytes.get()) / size;
+        }
+
+        void close() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * @param segmentBytes size at which the active segment is sealed and a new one started
+     * @param checkpointBytes log bytes appended before a background checkpoint; raised to
+     *        the size of the previous checkpoint when that is larger
+     * @param compactionThreshold dead fraction of a sealed segment that triggers its compaction
+     */
+    public record PackOptions(long segmentBytes, long checkpointBytes, double compactionThreshold) {
+        public static PackOptions defaults() {
+            return new PackOptions(256L * 1024 * 1024, 64L * 1024 * 1024, 0.5);
+        }
+    }
+
+    /**
+     * @param liveBytes bytes of blobs still indexed
+     * @param fileBytes bytes in segment files, including headers, tombstones and dead blobs
+     * @param reclaimedBytes segment bytes removed by compaction
+     */
+    public record PackStats(
+        int segments,
+        int blobs,
+        long liveBytes,
+        long fileBytes,
+        long checkpoints,
+        long compactions,
+        long reclaimedBytes
+    ) {}
+}
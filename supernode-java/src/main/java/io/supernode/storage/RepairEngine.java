@@ -0,0 +1,312 @@
+package io.supernode.storage;
+
+import io.supernode.storage.erasure.ErasureCoder;
+import io.supernode.storage.erasure.ErasureCoderRegistry;
+import io.supernode.storage.erasure.LrcCoder;
+import io.supernode.storage.mux.Manifest;
+import io.supernode.storage.mux.Manifest.ErasureConfig;
+import io.supernode.storage.mux.Manifest.Segment;
+import io.supernode.storage.mux.Manifest.ShardInfo;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Restores missing shards of erasure-coded files. Segments are checked and
+ * repaired in parallel, at most {@code concurrency} at a time, each with one
+ * {@link BlobStore#hasBatch}, one {@link BlobStore#getBatch} for just the
+ * shards its rebuild reads and one {@link BlobStore#putBatch} for the rebuilt
+ * shards. Only missing shard indices are reconstructed. With an
+ * {@link LrcCoder}, shards whose local group is otherwise intact are rebuilt
+ * from that group alone.
+ *
+ * <p>A run skips segments already settled in the {@code done} map it is given
+ * and records each segment it settles there, so a cancelled or failed run can
+ * be resumed by passing the same map again.
+ */
+public class RepairEngine {
+
+    private final BlobStore blobStore;
+    private final ErasureCoderRegistry coders;
+    private final Executor executor;
+    private final int concurrency;
+
+    /**
+     * @param executor runs segment repairs, or {@code null} to run them inline
+     */
+    public RepairEngine(BlobStore blobStore, ErasureCoderRegistry coders, Executor executor, int concurrency) {
+        this.blobStore = blobStore;
+        this.coders = coders;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Repairs every unsettled segment of {@code manifest}. Healthy and repaired
+     * segments are settled; unrecoverable and failed ones are retried by a
+     * resumed run.
+     *
+     * @param done results by segment index, read to skip and updated as segments finish
+     * @param cancelled polled before each segment starts
+     * @param onSegment receives each result as it finishes, may be {@code null}
+     */
+    public RepairReport repair(String operationId, Manifest manifest, Map<Integer, SegmentResult> done,
+                               BooleanSupplier cancelled, Consumer<SegmentResult> onSegment) {
+        ErasureConfig erasure = manifest.getErasure();
+        if (erasure == null) {
+            throw new IllegalArgumentException("Not erasure coded");
+        }
+        ErasureCoder coder = coders.get(erasure.dataShards(), erasure.parityShards(), erasure.localGroupCount());
+        List<Segment> segments = manifest.getSegments();
+
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        boolean interrupted = false;
+        for (int i = 0; i < segments.size(); i++) {
+            SegmentResult previous = done.get(i);
+            if (previous != null && previous.settled()) continue;
+            if (cancelled.getAsBoolean()) {
+                interrupted = true;
+                break;
+            }
+            Segment segment = segments.get(i);
+            if (segment.shards() == null || segment.shards().isEmpty()) continue;
+
+            permits.acquireUninterruptibly();
+            int index = i;
+            Runnable task = () -> {
+                try {
+                    SegmentResult result = repairSegment(index, coder, segment, erasure.striped());
+                    done.put(index, result);
+                    if (onSegment != null) {
+                        onSegment.accept(result);
+                    }
+                } finally {
+                    permits.release();
+                }
+            };
+            inFlight.add(executor == null
+                ? CompletableFuture.runAsync(task, Runnable::run)
+                : CompletableFuture.runAsync(task, executor));
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // Per-segment failures are recorded as results; anything else is a bug
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+
+        List<SegmentResult> results = new ArrayList<>(new TreeMap<>(done).values());
+        int repaired = results.stream().mapToInt(r -> r.repairedIndices().size()).sum();
+        boolean complete = !interrupted && results.stream().allMatch(SegmentResult::settled)
+            && results.size() == countErasureSegments(segments);
+        return new RepairReport(operationId, manifest.getFileId(), results, repaired, complete);
+    }
+
+    private SegmentResult repairSegment(int segmentIndex, ErasureCoder coder, Segment segment, boolean striped) {
+        try {
+            return rebuild(segmentIndex, coder, segment, striped);
+        } catch (RuntimeException e) {
+            String message = e instanceof CompletionException && e.getCause() != null
+                ? e.getCause().getMessage() : e.getMessage();
+            return new SegmentResult(segmentIndex, SegmentOutcome.FAILED, List.of(), List.of(), message);
+        }
+    }
+
+    /**
+     * Rebuilds one segment's missing shards. Missing data shards are decoded
+     * from the {@code dataShards} present shards the coder selects, data first;
+     * missing parity is accumulated from the data shards with
+     * {@link ErasureCoder#updateParity}. Data shards that lie wholly in the zero
+     * padding are never read.
+     */
+    private SegmentResult rebuild(int segmentIndex, ErasureCoder coder, Segment segment, boolean striped) {
+        int dataShards = coder.getDataShards();
+        int totalShards = coder.getTotalShards();
+        int shardSize = segment.shardSize();
+
+        String[] hashes = new String[totalShards];
+        for (ShardInfo shardInfo : segment.shards()) {
+            hashes[shardInfo.index()] = shardInfo.hash();
+        }
+
+        Set<String> stored = new HashSet<>(blobStore.hasBatch(
+            Arrays.stream(hashes).filter(Objects::nonNull).distinct().toList()).join());
+        List<Integer> present = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < totalShards; i++) {
+            if (hashes[i] == null) continue;
+            (stored.contains(hashes[i]) ? present : missing).add(i);
+        }
+        if (missing.isEmpty()) {
+            return new SegmentResult(segmentIndex, SegmentOutcome.HEALTHY, List.of(), List.of(), null);
+        }
+        int[] presentIndices = present.stream().mapToInt(Integer::intValue).toArray();
+        if (coder instanceof LrcCoder lrc && repairableLocally(lrc, missing, present)) {
+            return rebuildLocally(segmentIndex, lrc, segment, striped, hashes, missing);
+        }
+        if (!coder.canDecode(presentIndices)) {
+            return new SegmentResult(segmentIndex, SegmentOutcome.UNRECOVERABLE, missing, List.of(),
+                "Need " + dataShards + " decodable shards, have " + present.size());
+        }
+
+        boolean dataMissing = missing.stream().anyMatch(i -> i < dataShards && !isPadding(segment, i, striped));
+        boolean parityMissing = missing.stream().anyMatch(i -> i >= dataShards);
+
+        // The decode selection prefers data shards
+        int[] selected = coder.selectShards(presentIndices);
+        SortedSet<Integer> reads = new TreeSet<>();
+        if (dataMissing) {
+            Arrays.stream(selected).forEach(reads::add);
+        }
+        if (parityMissing) {
+            for (int i : present) {
+                if (i < dataShards && !isPadding(segment, i, striped)) reads.add(i);
+            }
+        }
+
+        byte[][] shards = readShards(hashes, reads);
+
+        if (dataMissing) {
+            coder.reconstructDataShards(shards, selected, shardSize);
+        }
+        for (int i : missing) {
+            if (i < dataShards && shards[i] == null) {
+                shards[i] = new byte[shardSize];
+            }
+        }
+
+        if (parityMissing) {
+            byte[][] parity = new byte[totalShards][];
+            for (int i : missing) {
+                if (i >= dataShards) parity[i] = new byte[shardSize];
+            }
+            for (int i = 0; i < dataShards; i++) {
+                if (!isPadding(segment, i, striped)) {
+                    coder.updateParity(i, null, shards[i], parity);
+                }
+            }
+            for (int i : missing) {
+                if (i >= dataShards) shards[i] = parity[i];
+            }
+        }
+
+        return store(segmentIndex, hashes, shards, missing);
+    }
+
+    // Each missing shard has a local group, and no other member of it is missing
+    private static boolean repairableLocally(LrcCoder lrc, List<Integer> missing, List<Integer> present) {
+        for (int i : missing) {
+            int[] sources = lrc.localRepairSources(i);
+            if (sources == null) return false;
+            for (int source : sources) {
+                if (!present.contains(source)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds each missing shard as the XOR of the rest of its local group,
+     * reading only those groups. Padding data shards are zero and not read.
+     */
+    private SegmentResult rebuildLocally(int segmentIndex, LrcCoder lrc, Segment segment, boolean striped,
+                                         String[] hashes, List<Integer> missing) {
+        SortedSet<Integer> reads = new TreeSet<>();
+        for (int i : missing) {
+            for (int source : lrc.localRepairSources(i)) {
+                if (!(source < lrc.getDataShards() && isPadding(segment, source, striped))) reads.add(source);
+            }
+        }
+
+        byte[][] shards = readShards(hashes, reads);
+        for (int i : missing) {
+            lrc.repairLocal(i, shards, segment.shardSize());
+        }
+        return store(segmentIndex, hashes, shards, missing);
+    }
+
+    private byte[][] readShards(String[] hashes, Collection<Integer> reads) {
+        byte[][] shards = new byte[hashes.length][];
+        Map<String, byte[]> fetched = new HashMap<>();
+        for (BlobStore.BlobEntry entry : blobStore.getBatch(reads.stream().map(i -> hashes[i]).distinct().toList()).join()) {
+            fetched.put(entry.hash(), entry.data());
+        }
+        for (int i : reads) {
+            shards[i] = fetched.get(hashes[i]);
+            if (shards[i] == null) {
+                throw new IllegalStateException("Shard vanished: " + hashes[i]);
+            }
+        }
+        return shards;
+    }
+
+    private SegmentResult store(int segmentIndex, String[] hashes, byte[][] shards, List<Integer> missing) {
+        List<BlobStore.BlobEntry> rebuilt = new ArrayList<>();
+        for (int i : missing) {
+            String actual = HexFormat.of().formatHex(CryptoPool.sha256().digest(shards[i]));
+            if (!actual.equals(hashes[i])) {
+                throw new IllegalStateException("Rebuilt shard " + i + " does not match its hash");
+            }
+            rebuilt.add(new BlobStore.BlobEntry(hashes[i], shards[i]));
+        }
+        BlobStore.BatchResult written = blobStore.putBatch(rebuilt).join();
+        if (!written.isComplete()) {
+            throw new IllegalStateException("Failed to store " + written.failedCount() + " rebuilt shards");
+        }
+        return new SegmentResult(segmentIndex, SegmentOutcome.REPAIRED, missing, List.copyOf(missing), null);
+    }
+
+    // Data shards that start past the muxed bytes hold only zero padding; in a
+    // striped segment every shard carries a piece of each window
+    private static boolean isPadding(Segment segment, int index, boolean striped) {
+        return !striped && (long) index * segment.shardSize() >= segment.muxedSize();
+    }
+
+    private static long countErasureSegments(List<Segment> segments) {
+        return segments.stream().filter(s -> s.shards() != null && !s.shards().isEmpty()).count();
+    }
+
+    public enum SegmentOutcome { HEALTHY, REPAIRED, UNRECOVERABLE, FAILED }
+
+    /**
+     * @param missingIndices shard indices found missing
+     * @param repairedIndices shard indices rebuilt and stored
+     * @param error why the segment could not be repaired, or {@code null}
+     */
+    public record SegmentResult(
+        int segmentIndex,
+        SegmentOutcome outcome,
+        List<Integer> missingIndices,
+        List<Integer> repairedIndices,
+        String error
+    ) {
+        /** Healthy or repaired; a resumed run skips these. */
+        public boolean settled() {
+            return outcome == SegmentOutcome.HEALTHY || outcome == SegmentOutcome.REPAIRED;
+        }
+    }
+
+    /**
+     * @param segments results by segment index, including those settled by earlier runs
+     * @param shardsRepaired shards rebuilt across all runs of this operation
+     * @param complete every segment is settled
+     */
+    public record RepairReport(
+        String operationId,
+        String fileId,
+        List<SegmentResult> segments,
+        int shardsRepaired,
+        boolean complete
+    ) {
+        public long count(SegmentOutcome outcome) {
+            return segments.stream().filter(s -> s.outcome() == outcome).count();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package io.supernode.storage;
+
+import io.supernode.storage.erasure.ErasureCoder;
+import io.supernode.storage.mux.Manifest.Segment;
+import io.supernode.storage.mux.Manifest.ShardInfo;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Brings just enough shards of an erasure-coded segment into the local
+ * {@link BlobStore} for it to be decoded. Shards already stored count towards
+ * the {@code dataShards} needed; the rest are requested data shards first, so
+ * an intact segment costs no parity traffic and decodes without matrix work.
+ *
+ * <p>A request still outstanding past the hedge delay, a percentile of recent
+ * shard latencies, triggers a request for the next unrequested shard, and a
+ * failed request is replaced at once. As soon as {@code dataShards} shards
+ * are in hand the remaining requests are abandoned: their futures are
+ * cancelled, which stops a source that has not yet sent the request, but a
+ * shard already on the wire is still downloaded by the transport.
+ */
+public class ShardFetcher {
+
+    private final BlobStore blobStore;
+    private final Function<String, CompletableFuture<byte[]>> source;
+    private final FetchOptions options;
+    private final LatencyWindow latencies;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong bytesFetched = new AtomicLong();
+
+    /**
+     * @param source fetches a blob by hash from the network. Cancelling the
+     *        returned future should give up on the request if it can
+     */
+    public ShardFetcher(BlobStore blobStore, Function<String, CompletableFuture<byte[]>> source, FetchOptions options) {
+        this.blobStore = blobStore;
+        this.source = source;
+        this.options = options;
+        this.latencies = new LatencyWindow(options.latencyWindow());
+    }
+
+    /**
+     * Makes at least {@code dataShards} shards of {@code segment} available
+     * locally. Fails if too few shards can be fetched.
+     */
+    public CompletableFuture<FetchResult> fetch(Segment segment, int dataShards) {
+        return new SegmentFetch(segment, dataShards, available -> available.size() >= dataShards).start();
+    }
+
+    /**
+     * As {@link #fetch(Segment, int)}, but finishes only once {@code coder} can
+     * decode the shards in hand. An LRC segment may need more than
+     * {@code dataShards} when a parity arrives for an already intact group.
+     */
+    public CompletableFuture<FetchResult> fetch(Segment segment, ErasureCoder coder) {
+        return new SegmentFetch(segment, coder.getDataShards(),
+            available -> coder.canDecode(available.stream().mapToInt(Integer::intValue).toArray())).start();
+    }
+
+    /** Current hedge delay: the configured percentile of recent shard latencies. */
+    public Duration hedgeDelay() {
+        long millis = latencies.percentile(options.hedgePercentile());
+        if (millis < 0) {
+            return options.initialHedgeDelay();
+        }
+        return Duration.ofMillis(Math.max(millis, options.minHedgeDelay().toMillis()));
+    }
+
+    public FetchStats stats() {
+        return new FetchStats(requests.get(), hedges.get(), abandoned.get(), bytesFetched.get(), hedgeDelay());
+    }
+
+    private final class SegmentFetch {
+        private final int dataShards;
+        private final Predicate<List<Integer>> decodable;
+        private final String[] hashes;
+        private final Deque<Integer> candidates = new ArrayDeque<>();
+        private final Map<Integer, CompletableFuture<byte[]>> outstanding = new HashMap<>();
+        private final List<Integer> available = new ArrayList<>();
+        private final CompletableFuture<FetchResult> result = new CompletableFuture<>();
+        private final long hedgeDelayMs = hedgeDelay().toMillis();
+        private int fetched;
+        private int hedged;
+
+        SegmentFetch(Segment segment, int dataShards, Predicate<List<Integer>> decodable) {
+            this.dataShards = dataShards;
+            this.decodable = decodable;
+            int totalShards = segment.shards().stream().mapToInt(ShardInfo::index).max().orElse(-1) + 1;
+            this.hashes = new String[totalShards];
+            for (ShardInfo shard : segment.shards()) {
+                hashes[shard.index()] = shard.hash();
+            }
+        }
+
+        CompletableFuture<FetchResult> start() {
+            Set<String> stored = new HashSet<>(blobStore.hasBatch(
+                Arrays.stream(hashes).filter(Objects::nonNull).distinct().toList()).join());
+            // Index order puts data shards ahead of parity
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] == null) continue;
+                if (stored.contains(hashes[i])) {
+                    available.add(i);
+                } else {
+                    candidates.add(i);
+                }
+            }
+            synchronized (this) {
+                if (!finishIfEnough()) {
+                    topUp();
+                    failIfExhausted();
+                }
+            }
+            return result;
+        }
+
+        // Keeps dataShards shards in hand or in flight, and at least one request
+        // in flight while what is in hand does not decode. Callers hold the lock
+        private void topUp() {
+            while (!result.isDone() && !candidates.isEmpty()
+                    && (available.size() + outstanding.size() < dataShards || outstanding.isEmpty())) {
+                launchNext(false);
+            }
+        }
+
+        // Callers hold the lock
+        private void launchNext(boolean hedge) {
+            Integer index = candidates.poll();
+            if (index == null) return;
+            if (hedge) {
+                hedged++;
+                hedges.incrementAndGet();
+            }
+            requests.incrementAndGet();
+            long startNanos = System.nanoTime();
+            CompletableFuture<byte[]> request;
+            try {
+                request = source.apply(hashes[index]);
+            } catch (RuntimeException e) {
+                request = CompletableFuture.failedFuture(e);
+            }
+            outstanding.put(index, request);
+            request.whenComplete((data, error) -> onComplete(index, startNanos, data, error));
+            CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS).execute(() -> onSlow(index));
+        }
+
+        private void onComplete(int index, long startNanos, byte[] data, Throwable error) {
+            if (result.isDone()) return;
+            // Verify and store outside the lock so shards of one segment complete in parallel
+            boolean valid = error == null && data != null && blobStore.computeHash(data).equals(hashes[index]);
+            if (valid) {
+                latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                if (!blobStore.has(hashes[index])) {
+                    blobStore.put(hashes[index], data);
+                }
+                bytesFetched.addAndGet(data.length);
+            }
+            synchronized (this) {
+                if (outstanding.remove(index) == null || result.isDone()) return;
+                if (valid) {
+                    fetched++;
+                    available.add(index);
+                    if (finishIfEnough()) return;
+                }
+                // A failed or corrupt shard is replaced straight away rather than waiting for a hedge
+                topUp();
+                failIfExhausted();
+            }
+        }
+
+        private synchronized void onSlow(int index) {
+            if (!result.isDone() && outstanding.containsKey(index)) {
+                launchNext(true);
+            }
+        }
+
+        private boolean finishIfEnough() {
+            if (available.size() < dataShards || !decodable.test(available)) return false;
+            List<CompletableFuture<byte[]>> pending = new ArrayList<>(outstanding.values());
+            outstanding.clear();
+            // Abandon before completing so stats are current once the caller sees the result
+            for (CompletableFuture<byte[]> request : pending) {
+                request.cancel(true);
+            }
+            abandoned.addAndGet(pending.size());
+            result.complete(new FetchResult(available.stream().sorted().toList(), fetched, hedged, pending.size()));
+            return true;
+        }
+
+        private void failIfExhausted() {
+            if (!result.isDone() && outstanding.isEmpty() && candidates.isEmpty()) {
+                result.completeExceptionally(new IllegalStateException(
+                    "Only " + available.size() + " of " + dataShards + " required shards available"));
+            }
+        }
+    }
+
+    /** Recent shard latencies in a fixed ring, for percentile queries. */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[Math.max(1, size)];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /** @return the percentile in milliseconds, or -1 with no samples yet */
+        synchronized long percentile(double p) {
+            if (count == 0) return -1;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(p / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(rank, count - 1))];
+        }
+    }
+
+    /**
+     * @param hedgePercentile latency percentile past which a request is hedged
+     * @param initialHedgeDelay hedge delay before any latency has been observed
+     * @param minHedgeDelay floor for the hedge delay
+     * @param latencyWindow number of recent latencies the percentile is taken over
+     */
+    public record FetchOptions(
+        double hedgePercentile,
+        Duration initialHedgeDelay,
+        Duration minHedgeDelay,
+        int latencyWindow
+    ) {
+        public static FetchOptions defaults() {
+            return new FetchOptions(95.0, Duration.ofSeconds(2), Duration.ofMillis(20), 256);
+        }
+    }
+
+    /**
+     * @param availableIndices shard indices available locally when the fetch finished
+     * @param fetched shards downloaded
+     * @param hedged extra requests fired for slow shards
+     * @param abandoned requests still outstanding when enough shards arrived;
+     *        the source may still download those already sent
+     */
+    public record FetchResult(List<Integer> availableIndices, int fetched, int hedged, int abandoned) {}
+
+    /**
+     * @param abandoned requests given up on once their segment had enough shards
+     * @param bytesFetched bytes of shards this fetcher received and kept
+     */
+    public record FetchStats(long requests, long hedges, long abandoned, long bytesFetched, Duration hedgeDelay) {}
+}
@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Automated storage benchmarking utility.
@@ -154,7 +155,76 @@ public class StorageBenchmark {
         return buildResult(name, latencies, totalBytes.get(), errors, elapsed, iterations);
     }
 
-    private BenchmarkResult buildResult(String name, List<Long> latencies, long totalBytes,
+    /**
+     * Benchmarks a BlobStore directly: puts and gets of
+     * {@code options.fileSizeBytes} blobs, then the time to reopen the store
+     * and list its contents. {@code open} must open the same, initially empty,
+     * location on every call, so FileBlobStore and PackBlobStore can be
+     * compared on the same workload.
+     */
+    public static BenchmarkReport runBlobStore(String label, Supplier<BlobStore> open, BenchmarkOptions options) {
+        SecureRandom random = new SecureRandom();
+        BlobStore store = open.get();
+        List<BenchmarkResult> results = new ArrayList<>();
+        List<String> hashes = new ArrayList<>();
+        List<Long> latencies = new ArrayList<>();
+        long errors = 0;
+
+        Instant start = Instant.now();
+        for (int i = 0; i < options.iterations; i++) {
+            byte[] data = new byte[options.fileSizeBytes];
+            random.nextBytes(data);
+            String hash = store.computeHash(data);
+            Instant opStart = Instant.now();
+            try {
+                store.put(hash, data);
+                hashes.add(hash);
+            } catch (Exception e) {
+                errors++;
+            }
+            latencies.add(Duration.between(opStart, Instant.now()).toMillis());
+        }
+        results.add(buildResult(label + "-put", latencies, (long) hashes.size() * options.fileSizeBytes,
+            errors, Duration.between(start, Instant.now()), options.iterations));
+
+        ExecutorService pool = Executors.newFixedThreadPool(options.concurrency);
+        List<Long> getLatencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong totalBytes = new AtomicLong();
+        AtomicLong getErrors = new AtomicLong();
+        start = Instant.now();
+        List<Future<?>> futures = new ArrayList<>();
+        for (String hash : hashes) {
+            futures.add(pool.submit(() -> {
+                Instant opStart = Instant.now();
+                Optional<byte[]> data = store.get(hash);
+                getLatencies.add(Duration.between(opStart, Instant.now()).toMillis());
+                if (data.isPresent()) {
+                    totalBytes.addAndGet(data.get().length);
+                } else {
+                    getErrors.incrementAndGet();
+                }
+            }));
+        }
+        awaitAll(futures);
+        pool.shutdown();
+        getErrors.addAndGet(hashes.size() - getLatencies.size());
+        results.add(buildResult(label + "-get", getLatencies, totalBytes.get(), getErrors.get(),
+            Duration.between(start, Instant.now()), hashes.size()));
+
+        // Startup: what a restarting node pays before it can serve its blobs
+        store.shutdown().join();
+        start = Instant.now();
+        BlobStore reopened = open.get();
+        int listed = reopened.listHashes().size();
+        Duration startup = Duration.between(start, Instant.now());
+        reopened.shutdown().join();
+        results.add(buildResult(label + "-startup", new ArrayList<>(List.of(startup.toMillis())), 0,
+            listed == hashes.size() ? 0 : 1, startup, 1));
+
+        return new BenchmarkReport(results, Instant.now(), options);
+    }
+
+    private static BenchmarkResult buildResult(String name, List<Long> latencies, long totalBytes,
                                          long errors, Duration elapsed, int iterations) {
         if (latencies.isEmpty()) {
             return new BenchmarkResult(name, 0, 0, 0, 0, 0, 0, totalBytes, errors, elapsed, iterations);
@@ -175,7 +245,7 @@ public class StorageBenchmark {
         return new BenchmarkResult(name, min, max, avg, p50, p95, p99, totalBytes, errors, elapsed, iterations);
     }
 
-    private void awaitAll(List<Future<?>> futures) {
+    private static void awaitAll(List<Future<?>> futures) {
         for (Future<?> f : futures) {
             try {
                 f.get(60, TimeUnit.SECONDS);
@@ -1,6 +1,10 @@
 package io.supernode.storage;
 
+import io.supernode.storage.RepairEngine.RepairReport;
+import io.supernode.storage.RepairEngine.SegmentOutcome;
 import io.supernode.storage.erasure.ErasureCoder;
+import io.supernode.storage.erasure.ErasureCoderRegistry;
+import io.supernode.storage.erasure.LrcCoder;
 import io.supernode.storage.isoforge.ISOForge;
 import io.supernode.storage.isoforge.SizePreset;
 import io.supernode.storage.mux.Manifest;
@@ -9,10 +13,10 @@ import io.supernode.storage.mux.Manifest.Segment;
 import io.supernode.storage.mux.Manifest.ShardInfo;
 import io.supernode.storage.mux.MuxEngine;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -23,24 +27,38 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class SupernodeStorage {
     
     public static final int CHUNK_SIZE = 1024 * 1024;
     
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
     private final BlobStore blobStore;
     private final MuxEngine muxEngine;
+    private final int chunkSize;
+    private final BufferPool muxBufferPool;
+    private final BufferPool inputBufferPool;
+    private final Map<Integer, BufferPool> shardPools = new ConcurrentHashMap<>();
     private final ISOForge isoForge;
     private final SizePreset isoSize;
     private final Map<String, byte[]> manifestStore;
+    // Shard hash -> erasure-coded files that reference it, for repairShards. Manifests
+    // stored without their key are only indexed once a repair can open them.
+    private final Map<String, Set<String>> shardFiles = new ConcurrentHashMap<>();
+    private final Set<String> unindexedFiles = ConcurrentHashMap.newKeySet();
     
     private final boolean enableErasure;
     private final ErasureCoder erasureCoder;
+    private final ErasureCoderRegistry coders;
     private final StorageOptions options;
     
     private final ExecutorService executor;
+    private final ExecutorService chunkExecutor; // null when chunks are processed inline
     private final Map<String, OperationState> operations = new ConcurrentHashMap<>();
     private final AtomicLong operationCounter = new AtomicLong();
+    private final RepairEngine repairEngine;
     
     private final AtomicLong totalBytesIngested = new AtomicLong();
     private final AtomicLong totalBytesRetrieved = new AtomicLong();
@@ -59,10 +77,22 @@ public class SupernodeStorage {
     }
     
     public SupernodeStorage(BlobStore blobStore, StorageOptions options) {
+        this(blobStore, options, ErasureCoderRegistry.shared());
+    }
+    
+    /**
+     * @param coders source of erasure coders; its hit and miss counts are the
+     *        ones {@link #stats()} reports
+     */
+    public SupernodeStorage(BlobStore blobStore, StorageOptions options, ErasureCoderRegistry coders) {
         this.blobStore = blobStore;
         this.options = options;
+        this.coders = coders;
         this.isoSize = options.isoSize;
         this.muxEngine = new MuxEngine(isoSize);
+        this.chunkSize = options.chunkSize;
+        this.muxBufferPool = new BufferPool(MuxEngine.muxedCapacity(chunkSize), Math.max(2, options.concurrency * 2));
+        this.inputBufferPool = new BufferPool(chunkSize, Math.max(2, options.concurrency * 2));
         this.isoForge = new ISOForge();
         this.manifestStore = new ConcurrentHashMap<>();
         
@@ -72,12 +102,25 @@ public class SupernodeStorage {
         
         this.enableErasure = options.enableErasure;
         if (enableErasure) {
-            this.erasureCoder = new ErasureCoder(options.dataShards, options.parityShards);
+            this.erasureCoder = options.localGroups > 0
+                ? new LrcCoder(options.dataShards, options.localGroups, options.parityShards - options.localGroups)
+                : new ErasureCoder(options.dataShards, options.parityShards);
         } else {
             this.erasureCoder = null;
         }
         
         this.executor = Executors.newFixedThreadPool(options.concurrency);
+        // Separate from executor so async ingests can never starve their own chunk tasks
+        if (options.concurrency > 1) {
+            this.chunkExecutor = Executors.newFixedThreadPool(options.concurrency, r -> {
+                Thread t = new Thread(r, "storage-chunk-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.chunkExecutor = null;
+        }
+        this.repairEngine = new RepairEngine(blobStore, coders, chunkExecutor, options.concurrency);
     }
     
     public IngestResult ingest(byte[] fileBuffer, String fileName, byte[] masterKey) {
@@ -90,166 +133,26 @@ public class SupernodeStorage {
 
     public IngestResult ingest(byte[] fileBuffer, String fileName, byte[] masterKey, IngestOptions options, Consumer<Progress> progress) {
         String fileId = "sha256:" + sha256Hex(fileBuffer);
-        
-        // Use provided options or global defaults
-        IngestOptions effectiveOptions = options != null ? options : new IngestOptions(
-            this.options.enableErasure,
-            this.options.dataShards,
-            this.options.parityShards
-        );
+        IngestOptions effectiveOptions = effectiveIngestOptions(options);
 
         // CAS Deduplication: Check if file already exists
-        if (manifestStore.containsKey(fileId)) {
-            try {
-                byte[] encryptedManifest = manifestStore.get(fileId);
-                byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
-                Manifest manifest = Manifest.decrypt(encryptedManifest, manifestKey);
-                
-                List<String> chunkHashes = new ArrayList<>();
-                for (Segment s : manifest.getSegments()) {
-                    if (s.shards() != null && !s.shards().isEmpty()) {
-                        for (ShardInfo shard : s.shards()) {
-                            chunkHashes.add(shard.hash());
-                        }
-                    } else {
-                        chunkHashes.add(s.chunkHash());
-                    }
-                }
-                
-                if (onFileIngested != null) {
-                    onFileIngested.accept(new FileIngestedEvent(fileId, fileName, fileBuffer.length, chunkHashes.size()));
-                }
-                
-                // Return result immediately, skipping processing
-                return new IngestResult(fileId, chunkHashes, encryptedManifest, "dedup-" + fileId);
-            } catch (Exception e) {
-                // Deduplication failed (e.g. key mismatch or corruption), proceed with full ingest
-            }
-        }
-        
-        // Quota Enforcement
-        if (options.maxStorageBytes > 0) {
-            long currentUsage = blobStore.stats().totalBytes();
-            if (currentUsage + fileBuffer.length > options.maxStorageBytes) {
-                throw new IllegalStateException("Storage quota exceeded. Current usage: " + currentUsage + 
-                    ", Max allowed: " + options.maxStorageBytes + ", Required: " + fileBuffer.length);
-            }
+        IngestResult existing = findExisting(fileId, fileName, fileBuffer.length, masterKey);
+        if (existing != null) {
+            return existing;
         }
 
-        String operationId = generateOperationId();
-        OperationState state = new OperationState(operationId, OperationType.INGEST, Instant.now());
-        operations.put(operationId, state);
+        long quotaBaseline = quotaBaseline();
+        checkQuota(quotaBaseline, fileBuffer.length);
 
-        
+        OperationState state = startOperation(OperationType.INGEST);
         try {
-            List<Segment> segments = new ArrayList<>();
-            List<String> chunkHashes = new ArrayList<>();
-            
-            int offset = 0;
-            int chunkIndex = 0;
-            int totalChunks = (int) Math.ceil((double) fileBuffer.length / CHUNK_SIZE);
-            if (fileBuffer.length == 0) totalChunks = 1;
-            
-            do {
-                if (state.cancelled) {
-                    throw new CancellationException("Operation cancelled: " + operationId);
-                }
-                
-                int end = Math.min(offset + CHUNK_SIZE, fileBuffer.length);
-                byte[] chunk = Arrays.copyOfRange(fileBuffer, offset, end);
-                
-                byte[] chunkKey = generateEncryptionKey();
-                byte[] isoSeed = generateISOSeed();
-                
-                MuxEngine.MuxResult muxResult = muxEngine.mux(chunk, chunkKey, isoSeed);
-                
-                Segment segment;
-                if (effectiveOptions.enableErasure()) {
-                    segment = ingestWithErasure(muxResult.muxedData(), chunkKey, isoSeed, muxResult, chunk.length, chunkHashes, effectiveOptions);
-                } else {
-                    String chunkHash = sha256Hex(muxResult.muxedData());
-                    
-                    // CAS Deduplication at chunk level
-                    if (!blobStore.has(chunkHash)) {
-                        blobStore.put(chunkHash, muxResult.muxedData());
-                    }
-                    
-                    chunkHashes.add(chunkHash);
-                    
-                    segment = new Segment(
-                        chunkHash,
-                        HexFormat.of().formatHex(chunkKey),
-                        HexFormat.of().formatHex(isoSeed),
-                        0,
-                        muxResult.sectorCount(),
-                        muxResult.encryptedSize(),
-                        chunk.length,
-                        null,
-                        null,
-                        null
-                    );
-                }
-                
-                segments.add(segment);
-                offset = end;
-                chunkIndex++;
-                
-                state.bytesProcessed = offset;
-                state.progress = fileBuffer.length > 0 ? (double) offset / fileBuffer.length : 1.0;
-                
-                if (progress != null) {
-                    progress.accept(new Progress(
-                        operationId,
-                        OperationType.INGEST,
-                        offset,
-                        fileBuffer.length,
-                        state.progress * 100,
-                        chunkIndex,
-                        totalChunks,
-                        fileId
-                    ));
-                }
-                
-                if (onChunkIngested != null) {
-                    String hash = segment.chunkHash() != null ? segment.chunkHash() : segment.shards().get(0).hash();
-                    onChunkIngested.accept(new ChunkIngestedEvent(fileId, hash, state.progress));
-                }
-            } while (offset < fileBuffer.length);
-            
-            ErasureConfig ecConfig = null;
-            if (effectiveOptions.enableErasure()) {
-                ecConfig = new ErasureConfig(effectiveOptions.dataShards(), effectiveOptions.parityShards());
-            }
-
-            Manifest manifest = Manifest.create(new Manifest.ManifestOptions(
-                fileId,
-                fileName,
-                fileBuffer.length,
-                segments.get(0).isoSeed(),
-                isoSize.getBytes(),
-                ecConfig,
-                segments
-            ));
-            
-            byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
-            byte[] encryptedManifest = Manifest.encrypt(manifest, manifestKey);
-            manifestStore.put(fileId, encryptedManifest);
-            
-            state.completed = true;
-            state.completedAt = Instant.now();
-            totalBytesIngested.addAndGet(fileBuffer.length);
-            totalFilesIngested.incrementAndGet();
-            
-            if (onFileIngested != null) {
-                onFileIngested.accept(new FileIngestedEvent(fileId, fileName, fileBuffer.length, chunkHashes.size()));
-            }
-            
-            return new IngestResult(fileId, chunkHashes, encryptedManifest, operationId);
+            ChunkRun run = writeChunks(new ArrayChunkSource(fileBuffer, chunkSize), fileId, fileBuffer.length,
+                quotaBaseline, effectiveOptions, state, progress);
+            return finishIngest(fileId, fileName, masterKey, effectiveOptions, run, state);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         } finally {
-            if (!state.completed) {
-                state.failed = true;
-                state.completedAt = Instant.now();
-            }
+            endOperation(state);
         }
     }
     
@@ -257,18 +160,54 @@ public class SupernodeStorage {
         return ingestAsync(fileBuffer, fileName, masterKey, null, null);
     }
     
+    public CompletableFuture<IngestResult> ingestAsync(byte[] fileBuffer, String fileName, byte[] masterKey, Consumer<Progress> progress) {
+        return ingestAsync(fileBuffer, fileName, masterKey, null, progress);
+    }
+    
     public CompletableFuture<IngestResult> ingestAsync(byte[] fileBuffer, String fileName, byte[] masterKey, IngestOptions options, Consumer<Progress> progress) {
         return CompletableFuture.supplyAsync(() -> ingest(fileBuffer, fileName, masterKey, options, progress), executor);
     }
     
     public IngestResult ingestStreaming(InputStream input, String fileName, byte[] masterKey, IngestOptions options, Consumer<Progress> progress) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        byte[] chunk = new byte[8192];
-        int read;
-        while ((read = input.read(chunk)) != -1) {
-            buffer.write(chunk, 0, read);
+        return ingestStreaming(input, -1, fileName, masterKey, options, progress);
+    }
+
+    /**
+     * Ingests a stream chunk by chunk without buffering the whole file. Each
+     * chunk-sized window is muxed and stored as it is read and the file hash is
+     * computed incrementally, so the file ID is only known once the stream ends:
+     * progress and chunk events carry a null file ID until then.
+     *
+     * @param expectedSize total stream length for progress reporting, or -1 if unknown
+     */
+    public IngestResult ingestStreaming(InputStream input, long expectedSize, String fileName, byte[] masterKey,
+                                        IngestOptions options, Consumer<Progress> progress) throws IOException {
+        IngestOptions effectiveOptions = effectiveIngestOptions(options);
+        long quotaBaseline = quotaBaseline();
+        if (expectedSize >= 0) {
+            checkQuota(quotaBaseline, expectedSize);
+        }
+
+        OperationState state = startOperation(OperationType.INGEST);
+        try {
+            StreamChunkSource source = new StreamChunkSource(input);
+            ChunkRun run = writeChunks(source, null, expectedSize, quotaBaseline, effectiveOptions, state, progress);
+            String fileId = "sha256:" + HexFormat.of().formatHex(source.digest.digest());
+
+            // The same content was ingested before; drop what this run wrote and
+            // keep the existing manifest. Every chunk was muxed under a fresh key
+            // and seed, so no other file can reference these blobs.
+            IngestResult existing = findExisting(fileId, fileName, run.bytes, masterKey);
+            if (existing != null) {
+                run.written.forEach(blobStore::delete);
+                state.completed = true;
+                state.completedAt = Instant.now();
+                return existing;
+            }
+            return finishIngest(fileId, fileName, masterKey, effectiveOptions, run, state);
+        } finally {
+            endOperation(state);
         }
-        return ingest(buffer.toByteArray(), fileName, masterKey, options, progress);
     }
     
     public CompletableFuture<IngestResult> ingestStreamingAsync(InputStream input, String fileName, byte[] masterKey, IngestOptions options, Consumer<Progress> progress) {
@@ -281,28 +220,394 @@ public class SupernodeStorage {
         }, executor);
     }
     
-    private Segment ingestWithErasure(byte[] muxedData, byte[] chunkKey, byte[] isoSeed, 
-                                       MuxEngine.MuxResult muxResult, int originalSize,
-                                       List<String> allChunkHashes, IngestOptions opts) {
-        // Create coder on demand if options differ, or use default if matching?
-        // For simplicity and safety with varying options, we create a new instance or reuse if matching global.
-        // Actually, creating a new lightweight coder is cheap (it just builds tables/matrices).
-        ErasureCoder coder = new ErasureCoder(opts.dataShards, opts.parityShards);
-
-        ErasureCoder.EncodeResult encoded = coder.encode(muxedData);
-        List<ShardInfo> shards = new ArrayList<>();
-        
-        for (int i = 0; i < encoded.shards().length; i++) {
-            byte[] shard = encoded.shards()[i];
-            String shardHash = sha256Hex(shard);
+    private IngestOptions effectiveIngestOptions(IngestOptions options) {
+        if (options != null) {
+            return options;
+        }
+        // Adaptive mode picks the layout per file; the manifest records the choice
+        if (this.options.enableErasure && this.options.adaptiveErasure) {
+            ErasureCoder.ShardLayout layout = erasureCoder.selectAdaptiveLayout(this.options.maxDataShards);
+            // An LRC layout keeps its local groups, as far as the new shape has room:
+            // one data shard per group and at least one global parity
+            int localGroups = Math.min(this.options.localGroups,
+                Math.min(layout.dataShards(), layout.parityShards() - 1));
+            return new IngestOptions(true, layout.dataShards(), layout.parityShards(), localGroups);
+        }
+        return new IngestOptions(
+            this.options.enableErasure,
+            this.options.dataShards,
+            this.options.parityShards,
+            this.options.localGroups
+        );
+    }
+
+    private IngestResult findExisting(String fileId, String fileName, long size, byte[] masterKey) {
+        byte[] encryptedManifest = manifestStore.get(fileId);
+        if (encryptedManifest == null) {
+            return null;
+        }
+        try {
+            byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
+            Manifest manifest = Manifest.decrypt(encryptedManifest, manifestKey);
             
-            // CAS Deduplication at shard level
-            if (!blobStore.has(shardHash)) {
-                blobStore.put(shardHash, shard);
+            List<String> chunkHashes = new ArrayList<>();
+            for (Segment s : manifest.getSegments()) {
+                if (s.shards() != null && !s.shards().isEmpty()) {
+                    for (ShardInfo shard : s.shards()) {
+                        chunkHashes.add(shard.hash());
+                    }
+                } else {
+                    chunkHashes.add(s.chunkHash());
+                }
             }
             
-            shards.add(new ShardInfo(i, shardHash, shard.length));
-            allChunkHashes.add(shardHash);
+            if (onFileIngested != null) {
+                onFileIngested.accept(new FileIngestedEvent(fileId, fileName, size, chunkHashes.size()));
+            }
+            
+            // Return result immediately, skipping processing
+            return new IngestResult(fileId, chunkHashes, encryptedManifest, "dedup-" + fileId);
+        } catch (Exception e) {
+            // Deduplication failed (e.g. key mismatch or corruption), proceed with full ingest
+            return null;
+        }
+    }
+
+    private long quotaBaseline() {
+        return this.options.maxStorageBytes > 0 ? blobStore.stats().totalBytes() : 0;
+    }
+
+    // Quota Enforcement
+    private void checkQuota(long currentUsage, long required) {
+        if (this.options.maxStorageBytes > 0 && currentUsage + required > this.options.maxStorageBytes) {
+            throw new IllegalStateException("Storage quota exceeded. Current usage: " + currentUsage + 
+                ", Max allowed: " + this.options.maxStorageBytes + ", Required: " + required);
+        }
+    }
+
+    private OperationState startOperation(OperationType type) {
+        String operationId = generateOperationId();
+        OperationState state = new OperationState(operationId, type, Instant.now());
+        operations.put(operationId, state);
+        return state;
+    }
+
+    private void endOperation(OperationState state) {
+        if (!state.completed) {
+            state.failed = true;
+            state.completedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Muxes and stores chunks from {@code source} until it is exhausted. Chunks
+     * are read in order on the calling thread and processed on the chunk pool,
+     * at most {@code concurrency} at a time; results are collected, reported and
+     * added to the manifest in file order. Reading blocks while the window is
+     * full, so at most {@code concurrency + 1} input chunks are live.
+     *
+     * @param fileId reported in progress events, null while not yet known
+     * @param totalSize total input length, or -1 if unknown
+     */
+    private ChunkRun writeChunks(ChunkSource source, String fileId, long totalSize, long quotaBaseline,
+                                 IngestOptions opts, OperationState state, Consumer<Progress> progress) throws IOException {
+        ChunkRun run = new ChunkRun();
+        int totalChunks = totalSize < 0 ? -1 : (int) Math.max(1, (totalSize + chunkSize - 1) / chunkSize);
+        int window = Math.max(1, options.concurrency);
+        ArrayDeque<PendingChunk> pending = new ArrayDeque<>(window);
+        long bytesRead = 0;
+        int chunksRead = 0;
+
+        try {
+            while (true) {
+                if (state.cancelled) {
+                    throw new CancellationException("Operation cancelled: " + state.operationId);
+                }
+
+                ByteBuffer chunk = source.next();
+                int chunkLength = chunk.remaining();
+                // An empty file still gets one (empty) segment
+                if (chunkLength == 0 && chunksRead > 0) {
+                    source.release(chunk);
+                    break;
+                }
+                try {
+                    checkQuota(quotaBaseline, bytesRead + chunkLength);
+                } catch (IllegalStateException e) {
+                    source.release(chunk);
+                    throw e;
+                }
+                bytesRead += chunkLength;
+                chunksRead++;
+                boolean last = chunkLength < chunkSize;
+
+                pending.add(new PendingChunk(chunkLength, last, submitChunk(source, chunk, opts)));
+                // Backpressure: drain in order until there is room for the next chunk
+                while (pending.size() >= window || (last && !pending.isEmpty())) {
+                    completeChunk(pending.poll(), run, fileId, totalSize, totalChunks, state, progress);
+                }
+                if (last) {
+                    break;
+                }
+            }
+            while (!pending.isEmpty()) {
+                completeChunk(pending.poll(), run, fileId, totalSize, totalChunks, state, progress);
+            }
+        } finally {
+            // On failure, wait for in-flight chunks to finish so their buffers go
+            // back to the pools. Cancelling would skip tasks that have not started,
+            // and with them the release in their finally block.
+            for (PendingChunk chunk : pending) {
+                try {
+                    chunk.output().join();
+                } catch (CancellationException | CompletionException ignored) {
+                    // Already failing
+                }
+            }
+        }
+        return run;
+    }
+
+    private CompletableFuture<ChunkOutput> submitChunk(ChunkSource source, ByteBuffer chunk, IngestOptions opts) {
+        Supplier<ChunkOutput> task = () -> {
+            ByteBuffer muxBuffer = null;
+            try {
+                // Stream-encoded segments are muxed block by block and need no mux buffer
+                muxBuffer = streamsErasure(opts) ? null : muxBufferPool.acquire();
+                return storeChunk(chunk, muxBuffer, opts);
+            } finally {
+                muxBufferPool.release(muxBuffer);
+                source.release(chunk);
+            }
+        };
+        try {
+            return onChunkPool(task);
+        } catch (RejectedExecutionException e) {
+            // The task never runs, so the chunk is still ours to release
+            source.release(chunk);
+            throw e;
+        }
+    }
+
+    private void completeChunk(PendingChunk chunk, ChunkRun run, String fileId, long totalSize, int totalChunks,
+                               OperationState state, Consumer<Progress> progress) {
+        ChunkOutput output = await(chunk.output());
+
+        run.segments.add(output.segment());
+        run.chunkHashes.addAll(output.chunkHashes());
+        run.written.addAll(output.written());
+        run.bytes += chunk.length();
+        long bytes = run.bytes;
+        int chunkIndex = run.segments.size();
+
+        state.bytesProcessed = bytes;
+        state.progress = totalSize > 0 ? Math.min(1.0, (double) bytes / totalSize) : (chunk.last() ? 1.0 : 0.0);
+        
+        if (progress != null) {
+            progress.accept(new Progress(
+                state.operationId,
+                OperationType.INGEST,
+                bytes,
+                totalSize,
+                state.progress * 100,
+                chunkIndex,
+                totalChunks,
+                fileId
+            ));
+        }
+        
+        if (onChunkIngested != null) {
+            Segment segment = output.segment();
+            String hash = segment.chunkHash() != null ? segment.chunkHash() : segment.shards().get(0).hash();
+            onChunkIngested.accept(new ChunkIngestedEvent(fileId, hash, state.progress));
+        }
+    }
+
+    private ChunkOutput storeChunk(ByteBuffer chunk, ByteBuffer muxBuffer, IngestOptions opts) {
+        List<String> chunkHashes = new ArrayList<>();
+        List<String> written = new ArrayList<>();
+        int chunkLength = chunk.remaining();
+        byte[] chunkKey = generateEncryptionKey();
+        byte[] isoSeed = generateISOSeed();
+
+        if (streamsErasure(opts)) {
+            Segment segment = streamWithErasure(chunk, chunkKey, isoSeed, chunkHashes, written, opts);
+            return new ChunkOutput(segment, chunkHashes, written);
+        }
+        
+        // Mux straight from the input chunk into the pooled buffer
+        muxBuffer.clear();
+        MuxEngine.MuxSpan muxSpan = muxEngine.mux(chunk, muxBuffer, chunkKey, isoSeed, 0);
+        muxBuffer.flip();
+        
+        if (opts.enableErasure()) {
+            Segment segment = ingestWithErasure(muxBuffer, chunkKey, isoSeed, muxSpan, chunkLength, chunkHashes, written, opts);
+            return new ChunkOutput(segment, chunkHashes, written);
+        }
+
+        String chunkHash = sha256Hex(muxBuffer);
+        
+        // CAS Deduplication at chunk level
+        if (!blobStore.has(chunkHash)) {
+            blobStore.put(chunkHash, muxBuffer);
+            written.add(chunkHash);
+        }
+        
+        chunkHashes.add(chunkHash);
+        
+        Segment segment = new Segment(
+            chunkHash,
+            HexFormat.of().formatHex(chunkKey),
+            HexFormat.of().formatHex(isoSeed),
+            0,
+            muxSpan.sectorCount(),
+            muxSpan.encryptedSize(),
+            chunkLength,
+            null,
+            null,
+            null
+        );
+        return new ChunkOutput(segment, chunkHashes, written);
+    }
+
+    private IngestResult finishIngest(String fileId, String fileName, byte[] masterKey, IngestOptions opts,
+                                      ChunkRun run, OperationState state) {
+        ErasureConfig ecConfig = null;
+        if (opts.enableErasure()) {
+            ecConfig = new ErasureConfig(opts.dataShards(), opts.parityShards(),
+                streamsErasure(opts) ? options.erasureStripeSize : null,
+                opts.localGroups() > 0 ? ErasureConfig.LRC : ErasureConfig.REED_SOLOMON,
+                opts.localGroups() > 0 ? opts.localGroups() : null);
+        }
+
+        Manifest manifest = Manifest.create(new Manifest.ManifestOptions(
+            fileId,
+            fileName,
+            run.bytes,
+            run.segments.get(0).isoSeed(),
+            isoSize.getBytes(),
+            ecConfig,
+            run.segments
+        ));
+        
+        byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
+        byte[] encryptedManifest = Manifest.encrypt(manifest, manifestKey);
+        manifestStore.put(fileId, encryptedManifest);
+        indexShards(fileId, manifest);
+        
+        state.completed = true;
+        state.completedAt = Instant.now();
+        totalBytesIngested.addAndGet(run.bytes);
+        totalFilesIngested.incrementAndGet();
+        
+        if (onFileIngested != null) {
+            onFileIngested.accept(new FileIngestedEvent(fileId, fileName, run.bytes, run.chunkHashes.size()));
+        }
+        
+        return new IngestResult(fileId, run.chunkHashes, encryptedManifest, state.operationId);
+    }
+
+    private boolean streamsErasure(IngestOptions opts) {
+        return opts.enableErasure() && options.erasureStripeSize > 0;
+    }
+
+    /**
+     * Erasure-codes a chunk without materialising its muxed form or its shards:
+     * the chunk is muxed a block at a time into {@link ErasureCoder#encodeStream},
+     * which appends each stripe's shard pieces to one {@link BlobWriter} per shard.
+     * Heap use is bounded by the stripe size rather than the chunk size.
+     */
+    private Segment streamWithErasure(ByteBuffer chunk, byte[] chunkKey, byte[] isoSeed,
+                                      List<String> allChunkHashes, List<String> written, IngestOptions opts) {
+        int originalSize = chunk.remaining();
+        MuxEngine.MuxStream muxed = muxEngine.muxStream(chunk, chunkKey, isoSeed, 0);
+        MuxEngine.MuxSpan muxSpan = muxed.span();
+        ErasureCoder coder = coders.get(opts.dataShards, opts.parityShards, opts.localGroups);
+        List<ShardInfo> shards = new ArrayList<>();
+
+        BlobWriter[] writers = new BlobWriter[coder.getTotalShards()];
+        try {
+            for (int i = 0; i < writers.length; i++) {
+                writers[i] = blobStore.openWriter();
+            }
+            coder.encodeStream(muxed, muxSpan.muxedSize(), writers, options.erasureStripeSize, 0);
+
+            for (int i = 0; i < writers.length; i++) {
+                String shardHash = writers[i].hash();
+
+                // CAS Deduplication at shard level
+                if (!blobStore.has(shardHash)) {
+                    writers[i].commit();
+                    written.add(shardHash);
+                }
+
+                shards.add(new ShardInfo(i, shardHash, (int) writers[i].size()));
+                allChunkHashes.add(shardHash);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (BlobWriter writer : writers) {
+                closeQuietly(writer);
+            }
+        }
+
+        if (onErasureEncoded != null) {
+            onErasureEncoded.accept(new ErasureEncodedEvent(
+                coder.getDataShards(),
+                coder.getParityShards(),
+                shards.size()
+            ));
+        }
+
+        return new Segment(
+            null,
+            HexFormat.of().formatHex(chunkKey),
+            HexFormat.of().formatHex(isoSeed),
+            0,
+            muxSpan.sectorCount(),
+            muxSpan.encryptedSize(),
+            originalSize,
+            shards,
+            muxSpan.muxedSize(),
+            shards.get(0).size()
+        );
+    }
+
+    private Segment ingestWithErasure(ByteBuffer muxed, byte[] chunkKey, byte[] isoSeed, 
+                                       MuxEngine.MuxSpan muxSpan, int originalSize,
+                                       List<String> allChunkHashes, List<String> written, IngestOptions opts) {
+        int muxedLength = muxed.remaining();
+        byte[] muxedArray;
+        int muxedOffset;
+        if (muxed.hasArray()) {
+            muxedArray = muxed.array();
+            muxedOffset = muxed.arrayOffset() + muxed.position();
+        } else {
+            muxedArray = new byte[muxedLength];
+            muxed.duplicate().get(muxedArray);
+            muxedOffset = 0;
+        }
+
+        ErasureCoder coder = coders.get(opts.dataShards, opts.parityShards, opts.localGroups);
+        List<ShardInfo> shards = new ArrayList<>();
+
+        int shardSize = coder.shardSize(muxedLength);
+        try (ErasureCoder.EncodedStripe encoded =
+                 coder.encodeSlices(muxedArray, muxedOffset, muxedLength, shardPool(shardSize))) {
+            for (int i = 0; i < encoded.shardCount(); i++) {
+                ByteBuffer shard = encoded.shard(i);
+                String shardHash = sha256Hex(shard);
+
+                // CAS Deduplication at shard level
+                if (!blobStore.has(shardHash)) {
+                    blobStore.put(shardHash, shard);
+                    written.add(shardHash);
+                }
+
+                shards.add(new ShardInfo(i, shardHash, shardSize));
+                allChunkHashes.add(shardHash);
+            }
         }
         
         if (onErasureEncoded != null) {
@@ -318,12 +623,12 @@ public class SupernodeStorage {
             HexFormat.of().formatHex(chunkKey),
             HexFormat.of().formatHex(isoSeed),
             0,
-            muxResult.sectorCount(),
-            muxResult.encryptedSize(),
+            muxSpan.sectorCount(),
+            muxSpan.encryptedSize(),
             originalSize,
             shards,
-            muxedData.length,
-            encoded.shardSize()
+            muxedLength,
+            shardSize
         );
     }
     
@@ -332,94 +637,20 @@ public class SupernodeStorage {
     }
     
     public RetrieveResult retrieve(String fileId, byte[] masterKey, Consumer<Progress> progress) {
-        String operationId = generateOperationId();
-        OperationState state = new OperationState(operationId, OperationType.RETRIEVE, Instant.now());
-        operations.put(operationId, state);
-        
+        OperationState state = startOperation(OperationType.RETRIEVE);
         try {
-            byte[] encryptedManifest = manifestStore.get(fileId);
-            if (encryptedManifest == null) {
-                throw new IllegalArgumentException("Manifest not found for file: " + fileId);
-            }
-            
-            byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
-            Manifest manifest = Manifest.decrypt(encryptedManifest, manifestKey);
-            
-            if (options.verifyOnRetrieve) {
-                manifest.verifyIntegrity(blobStore::get);
-            }
+            Manifest manifest = openManifest(fileId, masterKey);
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(manifest.getFileSize()));
             
-            List<byte[]> parts = new ArrayList<>();
-            List<Segment> segments = manifest.getSegments();
-            long totalSize = manifest.getFileSize();
-            long bytesRetrieved = 0;
-            
-            for (int i = 0; i < segments.size(); i++) {
-                if (state.cancelled) {
-                    throw new CancellationException("Operation cancelled: " + operationId);
-                }
-                
-                Segment segment = segments.get(i);
-                
-                byte[] muxedData;
-                if (segment.shards() != null && !segment.shards().isEmpty()) {
-                    muxedData = retrieveWithErasure(segment, manifest.getErasure());
-                } else {
-                    muxedData = blobStore.get(segment.chunkHash())
-                        .orElseThrow(() -> new IllegalStateException("Chunk not found: " + segment.chunkHash()));
-                }
-                
-                byte[] chunkKey = HexFormat.of().parseHex(segment.chunkKey());
-                byte[] isoSeed = HexFormat.of().parseHex(segment.isoSeed());
-                
-                byte[] chunk = muxEngine.demux(muxedData, chunkKey, isoSeed, segment.sectorStart(), segment.encryptedSize());
-                parts.add(chunk);
-                bytesRetrieved += chunk.length;
-                
-                state.bytesProcessed = bytesRetrieved;
-                state.progress = (double) bytesRetrieved / totalSize;
-                
-                if (progress != null) {
-                    progress.accept(new Progress(
-                        operationId,
-                        OperationType.RETRIEVE,
-                        bytesRetrieved,
-                        totalSize,
-                        state.progress * 100,
-                        i + 1,
-                        segments.size(),
-                        fileId
-                    ));
-                }
-                
-                if (onChunkRetrieved != null) {
-                    String hash = segment.chunkHash() != null ? segment.chunkHash() : segment.shards().get(0).hash();
-                    onChunkRetrieved.accept(new ChunkRetrievedEvent(fileId, hash, state.progress));
-                }
-            }
-            
-            int totalBytes = parts.stream().mapToInt(p -> p.length).sum();
-            ByteBuffer buffer = ByteBuffer.allocate(totalBytes);
-            for (byte[] part : parts) {
-                buffer.put(part);
-            }
+            readSegments(fileId, manifest, state, progress, (segment, chunk) -> buffer.put(chunk));
             byte[] fileBuffer = buffer.array();
+            finishRetrieve(fileId, manifest, fileBuffer.length, state);
             
-            state.completed = true;
-            state.completedAt = Instant.now();
-            totalBytesRetrieved.addAndGet(fileBuffer.length);
-            totalFilesRetrieved.incrementAndGet();
-            
-            if (onFileRetrieved != null) {
-                onFileRetrieved.accept(new FileRetrievedEvent(fileId, manifest.getFileName(), fileBuffer.length));
-            }
-            
-            return new RetrieveResult(manifest.getFileName(), manifest.getFileSize(), fileBuffer, operationId);
+            return new RetrieveResult(manifest.getFileName(), manifest.getFileSize(), fileBuffer, state.operationId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         } finally {
-            if (!state.completed) {
-                state.failed = true;
-                state.completedAt = Instant.now();
-            }
+            endOperation(state);
         }
     }
     
@@ -427,58 +658,163 @@ public class SupernodeStorage {
         retrieveStreaming(fileId, masterKey, out, null);
     }
     
+    /**
+     * Streams a file to {@code out} in order while up to
+     * {@link StorageOptions#readAhead} later segments are fetched and demuxed on
+     * the chunk pool.
+     */
     public void retrieveStreaming(String fileId, byte[] masterKey, OutputStream out, Consumer<Progress> progress) throws IOException {
-        String operationId = generateOperationId();
-        OperationState state = new OperationState(operationId, OperationType.RETRIEVE, Instant.now());
-        operations.put(operationId, state);
+        OperationState state = startOperation(OperationType.RETRIEVE);
+        try {
+            Manifest manifest = openManifest(fileId, masterKey);
+            long bytesRetrieved = readSegments(fileId, manifest, state, progress, (segment, chunk) -> {
+                out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                out.flush();
+            });
+            finishRetrieve(fileId, manifest, bytesRetrieved, state);
+        } finally {
+            endOperation(state);
+        }
+    }
+    
+    /**
+     * Writes bytes {@code [offset, offset + length)} of a file to {@code out},
+     * clipped to the end of the file. Only segments overlapping the range are
+     * fetched and demuxed, located via each segment's {@code originalSize}.
+     */
+    public RangeResult retrieveRange(String fileId, byte[] masterKey, long offset, long length, OutputStream out) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid range: offset=" + offset + ", length=" + length);
+        }
         
+        OperationState state = startOperation(OperationType.RETRIEVE);
         try {
-            byte[] encryptedManifest = manifestStore.get(fileId);
-            if (encryptedManifest == null) {
-                throw new IllegalArgumentException("Manifest not found for file: " + fileId);
-            }
-            
-            byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
-            Manifest manifest = Manifest.decrypt(encryptedManifest, manifestKey);
+            Manifest manifest = openManifest(fileId, masterKey);
+            long fileSize = manifest.getFileSize();
+            long end = offset + Math.min(length, Math.max(0, fileSize - offset));
             
-            if (options.verifyOnRetrieve) {
-                manifest.verifyIntegrity(blobStore::get);
+            // Locate the run of segments covering [offset, end)
+            List<Segment> segments = manifest.getSegments();
+            int first = 0;
+            long firstStart = 0;
+            while (first < segments.size() && firstStart + segments.get(first).originalSize() <= offset) {
+                firstStart += segments.get(first).originalSize();
+                first++;
+            }
+            int last = first;
+            long runEnd = firstStart;
+            while (last < segments.size() && runEnd < end) {
+                runEnd += segments.get(last).originalSize();
+                last++;
             }
             
-            List<Segment> segments = manifest.getSegments();
-            long totalSize = manifest.getFileSize();
-            long bytesRetrieved = 0;
+            long[] position = {firstStart};
+            readSegments(fileId, segments.subList(first, last), manifest.getErasure(),
+                runEnd - firstStart, state, null, (segment, chunk) -> {
+                    long chunkStart = position[0];
+                    position[0] += chunk.remaining();
+                    int from = (int) (Math.max(offset, chunkStart) - chunkStart);
+                    int to = (int) (Math.min(end, position[0]) - chunkStart);
+                    if (from < to) {
+                        out.write(chunk.array(), chunk.arrayOffset() + chunk.position() + from, to - from);
+                    }
+                });
             
+            state.completed = true;
+            state.completedAt = Instant.now();
+            totalBytesRetrieved.addAndGet(end - offset);
+            
+            return new RangeResult(manifest.getFileName(), fileSize, offset, end - offset, state.operationId);
+        } finally {
+            endOperation(state);
+        }
+    }
+    
+    public CompletableFuture<RetrieveResult> retrieveAsync(String fileId, byte[] masterKey) {
+        return retrieveAsync(fileId, masterKey, null);
+    }
+    
+    public CompletableFuture<RetrieveResult> retrieveAsync(String fileId, byte[] masterKey, Consumer<Progress> progress) {
+        return CompletableFuture.supplyAsync(() -> retrieve(fileId, masterKey, progress), executor);
+    }
+    
+    private Manifest openManifest(String fileId, byte[] masterKey) {
+        byte[] encryptedManifest = manifestStore.get(fileId);
+        if (encryptedManifest == null) {
+            throw new IllegalArgumentException("Manifest not found for file: " + fileId);
+        }
+        
+        byte[] manifestKey = Manifest.deriveManifestKey(masterKey, fileId);
+        Manifest manifest = Manifest.decrypt(encryptedManifest, manifestKey);
+        
+        if (options.verifyOnRetrieve) {
+            manifest.verifyIntegrity(blobStore::get);
+        }
+        return manifest;
+    }
+
+    private void finishRetrieve(String fileId, Manifest manifest, long bytesRetrieved, OperationState state) {
+        state.completed = true;
+        state.completedAt = Instant.now();
+        totalBytesRetrieved.addAndGet(bytesRetrieved);
+        totalFilesRetrieved.incrementAndGet();
+        
+        if (onFileRetrieved != null) {
+            onFileRetrieved.accept(new FileRetrievedEvent(fileId, manifest.getFileName(), bytesRetrieved));
+        }
+    }
+
+    /**
+     * Fetches and demuxes every segment of {@code manifest}, handing plaintext
+     * to {@code sink} strictly in order. Up to {@link StorageOptions#readAhead}
+     * segments are in flight on the chunk pool, so blob I/O and decryption of
+     * later segments overlap with the sink; memory is bounded by that window.
+     * Chunk buffers passed to the sink are only valid for the call.
+     *
+     * @return plaintext bytes delivered
+     */
+    private long readSegments(String fileId, Manifest manifest, OperationState state,
+                              Consumer<Progress> progress, SegmentSink sink) throws IOException {
+        return readSegments(fileId, manifest.getSegments(), manifest.getErasure(), manifest.getFileSize(),
+            state, progress, sink);
+    }
+
+    /**
+     * As {@link #readSegments(String, Manifest, OperationState, Consumer, SegmentSink)}
+     * over a run of a manifest's segments, with progress measured against
+     * {@code totalSize}.
+     */
+    private long readSegments(String fileId, List<Segment> segments, ErasureConfig erasureConfig, long totalSize,
+                              OperationState state, Consumer<Progress> progress, SegmentSink sink) throws IOException {
+        int window = Math.max(1, options.readAhead);
+        ArrayDeque<CompletableFuture<DemuxedSegment>> pending = new ArrayDeque<>(window);
+        long bytesRetrieved = 0;
+        int next = 0;
+
+        try {
             for (int i = 0; i < segments.size(); i++) {
                 if (state.cancelled) {
-                    throw new CancellationException("Operation cancelled: " + operationId);
+                    throw new CancellationException("Operation cancelled: " + state.operationId);
+                }
+                while (next < segments.size() && pending.size() < window) {
+                    pending.add(submitSegment(segments.get(next++), erasureConfig));
                 }
                 
                 Segment segment = segments.get(i);
-                
-                byte[] muxedData;
-                if (segment.shards() != null && !segment.shards().isEmpty()) {
-                    muxedData = retrieveWithErasure(segment, manifest.getErasure());
-                } else {
-                    muxedData = blobStore.get(segment.chunkHash())
-                        .orElseThrow(() -> new IllegalStateException("Chunk not found: " + segment.chunkHash()));
+                DemuxedSegment demuxed = await(pending.poll());
+                try {
+                    bytesRetrieved += demuxed.plaintext().remaining();
+                    sink.accept(segment, demuxed.plaintext());
+                } finally {
+                    muxBufferPool.release(demuxed.scratch());
                 }
                 
-                byte[] chunkKey = HexFormat.of().parseHex(segment.chunkKey());
-                byte[] isoSeed = HexFormat.of().parseHex(segment.isoSeed());
-                
-                byte[] chunk = muxEngine.demux(muxedData, chunkKey, isoSeed, segment.sectorStart(), segment.encryptedSize());
-                
-                out.write(chunk);
-                out.flush();
-                bytesRetrieved += chunk.length;
-                
                 state.bytesProcessed = bytesRetrieved;
-                state.progress = (double) bytesRetrieved / totalSize;
+                state.progress = totalSize > 0 ? (double) bytesRetrieved / totalSize : 1.0;
                 
                 if (progress != null) {
                     progress.accept(new Progress(
-                        operationId,
+                        state.operationId,
                         OperationType.RETRIEVE,
                         bytesRetrieved,
                         totalSize,
@@ -494,33 +830,136 @@ public class SupernodeStorage {
                     onChunkRetrieved.accept(new ChunkRetrievedEvent(fileId, hash, state.progress));
                 }
             }
+        } finally {
+            // Drain read-ahead so pooled buffers are returned even on failure
+            for (CompletableFuture<DemuxedSegment> future : pending) {
+                try {
+                    muxBufferPool.release(future.join().scratch());
+                } catch (CancellationException | CompletionException ignored) {
+                    // Already failing
+                }
+            }
+        }
+        return bytesRetrieved;
+    }
+
+    private CompletableFuture<DemuxedSegment> submitSegment(Segment segment, ErasureConfig erasureConfig) {
+        Supplier<DemuxedSegment> task = () -> {
+            byte[] muxedData;
+            if (segment.shards() != null && !segment.shards().isEmpty()) {
+                muxedData = retrieveWithErasure(segment, erasureConfig);
+            } else {
+                muxedData = blobStore.get(segment.chunkHash())
+                    .orElseThrow(() -> new IllegalStateException("Chunk not found: " + segment.chunkHash()));
+            }
             
-            state.completed = true;
-            state.completedAt = Instant.now();
-            totalBytesRetrieved.addAndGet(bytesRetrieved);
-            totalFilesRetrieved.incrementAndGet();
-            
-            if (onFileRetrieved != null) {
-                onFileRetrieved.accept(new FileRetrievedEvent(fileId, manifest.getFileName(), bytesRetrieved));
+            ByteBuffer scratch = muxBufferPool.acquire();
+            try {
+                return new DemuxedSegment(demuxSegment(segment, muxedData, scratch), scratch);
+            } catch (RuntimeException e) {
+                muxBufferPool.release(scratch);
+                throw e;
             }
-        } finally {
-            if (!state.completed) {
-                state.failed = true;
-                state.completedAt = Instant.now();
+        };
+        return onChunkPool(task);
+    }
+
+    /** Runs {@code task} on the chunk pool, or inline when there is none. */
+    private <T> CompletableFuture<T> onChunkPool(Supplier<T> task) {
+        if (chunkExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
             }
         }
+        return CompletableFuture.supplyAsync(task, chunkExecutor);
     }
-    
-    public CompletableFuture<RetrieveResult> retrieveAsync(String fileId, byte[] masterKey) {
-        return retrieveAsync(fileId, masterKey, null);
+
+    /** Joins a chunk task, rethrowing its own exception rather than the wrapper. */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
-    
-    public CompletableFuture<RetrieveResult> retrieveAsync(String fileId, byte[] masterKey, Consumer<Progress> progress) {
-        return CompletableFuture.supplyAsync(() -> retrieve(fileId, masterKey, progress), executor);
+
+    /**
+     * Demuxes one segment into {@code scratch} (or a one-off buffer if the segment
+     * is larger than the pooled size) and returns a view of the plaintext.
+     */
+    private ByteBuffer demuxSegment(Segment segment, byte[] muxedData, ByteBuffer scratch) {
+        byte[] chunkKey = HexFormat.of().parseHex(segment.chunkKey());
+        byte[] isoSeed = HexFormat.of().parseHex(segment.isoSeed());
+        
+        ByteBuffer target = muxedData.length > scratch.capacity() ? ByteBuffer.allocate(muxedData.length) : scratch.clear();
+        muxEngine.demux(ByteBuffer.wrap(muxedData), target, chunkKey, isoSeed, segment.sectorStart(), segment.encryptedSize());
+        return target.flip();
     }
     
+    /**
+     * Decodes a stream-encoded segment window by window from the
+     * {@code dataShards} surviving shards the coder selects, data shards first.
+     * Missing shards are left to {@link #repairFile}.
+     */
+    private byte[] retrieveStriped(Segment segment, ErasureConfig erasureConfig, ErasureCoder coder) {
+        List<ShardInfo> surviving = segment.shards().stream()
+            .filter(shard -> blobStore.has(shard.hash()))
+            .toList();
+        int[] survivingIndices = surviving.stream().mapToInt(ShardInfo::index).toArray();
+        if (!coder.canDecode(survivingIndices)) {
+            throw new IllegalStateException(
+                "Not enough shards available. Need " + coder.getDataShards() + ", have " + surviving.size());
+        }
+        Set<Integer> selected = Set.copyOf(Arrays.stream(coder.selectShards(survivingIndices)).boxed().toList());
+        List<ShardInfo> present = surviving.stream()
+            .filter(shard -> selected.contains(shard.index()))
+            .toList();
+
+        InputStream[] inputs = new InputStream[present.size()];
+        int[] indices = new int[present.size()];
+        try {
+            for (int i = 0; i < inputs.length; i++) {
+                ShardInfo shard = present.get(i);
+                indices[i] = shard.index();
+                inputs[i] = blobStore.getStream(shard.hash())
+                    .orElseThrow(() -> new IllegalStateException("Shard vanished: " + shard.hash()));
+            }
+            java.io.ByteArrayOutputStream muxed = new java.io.ByteArrayOutputStream(segment.muxedSize());
+            coder.decodeStream(inputs, indices, segment.muxedSize(), segment.shardSize(), muxed,
+                erasureConfig.stripeSize(), 0);
+
+            if (onErasureDecoded != null) {
+                int available = (int) segment.shards().stream().filter(shard -> blobStore.has(shard.hash())).count();
+                onErasureDecoded.accept(new ErasureDecodedEvent(
+                    available,
+                    segment.shards().size(),
+                    available < segment.shards().size()
+                ));
+            }
+            return muxed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (InputStream input : inputs) {
+                closeQuietly(input);
+            }
+        }
+    }
+
+    private ErasureCoder coderFor(ErasureConfig erasureConfig) {
+        return coders.get(erasureConfig.dataShards(), erasureConfig.parityShards(), erasureConfig.localGroupCount());
+    }
+
     private byte[] retrieveWithErasure(Segment segment, ErasureConfig erasureConfig) {
-        ErasureCoder coder = new ErasureCoder(erasureConfig.dataShards(), erasureConfig.parityShards());
+        ErasureCoder coder = coderFor(erasureConfig);
+        if (erasureConfig.striped()) {
+            return retrieveStriped(segment, erasureConfig, coder);
+        }
         
         byte[][] shards = new byte[segment.shards().size()][];
         List<Integer> presentIndices = new ArrayList<>();
@@ -533,12 +972,12 @@ public class SupernodeStorage {
             }
         }
         
-        if (presentIndices.size() < coder.getDataShards()) {
+        int[] indices = presentIndices.stream().mapToInt(Integer::intValue).toArray();
+        if (!coder.canDecode(indices)) {
             throw new IllegalStateException(
                 "Not enough shards available. Need " + coder.getDataShards() + ", have " + presentIndices.size());
         }
         
-        int[] indices = presentIndices.stream().mapToInt(Integer::intValue).toArray();
         byte[] muxedData = coder.decode(shards, indices, segment.muxedSize(), segment.shardSize());
         
         // Streaming Reed-Solomon On-The-Fly Repair
@@ -655,6 +1094,7 @@ public class SupernodeStorage {
     
     public void storeManifest(String fileId, byte[] encryptedManifest) {
         manifestStore.put(fileId, encryptedManifest);
+        unindexedFiles.add(fileId);
         saveManifest(fileId, encryptedManifest);
     }
     
@@ -683,6 +1123,7 @@ public class SupernodeStorage {
 
                             byte[] data = java.nio.file.Files.readAllBytes(path);
                             manifestStore.put(fileId, data);
+                            unindexedFiles.add(fileId);
                         } catch (IOException e) {
                             e.printStackTrace();
                         }
@@ -696,6 +1137,7 @@ public class SupernodeStorage {
 
     public StorageStats stats() {
         BlobStore.BlobStoreStats blobStats = blobStore.stats();
+        ErasureCoderRegistry.RegistryStats coderStats = coders.stats();
         ErasureStats erasureStats = null;
         
         if (enableErasure) {
@@ -717,7 +1159,9 @@ public class SupernodeStorage {
             totalFilesIngested.get(),
             totalFilesRetrieved.get(),
             operations.size(),
-            getActiveOperations().size()
+            getActiveOperations().size(),
+            coderStats.hits(),
+            coderStats.misses()
         );
     }
     
@@ -731,6 +1175,9 @@ public class SupernodeStorage {
     
     public CompletableFuture<Void> shutdown() {
         return CompletableFuture.runAsync(() -> {
+            if (chunkExecutor != null) {
+                chunkExecutor.shutdown();
+            }
             executor.shutdown();
             try {
                 if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
@@ -765,72 +1212,146 @@ public class SupernodeStorage {
                     return new RepairStatus(fileId, false, "Not erasure coded", 0);
                 }
 
-                ErasureCoder coder = new ErasureCoder(
-                    manifest.getErasure().dataShards(),
-                    manifest.getErasure().parityShards()
-                );
-
-                int totalRepaired = 0;
+                RepairReport report = runRepair(startRepair(fileId), manifest);
+                int repaired = report.shardsRepaired();
+                if (report.count(SegmentOutcome.UNRECOVERABLE) > 0) {
+                    return new RepairStatus(fileId, false, "Unrecoverable: Not enough shards", repaired);
+                }
+                Optional<String> error = report.segments().stream()
+                    .filter(s -> s.outcome() == SegmentOutcome.FAILED)
+                    .map(RepairEngine.SegmentResult::error)
+                    .findFirst();
+                if (error.isPresent()) {
+                    return new RepairStatus(fileId, false, "Repair failed: " + error.get(), repaired);
+                }
 
-                for (Segment segment : manifest.getSegments()) {
-                    if (segment.shards() == null || segment.shards().isEmpty()) continue;
+                if (repaired > 0) {
+                    return new RepairStatus(fileId, true, "Repaired " + repaired + " shards", repaired);
+                } else {
+                    return new RepairStatus(fileId, true, "File is already healthy", 0);
+                }
 
-                    int totalShards = coder.getTotalShards();
-                    byte[][] shards = new byte[totalShards][];
-                    List<Integer> presentIndicesList = new ArrayList<>();
+            } catch (Exception e) {
+                return new RepairStatus(fileId, false, "Repair failed: " + e.getMessage(), 0);
+            }
+        }, executor);
+    }
 
-                    for (ShardInfo shardInfo : segment.shards()) {
-                        Optional<byte[]> data = blobStore.get(shardInfo.hash());
-                        if (data.isPresent()) {
-                            shards[shardInfo.index()] = data.get();
-                            presentIndicesList.add(shardInfo.index());
-                        }
-                    }
+    /**
+     * Repairs every segment of a file and reports on each. Unlike
+     * {@link #repairFile}, an unrecoverable segment does not stop the others.
+     * The report's operation ID can be passed to {@link #resumeRepair} to
+     * retry what was left after cancellation or failure.
+     */
+    public CompletableFuture<RepairReport> repairSegments(String fileId, byte[] masterKey) {
+        return CompletableFuture.supplyAsync(
+            () -> runRepair(startRepair(fileId), loadManifest(fileId, masterKey)), executor);
+    }
 
-                    // If all present, skip
-                    if (presentIndicesList.size() == totalShards) continue;
+    /**
+     * Continues a repair operation, skipping segments it already found healthy
+     * or repaired.
+     *
+     * @throws IllegalArgumentException if {@code operationId} is not a known repair
+     */
+    public CompletableFuture<RepairReport> resumeRepair(String operationId, byte[] masterKey) {
+        OperationState state = operations.get(operationId);
+        if (state == null || state.type != OperationType.REPAIR) {
+            throw new IllegalArgumentException("Unknown repair operation: " + operationId);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            state.completed = false;
+            state.failed = false;
+            state.cancelled = false;
+            state.completedAt = null;
+            return runRepair(state, loadManifest(state.fileId, masterKey));
+        }, executor);
+    }
 
-                    // If not enough to repair, fail
-                    if (presentIndicesList.size() < coder.getDataShards()) {
-                        return new RepairStatus(fileId, false, "Unrecoverable: Not enough shards", totalRepaired);
-                    }
+    /**
+     * Repairs every erasure-coded file that references one of {@code hashes},
+     * for example shards a {@link BlobScrubber} found corrupt. Files are found
+     * through the shard index; only manifests not yet indexed are opened, and
+     * those that {@code masterKey} cannot open are skipped.
+     */
+    public CompletableFuture<List<RepairReport>> repairShards(Collection<String> hashes, byte[] masterKey) {
+        List<String> wanted = List.copyOf(hashes);
+        return CompletableFuture.supplyAsync(() -> {
+            for (String fileId : List.copyOf(unindexedFiles)) {
+                try {
+                    indexShards(fileId, loadManifest(fileId, masterKey));
+                } catch (RuntimeException e) {
+                    // Not ours to open; retried on the next repair
+                }
+            }
 
-                    int[] presentIndices = presentIndicesList.stream().mapToInt(Integer::intValue).toArray();
-
-                    // The repairParity method fills in the missing shards in the 'shards' array
-                    ErasureCoder.RepairResult repairResult = coder.repairParity(
-                        shards, presentIndices, segment.originalSize(), segment.shardSize()
-                    );
-
-                    if (repairResult.success() && repairResult.repairedCount() > 0) {
-                        // Save repaired shards back to blob store
-                        for (int idx : repairResult.repairedShardIndices()) {
-                            // Find the hash for this index from manifest
-                            String hashToSave = null;
-                            for (ShardInfo si : segment.shards()) {
-                                if (si.index() == idx) {
-                                    hashToSave = si.hash();
-                                    break;
-                                }
-                            }
-                            if (hashToSave != null && shards[idx] != null) {
-                                blobStore.put(hashToSave, shards[idx]);
-                                totalRepaired++;
-                            }
-                        }
-                    }
+            Set<String> affected = new LinkedHashSet<>();
+            for (String hash : wanted) {
+                affected.addAll(shardFiles.getOrDefault(hash, Set.of()));
+            }
+            List<RepairReport> reports = new ArrayList<>();
+            for (String fileId : affected) {
+                Manifest manifest;
+                try {
+                    manifest = loadManifest(fileId, masterKey);
+                } catch (RuntimeException e) {
+                    continue;
                 }
+                reports.add(runRepair(startRepair(fileId), manifest));
+            }
+            return reports;
+        }, executor);
+    }
 
-                if (totalRepaired > 0) {
-                    return new RepairStatus(fileId, true, "Repaired " + totalRepaired + " shards", totalRepaired);
-                } else {
-                    return new RepairStatus(fileId, true, "File is already healthy", 0);
+    private void indexShards(String fileId, Manifest manifest) {
+        if (manifest.getErasure() != null) {
+            for (Segment segment : manifest.getSegments()) {
+                if (segment.shards() == null) continue;
+                for (ShardInfo shard : segment.shards()) {
+                    shardFiles.computeIfAbsent(shard.hash(), h -> ConcurrentHashMap.newKeySet()).add(fileId);
                 }
+            }
+        }
+        unindexedFiles.remove(fileId);
+    }
 
-            } catch (Exception e) {
-                return new RepairStatus(fileId, false, "Repair failed: " + e.getMessage(), 0);
+    private OperationState startRepair(String fileId) {
+        OperationState state = startOperation(OperationType.REPAIR);
+        state.fileId = fileId;
+        state.segmentResults = new ConcurrentHashMap<>();
+        return state;
+    }
+
+    private RepairReport runRepair(OperationState state, Manifest manifest) {
+        try {
+            int segments = manifest.getSegments().size();
+            RepairReport report = repairEngine.repair(state.operationId, manifest, state.segmentResults,
+                () -> state.cancelled,
+                result -> {
+                    long rebuilt = (long) result.repairedIndices().size()
+                        * manifest.getSegments().get(result.segmentIndex()).shardSize();
+                    synchronized (state) {
+                        state.progress = segments == 0 ? 1.0 : (double) state.segmentResults.size() / segments;
+                        state.bytesProcessed += rebuilt;
+                    }
+                });
+            if (!state.cancelled) {
+                state.completed = true;
+                state.progress = 1.0;
+                state.completedAt = Instant.now();
             }
-        }, executor);
+            return report;
+        } finally {
+            endOperation(state);
+        }
+    }
+
+    private Manifest loadManifest(String fileId, byte[] masterKey) {
+        byte[] encryptedManifest = manifestStore.get(fileId);
+        if (encryptedManifest == null) {
+            throw new IllegalArgumentException("Manifest missing: " + fileId);
+        }
+        return Manifest.decrypt(encryptedManifest, Manifest.deriveManifestKey(masterKey, fileId));
     }
 
     public FileHealth getFileHealth(String fileId, byte[] masterKey) {
@@ -853,18 +1374,20 @@ public class SupernodeStorage {
 
                 if (segment.shards() != null && !segment.shards().isEmpty()) {
                     // Erasure Coded
-                    int presentShards = 0;
+                    List<Integer> presentIndices = new ArrayList<>();
                     for (ShardInfo shard : segment.shards()) {
                         boolean present = blobStore.has(shard.hash());
-                        if (present) presentShards++;
+                        if (present) presentIndices.add(shard.index());
                         shards.add(new ShardHealth(shard.index(), present, shard.hash()));
                     }
 
                     if (manifest.getErasure() != null) {
-                        isHealthy = presentShards >= manifest.getErasure().dataShards();
+                        // An LRC segment can have dataShards shards and still not decode
+                        isHealthy = coderFor(manifest.getErasure())
+                            .canDecode(presentIndices.stream().mapToInt(Integer::intValue).toArray());
                     } else {
                         // Fallback if erasure config missing but shards present (shouldn't happen)
-                        isHealthy = presentShards > 0;
+                        isHealthy = !presentIndices.isEmpty();
                     }
 
                     chunks.add(new ChunkHealth(i, isHealthy ? "Healthy" : "Corrupt", shards));
@@ -901,25 +1424,41 @@ public class SupernodeStorage {
     
     private static byte[] generateEncryptionKey() {
         byte[] key = new byte[32];
-        new SecureRandom().nextBytes(key);
+        RANDOM.nextBytes(key);
         return key;
     }
     
     private static byte[] generateISOSeed() {
         byte[] seed = new byte[32];
-        new SecureRandom().nextBytes(seed);
+        RANDOM.nextBytes(seed);
         return seed;
     }
     
-    private static String sha256Hex(byte[] data) {
+    // Parity and padded-tail shard buffers, one pool per power-of-two size class
+    private BufferPool shardPool(int shardSize) {
+        int sizeClass = shardSize <= 1 ? 1 : Integer.highestOneBit(shardSize - 1) << 1;
+        return shardPools.computeIfAbsent(sizeClass,
+            size -> new BufferPool(size, Math.max(4, options.concurrency * (options.parityShards + 1))));
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        if (closeable == null) return;
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(data);
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
         }
     }
+
+    private static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(CryptoPool.sha256().digest(data));
+    }
+    
+    private static String sha256Hex(ByteBuffer data) {
+        MessageDigest md = CryptoPool.sha256();
+        md.update(data.duplicate());
+        return HexFormat.of().formatHex(md.digest());
+    }
     
     public static class StorageOptions {
         public final SizePreset isoSize;
@@ -934,6 +1473,11 @@ public class SupernodeStorage {
         public final int maxRetries;
         public final boolean enableCache;
         public final long maxStorageBytes; // 0 means unmetered
+        public final int readAhead; // segments fetched ahead of the writer on retrieve
+        public final int erasureStripeSize; // 0: encode each segment in one piece
+        public final boolean adaptiveErasure; // pick data/parity per file from the network context
+        public final int maxDataShards; // upper bound for adaptive data shards
+        public final int localGroups; // LRC local groups among parityShards; 0: Reed-Solomon
         
         private StorageOptions(Builder builder) {
             this.isoSize = builder.isoSize;
@@ -948,6 +1492,23 @@ public class SupernodeStorage {
             this.maxRetries = builder.maxRetries;
             this.enableCache = builder.enableCache;
             this.maxStorageBytes = builder.maxStorageBytes;
+            this.readAhead = builder.readAhead > 0 ? builder.readAhead : builder.concurrency;
+            this.erasureStripeSize = builder.erasureStripeSize;
+            this.adaptiveErasure = builder.adaptiveErasure;
+            this.maxDataShards = builder.maxDataShards;
+            this.localGroups = builder.localGroups;
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be positive");
+            }
+            if (erasureStripeSize < 0) {
+                throw new IllegalArgumentException("erasureStripeSize must not be negative");
+            }
+            if (maxDataShards < 2) {
+                throw new IllegalArgumentException("maxDataShards must be at least 2");
+            }
+            if (localGroups < 0 || (localGroups > 0 && localGroups >= parityShards)) {
+                throw new IllegalArgumentException("localGroups must leave at least one global parity shard");
+            }
         }
         
         public static StorageOptions defaults() {
@@ -962,6 +1523,19 @@ public class SupernodeStorage {
                 .build();
         }
         
+        /**
+         * Locally repairable layout: {@code localGroups} XOR parities, one per
+         * group of data shards, plus {@code globalParities} parities over all data.
+         */
+        public static StorageOptions withLrc(int dataShards, int localGroups, int globalParities) {
+            return builder()
+                .enableErasure(true)
+                .dataShards(dataShards)
+                .parityShards(localGroups + globalParities)
+                .localGroups(localGroups)
+                .build();
+        }
+        
         public static Builder builder() {
             return new Builder();
         }
@@ -985,6 +1559,11 @@ public class SupernodeStorage {
             private int maxRetries = 3;
             private boolean enableCache = true;
             private long maxStorageBytes = 0; // Default: unmetered
+            private int readAhead = 0; // Default: match concurrency
+            private int erasureStripeSize = 0;
+            private boolean adaptiveErasure = false;
+            private int maxDataShards = 16;
+            private int localGroups = 0;
             
             public Builder isoSize(SizePreset size) { this.isoSize = size; return this; }
             public Builder enableErasure(boolean enable) { this.enableErasure = enable; return this; }
@@ -998,6 +1577,16 @@ public class SupernodeStorage {
             public Builder maxRetries(int retries) { this.maxRetries = retries; return this; }
             public Builder enableCache(boolean enable) { this.enableCache = enable; return this; }
             public Builder maxStorageBytes(long bytes) { this.maxStorageBytes = bytes; return this; }
+            public Builder readAhead(int segments) { this.readAhead = segments; return this; }
+            /**
+             * Stream-encode erasure segments in windows of this many muxed bytes,
+             * so wide stripes over large chunks never hold all shards in memory.
+             */
+            public Builder erasureStripeSize(int bytes) { this.erasureStripeSize = bytes; return this; }
+            public Builder adaptiveErasure(boolean adaptive) { this.adaptiveErasure = adaptive; return this; }
+            public Builder maxDataShards(int shards) { this.maxDataShards = shards; return this; }
+            /** LRC local groups; {@code parityShards} then counts local and global parities. */
+            public Builder localGroups(int groups) { this.localGroups = groups; return this; }
             
             public StorageOptions build() {
                 return new StorageOptions(this);
@@ -1005,9 +1594,105 @@ public class SupernodeStorage {
         }
     }
     
-    public enum OperationType { INGEST, RETRIEVE }
+    public enum OperationType { INGEST, RETRIEVE, REPAIR }
     public enum OperationStatusType { PENDING, IN_PROGRESS, COMPLETED, FAILED, CANCELLED }
     
+    /** Supplies a file as successive chunks of at most chunkSize bytes. */
+    private interface ChunkSource {
+        /** The next chunk; empty once the input is exhausted. */
+        ByteBuffer next() throws IOException;
+
+        default void release(ByteBuffer chunk) {}
+    }
+
+    private static class ArrayChunkSource implements ChunkSource {
+        private final byte[] data;
+        private final int chunkSize;
+        private int offset;
+
+        ArrayChunkSource(byte[] data, int chunkSize) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public ByteBuffer next() {
+            int length = Math.min(chunkSize, data.length - offset);
+            ByteBuffer chunk = ByteBuffer.wrap(data, offset, length);
+            offset += length;
+            return chunk;
+        }
+    }
+
+    /** Reads pooled chunkSize windows from a stream, hashing them as they pass. */
+    private class StreamChunkSource implements ChunkSource {
+        private final InputStream input;
+        // A dedicated instance: CryptoPool's digest is reset by every chunk hash
+        private final MessageDigest digest;
+
+        StreamChunkSource(InputStream input) {
+            this.input = input;
+            try {
+                this.digest = MessageDigest.getInstance(CryptoPool.SHA256);
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        public ByteBuffer next() throws IOException {
+            ByteBuffer chunk = inputBufferPool.acquire();
+            try {
+                // Fill the whole window: a short chunk marks the end of the file.
+                // Not readNBytes, which some streams implement as a single read
+                byte[] array = chunk.array();
+                int base = chunk.arrayOffset();
+                int read = 0;
+                while (read < chunkSize) {
+                    int n = input.read(array, base + read, chunkSize - read);
+                    if (n < 0) {
+                        break;
+                    }
+                    read += n;
+                }
+                digest.update(array, base, read);
+                chunk.clear().limit(read);
+                return chunk;
+            } catch (IOException | RuntimeException e) {
+                inputBufferPool.release(chunk);
+                throw e;
+            }
+        }
+
+        @Override
+        public void release(ByteBuffer chunk) {
+            inputBufferPool.release(chunk);
+        }
+    }
+
+    /**
+     * Output of a chunk run. {@code written} lists the blobs this run stored
+     * that were not already present.
+     */
+    private static final class ChunkRun {
+        final List<Segment> segments = new ArrayList<>();
+        final List<String> chunkHashes = new ArrayList<>();
+        final List<String> written = new ArrayList<>();
+        long bytes;
+    }
+
+    private record ChunkOutput(Segment segment, List<String> chunkHashes, List<String> written) {}
+
+    private record PendingChunk(int length, boolean last, CompletableFuture<ChunkOutput> output) {}
+
+    /** Receives demuxed segment plaintext in file order. */
+    private interface SegmentSink {
+        void accept(Segment segment, ByteBuffer plaintext) throws IOException;
+    }
+
+    /** {@code plaintext} views {@code scratch} unless the segment outgrew the pooled size. */
+    private record DemuxedSegment(ByteBuffer plaintext, ByteBuffer scratch) {}
+
     private static class OperationState {
         final String operationId;
         final OperationType type;
@@ -1018,6 +1703,9 @@ public class SupernodeStorage {
         volatile boolean cancelled;
         volatile double progress;
         volatile long bytesProcessed;
+        // Repair operations only: settled segments, kept so the repair can be resumed
+        volatile String fileId;
+        volatile Map<Integer, RepairEngine.SegmentResult> segmentResults;
         
         OperationState(String operationId, OperationType type, Instant startedAt) {
             this.operationId = operationId;
@@ -1032,6 +1720,9 @@ public class SupernodeStorage {
         }
     }
     
+    /** A served byte range; {@code length} is zero when {@code offset} is at or past the end. */
+    public record RangeResult(String fileName, long fileSize, long offset, long length, String operationId) {}
+
     public record RetrieveResult(String fileName, long fileSize, byte[] data, String operationId) {
         public RetrieveResult(String fileName, long fileSize, byte[] data) {
             this(fileName, fileSize, data, null);
@@ -1064,6 +1755,11 @@ public class SupernodeStorage {
         Duration elapsed
     ) {}
     
+    /**
+     * {@code coderCacheHits} and {@code coderCacheMisses} count lookups in the
+     * storage's coder registry. That is the process-wide one, shared by every
+     * storage, unless another was passed to the constructor.
+     */
     public record StorageStats(
         int blobCount,
         long totalBytes,
@@ -1075,10 +1771,12 @@ public class SupernodeStorage {
         long totalFilesIngested,
         long totalFilesRetrieved,
         int totalOperations,
-        int activeOperations
+        int activeOperations,
+        long coderCacheHits,
+        long coderCacheMisses
     ) {
         public StorageStats(int blobCount, long totalBytes, int manifestCount, String isoSize, ErasureStats erasure) {
-            this(blobCount, totalBytes, manifestCount, isoSize, erasure, 0, 0, 0, 0, 0, 0);
+            this(blobCount, totalBytes, manifestCount, isoSize, erasure, 0, 0, 0, 0, 0, 0, 0, 0);
         }
     }
     
@@ -1091,7 +1789,15 @@ public class SupernodeStorage {
     public record FileRetrievedEvent(String fileId, String fileName, long size) {}
     public record ErasureDecodedEvent(int presentShards, int totalShards, boolean recovered) {}
 
-    public record IngestOptions(boolean enableErasure, int dataShards, int parityShards) {}
+    /**
+     * @param parityShards all parity shards, local and global for an LRC layout
+     * @param localGroups LRC local groups, or 0 for Reed-Solomon
+     */
+    public record IngestOptions(boolean enableErasure, int dataShards, int parityShards, int localGroups) {
+        public IngestOptions(boolean enableErasure, int dataShards, int parityShards) {
+            this(enableErasure, dataShards, parityShards, 0);
+        }
+    }
 
     public record FileHealth(
         String fileId,
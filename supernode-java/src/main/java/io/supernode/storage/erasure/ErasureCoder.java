@@ -1,13 +1,14 @@
 package io.supernode.storage.erasure;
 
 import io.supernode.network.transport.Transport;
+import io.supernode.storage.BufferPool;
+import io.supernode.storage.CryptoPool;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
@@ -17,24 +18,34 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
 public class ErasureCoder {
-    private static final int GF_SIZE = 256;
-    private static final int PRIMITIVE_POLY = 0x11d;
     private static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
     private static final int OVERLAP_SIZE = 0;
+    // Per-row stripe for blocked encoding: (data + parity) stripes stay within L2
+    static final int ENCODE_STRIPE = 16 * 1024;
+    // Distinct erasure patterns whose decode matrices are kept
+    static final int DECODE_CACHE_SIZE = 64;
 
     private final int dataShards;
     private final int parityShards;
     private final int totalShards;
 
-    private final int[] expTable = new int[GF_SIZE * 2];
-    private final int[] logTable = new int[GF_SIZE];
     private final int[][] encodeMatrix;
+    private final GfKernel kernel;
 
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Map<Integer, byte[]> checksumCache = new ConcurrentHashMap<>();
     private final AtomicLong encodeCount = new AtomicLong();
     private final AtomicLong decodeCount = new AtomicLong();
     private final AtomicLong repairCount = new AtomicLong();
+    private final AtomicLong directDecodes = new AtomicLong();
+    private final AtomicLong inverseHits = new AtomicLong();
+    private final AtomicLong inverseMisses = new AtomicLong();
+    private final Map<BitSet, int[][]> inverseCache = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BitSet, int[][]> eldest) {
+                return size() > DECODE_CACHE_SIZE;
+            }
+        });
 
     private NetworkContext networkContext;
     private Consumer<EncodingEvent> onEncoding;
@@ -50,6 +61,21 @@ public class ErasureCoder {
     }
 
     public ErasureCoder(int dataShards, int parityShards, NetworkContext networkContext) {
+        this(dataShards, parityShards, networkContext, GfKernel.preferred());
+    }
+
+    public ErasureCoder(int dataShards, int parityShards, NetworkContext networkContext, GfKernel kernel) {
+        this(dataShards, parityShards, networkContext, kernel, null);
+    }
+
+    /**
+     * For coders with their own generator matrix: {@code encodeMatrix} has
+     * {@code dataShards + parityShards} rows of {@code dataShards} coefficients,
+     * the first {@code dataShards} rows being the identity; {@code null} uses the
+     * Reed-Solomon Vandermonde matrix.
+     */
+    protected ErasureCoder(int dataShards, int parityShards, NetworkContext networkContext, GfKernel kernel,
+                           int[][] encodeMatrix) {
         if (dataShards < 1 || parityShards < 1) {
             throw new IllegalArgumentException("Must have at least 1 data and 1 parity shard");
         }
@@ -61,37 +87,33 @@ public class ErasureCoder {
         this.parityShards = parityShards;
         this.totalShards = dataShards + parityShards;
         this.networkContext = networkContext != null ? networkContext : new NetworkContext();
+        this.kernel = kernel;
 
-        initGaloisTables();
-        this.encodeMatrix = buildVandermondeMatrix();
+        this.encodeMatrix = encodeMatrix != null ? encodeMatrix : buildVandermondeMatrix();
     }
 
     public EncodeResult encode(byte[] data) {
         lock.readLock().lock();
         try {
             encodeCount.incrementAndGet();
-            int shardSize = (data.length + dataShards - 1) / dataShards;
-            byte[] paddedData = Arrays.copyOf(data, shardSize * dataShards);
-
+            int shardSize = shardSize(data.length);
             byte[][] shards = new byte[totalShards][shardSize];
 
+            // Trailing shards keep their zero padding
             for (int i = 0; i < dataShards; i++) {
-                System.arraycopy(paddedData, i * shardSize, shards[i], 0, shardSize);
-            }
-
-            java.util.stream.IntStream.range(dataShards, totalShards).parallel().forEach(i -> {
-                for (int j = 0; j < shardSize; j++) {
-                    int value = 0;
-                    for (int k = 0; k < dataShards; k++) {
-                        value ^= gfMul(encodeMatrix[i][k], shards[k][j] & 0xFF);
-                    }
-                    shards[i][j] = (byte) value;
+                int start = i * shardSize;
+                int copyLen = Math.max(0, Math.min(shardSize, data.length - start));
+                if (copyLen > 0) {
+                    System.arraycopy(data, start, shards[i], 0, copyLen);
                 }
-            });
+            }
 
-            computeChecksums(shards);
+            int[] offsets = new int[totalShards];
+            int[] lengths = new int[dataShards];
+            Arrays.fill(lengths, shardSize);
+            codeParityBlocked(shards, offsets, lengths, shardSize);
 
-            EncodeResult result = new EncodeResult(shards, shardSize, data.length);
+            EncodeResult result = new EncodeResult(shards, shardSize, data.length, computeChecksums(shards));
 
             if (onEncoding != null) {
                 EncodingEvent event = new EncodingEvent(
@@ -110,6 +132,68 @@ public class ErasureCoder {
         }
     }
 
+    /** Bytes per shard when encoding {@code length} bytes of input. */
+    public int shardSize(int length) {
+        return (length + dataShards - 1) / dataShards;
+    }
+
+    /**
+     * Encodes {@code data[offset, offset + length)} without copying it. Data
+     * shards that lie wholly inside the slice are returned as views of
+     * {@code data}; only a short trailing shard (zero-padded) and the parity
+     * shards are written, into buffers taken from {@code pool} when they fit.
+     * Parity is generated in cache-sized stripes, so each stripe of every data
+     * row feeds every parity row while it is still in cache.
+     *
+     * <p>Unlike {@link #encode}, computes no per-shard checksums.
+     *
+     * @param pool source of shard buffers, or {@code null} to allocate
+     */
+    public EncodedStripe encodeSlices(byte[] data, int offset, int length, BufferPool pool) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        lock.readLock().lock();
+        try {
+            encodeCount.incrementAndGet();
+            int shardSize = shardSize(length);
+            EncodedStripe stripe = new EncodedStripe(totalShards, shardSize, length, pool);
+
+            byte[][] arrays = new byte[totalShards][];
+            int[] offsets = new int[totalShards];
+            int[] lengths = new int[dataShards];
+            for (int i = 0; i < totalShards; i++) {
+                int start = i * shardSize;
+                int available = i < dataShards ? Math.max(0, Math.min(shardSize, length - start)) : 0;
+                ByteBuffer shard;
+                if (i < dataShards && available == shardSize) {
+                    shard = ByteBuffer.wrap(data, offset + start, shardSize).slice();
+                } else {
+                    shard = stripe.allocate();
+                    if (available > 0) {
+                        shard.put(0, data, offset + start, available);
+                    }
+                    if (i < dataShards) {
+                        Arrays.fill(shard.array(), shard.arrayOffset() + available, shard.arrayOffset() + shardSize, (byte) 0);
+                    }
+                }
+                stripe.shards[i] = shard;
+                arrays[i] = shard.array();
+                offsets[i] = shard.arrayOffset();
+                if (i < dataShards) {
+                    lengths[i] = available;
+                }
+            }
+
+            codeParityBlocked(arrays, offsets, lengths, shardSize);
+
+            if (onEncoding != null) {
+                onEncoding.accept(new EncodingEvent(length, dataShards, parityShards, shardSize, Instant.now()));
+            }
+            return stripe;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public byte[] decode(byte[][] shards, int[] presentIndices, int originalSize, int shardSize) {
         lock.readLock().lock();
         try {
@@ -119,29 +203,7 @@ public class ErasureCoder {
                     "Need at least " + dataShards + " shards, got " + presentIndices.length);
             }
 
-            int[] selectedIndices = Arrays.copyOf(presentIndices, dataShards);
-            byte[][] selectedShards = new byte[dataShards][];
-            for (int i = 0; i < dataShards; i++) {
-                selectedShards[i] = shards[selectedIndices[i]];
-            }
-
-            int[][] subMatrix = new int[dataShards][dataShards];
-            for (int i = 0; i < dataShards; i++) {
-                System.arraycopy(encodeMatrix[selectedIndices[i]], 0, subMatrix[i], 0, dataShards);
-            }
-
-            int[][] invMatrix = invertMatrix(subMatrix);
-
-            byte[][] decoded = new byte[dataShards][shardSize];
-            java.util.stream.IntStream.range(0, dataShards).parallel().forEach(i -> {
-                for (int j = 0; j < shardSize; j++) {
-                    int value = 0;
-                    for (int k = 0; k < dataShards; k++) {
-                        value ^= gfMul(invMatrix[i][k], selectedShards[k][j] & 0xFF);
-                    }
-                    decoded[i][j] = (byte) value;
-                }
-            });
+            byte[][] decoded = decodeDataRows(shards, selectShards(presentIndices), shardSize);
 
             byte[] result = new byte[originalSize];
             int offset = 0;
@@ -168,11 +230,68 @@ public class ErasureCoder {
         }
     }
 
+    /**
+     * Rebuilds missing data shards in place from any {@code dataShards} of the
+     * present ones. Works position by position, so it applies to stream-encoded
+     * shards as well as to shards from {@link #encode}.
+     */
+    public void reconstructDataShards(byte[][] shards, int[] presentIndices, int shardSize) {
+        lock.readLock().lock();
+        try {
+            byte[][] decoded = decodeDataRows(shards, selectShards(presentIndices), shardSize);
+            System.arraycopy(decoded, 0, shards, 0, dataShards);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Data shard rows for a sorted selection. Selected data shards are returned
+     * as-is (data shard i is present iff it sits at slot i); only the missing
+     * rows are decoded.
+     */
+    private byte[][] decodeDataRows(byte[][] shards, int[] selectedIndices, int shardSize) {
+        byte[][] selectedShards = new byte[dataShards][];
+        for (int i = 0; i < dataShards; i++) {
+            selectedShards[i] = shards[selectedIndices[i]];
+        }
+
+        byte[][] decoded = new byte[dataShards][];
+        int missing = 0;
+        for (int i = 0; i < dataShards; i++) {
+            if (selectedIndices[i] == i) {
+                decoded[i] = selectedShards[i];
+            } else {
+                missing++;
+            }
+        }
+
+        if (missing == 0) {
+            directDecodes.incrementAndGet();
+        } else {
+            int[][] invMatrix = decodeMatrix(selectedIndices);
+            java.util.stream.IntStream.range(0, dataShards)
+                .filter(i -> decoded[i] == null)
+                .parallel()
+                .forEach(i -> {
+                    decoded[i] = new byte[shardSize];
+                    codeRow(invMatrix[i], selectedShards, decoded[i], shardSize);
+                });
+        }
+        return decoded;
+    }
+
     public StreamEncodeResult encodeStream(InputStream input, long fileSize, OutputStream[] shardOutputs) 
             throws IOException {
         return encodeStream(input, fileSize, shardOutputs, DEFAULT_CHUNK_SIZE, OVERLAP_SIZE);
     }
 
+    /**
+     * Encodes {@code input} one {@code chunkSize} window at a time, appending
+     * each window's shard pieces to the shard outputs. Every window but the last
+     * is read in full, so {@link #decodeStream} given the same {@code chunkSize}
+     * can find the window boundaries again.
+     */
     public StreamEncodeResult encodeStream(InputStream input, long fileSize, 
             OutputStream[] shardOutputs, int chunkSize, int overlapSize) 
             throws IOException {
@@ -193,7 +312,7 @@ public class ErasureCoder {
             while (true) {
                 int readSize = chunkSize - carryOverLen;
                 byte[] chunk = new byte[readSize];
-                int bytesRead = input.read(chunk);
+                int bytesRead = readFully(input, chunk, readSize);
 
                 if (bytesRead == -1 && carryOverLen == 0) {
                     break;
@@ -224,15 +343,8 @@ public class ErasureCoder {
                     }
                 }
 
-                java.util.stream.IntStream.range(dataShards, totalShards).parallel().forEach(i -> {
-                    for (int j = 0; j < shardSize; j++) {
-                        int value = 0;
-                        for (int k = 0; k < dataShards; k++) {
-                            value ^= gfMul(encodeMatrix[i][k], shards[k][j] & 0xFF);
-                        }
-                        shards[i][j] = (byte) value;
-                    }
-                });
+                java.util.stream.IntStream.range(dataShards, totalShards).parallel().forEach(i ->
+                    codeRow(encodeMatrix[i], shards, shards[i], shardSize));
 
                 for (int i = 0; i < totalShards; i++) {
                     shardOutputs[i].write(shards[i], 0, shardSize);
@@ -266,13 +378,12 @@ public class ErasureCoder {
                 }
             }
 
-            computeChecksumsFromStreams(shardOutputs);
-
             return new StreamEncodeResult(
                 totalBytesRead,
                 shardsProduced,
                 (int) (totalShardSize / totalShards),
-                Instant.now()
+                Instant.now(),
+                computeChecksumsFromStreams(shardOutputs)
             );
         } finally {
             lock.readLock().unlock();
@@ -285,6 +396,11 @@ public class ErasureCoder {
                 DEFAULT_CHUNK_SIZE, OVERLAP_SIZE);
     }
 
+    /**
+     * Inverse of {@link #encodeStream}: {@code chunkSize} must be the window the
+     * shards were encoded with. Each window's piece is read from every input and
+     * its data written to {@code output} in order.
+     */
     public byte[] decodeStream(InputStream[] shardInputs, int[] shardIndices, 
             long originalSize, int shardSize, OutputStream output, 
             int chunkSize, int overlapSize) throws IOException {
@@ -297,48 +413,51 @@ public class ErasureCoder {
         try {
             decodeCount.incrementAndGet();
 
-            int[] selectedIndices = Arrays.copyOf(shardIndices, dataShards);
-            int[][] subMatrix = new int[dataShards][dataShards];
+            // Cached matrices are for ascending index order, so inputs are reordered to match
+            int[] selectedIndices = selectShards(shardIndices);
+            InputStream[] inputs = new InputStream[dataShards];
             for (int i = 0; i < dataShards; i++) {
-                System.arraycopy(encodeMatrix[selectedIndices[i]], 0, subMatrix[i], 0, dataShards);
+                for (int j = 0; j < shardIndices.length; j++) {
+                    if (shardIndices[j] == selectedIndices[i]) {
+                        inputs[i] = shardInputs[j];
+                        break;
+                    }
+                }
             }
 
-            int[][] invMatrix = invertMatrix(subMatrix);
+            boolean direct = true;
+            for (int i = 0; i < dataShards; i++) {
+                direct &= selectedIndices[i] == i;
+            }
+            int[][] invMatrix = direct ? null : decodeMatrix(selectedIndices);
+            int pieceSize = (chunkSize + dataShards - 1) / dataShards;
 
             long bytesWritten = 0;
             int shardsProduced = 0;
 
-            while (true) {
-                byte[][] shardChunks = new byte[dataShards][chunkSize];
-                int[] bytesReadPerShard = new int[dataShards];
+            while (bytesWritten < originalSize) {
+                byte[][] shardChunks = new byte[dataShards][pieceSize];
                 int maxBytesRead = 0;
-                boolean anyData = false;
 
                 for (int i = 0; i < dataShards; i++) {
-                    bytesReadPerShard[i] = shardInputs[i].read(shardChunks[i]);
-                    if (bytesReadPerShard[i] > 0) {
-                        anyData = true;
-                        maxBytesRead = Math.max(maxBytesRead, bytesReadPerShard[i]);
-                    }
+                    maxBytesRead = Math.max(maxBytesRead, readFully(inputs[i], shardChunks[i], pieceSize));
                 }
 
-                if (!anyData) {
+                if (maxBytesRead <= 0) {
                     break;
                 }
 
                 final int finalMaxBytesRead = maxBytesRead;
-                byte[][] decoded = new byte[dataShards][finalMaxBytesRead];
-                java.util.stream.IntStream.range(0, dataShards).parallel().forEach(i -> {
-                    for (int j = 0; j < finalMaxBytesRead; j++) {
-                        int value = 0;
-                        for (int k = 0; k < dataShards; k++) {
-                            value ^= gfMul(invMatrix[i][k], shardChunks[k][j] & 0xFF);
-                        }
-                        decoded[i][j] = (byte) value;
-                    }
-                });
+                byte[][] decoded;
+                if (direct) {
+                    decoded = shardChunks;
+                } else {
+                    decoded = new byte[dataShards][finalMaxBytesRead];
+                    java.util.stream.IntStream.range(0, dataShards).parallel().forEach(i ->
+                        codeRow(invMatrix[i], shardChunks, decoded[i], finalMaxBytesRead));
+                }
 
-                long bytesToProcess = Math.min((long) maxBytesRead * dataShards, originalSize - bytesWritten);
+                long bytesToProcess = Math.min(chunkSize, originalSize - bytesWritten);
 
                 for (int i = 0; i < dataShards; i++) {
                     long shardStart = (long) i * maxBytesRead;
@@ -400,13 +519,7 @@ public class ErasureCoder {
 
             java.util.stream.IntStream.range(dataShards, totalShards).parallel().forEach(p -> {
                 byte[] recomputedParity = new byte[shardSize];
-                for (int j = 0; j < shardSize; j++) {
-                    int value = 0;
-                    for (int k = 0; k < dataShards; k++) {
-                        value ^= gfMul(encodeMatrix[p][k], shards[k][j] & 0xFF);
-                    }
-                    recomputedParity[j] = (byte) value;
-                }
+                codeRow(encodeMatrix[p], shards, recomputedParity, shardSize);
 
                 if (!Arrays.equals(shards[p], recomputedParity)) {
                     corruptedIndices.add(p);
@@ -424,6 +537,49 @@ public class ErasureCoder {
         }
     }
 
+    /**
+     * Folds a change to one data shard into the parity shards in place, without
+     * touching the other data shards: {@code P[p] ^= c[p][j] * (old ^ new)}.
+     * With {@code oldShard == null} the shard is treated as previously all-zero,
+     * so folding every data shard into zeroed parity buffers one at a time
+     * produces the same parity as {@link #encode}.
+     *
+     * @param shards full shard layout; only non-null entries at
+     *               {@code dataShards..totalShards-1} are updated
+     */
+    public void updateParity(int dataIndex, byte[] oldShard, byte[] newShard, byte[][] shards) {
+        if (dataIndex < 0 || dataIndex >= dataShards) {
+            throw new IllegalArgumentException("Not a data shard index: " + dataIndex);
+        }
+        if (shards.length < totalShards) {
+            throw new IllegalArgumentException(
+                "Expected " + totalShards + " shard slots, got " + shards.length);
+        }
+        int length = newShard.length;
+        if (oldShard != null && oldShard.length != length) {
+            throw new IllegalArgumentException("Old and new shard sizes differ");
+        }
+        lock.readLock().lock();
+        try {
+            for (int p = dataShards; p < totalShards; p++) {
+                byte[] parity = shards[p];
+                if (parity == null) {
+                    continue;
+                }
+                if (parity.length != length) {
+                    throw new IllegalArgumentException("Parity shard " + p + " size differs from data shard");
+                }
+                int c = encodeMatrix[p][dataIndex];
+                if (oldShard != null) {
+                    kernel.mulAdd(c, oldShard, 0, parity, 0, length);
+                }
+                kernel.mulAdd(c, newShard, 0, parity, 0, length);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public RepairResult repairParity(byte[][] shards, int[] presentIndices, int originalSize, int shardSize) {
         lock.writeLock().lock();
         try {
@@ -459,14 +615,7 @@ public class ErasureCoder {
             java.util.stream.IntStream.range(0, finalNeededCount).parallel().forEach(i -> {
                 int missingIdx = neededIndices[i];
                 shards[missingIdx] = new byte[shardSize];
-
-                for (int j = 0; j < shardSize; j++) {
-                    int value = 0;
-                    for (int k = 0; k < dataShards; k++) {
-                        value ^= gfMul(encodeMatrix[missingIdx][k], shards[k][j] & 0xFF);
-                    }
-                    shards[missingIdx][j] = (byte) value;
-                }
+                codeRow(encodeMatrix[missingIdx], shards, shards[missingIdx], shardSize);
             });
 
             if (onRepair != null) {
@@ -514,21 +663,51 @@ public class ErasureCoder {
             optimalParity = Math.min(parityShards + 1, 6);
         }
 
-        if (avgLatency > 500) {
-            optimalParity = Math.min(optimalParity + 1, 8);
-        } else if (avgLatency < 100) {
-            optimalParity = Math.max(optimalParity - 1, 2);
+        // An unsampled metric reads as 0, which must not pass for a fast, lossless link
+        if (networkContext.hasLatencySample()) {
+            if (avgLatency > 500) {
+                optimalParity = Math.min(optimalParity + 1, 8);
+            } else if (avgLatency < 100) {
+                optimalParity = Math.max(optimalParity - 1, 2);
+            }
         }
 
-        if (packetLoss > 0.1) {
-            optimalParity = Math.min(optimalParity + 1, 8);
-        } else if (packetLoss < 0.01) {
-            optimalParity = Math.max(optimalParity - 1, 2);
+        if (networkContext.hasPacketLossSample()) {
+            if (packetLoss > 0.1) {
+                optimalParity = Math.min(optimalParity + 1, 8);
+            } else if (packetLoss < 0.01) {
+                optimalParity = Math.max(optimalParity - 1, 2);
+            }
         }
 
         return optimalParity;
     }
 
+    /**
+     * Chooses the data/parity layout for new data from the network context.
+     * Parity follows {@link #selectOptimalShardCount}. When active peers are
+     * known, data shards take up the peers parity leaves free, at least 2 and
+     * at most {@code maxDataShards}, so a healthy, well-populated network pays
+     * a smaller parity fraction. Until a latency or packet loss sample has
+     * arrived, or with no health or peer information, the configured layout
+     * is kept.
+     */
+    public ShardLayout selectAdaptiveLayout(int maxDataShards) {
+        if (networkContext == null
+                || !(networkContext.hasLatencySample() || networkContext.hasPacketLossSample())
+                || (networkContext.getNetworkHealth() == Transport.HealthState.UNKNOWN
+                    && networkContext.getActivePeers() == 0)) {
+            return new ShardLayout(dataShards, parityShards);
+        }
+        int parity = selectOptimalShardCount();
+        int data = dataShards;
+        int peers = networkContext.getActivePeers();
+        if (peers > 0) {
+            data = Math.max(2, Math.min(maxDataShards, peers - parity));
+        }
+        return new ShardLayout(Math.min(data, 255 - parity), parity);
+    }
+
     public List<PeerScore> selectOptimalPeers(List<PeerScore> peers) {
         if (peers == null || peers.isEmpty()) {
             return Collections.emptyList();
@@ -544,95 +723,81 @@ public class ErasureCoder {
         return peers.subList(0, Math.min(optimalShards, peers.size()));
     }
 
-    private void computeChecksums(byte[][] shards) {
-        checksumCache.clear();
-
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-
-            for (int i = 0; i < shards.length; i++) {
-                byte[] hash = digest.digest(shards[i]);
-                checksumCache.put(i, hash);
-                digest.reset();
-            }
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+    // Returned per call rather than kept on the coder, which the registry shares across threads
+    private static Map<Integer, byte[]> computeChecksums(byte[][] shards) {
+        Map<Integer, byte[]> checksums = new HashMap<>();
+        MessageDigest digest = CryptoPool.sha256();
+        for (int i = 0; i < shards.length; i++) {
+            checksums.put(i, digest.digest(shards[i]));
         }
+        return checksums;
     }
 
-    private void computeChecksumsFromStreams(OutputStream[] shardOutputs) throws IOException {
-        checksumCache.clear();
-
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-
-            for (int i = 0; i < shardOutputs.length; i++) {
-                if (shardOutputs[i] instanceof DigestOutputStream) {
-                    DigestOutputStream dos = (DigestOutputStream) shardOutputs[i];
-                    byte[] hash = dos.getMessageDigest().digest();
-                    checksumCache.put(i, hash);
-                }
+    // Digests come from the callers' DigestOutputStreams, so no MessageDigest of our own is needed
+    private static Map<Integer, byte[]> computeChecksumsFromStreams(OutputStream[] shardOutputs) {
+        Map<Integer, byte[]> checksums = new HashMap<>();
+        for (int i = 0; i < shardOutputs.length; i++) {
+            if (shardOutputs[i] instanceof DigestOutputStream) {
+                DigestOutputStream dos = (DigestOutputStream) shardOutputs[i];
+                byte[] hash = dos.getMessageDigest().digest();
+                checksums.put(i, hash);
             }
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
         }
-    }
-
-    public byte[] getChecksum(int shardIndex) {
-        return checksumCache.get(shardIndex);
-    }
-
-    public Map<Integer, byte[]> getAllChecksums() {
-        return new ConcurrentHashMap<>(checksumCache);
+        return checksums;
     }
 
     public boolean verifyChecksum(int shardIndex, byte[] expectedChecksum, byte[] shardData) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] actualChecksum = digest.digest(shardData);
-            return Arrays.equals(expectedChecksum, actualChecksum);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
-        }
+        byte[] actualChecksum = CryptoPool.sha256().digest(shardData);
+        return Arrays.equals(expectedChecksum, actualChecksum);
     }
 
-    private void initGaloisTables() {
-        int x = 1;
-        for (int i = 0; i < GF_SIZE - 1; i++) {
-            expTable[i] = x;
-            expTable[i + GF_SIZE - 1] = x;
-            logTable[x] = i;
-            x <<= 1;
-            if (x >= GF_SIZE) {
-                x ^= PRIMITIVE_POLY;
+    /**
+     * Writes the parity shards {@code shards[dataShards..]} from the data shards
+     * one {@link #ENCODE_STRIPE}-byte stripe at a time. Data shard {@code k}
+     * holds {@code lengths[k]} real bytes; anything beyond counts as zero
+     * padding and is never read.
+     */
+    private void codeParityBlocked(byte[][] shards, int[] offsets, int[] lengths, int shardSize) {
+        for (int stripe = 0; stripe < shardSize; stripe += ENCODE_STRIPE) {
+            int len = Math.min(ENCODE_STRIPE, shardSize - stripe);
+            for (int p = dataShards; p < totalShards; p++) {
+                int[] row = encodeMatrix[p];
+                byte[] out = shards[p];
+                int outOffset = offsets[p] + stripe;
+                // Shard 0 is always full, so it initializes the whole stripe
+                kernel.mul(row[0], shards[0], offsets[0] + stripe, out, outOffset, len);
+                for (int k = 1; k < dataShards; k++) {
+                    int n = Math.min(len, lengths[k] - stripe);
+                    if (n > 0) {
+                        kernel.mulAdd(row[k], shards[k], offsets[k] + stripe, out, outOffset, n);
+                    }
+                }
             }
         }
-        logTable[0] = 0;
-    }
-
-    private int gfMul(int a, int b) {
-        if (a == 0 || b == 0) return 0;
-        return expTable[logTable[a] + logTable[b]];
-    }
-
-    private int gfDiv(int a, int b) {
-        if (b == 0) throw new ArithmeticException("Division by zero in GF");
-        if (a == 0) return 0;
-        return expTable[(logTable[a] - logTable[b] + (GF_SIZE - 1)) % (GF_SIZE - 1)];
     }
 
-    private int gfInv(int a) {
-        if (a == 0) throw new ArithmeticException("Cannot invert zero in GF");
-        return expTable[(GF_SIZE - 1) - logTable[a]];
+    // Reads until {@code length} bytes or end of stream; -1 only for an immediate end
+    private static int readFully(InputStream input, byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = input.read(buffer, read, length - read);
+            if (n < 0) {
+                return read == 0 ? -1 : read;
+            }
+            read += n;
+        }
+        return read;
     }
 
-    private int gfPow(int base, int exp) {
-        if (exp == 0) return 1;
-        int result = 1;
-        for (int i = 0; i < exp; i++) {
-            result = gfMul(result, base);
+    /**
+     * Sets {@code output[0, length)} to the GF(2^8) dot product of {@code row}
+     * with the first {@code dataShards} inputs, one whole shard per kernel call.
+     */
+    private void codeRow(int[] row, byte[][] inputs, byte[] output, int length) {
+        kernel.mul(row[0], inputs[0], 0, output, 0, length);
+        for (int k = 1; k < dataShards; k++) {
+            kernel.mulAdd(row[k], inputs[k], 0, output, 0, length);
         }
-        return result;
     }
 
     private int[][] buildVandermondeMatrix() {
@@ -645,13 +810,79 @@ public class ErasureCoder {
         for (int i = dataShards; i < totalShards; i++) {
             for (int j = 0; j < dataShards; j++) {
                 int base = i - dataShards + 1;
-                matrix[i][j] = gfPow(base, j);
+                matrix[i][j] = GaloisField.pow(base, j);
             }
         }
 
         return matrix;
     }
 
+    /**
+     * Whether the shards at {@code presentIndices} are enough to decode. Any
+     * {@code dataShards} distinct shards are for Reed-Solomon.
+     */
+    public boolean canDecode(int[] presentIndices) {
+        BitSet present = new BitSet(totalShards);
+        for (int index : presentIndices) {
+            if (index >= 0 && index < totalShards) {
+                present.set(index);
+            }
+        }
+        return present.cardinality() >= dataShards;
+    }
+
+    /**
+     * Picks the {@code dataShards} shards a decode reads from
+     * {@code presentIndices}, preferring data shards, in ascending order.
+     *
+     * @throws IllegalArgumentException if the present shards cannot be decoded
+     */
+    public int[] selectShards(int[] presentIndices) {
+        BitSet present = new BitSet(totalShards);
+        for (int index : presentIndices) {
+            if (index < 0 || index >= totalShards) {
+                throw new IllegalArgumentException("Shard index out of range: " + index);
+            }
+            present.set(index);
+        }
+        if (present.cardinality() < dataShards) {
+            throw new IllegalArgumentException(
+                "Need at least " + dataShards + " distinct shards, got " + present.cardinality());
+        }
+        int[] selected = new int[dataShards];
+        int index = -1;
+        for (int i = 0; i < dataShards; i++) {
+            index = present.nextSetBit(index + 1);
+            selected[i] = index;
+        }
+        return selected;
+    }
+
+    /**
+     * Inverse of the encode rows for {@code selectedIndices} (ascending), cached
+     * per erasure pattern so repeated degraded reads skip the O(k³) inversion.
+     */
+    private int[][] decodeMatrix(int[] selectedIndices) {
+        BitSet pattern = new BitSet(totalShards);
+        for (int index : selectedIndices) {
+            pattern.set(index);
+        }
+        int[][] cached = inverseCache.get(pattern);
+        if (cached != null) {
+            inverseHits.incrementAndGet();
+            return cached;
+        }
+        inverseMisses.incrementAndGet();
+
+        int[][] subMatrix = new int[dataShards][dataShards];
+        for (int i = 0; i < dataShards; i++) {
+            System.arraycopy(encodeMatrix[selectedIndices[i]], 0, subMatrix[i], 0, dataShards);
+        }
+        int[][] inverse = invertMatrix(subMatrix);
+        inverseCache.put(pattern, inverse);
+        return inverse;
+    }
+
     private int[][] invertMatrix(int[][] matrix) {
         int n = matrix.length;
         int[][] work = new int[n][n * 2];
@@ -678,16 +909,16 @@ public class ErasureCoder {
                 work[swapRow] = temp;
             }
 
-            int inv = gfInv(work[i][i]);
+            int inv = GaloisField.inv(work[i][i]);
             for (int j = 0; j < 2 * n; j++) {
-                work[i][j] = gfMul(work[i][j], inv);
+                work[i][j] = GaloisField.mul(work[i][j], inv);
             }
 
             for (int j = 0; j < n; j++) {
                 if (j != i && work[j][i] != 0) {
                     int factor = work[j][i];
                     for (int k = 0; k < 2 * n; k++) {
-                        work[j][k] ^= gfMul(factor, work[i][k]);
+                        work[j][k] ^= GaloisField.mul(factor, work[i][k]);
                     }
                 }
             }
@@ -724,6 +955,14 @@ public class ErasureCoder {
     public long getEncodeCount() { return encodeCount.get(); }
     public long getDecodeCount() { return decodeCount.get(); }
     public long getRepairCount() { return repairCount.get(); }
+
+    /** Decodes served by concatenating intact data shards, with no matrix work. */
+    public long getDirectDecodeCount() { return directDecodes.get(); }
+
+    public DecodeCacheStats getDecodeCacheStats() {
+        return new DecodeCacheStats(inverseCache.size(), inverseHits.get(), inverseMisses.get());
+    }
+    public GfKernel getKernel() { return kernel; }
     public NetworkContext getNetworkContext() { return networkContext; }
     public void setNetworkContext(NetworkContext context) { this.networkContext = context; }
 
@@ -731,13 +970,80 @@ public class ErasureCoder {
     public void setOnDecoding(Consumer<DecodingEvent> listener) { this.onDecoding = listener; }
     public void setOnRepair(Consumer<RepairEvent> listener) { this.onRepair = listener; }
 
-    public record EncodeResult(byte[][] shards, int shardSize, int originalSize) {}
+    /**
+     * @param checksums SHA-256 of each shard, by shard index
+     */
+    public record EncodeResult(byte[][] shards, int shardSize, int originalSize, Map<Integer, byte[]> checksums) {
+        public byte[] checksum(int shardIndex) {
+            return checksums.get(shardIndex);
+        }
+    }
+
+    public record ShardLayout(int dataShards, int parityShards) {}
+
+    /**
+     * @param patterns erasure patterns whose inverse matrix is cached
+     * @param hits decodes that reused a cached inverse
+     * @param misses decodes that inverted a submatrix
+     */
+    public record DecodeCacheStats(int patterns, long hits, long misses) {}
+
+    /**
+     * Shards from {@link #encodeSlices}. Data shards may be views of the caller's
+     * input and are only valid while it is; {@link #close()} returns the pooled
+     * buffers, after which no shard may be used.
+     */
+    public static final class EncodedStripe implements AutoCloseable {
+        private final ByteBuffer[] shards;
+        private final int shardSize;
+        private final int originalSize;
+        private final BufferPool pool;
+        private final List<ByteBuffer> pooled = new ArrayList<>();
+
+        EncodedStripe(int totalShards, int shardSize, int originalSize, BufferPool pool) {
+            this.shards = new ByteBuffer[totalShards];
+            this.shardSize = shardSize;
+            this.originalSize = originalSize;
+            this.pool = pool != null && pool.bufferSize() >= shardSize ? pool : null;
+        }
+
+        private ByteBuffer allocate() {
+            if (pool == null) {
+                return ByteBuffer.allocate(shardSize);
+            }
+            ByteBuffer buffer = pool.acquire();
+            if (!buffer.hasArray()) {
+                pool.release(buffer);
+                return ByteBuffer.allocate(shardSize);
+            }
+            pooled.add(buffer);
+            return buffer.clear().limit(shardSize).slice();
+        }
+
+        /** Shard {@code index} as a read-only buffer of exactly {@code shardSize} bytes. */
+        public ByteBuffer shard(int index) {
+            return shards[index].asReadOnlyBuffer();
+        }
+
+        public int shardCount() { return shards.length; }
+        public int shardSize() { return shardSize; }
+        public int originalSize() { return originalSize; }
+
+        @Override
+        public void close() {
+            if (pool != null) {
+                pooled.forEach(pool::release);
+            }
+            pooled.clear();
+        }
+    }
 
     public record StreamEncodeResult(
         long totalBytesProcessed,
         int chunksProcessed,
         int averageShardSize,
-        Instant completedAt
+        Instant completedAt,
+        Map<Integer, byte[]> checksums
     ) {}
 
     public record VerificationResult(
@@ -785,6 +1091,9 @@ public class ErasureCoder {
         private volatile double averageLatency = 0;
         private volatile double packetLossRate = 0;
         private volatile long lastUpdate = 0;
+        private volatile int activePeers = 0;
+        private volatile boolean latencySampled;
+        private volatile boolean packetLossSampled;
         private final Map<String, PeerMetrics> peerMetrics = new ConcurrentHashMap<>();
 
         public NetworkContext() {}
@@ -794,13 +1103,23 @@ public class ErasureCoder {
         public double getPacketLossRate() { return packetLossRate; }
         public long getLastUpdate() { return lastUpdate; }
         public Map<String, PeerMetrics> getPeerMetrics() { return new ConcurrentHashMap<>(peerMetrics); }
+        public int getActivePeers() { return activePeers; }
+        public boolean hasLatencySample() { return latencySampled; }
+        public boolean hasPacketLossSample() { return packetLossSampled; }
 
         public void setNetworkHealth(Transport.HealthState health) { 
             this.networkHealth = health;
             this.lastUpdate = System.currentTimeMillis();
         }
-        public void setAverageLatency(double latency) { this.averageLatency = latency; }
-        public void setPacketLossRate(double rate) { this.packetLossRate = rate; }
+        public void setAverageLatency(double latency) {
+            this.averageLatency = latency;
+            this.latencySampled = true;
+        }
+        public void setPacketLossRate(double rate) {
+            this.packetLossRate = rate;
+            this.packetLossSampled = true;
+        }
+        public void setActivePeers(int peers) { this.activePeers = peers; }
 
         public void recordPeerSuccess(String peerId, long latencyMs) {
             peerMetrics.compute(peerId, (k, v) -> {
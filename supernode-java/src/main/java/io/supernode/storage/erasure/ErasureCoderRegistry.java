@@ -0,0 +1,71 @@
+package io.supernode.storage.erasure;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache of {@link ErasureCoder} instances keyed by shard layout, so
+ * hot paths can reuse a coder's encode matrix instead of rebuilding it per chunk.
+ *
+ * <p>Cached coders are shared: listeners and network context set on them are
+ * visible to every user, so callers that need either should construct their own.
+ */
+public class ErasureCoderRegistry {
+
+    private static final ErasureCoderRegistry SHARED = new ErasureCoderRegistry();
+
+    private final Map<Long, ErasureCoder> coders = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /** The process-wide registry. */
+    public static ErasureCoderRegistry shared() {
+        return SHARED;
+    }
+
+    public ErasureCoder get(int dataShards, int parityShards) {
+        return get(dataShards, parityShards, 0);
+    }
+
+    /**
+     * @param parityShards all parity shards, local and global for an LRC layout
+     * @param localGroups LRC local groups, or 0 for Reed-Solomon
+     */
+    public ErasureCoder get(int dataShards, int parityShards, int localGroups) {
+        long key = ((long) localGroups << 48) | ((long) dataShards << 24) | (parityShards & 0xFFFFFFL);
+        ErasureCoder coder = coders.get(key);
+        if (coder != null) {
+            hits.incrementAndGet();
+            return coder;
+        }
+        // Threads that raced the creating one waited on it, and count as hits
+        boolean[] created = new boolean[1];
+        coder = coders.computeIfAbsent(key, k -> {
+            created[0] = true;
+            misses.incrementAndGet();
+            return localGroups > 0
+                ? new LrcCoder(dataShards, localGroups, parityShards - localGroups)
+                : new ErasureCoder(dataShards, parityShards);
+        });
+        if (!created[0]) {
+            hits.incrementAndGet();
+        }
+        return coder;
+    }
+
+    public int size() {
+        return coders.size();
+    }
+
+    public RegistryStats stats() {
+        return new RegistryStats(coders.size(), hits.get(), misses.get());
+    }
+
+    /**
+     * @param coders distinct layouts cached
+     * @param hits lookups served by a cached coder
+     * @param misses lookups that constructed a coder
+     */
+    public record RegistryStats(int coders, long hits, long misses) {}
+}
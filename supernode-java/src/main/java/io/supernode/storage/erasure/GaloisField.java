@@ -0,0 +1,72 @@
+package io.supernode.storage.erasure;
+
+/**
+ * GF(2^8) arithmetic over the polynomial 0x11d, as used by {@link ErasureCoder}.
+ * Besides the exp/log tables this keeps a full 256x256 product table for
+ * row-at-a-time kernels and per-constant low/high nibble tables for the
+ * shuffle-based SIMD kernel.
+ */
+public final class GaloisField {
+
+    public static final int SIZE = 256;
+    private static final int PRIMITIVE_POLY = 0x11d;
+
+    private static final int[] EXP = new int[SIZE * 2];
+    private static final int[] LOG = new int[SIZE];
+
+    /** {@code MUL[a << 8 | b] == a * b}. */
+    static final byte[] MUL = new byte[SIZE * SIZE];
+
+    /** {@code NIBBLE_LOW[c << 4 | n] == c * n} and {@code NIBBLE_HIGH[c << 4 | n] == c * (n << 4)}. */
+    static final byte[] NIBBLE_LOW = new byte[SIZE * 16];
+    static final byte[] NIBBLE_HIGH = new byte[SIZE * 16];
+
+    static {
+        int x = 1;
+        for (int i = 0; i < SIZE - 1; i++) {
+            EXP[i] = x;
+            EXP[i + SIZE - 1] = x;
+            LOG[x] = i;
+            x <<= 1;
+            if (x >= SIZE) {
+                x ^= PRIMITIVE_POLY;
+            }
+        }
+        LOG[0] = 0;
+
+        for (int a = 1; a < SIZE; a++) {
+            for (int b = 1; b < SIZE; b++) {
+                MUL[a << 8 | b] = (byte) EXP[LOG[a] + LOG[b]];
+            }
+        }
+        for (int c = 0; c < SIZE; c++) {
+            for (int n = 0; n < 16; n++) {
+                NIBBLE_LOW[c << 4 | n] = MUL[c << 8 | n];
+                NIBBLE_HIGH[c << 4 | n] = MUL[c << 8 | (n << 4)];
+            }
+        }
+    }
+
+    private GaloisField() {}
+
+    public static int mul(int a, int b) {
+        return MUL[a << 8 | b] & 0xFF;
+    }
+
+    public static int div(int a, int b) {
+        if (b == 0) throw new ArithmeticException("Division by zero in GF");
+        if (a == 0) return 0;
+        return EXP[(LOG[a] - LOG[b] + (SIZE - 1)) % (SIZE - 1)];
+    }
+
+    public static int inv(int a) {
+        if (a == 0) throw new ArithmeticException("Cannot invert zero in GF");
+        return EXP[(SIZE - 1) - LOG[a]];
+    }
+
+    public static int pow(int base, int exp) {
+        if (exp == 0) return 1;
+        if (base == 0) return 0;
+        return EXP[(LOG[base] * exp) % (SIZE - 1)];
+    }
+}
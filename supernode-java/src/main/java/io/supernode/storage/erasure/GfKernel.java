@@ -0,0 +1,48 @@
+package io.supernode.storage.erasure;
+
+/**
+ * Row-at-a-time GF(2^8) primitives for {@link ErasureCoder}: multiply a whole
+ * shard by a constant, optionally XOR-accumulating into the destination. A
+ * table kernel indexes one 256-byte row of the product table per constant; a
+ * SIMD kernel on the incubating Vector API splits each byte into nibbles and
+ * resolves both with a 16-entry shuffle. {@link #preferred()} picks the fastest
+ * one available in the running JVM.
+ */
+public interface GfKernel {
+
+    /**
+     * Property that forces a kernel: {@code vector}, {@code table} or {@code auto}.
+     */
+    String KERNEL_PROPERTY = "supernode.gf.kernel";
+
+    /**
+     * Sets {@code dst[dstOffset + i] = c * src[srcOffset + i]} for
+     * {@code i < length}.
+     */
+    void mul(int c, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length);
+
+    /**
+     * Sets {@code dst[dstOffset + i] ^= c * src[srcOffset + i]} for
+     * {@code i < length}.
+     */
+    void mulAdd(int c, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length);
+
+    String name();
+
+    static GfKernel preferred() {
+        return GfKernels.PREFERRED;
+    }
+
+    static GfKernel table() {
+        return TableGfKernel.INSTANCE;
+    }
+
+    /**
+     * Returns the Vector API kernel, or {@code null} when the
+     * {@code jdk.incubator.vector} module is not present in the boot layer or the
+     * preferred species is narrower than one 16-entry shuffle table.
+     */
+    static GfKernel vector() {
+        return GfKernels.VECTOR;
+    }
+}
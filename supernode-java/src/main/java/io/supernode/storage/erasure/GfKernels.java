@@ -0,0 +1,33 @@
+package io.supernode.storage.erasure;
+
+/**
+ * Resolves the GF kernels once per JVM. The Vector API kernel is only touched
+ * after confirming its module is resolved, so the class is never linked on
+ * JVMs started without {@code --add-modules jdk.incubator.vector}.
+ */
+final class GfKernels {
+
+    static final GfKernel VECTOR = loadVectorKernel();
+    static final GfKernel PREFERRED = select();
+
+    private GfKernels() {}
+
+    private static GfKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return VectorGfKernel.isSupported() ? VectorGfKernel.INSTANCE : null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static GfKernel select() {
+        String requested = System.getProperty(GfKernel.KERNEL_PROPERTY, "auto");
+        if ("table".equalsIgnoreCase(requested) || VECTOR == null) {
+            return TableGfKernel.INSTANCE;
+        }
+        return VECTOR;
+    }
+}
@@ -0,0 +1,198 @@
+package io.supernode.storage.erasure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Locally repairable code: {@code dataShards} data shards split into
+ * {@code localGroups} contiguous groups, one XOR parity per group, plus
+ * {@code globalParities} parities over all data. Shards are laid out data,
+ * then local parities in group order, then global parities, so the shard count
+ * and indexing match an {@link ErasureCoder} with
+ * {@code localGroups + globalParities} parity shards.
+ *
+ * <p>A single lost data or local parity shard is rebuilt from the rest of its
+ * group alone, reading about {@code dataShards / localGroups} shards instead of
+ * {@code dataShards}. Global parity row {@code r} weighs data shard {@code i}
+ * by {@code a_i^(r+1)}, and the local parity by {@code a_i^0}, with distinct
+ * {@code a_i}: any {@code globalParities + 1} losses within a group leave a
+ * Vandermonde system and are decodable. Not every pattern of
+ * {@code localGroups + globalParities} losses is, so decodes pick shards by
+ * rank rather than count.
+ */
+public class LrcCoder extends ErasureCoder {
+
+    private final int localGroups;
+    private final int globalParities;
+    private final int[][] generator;
+
+    public LrcCoder(int dataShards, int localGroups, int globalParities) {
+        this(dataShards, localGroups, globalParities, null);
+    }
+
+    public LrcCoder(int dataShards, int localGroups, int globalParities, NetworkContext networkContext) {
+        this(dataShards, localGroups, globalParities, networkContext,
+            buildGenerator(dataShards, localGroups, globalParities));
+    }
+
+    private LrcCoder(int dataShards, int localGroups, int globalParities, NetworkContext networkContext,
+                     int[][] generator) {
+        super(dataShards, localGroups + globalParities, networkContext, GfKernel.preferred(), generator);
+        this.localGroups = localGroups;
+        this.globalParities = globalParities;
+        this.generator = generator;
+    }
+
+    private static int[][] buildGenerator(int dataShards, int localGroups, int globalParities) {
+        if (localGroups < 1 || localGroups > dataShards) {
+            throw new IllegalArgumentException("Local groups must be between 1 and the data shard count");
+        }
+        if (globalParities < 1) {
+            throw new IllegalArgumentException("Must have at least 1 global parity shard");
+        }
+        if (dataShards + localGroups + globalParities > 255) {
+            throw new IllegalArgumentException("Total shards cannot exceed 255");
+        }
+
+        int[][] matrix = new int[dataShards + localGroups + globalParities][dataShards];
+        for (int i = 0; i < dataShards; i++) {
+            matrix[i][i] = 1;
+            matrix[dataShards + groupOf(i, dataShards, localGroups)][i] = 1;
+            // 2 generates GF(2^8)*, so a_i = 2^i is distinct for every data shard
+            int a = GaloisField.pow(2, i);
+            for (int r = 0; r < globalParities; r++) {
+                matrix[dataShards + localGroups + r][i] = GaloisField.pow(a, r + 1);
+            }
+        }
+        return matrix;
+    }
+
+    private static int groupOf(int dataIndex, int dataShards, int localGroups) {
+        return dataIndex * localGroups / dataShards;
+    }
+
+    /**
+     * Local group of a data or local parity shard, or -1 for a global parity.
+     */
+    public int groupOf(int index) {
+        int dataShards = getDataShards();
+        if (index < 0 || index >= getTotalShards()) {
+            throw new IllegalArgumentException("Shard index out of range: " + index);
+        }
+        if (index < dataShards) {
+            return groupOf(index, dataShards, localGroups);
+        }
+        return index < dataShards + localGroups ? index - dataShards : -1;
+    }
+
+    /**
+     * Shards whose XOR rebuilds shard {@code index}: the other members of its
+     * local group, including the group's parity. {@code null} for a global
+     * parity, which needs every data shard.
+     */
+    public int[] localRepairSources(int index) {
+        int group = groupOf(index);
+        if (group < 0) {
+            return null;
+        }
+        int dataShards = getDataShards();
+        List<Integer> sources = new ArrayList<>();
+        for (int i = 0; i < dataShards; i++) {
+            if (groupOf(i, dataShards, localGroups) == group && i != index) {
+                sources.add(i);
+            }
+        }
+        int parity = dataShards + group;
+        if (parity != index) {
+            sources.add(parity);
+        }
+        return sources.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Rebuilds {@code shards[index]} from {@link #localRepairSources}. A null
+     * source counts as an all-zero shard, so data shards that hold only
+     * padding need not be read.
+     */
+    public void repairLocal(int index, byte[][] shards, int shardSize) {
+        int[] sources = localRepairSources(index);
+        if (sources == null) {
+            throw new IllegalArgumentException("Shard " + index + " is a global parity");
+        }
+        byte[] out = new byte[shardSize];
+        for (int source : sources) {
+            if (shards[source] != null) {
+                getKernel().mulAdd(1, shards[source], 0, out, 0, shardSize);
+            }
+        }
+        shards[index] = out;
+    }
+
+    @Override
+    public boolean canDecode(int[] presentIndices) {
+        return independentRows(presentIndices).length == getDataShards();
+    }
+
+    /**
+     * Picks {@code dataShards} present shards whose generator rows are
+     * linearly independent, data shards first, then local and global parities.
+     */
+    @Override
+    public int[] selectShards(int[] presentIndices) {
+        int[] selected = independentRows(presentIndices);
+        if (selected.length < getDataShards()) {
+            throw new IllegalArgumentException("Present shards span " + selected.length
+                + " of the " + getDataShards() + " dimensions needed to decode");
+        }
+        return selected;
+    }
+
+    // Gaussian elimination in index order; each kept row is stored reduced
+    // against the earlier ones with a leading 1 at its pivot
+    private int[] independentRows(int[] presentIndices) {
+        int dataShards = getDataShards();
+        BitSet present = new BitSet(getTotalShards());
+        for (int index : presentIndices) {
+            if (index < 0 || index >= getTotalShards()) {
+                throw new IllegalArgumentException("Shard index out of range: " + index);
+            }
+            present.set(index);
+        }
+
+        int[][] basis = new int[dataShards][];
+        int[] pivots = new int[dataShards];
+        int[] selected = new int[dataShards];
+        int rank = 0;
+        for (int index = present.nextSetBit(0); index >= 0 && rank < dataShards; index = present.nextSetBit(index + 1)) {
+            int[] row = Arrays.copyOf(generator[index], dataShards);
+            for (int b = 0; b < rank; b++) {
+                int factor = row[pivots[b]];
+                if (factor != 0) {
+                    for (int c = 0; c < dataShards; c++) {
+                        row[c] ^= GaloisField.mul(factor, basis[b][c]);
+                    }
+                }
+            }
+            int pivot = 0;
+            while (pivot < dataShards && row[pivot] == 0) {
+                pivot++;
+            }
+            if (pivot == dataShards) {
+                continue;
+            }
+            int inv = GaloisField.inv(row[pivot]);
+            for (int c = 0; c < dataShards; c++) {
+                row[c] = GaloisField.mul(row[c], inv);
+            }
+            basis[rank] = row;
+            pivots[rank] = pivot;
+            selected[rank++] = index;
+        }
+        return Arrays.copyOf(selected, rank);
+    }
+
+    public int getLocalGroups() { return localGroups; }
+    public int getGlobalParities() { return globalParities; }
+}
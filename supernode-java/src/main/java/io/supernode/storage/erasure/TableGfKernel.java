@@ -0,0 +1,57 @@
+package io.supernode.storage.erasure;
+
+import io.supernode.storage.mux.XorKernel;
+
+import java.util.Arrays;
+
+/**
+ * Portable GF kernel: one lookup per byte into the constant's row of the full
+ * product table. Coefficients 0 and 1, common in systematic matrices, fall
+ * through to fill, copy and XOR.
+ */
+final class TableGfKernel implements GfKernel {
+
+    static final TableGfKernel INSTANCE = new TableGfKernel();
+
+    private static final XorKernel XOR = XorKernel.preferred();
+
+    private TableGfKernel() {}
+
+    @Override
+    public void mul(int c, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        if (c == 0) {
+            Arrays.fill(dst, dstOffset, dstOffset + length, (byte) 0);
+            return;
+        }
+        if (c == 1) {
+            System.arraycopy(src, srcOffset, dst, dstOffset, length);
+            return;
+        }
+        byte[] table = GaloisField.MUL;
+        int row = c << 8;
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = table[row | (src[srcOffset + i] & 0xFF)];
+        }
+    }
+
+    @Override
+    public void mulAdd(int c, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        if (c == 0) {
+            return;
+        }
+        if (c == 1) {
+            XOR.xorInto(dst, dstOffset, src, srcOffset, length);
+            return;
+        }
+        byte[] table = GaloisField.MUL;
+        int row = c << 8;
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] ^= table[row | (src[srcOffset + i] & 0xFF)];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "table";
+    }
+}
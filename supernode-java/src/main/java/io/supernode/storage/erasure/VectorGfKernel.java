@@ -0,0 +1,85 @@
+package io.supernode.storage.erasure;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD GF kernel on {@code jdk.incubator.vector}: {@code c * x} is
+ * {@code low[x & 15] ^ high[x >>> 4]}, with both 16-entry nibble tables held
+ * in a vector and resolved by a lane shuffle. Only loaded when the module is
+ * resolved at runtime; see {@link GfKernel#vector()}.
+ */
+final class VectorGfKernel implements GfKernel {
+
+    static final VectorGfKernel INSTANCE = new VectorGfKernel();
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // Per-constant nibble tables, each padded to a full vector
+    private static final byte[] LOW = expand(GaloisField.NIBBLE_LOW);
+    private static final byte[] HIGH = expand(GaloisField.NIBBLE_HIGH);
+
+    private VectorGfKernel() {}
+
+    static boolean isSupported() {
+        return LANES >= 16;
+    }
+
+    @Override
+    public void mul(int c, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        if (c <= 1) {
+            TableGfKernel.INSTANCE.mul(c, src, srcOffset, dst, dstOffset, length);
+            return;
+        }
+        ByteVector low = ByteVector.fromArray(SPECIES, LOW, c * LANES);
+        ByteVector high = ByteVector.fromArray(SPECIES, HIGH, c * LANES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += LANES) {
+            ByteVector x = ByteVector.fromArray(SPECIES, src, srcOffset + i);
+            product(x, low, high).intoArray(dst, dstOffset + i);
+        }
+        TableGfKernel.INSTANCE.mul(c, src, srcOffset + i, dst, dstOffset + i, length - i);
+    }
+
+    @Override
+    public void mulAdd(int c, byte[] src, int srcOffset, byte[] dst, int dstOffset, int length) {
+        if (c <= 1) {
+            TableGfKernel.INSTANCE.mulAdd(c, src, srcOffset, dst, dstOffset, length);
+            return;
+        }
+        ByteVector low = ByteVector.fromArray(SPECIES, LOW, c * LANES);
+        ByteVector high = ByteVector.fromArray(SPECIES, HIGH, c * LANES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += LANES) {
+            ByteVector x = ByteVector.fromArray(SPECIES, src, srcOffset + i);
+            ByteVector acc = ByteVector.fromArray(SPECIES, dst, dstOffset + i);
+            acc.lanewise(VectorOperators.XOR, product(x, low, high)).intoArray(dst, dstOffset + i);
+        }
+        TableGfKernel.INSTANCE.mulAdd(c, src, srcOffset + i, dst, dstOffset + i, length - i);
+    }
+
+    private static ByteVector product(ByteVector x, ByteVector low, ByteVector high) {
+        ByteVector lo = x.and((byte) 0x0F);
+        ByteVector hi = x.lanewise(VectorOperators.LSHR, 4).and((byte) 0x0F);
+        return lo.selectFrom(low).lanewise(VectorOperators.XOR, hi.selectFrom(high));
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    private static byte[] expand(byte[] nibbleTables) {
+        byte[] expanded = new byte[GaloisField.SIZE * LANES];
+        for (int c = 0; c < GaloisField.SIZE; c++) {
+            for (int lane = 0; lane < LANES; lane++) {
+                expanded[c * LANES + lane] = nibbleTables[c << 4 | (lane & 15)];
+            }
+        }
+        return expanded;
+    }
+}
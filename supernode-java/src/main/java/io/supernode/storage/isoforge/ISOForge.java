@@ -1,10 +1,11 @@
 package io.supernode.storage.isoforge;
 
+import io.supernode.storage.CryptoPool;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.HexFormat;
 import java.util.List;
@@ -115,24 +116,112 @@ public class ISOForge {
                 byte[] bootImage = elTorito.generateBootImage(rng.derive("boot-image"));
                 int offset = (sectorIndex - elTorito.getBootImageSector()) * SECTOR_SIZE;
                 byte[] sector = new byte[SECTOR_SIZE];
-                System.arraycopy(bootImage, offset, sector, 0, SECTOR_SIZE);
+                // The image uses 512-byte emulated sectors and may not fill the whole span
+                if (offset < bootImage.length) {
+                    System.arraycopy(bootImage, offset, sector, 0, Math.min(SECTOR_SIZE, bootImage.length - offset));
+                }
                 return sector;
             }
             if (sectorIndex == 24) return generateRootDirectory(rng.derive("root-dir"));
 
             SeededRNG contentRng = rng.derive("content");
-            int sectorOffset = (sectorIndex - 25) * SECTOR_SIZE;
-            contentRng.bytes(sectorOffset);
-            return contentRng.bytes(SECTOR_SIZE);
+            long sectorOffset = (long) (sectorIndex - 25) * SECTOR_SIZE;
+            return contentRng.bytesAt(sectorOffset, SECTOR_SIZE);
         }
 
         if (sectorIndex == 17) return createVolumeDescriptorTerminator();
         if (sectorIndex == 18) return generateRootDirectory(rng.derive("root-dir"));
 
         SeededRNG contentRng = rng.derive("content");
-        int sectorOffset = (sectorIndex - 19) * SECTOR_SIZE;
-        contentRng.bytes(sectorOffset);
-        return contentRng.bytes(SECTOR_SIZE);
+        long sectorOffset = (long) (sectorIndex - 19) * SECTOR_SIZE;
+        return contentRng.bytesAt(sectorOffset, SECTOR_SIZE);
+    }
+
+    /**
+     * Fills {@code dest} with {@code count} consecutive sectors starting at
+     * {@code startSector}. Content sectors are produced with a single keystream
+     * pass from one derived content RNG instead of re-deriving it per sector.
+     */
+    public void generateSectorRange(byte[] seed, int startSector, int count, long totalSize, byte[] dest) {
+        int totalSectors = (int) (totalSize / SECTOR_SIZE);
+
+        if (startSector < 0 || count < 0 || (long) startSector + count > totalSectors) {
+            throw new IllegalArgumentException("Sectors [" + startSector + ", " + ((long) startSector + count) +
+                ") out of range [0, " + totalSectors + ")");
+        }
+        if ((long) count * SECTOR_SIZE > dest.length) {
+            throw new IllegalArgumentException("Destination too small for " + count + " sectors: " + dest.length);
+        }
+
+        int endSector = startSector + count;
+        int contentStart = contentStartSector();
+        int sector = startSector;
+
+        if (sector < SYSTEM_AREA_SECTORS) {
+            byte[] systemArea = generateSystemArea(new SeededRNG(seed).derive("system-area"));
+            int systemEnd = Math.min(endSector, SYSTEM_AREA_SECTORS);
+            System.arraycopy(systemArea, sector * SECTOR_SIZE, dest, 0, (systemEnd - sector) * SECTOR_SIZE);
+            sector = systemEnd;
+        }
+
+        for (; sector < endSector && sector < contentStart; sector++) {
+            byte[] header = generateSector(seed, sector, totalSize);
+            System.arraycopy(header, 0, dest, (sector - startSector) * SECTOR_SIZE, SECTOR_SIZE);
+        }
+
+        if (sector < endSector) {
+            SeededRNG contentRng = new SeededRNG(seed).derive("content");
+            contentRng.keystream(
+                (long) (sector - contentStart) * SECTOR_SIZE,
+                dest,
+                (sector - startSector) * SECTOR_SIZE,
+                (endSector - sector) * SECTOR_SIZE
+            );
+        }
+    }
+
+    /**
+     * XORs {@code count} consecutive sectors starting at {@code startSector}
+     * into {@code data}, beginning at its current position. Content sectors are
+     * combined in place by the AES-CTR pass itself, so no keystream buffer is
+     * materialised; only the handful of header sectors are generated separately.
+     * The buffer's position and limit are left unchanged.
+     */
+    public void xorSectorRange(byte[] seed, int startSector, int count, long totalSize, ByteBuffer data) {
+        int totalSectors = (int) (totalSize / SECTOR_SIZE);
+
+        if (startSector < 0 || count < 0 || (long) startSector + count > totalSectors) {
+            throw new IllegalArgumentException("Sectors [" + startSector + ", " + ((long) startSector + count) +
+                ") out of range [0, " + totalSectors + ")");
+        }
+        if ((long) count * SECTOR_SIZE > data.remaining()) {
+            throw new IllegalArgumentException("Buffer too small for " + count + " sectors: " + data.remaining());
+        }
+
+        int base = data.position();
+        int endSector = startSector + count;
+        int contentStart = contentStartSector();
+        int headerEnd = Math.min(endSector, Math.max(startSector, contentStart));
+
+        if (headerEnd > startSector) {
+            byte[] header = new byte[(headerEnd - startSector) * SECTOR_SIZE];
+            generateSectorRange(seed, startSector, headerEnd - startSector, totalSize, header);
+            for (int i = 0; i < header.length; i++) {
+                data.put(base + i, (byte) (data.get(base + i) ^ header[i]));
+            }
+        }
+
+        if (headerEnd < endSector) {
+            SeededRNG contentRng = new SeededRNG(seed).derive("content");
+            ByteBuffer content = data.duplicate()
+                .limit(base + count * SECTOR_SIZE)
+                .position(base + (headerEnd - startSector) * SECTOR_SIZE);
+            contentRng.xorKeystream((long) (headerEnd - contentStart) * SECTOR_SIZE, content);
+        }
+    }
+
+    private int contentStartSector() {
+        return bootable && elTorito != null ? 25 : 19;
     }
 
     public String getHash(byte[] seed, SizePreset size) {
@@ -142,16 +231,12 @@ public class ISOForge {
     public String getHash(byte[] seed, long targetSize) {
         int totalSectors = (int) (targetSize / SECTOR_SIZE);
 
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            for (int i = 0; i < totalSectors; i++) {
-                byte[] sector = generateSector(seed, i, targetSize);
-                digest.update(sector);
-            }
-            return HexFormat.of().formatHex(digest.digest());
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
+        MessageDigest digest = CryptoPool.sha256();
+        for (int i = 0; i < totalSectors; i++) {
+            byte[] sector = generateSector(seed, i, targetSize);
+            digest.update(sector);
         }
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     private byte[] generateSystemArea(SeededRNG rng) {
@@ -1,22 +1,26 @@
 package io.supernode.storage.isoforge;
 
+import io.supernode.storage.CryptoPool;
+
 import javax.crypto.Cipher;
-import javax.crypto.Mac;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
 import java.util.HexFormat;
 import java.util.List;
 import java.util.Random;
 
 public class SeededRNG {
     private static final int BUFFER_SIZE = 65536;
+    private static final int BLOCK_SIZE = 16;
     
     private final byte[] seed;
     private long counter = 0;
     private byte[] buffer = new byte[0];
     private int offset = 0;
+    private int pendingSkip = 0;
 
     public SeededRNG(byte[] seed) {
         if (seed.length != 32) {
@@ -73,35 +77,112 @@ public class SeededRNG {
         }
     }
 
-    public SeededRNG derive(String label) {
+    /**
+     * Repositions the stream so the next call to {@link #bytes(int)} returns the
+     * bytes that a fresh generator would produce starting at {@code position}.
+     * The keystream block holding the position is computed directly; nothing
+     * before it is generated.
+     */
+    public void seek(long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must be non-negative: " + position);
+        }
+        counter = position / BUFFER_SIZE;
+        buffer = new byte[0];
+        offset = 0;
+        pendingSkip = (int) (position % BUFFER_SIZE);
+    }
+
+    /**
+     * Returns {@code length} bytes of the stream starting at {@code position}
+     * without touching the sequential state of this generator.
+     */
+    public byte[] bytesAt(long position, int length) {
+        byte[] result = new byte[length];
+        keystream(position, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Random-access keystream fill. Writes the stream bytes at
+     * {@code [position, position + length)} into {@code dest}, jumping the
+     * AES-CTR counter straight to the block that holds {@code position}, so the
+     * cost is proportional to {@code length} rather than to {@code position}.
+     */
+    public void keystream(long position, byte[] dest, int destOffset, int length) {
+        Arrays.fill(dest, destOffset, destOffset + length, (byte) 0);
+        xorKeystream(position, ByteBuffer.wrap(dest, destOffset, length));
+    }
+
+    /**
+     * XORs the stream bytes starting at {@code position} into the remaining
+     * bytes of {@code data}, in place. The buffer's position and limit are left
+     * unchanged.
+     */
+    public void xorKeystream(long position, ByteBuffer data) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must be non-negative: " + position);
+        }
         try {
-            Mac hmac = Mac.getInstance("HmacSHA256");
-            hmac.init(new SecretKeySpec(seed, "HmacSHA256"));
-            hmac.update(label.getBytes());
-            return new SeededRNG(hmac.doFinal());
+            Cipher cipher = CryptoPool.aesCtr();
+            SecretKeySpec key = new SecretKeySpec(seed, "AES");
+            byte[] skipped = new byte[BLOCK_SIZE];
+            int index = data.position();
+            int end = data.limit();
+
+            while (index < end) {
+                // Buffer k is the CTR keystream starting at counter block k, so the
+                // byte at (k * BUFFER_SIZE + r) lives in block (k + r / 16).
+                long bufferIndex = position / BUFFER_SIZE;
+                int within = (int) (position % BUFFER_SIZE);
+                int run = Math.min(end - index, BUFFER_SIZE - within);
+                int skip = within % BLOCK_SIZE;
+
+                cipher.init(Cipher.ENCRYPT_MODE, key,
+                    new IvParameterSpec(counterBlock(bufferIndex + within / BLOCK_SIZE)));
+                if (skip > 0) {
+                    cipher.update(skipped, 0, skip, skipped, 0);
+                }
+
+                // CTR is copy-safe in place: output = input ^ keystream
+                ByteBuffer in = data.duplicate().limit(index + run).position(index);
+                ByteBuffer out = data.duplicate().limit(index + run).position(index);
+                cipher.doFinal(in, out);
+
+                position += run;
+                index += run;
+            }
         } catch (GeneralSecurityException e) {
-            throw new RuntimeException("HMAC-SHA256 not available", e);
+            throw new RuntimeException("AES-256-CTR not available", e);
         }
     }
 
+    public SeededRNG derive(String label) {
+        return new SeededRNG(CryptoPool.hmacSha256(seed, label.getBytes()));
+    }
+
     private void refillBuffer() {
         try {
-            byte[] nonce = new byte[16];
-            ByteBuffer.wrap(nonce).putLong(8, counter++);
-
-            Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+            Cipher cipher = CryptoPool.aesCtr();
             cipher.init(Cipher.ENCRYPT_MODE, 
                 new SecretKeySpec(seed, "AES"),
-                new IvParameterSpec(nonce));
+                new IvParameterSpec(counterBlock(counter++)));
 
             byte[] zeros = new byte[BUFFER_SIZE];
             buffer = cipher.doFinal(zeros);
-            offset = 0;
+            offset = pendingSkip;
+            pendingSkip = 0;
         } catch (GeneralSecurityException e) {
             throw new RuntimeException("AES-256-CTR not available", e);
         }
     }
 
+    private static byte[] counterBlock(long block) {
+        byte[] nonce = new byte[BLOCK_SIZE];
+        ByteBuffer.wrap(nonce).putLong(8, block);
+        return nonce;
+    }
+
     public byte[] getSeed() {
         return seed.clone();
     }
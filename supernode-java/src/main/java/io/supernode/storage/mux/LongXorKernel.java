@@ -0,0 +1,38 @@
+package io.supernode.storage.mux;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Portable XOR kernel that reads and writes eight bytes per step through a
+ * byte-array {@link VarHandle} view, then finishes the tail byte by byte.
+ */
+final class LongXorKernel implements XorKernel {
+
+    static final LongXorKernel INSTANCE = new LongXorKernel();
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private LongXorKernel() {}
+
+    @Override
+    public void xorInto(byte[] dst, int dstOffset, byte[] src, int srcOffset, int length) {
+        int i = 0;
+        int bound = length & ~7;
+        for (; i < bound; i += 8) {
+            long a = (long) LONGS.get(dst, dstOffset + i);
+            long b = (long) LONGS.get(src, srcOffset + i);
+            LONGS.set(dst, dstOffset + i, a ^ b);
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] ^= src[srcOffset + i];
+        }
+    }
+
+    @Override
+    public String name() {
+        return "long";
+    }
+}
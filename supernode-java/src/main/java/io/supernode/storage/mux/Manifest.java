@@ -3,14 +3,10 @@ package io.supernode.storage.mux;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.supernode.storage.CryptoPool;
 
 import javax.crypto.Cipher;
-import javax.crypto.Mac;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.ByteBuffer;
-import java.security.GeneralSecurityException;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.HexFormat;
@@ -20,8 +16,6 @@ import java.util.Optional;
 public class Manifest {
     public static final int VERSION = 1;
     private static final int NONCE_SIZE = 12;
-    private static final String CIPHER_ALGO = "AES/GCM/NoPadding";
-    private static final int GCM_TAG_SIZE = 128;
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
     @JsonProperty("version")
@@ -79,10 +73,7 @@ public class Manifest {
             byte[] nonce = new byte[NONCE_SIZE];
             new SecureRandom().nextBytes(nonce);
 
-            Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
-            cipher.init(Cipher.ENCRYPT_MODE,
-                new SecretKeySpec(key, "AES"),
-                new GCMParameterSpec(GCM_TAG_SIZE, nonce));
+            Cipher cipher = CryptoPool.initGcm(Cipher.ENCRYPT_MODE, key, nonce);
 
             byte[] ciphertext = cipher.doFinal(json);
 
@@ -103,10 +94,7 @@ public class Manifest {
             byte[] ciphertext = new byte[buf.remaining()];
             buf.get(ciphertext);
 
-            Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
-            cipher.init(Cipher.DECRYPT_MODE,
-                new SecretKeySpec(key, "AES"),
-                new GCMParameterSpec(GCM_TAG_SIZE, nonce));
+            Cipher cipher = CryptoPool.initGcm(Cipher.DECRYPT_MODE, key, nonce);
 
             byte[] json = cipher.doFinal(ciphertext);
             return MAPPER.readValue(json, Manifest.class);
@@ -116,14 +104,7 @@ public class Manifest {
     }
 
     public static byte[] deriveManifestKey(byte[] masterKey, String fileId) {
-        try {
-            Mac hmac = Mac.getInstance("HmacSHA256");
-            hmac.init(new SecretKeySpec(masterKey, "HmacSHA256"));
-            hmac.update(("manifest:" + fileId).getBytes());
-            return hmac.doFinal();
-        } catch (GeneralSecurityException e) {
-            throw new RuntimeException("HMAC-SHA256 not available", e);
-        }
+        return CryptoPool.hmacSha256(masterKey, ("manifest:" + fileId).getBytes());
     }
 
     public int getVersion() { return version; }
@@ -171,8 +152,7 @@ public class Manifest {
     
     private boolean hashMatches(byte[] data, String expectedHash) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] actualHash = digest.digest(data);
+            byte[] actualHash = CryptoPool.sha256().digest(data);
             return HexFormat.of().formatHex(actualHash).equals(expectedHash);
         } catch (Exception e) {
             return false;
@@ -204,11 +184,48 @@ public class Manifest {
         @JsonProperty("size") int size
     ) {}
 
+    /**
+     * @param parityShards all parity shards; for LRC the local parities, one
+     *                     per group, followed by the global ones
+     * @param stripeSize encode window for stream-encoded segments, whose shards
+     *                   are the concatenation of each window's shard pieces;
+     *                   null when each segment was encoded in one piece
+     * @param scheme {@link #REED_SOLOMON} or {@link #LRC}; null in manifests
+     *               written before LRC, which are Reed-Solomon
+     * @param localGroups LRC local groups; null for Reed-Solomon
+     */
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record ErasureConfig(
         @JsonProperty("dataShards") int dataShards,
-        @JsonProperty("parityShards") int parityShards
-    ) {}
+        @JsonProperty("parityShards") int parityShards,
+        @JsonProperty("stripeSize") Integer stripeSize,
+        @JsonProperty("scheme") String scheme,
+        @JsonProperty("localGroups") Integer localGroups
+    ) {
+        public static final String REED_SOLOMON = "rs";
+        public static final String LRC = "lrc";
+
+        public ErasureConfig(int dataShards, int parityShards) {
+            this(dataShards, parityShards, null);
+        }
+
+        public ErasureConfig(int dataShards, int parityShards, Integer stripeSize) {
+            this(dataShards, parityShards, stripeSize, REED_SOLOMON, null);
+        }
+
+        public boolean striped() {
+            return stripeSize != null && stripeSize > 0;
+        }
+
+        public boolean lrc() {
+            return LRC.equals(scheme);
+        }
+
+        /** Local groups to build the coder with; 0 selects Reed-Solomon. */
+        public int localGroupCount() {
+            return lrc() && localGroups != null ? localGroups : 0;
+        }
+    }
 
     public record ManifestOptions(
         String fileId,
@@ -1,5 +1,6 @@
 package io.supernode.storage.mux;
 
+import io.supernode.storage.CryptoPool;
 import io.supernode.storage.isoforge.ISOForge;
 import io.supernode.storage.isoforge.SeededRNG;
 import io.supernode.storage.isoforge.SizePreset;
@@ -7,6 +8,7 @@ import io.supernode.storage.isoforge.SizePreset;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
@@ -15,11 +17,11 @@ import java.util.Arrays;
 public class MuxEngine {
     public static final int SECTOR_SIZE = 2048;
     private static final int NONCE_SIZE = 12;
-    private static final String CIPHER_ALGO = "AES/GCM/NoPadding";
     private static final int GCM_TAG_SIZE = 128; // bits
 
     private final ISOForge isoForge;
     private final long isoSize;
+    private final XorKernel xorKernel;
 
     public MuxEngine() {
         this(SizePreset.NANO);
@@ -30,8 +32,13 @@ public class MuxEngine {
     }
 
     public MuxEngine(long isoSize) {
+        this(isoSize, XorKernel.preferred());
+    }
+
+    public MuxEngine(long isoSize, XorKernel xorKernel) {
         this.isoForge = new ISOForge();
         this.isoSize = isoSize;
+        this.xorKernel = xorKernel;
     }
 
     public MuxResult mux(byte[] plaintext, byte[] key, byte[] isoSeed) {
@@ -45,42 +52,127 @@ public class MuxEngine {
 
         int sectorCount = paddedSize / SECTOR_SIZE;
         byte[] muxed = new byte[paddedSize];
+        isoForge.generateSectorRange(isoSeed, sectorOffset, sectorCount, isoSize, muxed);
 
-        for (int i = 0; i < sectorCount; i++) {
-            int sectorIndex = sectorOffset + i;
-            byte[] isoSector = isoForge.generateSector(isoSeed, sectorIndex, isoSize);
-            for (int j = 0; j < SECTOR_SIZE; j++) {
-                muxed[i * SECTOR_SIZE + j] = (byte) (padded[i * SECTOR_SIZE + j] ^ isoSector[j]);
-            }
-        }
+        xorKernel.xorInto(muxed, 0, padded, 0, paddedSize);
 
         return new MuxResult(muxed, sectorOffset, sectorCount, encrypted.length);
     }
 
     public byte[] demux(byte[] muxed, byte[] key, byte[] isoSeed, int sectorStart, int encryptedSize) {
         int sectorCount = muxed.length / SECTOR_SIZE;
-        byte[] demuxed = new byte[muxed.length];
+        byte[] demuxed = new byte[sectorCount * SECTOR_SIZE];
+        isoForge.generateSectorRange(isoSeed, sectorStart, sectorCount, isoSize, demuxed);
 
-        for (int i = 0; i < sectorCount; i++) {
-            int sectorIndex = sectorStart + i;
-            byte[] isoSector = isoForge.generateSector(isoSeed, sectorIndex, isoSize);
-            for (int j = 0; j < SECTOR_SIZE; j++) {
-                demuxed[i * SECTOR_SIZE + j] = (byte) (muxed[i * SECTOR_SIZE + j] ^ isoSector[j]);
-            }
-        }
+        xorKernel.xorInto(demuxed, 0, muxed, 0, demuxed.length);
 
         byte[] encrypted = Arrays.copyOf(demuxed, encryptedSize);
         return decrypt(encrypted, key);
     }
 
+    /**
+     * Returns the buffer space {@link #mux(ByteBuffer, ByteBuffer, byte[], byte[], int)}
+     * needs for a plaintext of the given size.
+     */
+    public static int muxedCapacity(int plaintextSize) {
+        int encryptedSize = NONCE_SIZE + plaintextSize + GCM_TAG_SIZE / 8;
+        return ((encryptedSize + SECTOR_SIZE - 1) / SECTOR_SIZE) * SECTOR_SIZE;
+    }
+
+    /**
+     * Allocation-free mux. Encrypts the remaining bytes of {@code src} straight
+     * into {@code dst}, zero-pads to a sector boundary and XORs the ISO sectors
+     * in place. {@code src} is consumed and {@code dst}'s position advances past
+     * the muxed sectors; {@code dst} must have {@link #muxedCapacity(int)} bytes
+     * remaining.
+     */
+    public MuxSpan mux(ByteBuffer src, ByteBuffer dst, byte[] key, byte[] isoSeed, int sectorOffset) {
+        int paddedSize = muxedCapacity(src.remaining());
+        if (dst.remaining() < paddedSize) {
+            throw new IllegalArgumentException("Destination needs " + paddedSize + " bytes, has " + dst.remaining());
+        }
+
+        int start = dst.position();
+        try {
+            byte[] nonce = new byte[NONCE_SIZE]; // Zero nonce for determinism
+            dst.put(nonce);
+
+            Cipher cipher = CryptoPool.initGcm(Cipher.ENCRYPT_MODE, key, nonce);
+            cipher.doFinal(src, dst);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+
+        int encryptedSize = dst.position() - start;
+        while (dst.position() < start + paddedSize) {
+            dst.put((byte) 0);
+        }
+
+        int sectorCount = paddedSize / SECTOR_SIZE;
+        isoForge.xorSectorRange(isoSeed, sectorOffset, sectorCount, isoSize,
+            dst.duplicate().limit(start + paddedSize).position(start));
+
+        return new MuxSpan(sectorOffset, sectorCount, encryptedSize);
+    }
+
+    /**
+     * Streaming mux. Returns the same bytes {@link #mux(ByteBuffer, ByteBuffer, byte[], byte[], int)}
+     * would write, produced a block of sectors at a time as they are read, so a
+     * large chunk is never muxed into one buffer. {@code src} is consumed as the
+     * stream is read.
+     */
+    public MuxStream muxStream(ByteBuffer src, byte[] key, byte[] isoSeed, int sectorOffset) {
+        return new MuxStream(src, key, isoSeed, sectorOffset);
+    }
+
+    /**
+     * Allocation-free demux. Reads the muxed sectors from {@code src} without
+     * modifying them, strips the ISO sectors and decrypts into {@code dst}, which
+     * also serves as scratch space and must have room for the sectors that hold
+     * the ciphertext. {@code src} is consumed and {@code dst}'s position advances
+     * past the plaintext.
+     *
+     * @return the plaintext length
+     */
+    public int demux(ByteBuffer src, ByteBuffer dst, byte[] key, byte[] isoSeed, int sectorStart, int encryptedSize) {
+        int sectorCount = (encryptedSize + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        int sectorBytes = sectorCount * SECTOR_SIZE;
+        if (src.remaining() < sectorBytes) {
+            throw new IllegalArgumentException("Muxed data holds " + src.remaining() + " bytes, need " + sectorBytes);
+        }
+        if (dst.remaining() < sectorBytes) {
+            throw new IllegalArgumentException("Destination needs " + sectorBytes + " bytes, has " + dst.remaining());
+        }
+
+        int start = dst.position();
+        dst.put(src.duplicate().limit(src.position() + sectorBytes));
+        src.position(src.limit());
+        isoForge.xorSectorRange(isoSeed, sectorStart, sectorCount, isoSize,
+            dst.duplicate().limit(start + sectorBytes).position(start));
+
+        try {
+            byte[] nonce = new byte[NONCE_SIZE];
+            dst.get(start, nonce);
+
+            Cipher cipher = CryptoPool.initGcm(Cipher.DECRYPT_MODE, key, nonce);
+
+            // Cipher ByteBuffer operations are copy-safe, so decrypting over the
+            // ciphertext's own buffer is fine
+            ByteBuffer ciphertext = dst.duplicate().limit(start + encryptedSize).position(start + NONCE_SIZE);
+            ByteBuffer plaintext = dst.duplicate().limit(start + sectorBytes).position(start);
+            int length = cipher.doFinal(ciphertext, plaintext);
+            dst.position(start + length);
+            return length;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
+
     private byte[] encrypt(byte[] plaintext, byte[] key) {
         try {
             byte[] nonce = new byte[NONCE_SIZE]; // Zero nonce for determinism
             
-            Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
-            cipher.init(Cipher.ENCRYPT_MODE,
-                new SecretKeySpec(key, "AES"),
-                new GCMParameterSpec(GCM_TAG_SIZE, nonce));
+            Cipher cipher = CryptoPool.initGcm(Cipher.ENCRYPT_MODE, key, nonce);
 
             byte[] ciphertext = cipher.doFinal(plaintext);
 
@@ -101,10 +193,7 @@ public class MuxEngine {
             byte[] ciphertext = new byte[buf.remaining()];
             buf.get(ciphertext);
 
-            Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
-            cipher.init(Cipher.DECRYPT_MODE,
-                new SecretKeySpec(key, "AES"),
-                new GCMParameterSpec(GCM_TAG_SIZE, nonce));
+            Cipher cipher = CryptoPool.initGcm(Cipher.DECRYPT_MODE, key, nonce);
 
             return cipher.doFinal(ciphertext);
         } catch (GeneralSecurityException e) {
@@ -116,5 +205,123 @@ public class MuxEngine {
         return isoSize;
     }
 
+    public XorKernel getXorKernel() {
+        return xorKernel;
+    }
+
+    /**
+     * Muxed bytes of one chunk as an {@link InputStream}. Encrypts with its own
+     * cipher, since the stream stays open across other work on the reading thread.
+     */
+    public final class MuxStream extends InputStream {
+        private static final int BLOCK_SIZE = 32 * SECTOR_SIZE;
+
+        private final ByteBuffer src;
+        private final byte[] isoSeed;
+        private final MuxSpan span;
+        private final Cipher cipher;
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE).limit(0);
+        // Ciphertext that did not fit in the current block
+        private final ByteBuffer pending = ByteBuffer.allocate(BLOCK_SIZE + 2 * GCM_TAG_SIZE / 8).limit(0);
+        private long produced;
+        private boolean nonceWritten;
+        private boolean finished;
+
+        private MuxStream(ByteBuffer src, byte[] key, byte[] isoSeed, int sectorOffset) {
+            this.src = src;
+            this.isoSeed = isoSeed;
+            int paddedSize = muxedCapacity(src.remaining());
+            this.span = new MuxSpan(sectorOffset, paddedSize / SECTOR_SIZE, NONCE_SIZE + src.remaining() + GCM_TAG_SIZE / 8);
+            try {
+                this.cipher = Cipher.getInstance(CryptoPool.AES_GCM);
+                cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"),
+                    new GCMParameterSpec(GCM_TAG_SIZE, new byte[NONCE_SIZE]));
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("Encryption failed", e);
+            }
+        }
+
+        /** Sector range and ciphertext size, known before any byte is read. */
+        public MuxSpan span() {
+            return span;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!block.hasRemaining() && !fill()) {
+                return -1;
+            }
+            int n = Math.min(len, block.remaining());
+            block.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return block.remaining();
+        }
+
+        private boolean fill() {
+            int total = span.muxedSize();
+            if (produced >= total) {
+                return false;
+            }
+            int length = (int) Math.min(BLOCK_SIZE, total - produced);
+            block.clear().limit(length);
+            try {
+                if (!nonceWritten) {
+                    block.put(new byte[NONCE_SIZE]);
+                    nonceWritten = true;
+                }
+                while (block.hasRemaining()) {
+                    if (pending.hasRemaining()) {
+                        int n = Math.min(block.remaining(), pending.remaining());
+                        block.put(block.position(), pending, pending.position(), n);
+                        block.position(block.position() + n);
+                        pending.position(pending.position() + n);
+                    } else if (src.hasRemaining()) {
+                        int n = Math.min(src.remaining(), BLOCK_SIZE);
+                        pending.clear();
+                        cipher.update(src.slice(src.position(), n), pending);
+                        src.position(src.position() + n);
+                        pending.flip();
+                    } else if (!finished) {
+                        pending.clear();
+                        cipher.doFinal(ByteBuffer.allocate(0), pending);
+                        pending.flip();
+                        finished = true;
+                    } else {
+                        // Zero padding up to the sector boundary
+                        while (block.hasRemaining()) {
+                            block.put((byte) 0);
+                        }
+                    }
+                }
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("Encryption failed", e);
+            }
+            block.flip();
+            int sector = span.sectorStart() + (int) (produced / SECTOR_SIZE);
+            isoForge.xorSectorRange(isoSeed, sector, length / SECTOR_SIZE, isoSize, block.duplicate());
+            produced += length;
+            return true;
+        }
+    }
+
     public record MuxResult(byte[] muxedData, int sectorStart, int sectorCount, int encryptedSize) {}
+
+    public record MuxSpan(int sectorStart, int sectorCount, int encryptedSize) {
+        public int muxedSize() {
+            return sectorCount * SECTOR_SIZE;
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package io.supernode.storage.mux;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD XOR kernel on {@code jdk.incubator.vector}. Only loaded when the module
+ * is resolved at runtime; see {@link XorKernel#vector()}.
+ */
+final class VectorXorKernel implements XorKernel {
+
+    static final VectorXorKernel INSTANCE = new VectorXorKernel();
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private VectorXorKernel() {}
+
+    @Override
+    public void xorInto(byte[] dst, int dstOffset, byte[] src, int srcOffset, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector a = ByteVector.fromArray(SPECIES, dst, dstOffset + i);
+            ByteVector b = ByteVector.fromArray(SPECIES, src, srcOffset + i);
+            a.lanewise(VectorOperators.XOR, b).intoArray(dst, dstOffset + i);
+        }
+        LongXorKernel.INSTANCE.xorInto(dst, dstOffset + i, src, srcOffset + i, length - i);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,39 @@
+package io.supernode.storage.mux;
+
+/**
+ * Bulk XOR primitive used to combine ciphertext with ISO sectors in
+ * {@link MuxEngine}. Two implementations exist: a SIMD kernel built on the
+ * incubating Vector API and a portable kernel that XORs eight bytes at a time.
+ * {@link #preferred()} picks the fastest one available in the running JVM.
+ */
+public interface XorKernel {
+
+    /**
+     * Property that forces a kernel: {@code vector}, {@code long} or {@code auto}.
+     */
+    String KERNEL_PROPERTY = "supernode.xor.kernel";
+
+    /**
+     * XORs {@code src[srcOffset .. srcOffset + length)} into
+     * {@code dst[dstOffset .. dstOffset + length)}.
+     */
+    void xorInto(byte[] dst, int dstOffset, byte[] src, int srcOffset, int length);
+
+    String name();
+
+    static XorKernel preferred() {
+        return XorKernels.PREFERRED;
+    }
+
+    static XorKernel longWord() {
+        return LongXorKernel.INSTANCE;
+    }
+
+    /**
+     * Returns the Vector API kernel, or {@code null} when the
+     * {@code jdk.incubator.vector} module is not present in the boot layer.
+     */
+    static XorKernel vector() {
+        return XorKernels.VECTOR;
+    }
+}
@@ -0,0 +1,33 @@
+package io.supernode.storage.mux;
+
+/**
+ * Resolves the XOR kernels once per JVM. The Vector API kernel is only touched
+ * after confirming its module is resolved, so the class is never linked on
+ * JVMs started without {@code --add-modules jdk.incubator.vector}.
+ */
+final class XorKernels {
+
+    static final XorKernel VECTOR = loadVectorKernel();
+    static final XorKernel PREFERRED = select();
+
+    private XorKernels() {}
+
+    private static XorKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return VectorXorKernel.INSTANCE;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static XorKernel select() {
+        String requested = System.getProperty(XorKernel.KERNEL_PROPERTY, "auto");
+        if ("long".equalsIgnoreCase(requested) || VECTOR == null) {
+            return LongXorKernel.INSTANCE;
+        }
+        return VECTOR;
+    }
+}
@@ -1,16 +1,14 @@
 package io.supernode.intelligence;
 
-import io.supernode.network.SupernodeNetwork;
 import io.supernode.storage.SupernodeStorage;
-import io.supernode.network.BlobNetwork;
-import io.supernode.network.DHTDiscovery;
-import io.supernode.network.ManifestDistributor;
 import io.supernode.network.UnifiedNetwork;
+import io.supernode.network.transport.TransportManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -19,23 +17,22 @@ import static org.mockito.Mockito.*;
 
 class ResourceManagerTest {
 
-    private SupernodeNetwork mockNetwork;
+    private UnifiedNetwork mockNetwork;
     private SupernodeStorage.StorageStats mockStorageStats;
-    private SupernodeNetwork.NetworkStats mockNetworkStats;
+    private UnifiedNetwork.NetworkStats mockNetworkStats;
     private ResourceManager resourceManager;
 
     @BeforeEach
     void setUp() {
-        mockNetwork = mock(SupernodeNetwork.class);
+        mockNetwork = mock(UnifiedNetwork.class);
         mockStorageStats = mock(SupernodeStorage.StorageStats.class);
         
         // Mock the complex stats hierarchy
-        mockNetworkStats = new SupernodeNetwork.NetworkStats(
+        mockNetworkStats = new UnifiedNetwork.NetworkStats(
+            mock(TransportManager.AggregateStats.class),
             mockStorageStats,
-            mock(BlobNetwork.BlobNetworkStats.class),
-            mock(DHTDiscovery.DHTStats.class),
-            mock(ManifestDistributor.ManifestDistributorStats.class),
-            mock(UnifiedNetwork.NetworkStats.class)
+            0,
+            Map.of()
         );
 
         when(mockNetwork.stats()).thenReturn(mockNetworkStats);
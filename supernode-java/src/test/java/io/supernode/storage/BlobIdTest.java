@@ -0,0 +1,103 @@
+package io.supernode.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobIdTest {
+
+    private final InMemoryBlobStore store = new InMemoryBlobStore();
+
+    @Test
+    void testRoundTripsHexAndBytes() {
+        byte[] data = "round trip".getBytes();
+        String hex = store.computeHash(data);
+
+        BlobId id = BlobId.fromHex(hex);
+
+        assertEquals(hex, id.toHex());
+        assertEquals(hex, id.toString());
+        assertEquals(id, store.computeId(data));
+        assertEquals(id, BlobId.of(HexFormat.of().parseHex(hex)));
+        assertArrayEquals(HexFormat.of().parseHex(hex), id.toBytes());
+        assertEquals(id.hashCode(), BlobId.fromHex(hex).hashCode());
+    }
+
+    @Test
+    void testKeyNormalizesDigestsAndKeepsNames() {
+        String hex = store.computeHash("key".getBytes());
+
+        assertEquals(BlobId.fromHex(hex), BlobKey.of(hex));
+        assertEquals(BlobKey.of(hex), BlobKey.of(hex.toUpperCase()), "Uppercase must find the same entry");
+        assertEquals(hex, BlobKey.of(hex.toUpperCase()).hash());
+        assertEquals(new BlobKey.Name("blob-1"), BlobKey.of("blob-1"));
+        assertEquals("blob-1", BlobKey.of("blob-1").hash());
+        assertInstanceOf(BlobKey.Name.class, BlobKey.of(hex.substring(1) + "g"));
+        assertThrows(IllegalArgumentException.class, () -> BlobId.fromHex("abc"));
+        assertThrows(IllegalArgumentException.class, () -> BlobId.of(new byte[16]));
+    }
+
+    @Test
+    void testStoresTreatHexCaseAlike() {
+        byte[] data = "case".getBytes();
+        String hex = store.computeHash(data);
+
+        store.put(hex.toUpperCase(), data);
+
+        assertTrue(store.has(hex));
+        assertArrayEquals(data, store.get(hex).orElseThrow());
+        assertEquals(List.of(hex), store.listHashes());
+        assertTrue(store.delete(hex.toUpperCase()));
+        assertFalse(store.has(hex));
+    }
+
+    @Test
+    void testOrdersLikeHex() {
+        Random random = new Random(5);
+        List<BlobId> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            byte[] digest = new byte[BlobId.BYTES];
+            random.nextBytes(digest);
+            ids.add(BlobId.of(digest));
+        }
+
+        List<String> byId = ids.stream().sorted().map(BlobId::toHex).toList();
+        List<String> byHex = ids.stream().map(BlobId::toHex).sorted(Comparator.naturalOrder()).toList();
+
+        assertEquals(byHex, byId);
+    }
+
+    @Test
+    void testStoreOverloadsMatchHexKeys() {
+        byte[] data = "overloads".getBytes();
+        BlobId id = store.computeId(data);
+
+        store.put(id, data);
+
+        assertTrue(store.has(id.toHex()));
+        assertArrayEquals(data, store.get(id).orElseThrow());
+        assertEquals(List.of(id.toHex()), store.listHashes());
+        assertTrue(store.delete(id));
+        assertFalse(store.has(id));
+    }
+
+    @Test
+    void testCachedStoreAgreesWithHexKeys() {
+        store.setCache(new LRUBlobCache());
+        byte[] data = "cached".getBytes();
+        BlobId id = store.computeId(data);
+
+        store.put(id, data);
+
+        assertTrue(store.getCache().orElseThrow().has(id.toHex()));
+        assertArrayEquals(data, store.get(id.toHex()).orElseThrow());
+        assertTrue(store.delete(id));
+        assertFalse(store.getCache().orElseThrow().has(id.toHex()));
+    }
+}
@@ -0,0 +1,196 @@
+package io.supernode.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobScrubberTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new FileBlobStore(tempDir);
+    }
+
+    private List<String> putBlobs(int count) {
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] data = ("blob-" + i).getBytes();
+            String hash = store.computeHash(data);
+            store.put(hash, data);
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    private static BlobScrubber.ScrubOptions options(int batchSize) {
+        return BlobScrubber.ScrubOptions.builder().bytesPerSecond(0).batchSize(batchSize).build();
+    }
+
+    @Test
+    void listsHashesAfterCursorInOrder() {
+        List<String> hashes = putBlobs(20);
+        List<String> sorted = hashes.stream().sorted().toList();
+
+        assertEquals(sorted, store.listHashesAfter(null, 100));
+        assertEquals(sorted.subList(6, 11), store.listHashesAfter(sorted.get(5), 5));
+        assertTrue(store.listHashesAfter(sorted.get(19), 5).isEmpty());
+    }
+
+    @Test
+    void detectsAndQuarantinesCorruptBlobs() throws Exception {
+        List<String> hashes = putBlobs(10);
+        String bad = hashes.get(3);
+        Files.write(store.getPathForHash(bad), "bit rot".getBytes());
+
+        List<String> reported = new ArrayList<>();
+        BlobScrubber scrubber = new BlobScrubber(store, options(4), reported::addAll);
+        scrubber.scrubPass();
+
+        assertEquals(List.of(bad), reported);
+        assertFalse(store.has(bad));
+        assertArrayEquals("bit rot".getBytes(), Files.readAllBytes(tempDir.resolve(".quarantine").resolve(bad)));
+        assertEquals(9, store.listHashes().size());
+        BlobScrubber.ScrubStats stats = scrubber.stats();
+        assertEquals(1, stats.passesCompleted());
+        assertEquals(10, stats.blobsScanned());
+        assertEquals(1, stats.corruptFound());
+        assertNull(stats.cursor());
+    }
+
+    @Test
+    void leavesUnreadableBlobsInPlace() throws Exception {
+        String[] unreadable = new String[1];
+        // Points the scrubber's read at a directory, which fails with an I/O error
+        store = new FileBlobStore(tempDir) {
+            @Override
+            Path getPathForHash(String hash) {
+                return hash.equals(unreadable[0]) ? tempDir : super.getPathForHash(hash);
+            }
+        };
+        unreadable[0] = putBlobs(5).get(2);
+
+        List<String> reported = new ArrayList<>();
+        BlobScrubber scrubber = new BlobScrubber(store, options(8), reported::addAll);
+        scrubber.scrubPass();
+
+        assertTrue(reported.isEmpty());
+        assertTrue(store.has(unreadable[0]));
+        BlobScrubber.ScrubStats stats = scrubber.stats();
+        assertEquals(0, stats.corruptFound());
+        assertEquals(1, stats.unreadable());
+        assertEquals(5, stats.blobsScanned());
+        assertEquals(1, stats.passesCompleted());
+    }
+
+    @Test
+    void resumesFromPersistedCursor() throws Exception {
+        List<String> sorted = putBlobs(9).stream().sorted().toList();
+
+        BlobScrubber first = new BlobScrubber(store, options(4), null);
+        assertTrue(first.scrubBatch());
+        assertEquals(sorted.get(3), first.stats().cursor());
+
+        // A new scrubber over the same store picks up after the saved cursor
+        BlobScrubber restarted = new BlobScrubber(store, options(4), null);
+        assertEquals(sorted.get(3), restarted.stats().cursor());
+        assertTrue(restarted.scrubBatch());
+        assertFalse(restarted.scrubBatch());
+        assertEquals(5, restarted.stats().blobsScanned());
+        assertEquals(1, restarted.stats().passesCompleted());
+    }
+
+    @Test
+    void cursorFileIsNotCountedAsBlob() throws Exception {
+        putBlobs(3);
+        new BlobScrubber(store, options(2), null).scrubBatch();
+
+        assertEquals(3, store.listHashes().size());
+        assertEquals(3, store.listHashesAfter(null, 10).size());
+    }
+
+    @Test
+    void throttlesToBudget() throws Exception {
+        byte[] data = new byte[64 * 1024];
+        new SecureRandom().nextBytes(data);
+        IntStream.range(0, 4).forEach(i -> {
+            data[0] = (byte) i;
+            store.put(store.computeHash(data), data.clone());
+        });
+
+        BlobScrubber scrubber = new BlobScrubber(store,
+            BlobScrubber.ScrubOptions.builder().bytesPerSecond(512 * 1024).batchSize(8).build(), null);
+        long start = System.nanoTime();
+        scrubber.scrubPass();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // 256 KB at 512 KB/s; the first read is free, so at least 3/8 of a second
+        assertTrue(elapsedMs >= 350, "scrub took only " + elapsedMs + " ms");
+        assertEquals(4 * data.length, scrubber.stats().bytesScanned());
+    }
+
+    @Test
+    void feedsCorruptShardsIntoRepair() throws Exception {
+        SupernodeStorage storage = new SupernodeStorage(store, SupernodeStorage.StorageOptions.withErasure(4, 2));
+        byte[] masterKey = new byte[32];
+        Arrays.fill(masterKey, (byte) 0x17);
+        byte[] content = new byte[100 * 1024];
+        new SecureRandom().nextBytes(content);
+        SupernodeStorage.IngestResult ingest = storage.ingest(content, "scrubbed.bin", masterKey);
+        String shard = ingest.chunkHashes().get(1);
+        byte[] original = store.get(shard).orElseThrow();
+        store.setCache(null);
+        Files.write(store.getPathForHash(shard), new byte[original.length]);
+
+        List<RepairEngine.RepairReport> reports = new ArrayList<>();
+        BlobScrubber scrubber = new BlobScrubber(store, options(64),
+            corrupt -> reports.addAll(storage.repairShards(corrupt, masterKey).join()));
+        scrubber.scrubPass();
+
+        assertEquals(1, reports.size());
+        assertEquals(1, reports.get(0).shardsRepaired());
+        assertArrayEquals(original, Files.readAllBytes(store.getPathForHash(shard)));
+        assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+    }
+
+    @Test
+    void repairsFilesWhoseManifestWasImported() throws Exception {
+        InMemoryBlobStore source = new InMemoryBlobStore();
+        SupernodeStorage writer = new SupernodeStorage(source, SupernodeStorage.StorageOptions.withErasure(4, 2));
+        byte[] masterKey = new byte[32];
+        Arrays.fill(masterKey, (byte) 0x23);
+        byte[] content = new byte[50 * 1024];
+        new SecureRandom().nextBytes(content);
+        SupernodeStorage.IngestResult ingest = writer.ingest(content, "imported.bin", masterKey);
+
+        // The same shards and manifest, reached through storeManifest rather than ingest
+        SupernodeStorage storage = new SupernodeStorage(store, SupernodeStorage.StorageOptions.withErasure(4, 2));
+        for (String hash : ingest.chunkHashes()) {
+            store.put(hash, source.get(hash).orElseThrow());
+        }
+        storage.storeManifest(ingest.fileId(), ingest.encryptedManifest());
+        String shard = ingest.chunkHashes().get(0);
+        store.delete(shard);
+
+        List<RepairEngine.RepairReport> reports = storage.repairShards(List.of(shard), masterKey).join();
+
+        assertEquals(1, reports.size());
+        assertEquals(1, reports.get(0).shardsRepaired());
+        assertTrue(store.has(shard));
+        assertTrue(storage.repairShards(List.of("unknown"), masterKey).join().isEmpty());
+    }
+}
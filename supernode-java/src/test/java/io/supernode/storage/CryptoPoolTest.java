@@ -0,0 +1,95 @@
+package io.supernode.storage;
+
+import io.supernode.storage.mux.Manifest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CryptoPool")
+class CryptoPoolTest {
+
+    @Nested
+    @DisplayName("Instance Reuse")
+    class ReuseTests {
+
+        @Test
+        @DisplayName("should hand the same instance to one thread")
+        void sameInstancePerThread() {
+            assertSame(CryptoPool.aesGcm(), CryptoPool.aesGcm());
+            assertSame(CryptoPool.aesCtr(), CryptoPool.aesCtr());
+            assertSame(CryptoPool.hmacSha256(), CryptoPool.hmacSha256());
+            assertSame(CryptoPool.sha256(), CryptoPool.sha256());
+        }
+
+        @Test
+        @DisplayName("should give each thread its own instance")
+        void separateInstancesPerThread() throws Exception {
+            MessageDigest mine = CryptoPool.sha256();
+            MessageDigest theirs = CompletableFuture.supplyAsync(CryptoPool::sha256).get();
+
+            assertNotSame(mine, theirs);
+        }
+
+        @Test
+        @DisplayName("should count reuse without creating instances")
+        void countsReuse() {
+            CryptoPool.sha256();
+            CryptoPool.PoolStats before = CryptoPool.stats();
+
+            for (int i = 0; i < 100; i++) {
+                CryptoPool.sha256();
+            }
+
+            CryptoPool.PoolStats after = CryptoPool.stats();
+            assertEquals(before.created(), after.created());
+            assertTrue(after.reused() - before.reused() >= 100);
+        }
+
+        @Test
+        @DisplayName("should reset the digest on every borrow")
+        void resetsDigest() {
+            CryptoPool.sha256().update("leftover".getBytes());
+
+            String hash = HexFormat.of().formatHex(CryptoPool.sha256().digest("abc".getBytes()));
+
+            assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hash);
+        }
+    }
+
+    @Nested
+    @DisplayName("GCM")
+    class GcmTests {
+
+        @Test
+        @DisplayName("should encrypt repeatedly under the same key and nonce")
+        void repeatedKeyAndNonce() throws Exception {
+            byte[] key = new byte[32];
+            byte[] nonce = new byte[12];
+
+            byte[] first = CryptoPool.initGcm(Cipher.ENCRYPT_MODE, key, nonce).doFinal(new byte[64]);
+            byte[] second = CryptoPool.initGcm(Cipher.ENCRYPT_MODE, key, nonce).doFinal(new byte[64]);
+
+            assertArrayEquals(first, second);
+        }
+
+        @Test
+        @DisplayName("should round-trip manifests through the pooled cipher")
+        void manifestRoundtrip() {
+            byte[] key = Manifest.deriveManifestKey(new byte[32], "file-1");
+            Manifest manifest = Manifest.create(new Manifest.ManifestOptions(
+                "file-1", "name.bin", 10, "seed", 1024, null, List.of()));
+
+            Manifest decrypted = Manifest.decrypt(Manifest.encrypt(manifest, key), key);
+
+            assertEquals("file-1", decrypted.getFileId());
+        }
+    }
+}
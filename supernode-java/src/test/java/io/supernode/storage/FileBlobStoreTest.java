@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -71,6 +73,18 @@ class FileBlobStoreTest {
         assertFalse(store.has(hash));
     }
 
+    @Test
+    void testUppercaseHashFindsLowercaseBlob() {
+        byte[] data = "Mixed case".getBytes();
+        String hash = store.computeHash(data);
+
+        store.put(hash.toUpperCase(), data);
+
+        assertTrue(store.has(hash));
+        assertArrayEquals(data, store.get(hash).orElseThrow());
+        assertEquals(List.of(hash), store.listHashes());
+    }
+
     @Test
     void testPersistence() {
         String data = "Persistent Data";
@@ -84,6 +98,179 @@ class FileBlobStoreTest {
         assertEquals(data, new String(newStore.get(hash).get()));
     }
 
+    @Test
+    void testPutByteBufferWritesOnlyRemainingBytes() {
+        byte[] payload = "Buffered Data".getBytes();
+        String hash = store.computeHash(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put("junk".getBytes()).put(payload).flip().position(4);
+        store.put(hash, buffer);
+
+        assertEquals(4, buffer.position(), "Buffer position should be untouched");
+        assertArrayEquals(payload, store.get(hash).get());
+        assertEquals(payload.length, store.stats().totalBytes());
+    }
+
+    @Test
+    void testWriterStoresUnderContentHash() throws IOException {
+        byte[] payload = new byte[200_000];
+        new java.util.Random(7).nextBytes(payload);
+
+        String hash;
+        try (BlobWriter writer = store.openWriter()) {
+            writer.write(payload, 0, 1000);
+            writer.write(payload, 1000, payload.length - 1000);
+            hash = writer.hash();
+            writer.commit();
+        }
+
+        assertEquals(store.computeHash(payload), hash);
+        assertArrayEquals(payload, store.get(hash).get());
+        try (var temp = Files.list(tempDir.resolve(".temp"))) {
+            assertEquals(0, temp.count(), "Committed writer should leave no temp file");
+        }
+    }
+
+    @Test
+    void testWriterDiscardedWithoutCommit() throws IOException {
+        String hash;
+        try (BlobWriter writer = store.openWriter()) {
+            writer.write("abandoned".getBytes());
+            hash = writer.hash();
+        }
+
+        assertFalse(store.has(hash));
+        try (var temp = Files.list(tempDir.resolve(".temp"))) {
+            assertEquals(0, temp.count(), "Closed writer should remove its temp file");
+        }
+    }
+
+    @Test
+    void testGetMappedReadsWithoutHeapCopy() {
+        byte[] payload = new byte[100_000];
+        new java.util.Random(11).nextBytes(payload);
+        String hash = store.computeHash(payload);
+        store.put(hash, payload);
+
+        ByteBuffer first = store.getMapped(hash).orElseThrow();
+        ByteBuffer second = store.getBuffer(hash).orElseThrow();
+
+        assertTrue(first.isDirect(), "Mapped blobs should live off heap");
+        assertTrue(first.isReadOnly());
+        byte[] read = new byte[first.remaining()];
+        first.get(read);
+        assertArrayEquals(payload, read);
+        assertEquals(0, second.position(), "Each caller should get its own view");
+        assertEquals(1, store.mappedStats().hits());
+        assertTrue(store.getMapped("0000missing").isEmpty());
+    }
+
+    @Test
+    void testMappedCacheIsBoundedAndInvalidated() {
+        FileBlobStore bounded = new FileBlobStore(tempDir.resolve("bounded"), 25_000);
+        String[] hashes = new String[4];
+        for (int i = 0; i < hashes.length; i++) {
+            byte[] payload = new byte[10_000];
+            new java.util.Random(i).nextBytes(payload);
+            hashes[i] = bounded.computeHash(payload);
+            bounded.put(hashes[i], payload);
+            bounded.getMapped(hashes[i]);
+        }
+
+        FileBlobStore.MappedStats stats = bounded.mappedStats();
+        assertEquals(2, stats.regions());
+        assertEquals(20_000, stats.mappedBytes());
+
+        bounded.delete(hashes[3]);
+        assertEquals(1, bounded.mappedStats().regions());
+        assertTrue(bounded.getMapped(hashes[3]).isEmpty());
+    }
+
+    @Test
+    void testStatsExactAfterDelete() {
+        byte[] a = new byte[1000];
+        byte[] b = new byte[3000];
+        new java.util.Random(1).nextBytes(a);
+        new java.util.Random(2).nextBytes(b);
+        String hashA = store.computeHash(a);
+        store.put(hashA, a);
+        store.put(store.computeHash(b), b);
+        store.put(hashA, a);
+
+        assertEquals(2, store.stats().blobCount());
+        assertEquals(4000, store.stats().totalBytes());
+
+        store.delete(hashA);
+
+        assertEquals(1, store.stats().blobCount());
+        assertEquals(3000, store.stats().totalBytes());
+    }
+
+    @Test
+    void testIndexSurvivesReopenWithoutScan() {
+        String kept = store.computeHash("kept".getBytes());
+        String dropped = store.computeHash("dropped".getBytes());
+        store.put(kept, "kept".getBytes());
+        store.put(dropped, "dropped".getBytes());
+        store.delete(dropped);
+
+        // No shutdown: the reopened store must replay the journal
+        FileBlobStore reopened = new FileBlobStore(tempDir);
+
+        assertFalse(reopened.indexRebuilt());
+        assertTrue(reopened.has(kept));
+        assertFalse(reopened.has(dropped));
+        assertEquals(java.util.List.of(kept), reopened.listHashes());
+        assertEquals(4, reopened.stats().totalBytes());
+    }
+
+    @Test
+    void testRebuildsMissingIndexFromDisk() throws IOException {
+        String hash = store.computeHash("existing".getBytes());
+        store.put(hash, "existing".getBytes());
+        store.shutdown().join();
+        try (var walk = Files.walk(tempDir.resolve(".index"))) {
+            walk.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+
+        FileBlobStore reopened = new FileBlobStore(tempDir);
+
+        assertTrue(reopened.indexRebuilt());
+        assertTrue(reopened.has(hash));
+        assertEquals(8, reopened.stats().totalBytes());
+        assertFalse(new FileBlobStore(tempDir).indexRebuilt(), "Rebuild should persist a snapshot");
+    }
+
+    @Test
+    void testIgnoresTornJournalRecord() throws IOException {
+        String first = store.computeHash("first".getBytes());
+        String second = store.computeHash("second".getBytes());
+        store.put(first, "first".getBytes());
+        store.put(second, "second".getBytes());
+        Path journal = tempDir.resolve(".index").resolve("journal");
+        try (var channel = java.nio.channels.FileChannel.open(journal, java.nio.file.StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journal) - 3);
+        }
+
+        FileBlobStore reopened = new FileBlobStore(tempDir);
+
+        assertTrue(reopened.has(first));
+        assertFalse(reopened.has(second));
+        reopened.put(second, "second".getBytes());
+        assertTrue(new FileBlobStore(tempDir).has(second));
+    }
+
+    @Test
+    void testPutStreamIndexesActualSize() throws IOException {
+        byte[] payload = "streamed".getBytes();
+        String hash = store.computeHash(payload);
+
+        store.putStream(hash, new java.io.ByteArrayInputStream(payload), -1);
+
+        assertEquals(payload.length, store.stats().totalBytes());
+    }
+
     private Path findBlobPath(String hash) {
         if (hash.length() < 4)
             return tempDir.resolve(hash);
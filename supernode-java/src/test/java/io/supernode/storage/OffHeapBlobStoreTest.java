@@ -0,0 +1,202 @@
+package io.supernode.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapBlobStoreTest {
+
+    private static final int SLAB = 64 * 1024;
+
+    private OffHeapBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapBlobStore(16L * SLAB, SLAB);
+    }
+
+    private static byte[] blob(int seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    void testPutAndGet() {
+        byte[] data = blob(1, 5000);
+        String hash = store.computeHash(data);
+
+        store.put(hash, data);
+
+        assertTrue(store.has(hash));
+        assertArrayEquals(data, store.get(hash).orElseThrow());
+        assertTrue(store.get(store.computeHash(new byte[1])).isEmpty());
+        assertEquals(1, store.stats().blobCount());
+        assertEquals(5000, store.stats().totalBytes());
+    }
+
+    @Test
+    void testDeduplicationAndDelete() {
+        byte[] data = blob(2, 1000);
+        String hash = store.computeHash(data);
+
+        store.put(hash, data);
+        store.put(hash, data);
+        assertEquals(1, store.stats().blobCount());
+
+        assertTrue(store.delete(hash));
+        assertFalse(store.delete(hash));
+        assertFalse(store.has(hash));
+        assertEquals(0, store.stats().totalBytes());
+        assertEquals(0, store.offHeapStats().blockBytes());
+    }
+
+    @Test
+    void testNamedKeysAndBlobIdOverloads() {
+        byte[] named = blob(3, 300);
+        byte[] digest = blob(4, 300);
+        BlobId id = store.computeId(digest);
+
+        store.put("not-a-digest", named);
+        store.put(id, digest);
+
+        assertArrayEquals(named, store.get("not-a-digest").orElseThrow());
+        assertArrayEquals(digest, store.get(id.toHex()).orElseThrow());
+        assertTrue(store.has(id));
+        assertEquals(Set.of("not-a-digest", id.toHex()), new HashSet<>(store.listHashes()));
+        assertTrue(store.delete(id));
+        assertEquals(List.of("not-a-digest"), store.listHashes());
+    }
+
+    @Test
+    void testPutByteBufferLeavesPosition() {
+        byte[] data = blob(5, 2000);
+        String hash = store.computeHash(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        store.put(hash, direct);
+
+        assertEquals(0, direct.position());
+        assertArrayEquals(data, store.get(hash).orElseThrow());
+    }
+
+    @Test
+    void testReusesFreedBlocks() {
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            byte[] data = blob(i, 3000);
+            hashes.add(store.computeHash(data));
+            store.put(hashes.get(i), data);
+        }
+        int slabs = store.offHeapStats().slabs();
+        for (int i = 0; i < 40; i += 2) {
+            store.delete(hashes.get(i));
+        }
+
+        for (int i = 100; i < 120; i++) {
+            byte[] data = blob(i, 3000);
+            store.put(store.computeHash(data), data);
+        }
+
+        OffHeapBlobStore.OffHeapStats stats = store.offHeapStats();
+        assertEquals(slabs, stats.slabs(), "Freed blocks should be reused before new slabs");
+        assertEquals(0, stats.freeBytes() % 4096);
+        for (int i = 1; i < 40; i += 2) {
+            assertArrayEquals(blob(i, 3000), store.get(hashes.get(i)).orElseThrow());
+        }
+    }
+
+    @Test
+    void testSplitsLargerFreeBlocks() {
+        OffHeapBlobStore single = new OffHeapBlobStore(SLAB, SLAB);
+        byte[] big = blob(6, SLAB - 100);
+        String bigHash = single.computeHash(big);
+        single.put(bigHash, big);
+        assertThrows(IllegalStateException.class, () -> single.put(single.computeHash(blob(7, 100)), blob(7, 100)));
+
+        single.delete(bigHash);
+        for (int i = 0; i < 16; i++) {
+            byte[] data = blob(i, 4000);
+            single.put(single.computeHash(data), data);
+        }
+
+        assertEquals(16, single.stats().blobCount());
+        assertEquals(1, single.offHeapStats().slabs());
+    }
+
+    @Test
+    void testRejectsBlobsLargerThanASlab() {
+        assertThrows(IllegalArgumentException.class, () -> store.put("huge", new byte[SLAB]));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapBlobStore(SLAB, 1000));
+    }
+
+    @Test
+    void testIndexGrowsAndSurvivesChurn() {
+        OffHeapBlobStore large = new OffHeapBlobStore(64L * SLAB, SLAB);
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            byte[] data = blob(i, 100);
+            hashes.add(large.computeHash(data));
+            large.put(hashes.get(i), data);
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            large.delete(hashes.get(i));
+        }
+
+        assertTrue(large.offHeapStats().indexSlots() >= 5000);
+        assertEquals(5000 - 1667, large.listHashes().size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i % 3 != 0, large.has(hashes.get(i)), "blob " + i);
+        }
+        assertArrayEquals(blob(4999, 100), large.get(hashes.get(4999)).orElseThrow());
+    }
+
+    @Test
+    void testConcurrentReadersAndWriters() throws Exception {
+        OffHeapBlobStore shared = new OffHeapBlobStore(64L * SLAB, SLAB);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int base = t * 1000;
+            futures.add(pool.submit(() -> {
+                for (int i = base; i < base + 200; i++) {
+                    byte[] data = blob(i, 500);
+                    String hash = shared.computeHash(data);
+                    shared.put(hash, data);
+                    assertArrayEquals(data, shared.get(hash).orElseThrow());
+                    if (i % 2 == 0) {
+                        assertTrue(shared.delete(hash));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(400, shared.stats().blobCount());
+        assertEquals(400L * 500, shared.stats().totalBytes());
+    }
+
+    @Test
+    void testShutdownReleasesSlabs() {
+        store.put("a", blob(8, 100));
+
+        store.shutdown().join();
+
+        assertEquals(0, store.offHeapStats().slabs());
+        assertFalse(store.has("a"));
+    }
+}
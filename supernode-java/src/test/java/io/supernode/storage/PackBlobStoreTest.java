@@ -0,0 +1,330 @@
+package io.supernode.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackBlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PackBlobStore store;
+    private final List<PackBlobStore> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        store = open(tempDir, PackBlobStore.PackOptions.defaults());
+    }
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(s -> s.shutdown().join());
+    }
+
+    /** Opens a store that is shut down after the test, unless it was abandoned. */
+    private PackBlobStore open(Path dir, PackBlobStore.PackOptions options) {
+        PackBlobStore opening = new PackBlobStore(dir, options);
+        opened.add(opening);
+        return opening;
+    }
+
+    private PackBlobStore reopen() {
+        return open(tempDir, PackBlobStore.PackOptions.defaults());
+    }
+
+    private static byte[] blob(int seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".pack")).sorted().toList();
+        }
+    }
+
+    @Test
+    void testPutAndGet() {
+        byte[] data = "Hello, World!".getBytes();
+        String hash = store.computeHash(data);
+
+        store.put(hash, data);
+
+        assertTrue(store.has(hash));
+        assertArrayEquals(data, store.get(hash).orElseThrow());
+        assertTrue(store.get("missing").isEmpty());
+    }
+
+    @Test
+    void testPutByteBuffer() {
+        byte[] data = blob(1, 4096);
+        String hash = store.computeHash(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        store.put(hash, direct);
+
+        assertEquals(0, direct.position(), "put must not consume the caller's buffer");
+        assertArrayEquals(data, store.get(hash).orElseThrow());
+    }
+
+    @Test
+    void testDeduplication() throws IOException {
+        byte[] data = blob(2, 1000);
+        String hash = store.computeHash(data);
+
+        store.put(hash, data);
+        long size = Files.size(segmentFiles().getFirst());
+        store.put(hash, data);
+
+        assertEquals(size, Files.size(segmentFiles().getFirst()), "Duplicate put should not append");
+        assertEquals(1, store.stats().blobCount());
+    }
+
+    @Test
+    void testDeleteSurvivesReopen() {
+        byte[] kept = blob(3, 500);
+        byte[] dropped = blob(4, 500);
+        store.put("kept", kept);
+        store.put("dropped", dropped);
+
+        assertTrue(store.delete("dropped"));
+        assertFalse(store.delete("dropped"));
+        assertEquals(500, store.stats().totalBytes());
+
+        // Crash: the tombstone is only in the log, so reopening must replay it
+        store.abandon();
+        PackBlobStore reopened = reopen();
+        assertTrue(reopened.has("kept"));
+        assertFalse(reopened.has("dropped"));
+        assertArrayEquals(kept, reopened.get("kept").orElseThrow());
+    }
+
+    @Test
+    void testRecoversFromCheckpointAndReplaysLaterWrites() {
+        for (int i = 0; i < 10; i++) {
+            store.put("before-" + i, blob(i, 300));
+        }
+        store.checkpoint();
+        for (int i = 0; i < 5; i++) {
+            store.put("after-" + i, blob(100 + i, 300));
+        }
+        store.delete("before-0");
+        store.abandon();
+
+        PackBlobStore reopened = reopen();
+
+        assertEquals(14, reopened.listHashes().size());
+        assertFalse(reopened.has("before-0"));
+        assertArrayEquals(blob(9, 300), reopened.get("before-9").orElseThrow());
+        assertArrayEquals(blob(104, 300), reopened.get("after-4").orElseThrow());
+    }
+
+    @Test
+    void testCheckpointsInBackgroundByLogBytes() throws Exception {
+        Path dir = tempDir.resolve("periodic");
+        // Each record is 13 bytes of header, 100 of blob and a 4-byte CRC
+        PackBlobStore periodic = open(dir, new PackBlobStore.PackOptions(1 << 20, 1000, 0.5));
+        for (int i = 0; i < 8; i++) {
+            periodic.put("blob-" + i, blob(i, 100));
+        }
+        assertEquals(0, periodic.packStats().checkpoints());
+
+        for (int i = 8; i < 12; i++) {
+            periodic.put("blob-" + i, blob(i, 100));
+        }
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (periodic.packStats().checkpoints() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, periodic.packStats().checkpoints());
+        assertTrue(Files.exists(dir.resolve("index.checkpoint")));
+        periodic.abandon();
+        PackBlobStore reopened = open(dir, PackBlobStore.PackOptions.defaults());
+        for (int i = 0; i < 12; i++) {
+            assertArrayEquals(blob(i, 100), reopened.get("blob-" + i).orElseThrow());
+        }
+    }
+
+    @Test
+    void testWritesDuringCheckpointAreRecovered() throws Exception {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 400; i++) {
+                store.put("blob-" + i, blob(i, 200));
+                if (i % 3 == 0) {
+                    store.delete("blob-" + (i / 2));
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            store.checkpoint();
+        }
+        writer.join();
+        List<String> expected = store.listHashes().stream().sorted().toList();
+        store.abandon();
+
+        PackBlobStore reopened = reopen();
+
+        assertEquals(expected, reopened.listHashes().stream().sorted().toList());
+        for (String hash : expected) {
+            assertArrayEquals(blob(Integer.parseInt(hash.substring(5)), 200), reopened.get(hash).orElseThrow());
+        }
+    }
+
+    @Test
+    void testTruncatesTornTail() throws IOException {
+        store.put("a", blob(1, 1000));
+        store.put("b", blob(2, 1000));
+        Path segment = segmentFiles().getFirst();
+        long intact = Files.size(segment);
+        store.put("c", blob(3, 1000));
+        store.abandon();
+
+        // Simulate a crash halfway through writing "c"
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(intact + 600);
+        }
+
+        PackBlobStore reopened = reopen();
+
+        assertTrue(reopened.has("b"));
+        assertFalse(reopened.has("c"));
+        assertEquals(intact, Files.size(segment));
+        reopened.put("d", blob(4, 1000));
+        reopened.shutdown().join();
+        assertArrayEquals(blob(4, 1000), reopen().get("d").orElseThrow());
+    }
+
+    @Test
+    void testIgnoresCorruptRecord() throws IOException {
+        store.put("a", blob(1, 1000));
+        Path segment = segmentFiles().getFirst();
+        long intact = Files.size(segment);
+        store.put("b", blob(2, 1000));
+        store.abandon();
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x55}), intact + 100);
+        }
+
+        PackBlobStore reopened = reopen();
+
+        assertTrue(reopened.has("a"));
+        assertFalse(reopened.has("b"), "a record failing its CRC must not be indexed");
+    }
+
+    @Test
+    void testRollsSegments() throws IOException {
+        store.shutdown().join();
+        PackBlobStore small = open(tempDir, new PackBlobStore.PackOptions(4096, 1 << 20, 0.5));
+        for (int i = 0; i < 20; i++) {
+            small.put("blob-" + i, blob(i, 1000));
+        }
+
+        assertTrue(segmentFiles().size() >= 5);
+        for (Path segment : segmentFiles()) {
+            assertTrue(Files.size(segment) <= 4096);
+        }
+        small.abandon();
+        PackBlobStore reopened = reopen();
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(blob(i, 1000), reopened.get("blob-" + i).orElseThrow());
+        }
+    }
+
+    @Test
+    void testCompactionReclaimsDeletedSpace() throws IOException {
+        store.shutdown().join();
+        PackBlobStore small = open(tempDir, new PackBlobStore.PackOptions(8192, 1 << 20, 0.5));
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            small.put("blob-" + i, blob(i, 1000));
+            if (i % 4 == 0) {
+                kept.add("blob-" + i);
+            }
+        }
+        for (int i = 0; i < 40; i++) {
+            if (i % 4 != 0) {
+                small.delete("blob-" + i);
+            }
+        }
+        long before = small.packStats().fileBytes();
+
+        long reclaimed = small.compact();
+
+        PackBlobStore.PackStats stats = small.packStats();
+        assertTrue(reclaimed > 0);
+        assertEquals(1, stats.compactions());
+        assertTrue(stats.fileBytes() < before / 2, stats.fileBytes() + " of " + before);
+        for (String hash : kept) {
+            assertArrayEquals(blob(Integer.parseInt(hash.substring(5)), 1000), small.get(hash).orElseThrow());
+        }
+
+        small.shutdown().join();
+        PackBlobStore reopened = reopen();
+        assertEquals(kept.size(), reopened.listHashes().size());
+        for (String hash : kept) {
+            assertArrayEquals(blob(Integer.parseInt(hash.substring(5)), 1000), reopened.get(hash).orElseThrow());
+        }
+    }
+
+    @Test
+    void testReadsDuringCompaction() throws Exception {
+        store.shutdown().join();
+        PackBlobStore small = open(tempDir, new PackBlobStore.PackOptions(4096, 1 << 20, 0.3));
+        for (int i = 0; i < 60; i++) {
+            small.put("blob-" + i, blob(i, 500));
+        }
+        for (int i = 0; i < 60; i += 2) {
+            small.delete("blob-" + i);
+        }
+
+        Thread reader = new Thread(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 1; i < 60; i += 2) {
+                    assertArrayEquals(blob(i, 500), small.get("blob-" + i).orElseThrow());
+                }
+            }
+        });
+        List<Throwable> failures = new ArrayList<>();
+        reader.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+        reader.start();
+        small.compact();
+        reader.join();
+
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+
+    @Test
+    void testBenchmarkAgainstFileBlobStore() {
+        StorageBenchmark.BenchmarkOptions options = new StorageBenchmark.BenchmarkOptions(4096, 50, 2);
+
+        StorageBenchmark.BenchmarkReport pack = StorageBenchmark.runBlobStore("pack",
+            () -> new PackBlobStore(tempDir.resolve("pack")), options);
+        StorageBenchmark.BenchmarkReport file = StorageBenchmark.runBlobStore("file",
+            () -> new FileBlobStore(tempDir.resolve("file")), options);
+
+        assertTrue(pack.allPassed(), pack.toString());
+        assertTrue(file.allPassed(), file.toString());
+        assertEquals(List.of("pack-put", "pack-get", "pack-startup"),
+            pack.results().stream().map(StorageBenchmark.BenchmarkResult::name).toList());
+        assertEquals(50L * 4096, pack.results().get(1).totalBytes());
+    }
+}
@@ -0,0 +1,169 @@
+package io.supernode.storage;
+
+import io.supernode.storage.erasure.LrcCoder;
+import io.supernode.storage.mux.Manifest.Segment;
+import io.supernode.storage.mux.Manifest.ShardInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardFetcherTest {
+
+    private static final int DATA_SHARDS = 4;
+    private static final int TOTAL_SHARDS = 6;
+
+    private InMemoryBlobStore local;
+    private Map<String, byte[]> remote;
+    private Map<String, Long> delays;
+    private Set<String> failing;
+    private List<String> requested;
+    private Map<String, CompletableFuture<byte[]>> issued;
+    private Segment segment;
+    private List<String> hashes;
+
+    @BeforeEach
+    void setUp() {
+        local = new InMemoryBlobStore();
+        remote = new HashMap<>();
+        delays = new ConcurrentHashMap<>();
+        failing = ConcurrentHashMap.newKeySet();
+        requested = Collections.synchronizedList(new ArrayList<>());
+        issued = new ConcurrentHashMap<>();
+        hashes = new ArrayList<>();
+        segment = segmentOf(TOTAL_SHARDS);
+    }
+
+    private Segment segmentOf(int shardCount) {
+        List<ShardInfo> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            byte[] data = ("shard-" + i).getBytes();
+            String hash = local.computeHash(data);
+            remote.put(hash, data);
+            hashes.add(hash);
+            shards.add(new ShardInfo(i, hash, data.length));
+        }
+        return new Segment("chunk", "key", "seed", 0, 1, 64, 64, shards, 64, 16);
+    }
+
+    private ShardFetcher fetcher(Duration hedgeDelay) {
+        return new ShardFetcher(local, this::serve, new ShardFetcher.FetchOptions(95.0, hedgeDelay, hedgeDelay, 64));
+    }
+
+    private CompletableFuture<byte[]> serve(String hash) {
+        requested.add(hash);
+        if (failing.contains(hash)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("peer gone"));
+        }
+        long delay = delays.getOrDefault(hash, 0L);
+        CompletableFuture<byte[]> request = CompletableFuture.supplyAsync(() -> remote.get(hash),
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+        issued.put(hash, request);
+        return request;
+    }
+
+    @Test
+    void fetchesOnlyDataShards() {
+        ShardFetcher.FetchResult result = fetcher(Duration.ofSeconds(5)).fetch(segment, DATA_SHARDS).join();
+
+        assertEquals(List.of(0, 1, 2, 3), result.availableIndices());
+        assertEquals(4, result.fetched());
+        assertEquals(0, result.hedged());
+        assertEquals(hashes.subList(0, 4), requested.stream().sorted(Comparator.comparing(hashes::indexOf)).toList());
+        assertFalse(local.has(hashes.get(4)));
+        assertFalse(local.has(hashes.get(5)));
+    }
+
+    @Test
+    void countsShardsAlreadyStored() {
+        local.put(hashes.get(0), remote.get(hashes.get(0)));
+        local.put(hashes.get(5), remote.get(hashes.get(5)));
+
+        ShardFetcher.FetchResult result = fetcher(Duration.ofSeconds(5)).fetch(segment, DATA_SHARDS).join();
+
+        assertEquals(2, result.fetched());
+        assertEquals(Set.of(hashes.get(1), hashes.get(2)), Set.copyOf(requested));
+    }
+
+    @Test
+    void replacesFailedShardWithParity() {
+        failing.add(hashes.get(2));
+
+        ShardFetcher.FetchResult result = fetcher(Duration.ofSeconds(5)).fetch(segment, DATA_SHARDS).join();
+
+        assertEquals(List.of(0, 1, 3, 4), result.availableIndices());
+        assertEquals(0, result.hedged());
+    }
+
+    @Test
+    void rejectsShardWithWrongContent() {
+        remote.put(hashes.get(1), "tampered".getBytes());
+
+        ShardFetcher.FetchResult result = fetcher(Duration.ofSeconds(5)).fetch(segment, DATA_SHARDS).join();
+
+        assertEquals(List.of(0, 2, 3, 4), result.availableIndices());
+        assertFalse(local.has(hashes.get(1)));
+    }
+
+    @Test
+    void hedgesSlowShardAndAbandonsIt() {
+        delays.put(hashes.get(1), 5_000L);
+        ShardFetcher fetcher = fetcher(Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        ShardFetcher.FetchResult result = fetcher.fetch(segment, DATA_SHARDS).join();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 2_000, "waited " + elapsedMs + " ms for the slow shard");
+        assertEquals(List.of(0, 2, 3, 4), result.availableIndices());
+        assertEquals(1, result.hedged());
+        assertEquals(1, result.abandoned());
+        assertEquals(1, fetcher.stats().abandoned());
+        assertTrue(issued.get(hashes.get(1)).isCancelled(), "The source should be told to give up");
+        assertFalse(local.has(hashes.get(1)));
+    }
+
+    @Test
+    void keepsFetchingUntilLrcShardsDecode() {
+        hashes.clear();
+        Segment lrcSegment = segmentOf(10);
+        LrcCoder coder = new LrcCoder(6, 2, 2);
+        failing.add(hashes.get(3));
+
+        ShardFetcher.FetchResult result = fetcher(Duration.ofSeconds(5)).fetch(lrcSegment, coder).join();
+
+        // Group 0's parity replaces shard 3 first but adds nothing; group 1's does
+        assertEquals(List.of(0, 1, 2, 4, 5, 6, 7), result.availableIndices());
+        assertTrue(coder.canDecode(result.availableIndices().stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    @Test
+    void failsWhenTooFewShardsExist() {
+        failing.add(hashes.get(0));
+        failing.add(hashes.get(1));
+        failing.add(hashes.get(4));
+
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> fetcher(Duration.ofSeconds(5)).fetch(segment, DATA_SHARDS).join());
+        assertTrue(e.getCause().getMessage().contains("Only 3 of 4"));
+    }
+
+    @Test
+    void hedgeDelayFollowsObservedLatency() {
+        ShardFetcher fetcher = new ShardFetcher(local, this::serve,
+            new ShardFetcher.FetchOptions(95.0, Duration.ofSeconds(5), Duration.ofMillis(1), 64));
+        assertEquals(Duration.ofSeconds(5), fetcher.hedgeDelay());
+
+        fetcher.fetch(segment, DATA_SHARDS).join();
+
+        assertTrue(fetcher.hedgeDelay().compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(4, fetcher.stats().requests());
+    }
+}
@@ -1,14 +1,29 @@
 package io.supernode.storage;
 
+import io.supernode.network.transport.Transport;
+import io.supernode.storage.erasure.ErasureCoder;
+import io.supernode.storage.erasure.ErasureCoderRegistry;
 import io.supernode.storage.isoforge.SizePreset;
+import io.supernode.storage.mux.Manifest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -149,6 +164,409 @@ class SupernodeStorageTest {
             assertEquals(2, stats.erasure().parityShards());
             assertEquals(6, stats.erasure().totalShards());
         }
+        
+        @Test
+        @DisplayName("stats should count erasure coder reuse")
+        void statsCountCoderReuse() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.withErasure(4, 2),
+                new ErasureCoderRegistry());
+            
+            storage.ingest(new byte[3 * SupernodeStorage.CHUNK_SIZE], "reuse.bin", masterKey);
+            
+            assertEquals(1, storage.stats().coderCacheMisses());
+            assertEquals(2, storage.stats().coderCacheHits(), "Later chunks should reuse the coder");
+        }
+
+        @Test
+        @DisplayName("should pick the layout per file in adaptive mode and record it")
+        void adaptiveLayout() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.builder()
+                .enableErasure(true)
+                .adaptiveErasure(true)
+                .maxDataShards(8)
+                .chunkSize(64 * 1024)
+                .build());
+            ErasureCoder.NetworkContext context = storage.getErasureNetworkContext();
+            context.setNetworkHealth(Transport.HealthState.HEALTHY);
+            context.setAverageLatency(20);
+            context.setActivePeers(20);
+            byte[] content = new byte[100_000];
+            new SecureRandom().nextBytes(content);
+
+            SupernodeStorage.IngestResult healthy = storage.ingest(content, "healthy.bin", masterKey);
+            context.setNetworkHealth(Transport.HealthState.UNHEALTHY);
+            context.setAverageLatency(600);
+            context.setPacketLossRate(0.15);
+            context.setActivePeers(6);
+            content[0]++;
+            SupernodeStorage.IngestResult degraded = storage.ingest(content, "degraded.bin", masterKey);
+
+            Manifest.ErasureConfig healthyConfig = Manifest.decrypt(storage.getManifest(healthy.fileId()).get(),
+                Manifest.deriveManifestKey(masterKey, healthy.fileId())).getErasure();
+            Manifest.ErasureConfig degradedConfig = Manifest.decrypt(storage.getManifest(degraded.fileId()).get(),
+                Manifest.deriveManifestKey(masterKey, degraded.fileId())).getErasure();
+            assertEquals(8, healthyConfig.dataShards());
+            assertEquals(2, healthyConfig.parityShards());
+            assertEquals(2, degradedConfig.dataShards());
+            assertEquals(6, degradedConfig.parityShards());
+            assertArrayEquals(content, storage.retrieve(degraded.fileId(), masterKey).data());
+        }
+
+        @Test
+        @DisplayName("should keep LRC local groups when adaptive mode resizes the layout")
+        void adaptiveLrc() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.builder()
+                .enableErasure(true)
+                .dataShards(6)
+                .parityShards(4)
+                .localGroups(2)
+                .adaptiveErasure(true)
+                .maxDataShards(8)
+                .chunkSize(64 * 1024)
+                .build());
+            ErasureCoder.NetworkContext context = storage.getErasureNetworkContext();
+            context.setNetworkHealth(Transport.HealthState.HEALTHY);
+            context.setAverageLatency(200);
+            context.setPacketLossRate(0.05);
+            context.setActivePeers(20);
+            byte[] content = new byte[100_000];
+            new SecureRandom().nextBytes(content);
+
+            SupernodeStorage.IngestResult result = storage.ingest(content, "adaptive-lrc.bin", masterKey);
+
+            Manifest.ErasureConfig config = Manifest.decrypt(storage.getManifest(result.fileId()).get(),
+                Manifest.deriveManifestKey(masterKey, result.fileId())).getErasure();
+            assertEquals(Manifest.ErasureConfig.LRC, config.scheme());
+            assertEquals(8, config.dataShards());
+            assertEquals(4, config.parityShards());
+            assertEquals(2, config.localGroupCount());
+            assertArrayEquals(content, storage.retrieve(result.fileId(), masterKey).data());
+        }
+
+        @Test
+        @DisplayName("should record the LRC scheme and decode past its local parities")
+        void lrcManifestAndDecode() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.withLrc(6, 2, 2));
+            byte[] content = new byte[50_000];
+            new SecureRandom().nextBytes(content);
+
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "lrc.bin", masterKey);
+            for (int lost : new int[]{0, 1, 6}) {
+                blobStore.delete(ingest.chunkHashes().get(lost));
+            }
+
+            assertEquals(10, ingest.chunkHashes().size());
+            Manifest.ErasureConfig config = Manifest.decrypt(storage.getManifest(ingest.fileId()).get(),
+                Manifest.deriveManifestKey(masterKey, ingest.fileId())).getErasure();
+            assertEquals(Manifest.ErasureConfig.LRC, config.scheme());
+            assertEquals(2, config.localGroups());
+            assertEquals(4, config.parityShards());
+            assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+        }
+    }
+
+    @Nested
+    @DisplayName("Striped Erasure")
+    class StripedErasureTests {
+
+        private static final int STRIPE = 16 * 1024 + 3;
+
+        private SupernodeStorage.StorageOptions stripedOptions() {
+            return SupernodeStorage.StorageOptions.builder()
+                .enableErasure(true)
+                .dataShards(4)
+                .parityShards(2)
+                .chunkSize(256 * 1024)
+                .erasureStripeSize(STRIPE)
+                .build();
+        }
+
+        @Test
+        @DisplayName("should stream-encode segments and record the stripe size")
+        void roundtripAndManifest() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, stripedOptions());
+            byte[] content = new byte[600_001];
+            new SecureRandom().nextBytes(content);
+
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "striped.bin", masterKey);
+
+            assertEquals(3 * 6, ingest.chunkHashes().size(), "Three 256 KB segments of six shards");
+            assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+
+            Manifest manifest = Manifest.decrypt(storage.getManifest(ingest.fileId()).get(),
+                Manifest.deriveManifestKey(masterKey, ingest.fileId()));
+            assertEquals(STRIPE, manifest.getErasure().stripeSize());
+        }
+
+        @Test
+        @DisplayName("should not keep a second copy when the same stream is ingested again")
+        void streamingDedupLeavesNoBlobs() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, stripedOptions());
+            byte[] content = new byte[300_000];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult first = storage.ingestStreaming(
+                new ByteArrayInputStream(content), "a.bin", masterKey, null, null);
+            long blobs = blobStore.stats().blobCount();
+
+            SupernodeStorage.IngestResult second = storage.ingestStreaming(
+                new ByteArrayInputStream(content), "b.bin", masterKey, null, null);
+
+            assertEquals(first.chunkHashes(), second.chunkHashes());
+            assertEquals(blobs, blobStore.stats().blobCount());
+            assertArrayEquals(content, storage.retrieve(second.fileId(), masterKey).data());
+        }
+
+        @Test
+        @DisplayName("should read through and repair lost shards")
+        void degradedReadAndRepair() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, stripedOptions());
+            byte[] content = new byte[300_000];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "degraded.bin", masterKey);
+            String dataHash = ingest.chunkHashes().get(1);
+            String parityHash = ingest.chunkHashes().get(4);
+            byte[] dataShard = blobStore.get(dataHash).get();
+            blobStore.delete(dataHash);
+            blobStore.delete(parityHash);
+
+            assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+
+            SupernodeStorage.RepairStatus status = storage.repairFile(ingest.fileId(), masterKey).get();
+            assertTrue(status.success(), status.message());
+            assertEquals(2, status.shardsRepaired());
+            assertArrayEquals(dataShard, blobStore.get(dataHash).get());
+            assertTrue(blobStore.has(parityHash));
+        }
+
+        @Test
+        @DisplayName("should pick decodable LRC shards when a parity covers an intact group")
+        void lrcStripes() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.builder()
+                .enableErasure(true)
+                .dataShards(6)
+                .parityShards(4)
+                .localGroups(2)
+                .chunkSize(256 * 1024)
+                .erasureStripeSize(STRIPE)
+                .build());
+            byte[] content = new byte[300_000];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "lrc-striped.bin", masterKey);
+
+            // The first six survivors would include group 0's parity, which adds nothing
+            blobStore.delete(ingest.chunkHashes().get(3));
+
+            assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+        }
+
+        @Test
+        @DisplayName("should stream shards to disk through blob writers")
+        void fileBackedStreamingIngest(@TempDir Path dir) throws Exception {
+            FileBlobStore store = new FileBlobStore(dir);
+            SupernodeStorage storage = new SupernodeStorage(store, stripedOptions());
+            byte[] content = new byte[400_000];
+            new SecureRandom().nextBytes(content);
+
+            SupernodeStorage.IngestResult ingest = storage.ingestStreaming(
+                new ByteArrayInputStream(content), "disk.bin", masterKey, null, null);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            storage.retrieveStreaming(ingest.fileId(), masterKey, out);
+            assertArrayEquals(content, out.toByteArray());
+            try (var temp = Files.list(dir.resolve(".temp"))) {
+                assertEquals(0, temp.count(), "Blob writers should leave no temp files");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Repair")
+    class RepairTests {
+
+        @Test
+        @DisplayName("should rebuild lost data and parity shards")
+        void rebuildsLostShards() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.withErasure(4, 2));
+            byte[] content = new byte[10000];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "repair.bin", masterKey);
+            String dataHash = ingest.chunkHashes().get(0);
+            String parityHash = ingest.chunkHashes().get(5);
+            blobStore.delete(dataHash);
+            blobStore.delete(parityHash);
+
+            SupernodeStorage.RepairStatus status = storage.repairFile(ingest.fileId(), masterKey).get();
+
+            assertTrue(status.success(), status.message());
+            assertEquals(2, status.shardsRepaired());
+            assertTrue(blobStore.has(dataHash));
+            assertTrue(blobStore.has(parityHash));
+            assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+        }
+
+        @Test
+        @DisplayName("should rebuild parity without reading other parity shards")
+        void parityFromDataOnly() throws Exception {
+            List<String> reads = new ArrayList<>();
+            InMemoryBlobStore counting = new InMemoryBlobStore() {
+                @Override
+                public java.util.Optional<byte[]> get(String hash) {
+                    reads.add(hash);
+                    return super.get(hash);
+                }
+            };
+            SupernodeStorage storage = new SupernodeStorage(counting, SupernodeStorage.StorageOptions.withErasure(4, 2));
+            SupernodeStorage.IngestResult ingest = storage.ingest(new byte[20000], "parity.bin", masterKey);
+            counting.delete(ingest.chunkHashes().get(4));
+            reads.clear();
+
+            SupernodeStorage.RepairStatus status = storage.repairFile(ingest.fileId(), masterKey).get();
+
+            assertTrue(status.success(), status.message());
+            assertEquals(1, status.shardsRepaired());
+            assertFalse(reads.contains(ingest.chunkHashes().get(5)), "Surviving parity should not be read");
+            assertTrue(reads.size() <= 4);
+        }
+
+        @Test
+        @DisplayName("should rebuild a lost LRC shard from its local group alone")
+        void lrcLocalRepair() throws Exception {
+            List<String> reads = new ArrayList<>();
+            InMemoryBlobStore counting = new InMemoryBlobStore() {
+                @Override
+                public java.util.Optional<byte[]> get(String hash) {
+                    reads.add(hash);
+                    return super.get(hash);
+                }
+            };
+            SupernodeStorage storage = new SupernodeStorage(counting, SupernodeStorage.StorageOptions.withLrc(6, 2, 2));
+            byte[] content = new byte[60_000];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "local.bin", masterKey);
+            List<String> hashes = ingest.chunkHashes();
+            counting.delete(hashes.get(1));
+            reads.clear();
+
+            SupernodeStorage.RepairStatus status = storage.repairFile(ingest.fileId(), masterKey).get();
+
+            assertTrue(status.success(), status.message());
+            assertEquals(1, status.shardsRepaired());
+            assertEquals(Set.of(hashes.get(0), hashes.get(2), hashes.get(6)), Set.copyOf(reads));
+            assertArrayEquals(content, storage.retrieve(ingest.fileId(), masterKey).data());
+        }
+
+        @Test
+        @DisplayName("should fall back to a global decode when a local group lost two shards")
+        void lrcGlobalRepair() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.withLrc(6, 2, 2));
+            byte[] content = new byte[60_000];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "global.bin", masterKey);
+            List<String> hashes = ingest.chunkHashes();
+            for (int lost : new int[]{3, 4, 7}) {
+                blobStore.delete(hashes.get(lost));
+            }
+
+            SupernodeStorage.RepairStatus status = storage.repairFile(ingest.fileId(), masterKey).get();
+
+            assertTrue(status.success(), status.message());
+            assertEquals(3, status.shardsRepaired());
+            for (int lost : new int[]{3, 4, 7}) {
+                assertTrue(blobStore.has(hashes.get(lost)));
+            }
+        }
+
+        @Test
+        @DisplayName("should report unrecoverable segments")
+        void unrecoverable() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.withErasure(4, 2));
+            SupernodeStorage.IngestResult ingest = storage.ingest(new byte[10000], "lost.bin", masterKey);
+            for (int i = 0; i < 3; i++) {
+                blobStore.delete(ingest.chunkHashes().get(i));
+            }
+
+            SupernodeStorage.RepairStatus status = storage.repairFile(ingest.fileId(), masterKey).get();
+
+            assertFalse(status.success());
+            assertEquals("Unrecoverable: Not enough shards", status.message());
+        }
+
+        private SupernodeStorage.StorageOptions segmentedOptions() {
+            return SupernodeStorage.StorageOptions.builder()
+                .enableErasure(true)
+                .dataShards(4)
+                .parityShards(2)
+                .chunkSize(64 * 1024)
+                .concurrency(3)
+                .build();
+        }
+
+        @Test
+        @DisplayName("should report each segment and continue past unrecoverable ones")
+        void perSegmentResults() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, segmentedOptions());
+            byte[] content = new byte[4 * 64 * 1024];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "segments.bin", masterKey);
+            List<String> hashes = ingest.chunkHashes();
+            blobStore.delete(hashes.get(0));
+            for (int i = 6; i < 9; i++) {
+                blobStore.delete(hashes.get(i));
+            }
+            blobStore.delete(hashes.get(3 * 6 + 5));
+
+            RepairEngine.RepairReport report = storage.repairSegments(ingest.fileId(), masterKey).get();
+
+            assertEquals(4, report.segments().size());
+            assertEquals(RepairEngine.SegmentOutcome.REPAIRED, report.segments().get(0).outcome());
+            assertEquals(List.of(0), report.segments().get(0).repairedIndices());
+            assertEquals(RepairEngine.SegmentOutcome.UNRECOVERABLE, report.segments().get(1).outcome());
+            assertEquals(List.of(0, 1, 2), report.segments().get(1).missingIndices());
+            assertEquals(RepairEngine.SegmentOutcome.HEALTHY, report.segments().get(2).outcome());
+            assertEquals(List.of(5), report.segments().get(3).repairedIndices());
+            assertEquals(2, report.shardsRepaired());
+            assertFalse(report.complete());
+            assertTrue(blobStore.has(hashes.get(0)));
+            assertTrue(blobStore.has(hashes.get(3 * 6 + 5)));
+        }
+
+        @Test
+        @DisplayName("should resume a repair without revisiting settled segments")
+        void resumesByOperationId() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, segmentedOptions());
+            byte[] content = new byte[2 * 64 * 1024];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "resume.bin", masterKey);
+            List<String> hashes = ingest.chunkHashes();
+            byte[] saved = blobStore.get(hashes.get(6)).orElseThrow();
+            for (int i = 6; i < 9; i++) {
+                blobStore.delete(hashes.get(i));
+            }
+
+            RepairEngine.RepairReport first = storage.repairSegments(ingest.fileId(), masterKey).get();
+            assertFalse(first.complete());
+            assertEquals(SupernodeStorage.OperationType.REPAIR,
+                storage.getOperationStatus(first.operationId()).orElseThrow().type());
+
+            // Segment 0 was settled, so damage to it now is not looked at again
+            blobStore.delete(hashes.get(1));
+            blobStore.put(hashes.get(6), saved);
+            RepairEngine.RepairReport resumed = storage.resumeRepair(first.operationId(), masterKey).get();
+
+            assertTrue(resumed.complete());
+            assertEquals(first.operationId(), resumed.operationId());
+            assertEquals(RepairEngine.SegmentOutcome.HEALTHY, resumed.segments().get(0).outcome());
+            assertEquals(List.of(1, 2), resumed.segments().get(1).repairedIndices());
+            assertFalse(blobStore.has(hashes.get(1)));
+            assertTrue(blobStore.has(hashes.get(7)));
+        }
+
+        @Test
+        @DisplayName("should reject resuming an operation that is not a repair")
+        void resumeUnknown() {
+            SupernodeStorage storage = new SupernodeStorage(blobStore, segmentedOptions());
+            assertThrows(IllegalArgumentException.class, () -> storage.resumeRepair("missing", masterKey));
+        }
     }
     
     @Nested
@@ -327,6 +745,240 @@ class SupernodeStorageTest {
         }
     }
     
+    @Nested
+    @DisplayName("Streaming Ingest")
+    class StreamingIngestTests {
+        
+        @Test
+        @DisplayName("should ingest a multi-chunk stream of unknown length")
+        void ingestUnknownLengthStream() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            byte[] content = new byte[2 * SupernodeStorage.CHUNK_SIZE + 1000];
+            new SecureRandom().nextBytes(content);
+            
+            // Short reads force the engine to assemble chunk windows itself
+            InputStream input = new ByteArrayInputStream(content) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 4096));
+                }
+            };
+            SupernodeStorage.IngestResult result = storage.ingestStreaming(input, "stream.bin", masterKey, null, null);
+            
+            assertEquals(new SupernodeStorage(new InMemoryBlobStore()).ingest(content, "x", masterKey).fileId(),
+                result.fileId(), "Streaming and buffered ingest should agree on the file ID");
+            assertEquals(3, result.chunkHashes().size());
+            assertArrayEquals(content, storage.retrieve(result.fileId(), masterKey).data());
+        }
+        
+        @Test
+        @DisplayName("should not add an empty segment for chunk-aligned streams")
+        void chunkAlignedStream() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            byte[] content = new byte[2 * SupernodeStorage.CHUNK_SIZE];
+            new SecureRandom().nextBytes(content);
+            
+            SupernodeStorage.IngestResult result = storage.ingestStreaming(
+                new ByteArrayInputStream(content), "aligned.bin", masterKey, null, null);
+            
+            assertEquals(2, result.chunkHashes().size());
+            assertArrayEquals(content, storage.retrieve(result.fileId(), masterKey).data());
+        }
+        
+        @Test
+        @DisplayName("should report progress against the expected size")
+        void reportsProgress() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            byte[] content = new byte[SupernodeStorage.CHUNK_SIZE + 10];
+            List<SupernodeStorage.Progress> updates = new ArrayList<>();
+            
+            storage.ingestStreaming(new ByteArrayInputStream(content), content.length, "p.bin", masterKey, null, updates::add);
+            
+            assertEquals(2, updates.size());
+            assertEquals(2, updates.get(1).totalChunks());
+            assertTrue(updates.get(1).isComplete());
+        }
+        
+        @Test
+        @DisplayName("should discard new chunks when the content is already stored")
+        void dedupDiscardsChunks() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            byte[] content = "Stream dedup content".getBytes(StandardCharsets.UTF_8);
+            SupernodeStorage.IngestResult first = storage.ingest(content, "a.txt", masterKey);
+            long blobs = blobStore.stats().blobCount();
+            
+            SupernodeStorage.IngestResult second = storage.ingestStreaming(
+                new ByteArrayInputStream(content), "b.txt", masterKey, null, null);
+            
+            assertEquals(first.fileId(), second.fileId());
+            assertEquals(first.chunkHashes(), second.chunkHashes());
+            assertEquals(blobs, blobStore.stats().blobCount());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Parallel Ingest")
+    class ParallelIngestTests {
+        
+        private SupernodeStorage parallelStorage() {
+            return new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.builder().concurrency(4).build());
+        }
+        
+        @Test
+        @DisplayName("should keep segments and progress in file order")
+        void keepsOrder() {
+            SupernodeStorage storage = parallelStorage();
+            byte[] content = new byte[9 * SupernodeStorage.CHUNK_SIZE + 123];
+            new SecureRandom().nextBytes(content);
+            List<SupernodeStorage.Progress> updates = new ArrayList<>();
+            
+            SupernodeStorage.IngestResult result = storage.ingest(content, "parallel.bin", masterKey, updates::add);
+            
+            assertEquals(10, result.chunkHashes().size());
+            for (int i = 0; i < updates.size(); i++) {
+                assertEquals(i + 1, updates.get(i).chunksProcessed());
+            }
+            assertTrue(updates.get(updates.size() - 1).isComplete());
+            assertArrayEquals(content, storage.retrieve(result.fileId(), masterKey).data());
+        }
+        
+        @Test
+        @DisplayName("should keep erasure-coded segments in file order")
+        void keepsErasureOrder() {
+            SupernodeStorage storage = parallelStorage();
+            byte[] content = new byte[5 * SupernodeStorage.CHUNK_SIZE + 7];
+            new SecureRandom().nextBytes(content);
+            
+            SupernodeStorage.IngestResult result = storage.ingest(content, "ec.bin", masterKey,
+                new SupernodeStorage.IngestOptions(true, 4, 2), null);
+            
+            assertEquals(6 * 6, result.chunkHashes().size());
+            assertArrayEquals(content, storage.retrieve(result.fileId(), masterKey).data());
+        }
+        
+        @Test
+        @DisplayName("should stop when the operation is cancelled")
+        void cancellation() {
+            SupernodeStorage storage = parallelStorage();
+            byte[] content = new byte[8 * SupernodeStorage.CHUNK_SIZE];
+            AtomicInteger seen = new AtomicInteger();
+            
+            assertThrows(java.util.concurrent.CancellationException.class, () ->
+                storage.ingest(content, "cancel.bin", masterKey, p -> {
+                    seen.incrementAndGet();
+                    storage.cancelOperation(p.operationId());
+                }));
+            assertTrue(seen.get() < 8, "Ingest should stop before the last chunk");
+            assertTrue(storage.listFiles().isEmpty());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Read-Ahead Retrieve")
+    class ReadAheadRetrieveTests {
+        
+        private SupernodeStorage readAheadStorage() {
+            return new SupernodeStorage(blobStore, SupernodeStorage.StorageOptions.builder()
+                .concurrency(4)
+                .readAhead(3)
+                .build());
+        }
+        
+        @Test
+        @DisplayName("should stream segments in order")
+        void streamsInOrder() throws Exception {
+            SupernodeStorage storage = readAheadStorage();
+            byte[] content = new byte[7 * SupernodeStorage.CHUNK_SIZE + 99];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult result = storage.ingest(content, "stream.bin", masterKey);
+            List<SupernodeStorage.Progress> updates = new ArrayList<>();
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            storage.retrieveStreaming(result.fileId(), masterKey, out, updates::add);
+            
+            assertArrayEquals(content, out.toByteArray());
+            assertEquals(8, updates.size());
+            for (int i = 0; i < updates.size(); i++) {
+                assertEquals(i + 1, updates.get(i).chunksProcessed());
+            }
+        }
+        
+        @Test
+        @DisplayName("should fail when a segment's blob is missing")
+        void missingSegment() {
+            SupernodeStorage storage = readAheadStorage();
+            byte[] content = new byte[4 * SupernodeStorage.CHUNK_SIZE];
+            SupernodeStorage.IngestResult result = storage.ingest(content, "gap.bin", masterKey);
+            blobStore.delete(result.chunkHashes().get(2));
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThrows(IllegalStateException.class,
+                () -> storage.retrieveStreaming(result.fileId(), masterKey, out));
+            assertEquals(2 * SupernodeStorage.CHUNK_SIZE, out.size(), "Segments before the gap are written");
+        }
+    }
+    
+    @Nested
+    @DisplayName("Range Retrieve")
+    class RangeRetrieveTests {
+        
+        private final int chunk = SupernodeStorage.CHUNK_SIZE;
+        
+        @ParameterizedTest
+        @CsvSource({
+            "0, 100",
+            "1048500, 200",      // straddles the first chunk boundary
+            "2097152, 1048576",  // exactly the third chunk
+            "10, 3145000",       // spans every chunk
+            "3145700, 1000"      // clipped at end of file
+        })
+        @DisplayName("should return exactly the requested bytes")
+        void returnsRange(long offset, long length) throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            byte[] content = new byte[3 * chunk + 500];
+            new SecureRandom().nextBytes(content);
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "range.bin", masterKey);
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SupernodeStorage.RangeResult result = storage.retrieveRange(ingest.fileId(), masterKey, offset, length, out);
+            
+            int end = (int) Math.min(content.length, offset + length);
+            assertEquals(content.length, result.fileSize());
+            assertEquals(end - offset, result.length());
+            assertArrayEquals(Arrays.copyOfRange(content, (int) offset, end), out.toByteArray());
+        }
+        
+        @Test
+        @DisplayName("should only fetch overlapping chunks")
+        void fetchesOnlyOverlappingChunks() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            byte[] content = new byte[4 * chunk];
+            SupernodeStorage.IngestResult ingest = storage.ingest(content, "sparse.bin", masterKey);
+            
+            // Chunks outside the range are gone; reading inside it must still work
+            blobStore.delete(ingest.chunkHashes().get(0));
+            blobStore.delete(ingest.chunkHashes().get(3));
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            storage.retrieveRange(ingest.fileId(), masterKey, chunk + 10, chunk, out);
+            
+            assertEquals(chunk, out.size());
+        }
+        
+        @Test
+        @DisplayName("should return an empty range past the end of file")
+        void pastEnd() throws Exception {
+            SupernodeStorage storage = new SupernodeStorage(blobStore);
+            SupernodeStorage.IngestResult ingest = storage.ingest(new byte[10], "small.bin", masterKey);
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SupernodeStorage.RangeResult result = storage.retrieveRange(ingest.fileId(), masterKey, 10, 5, out);
+            
+            assertEquals(0, result.length());
+            assertEquals(0, out.size());
+        }
+    }
+    
     @Nested
     @DisplayName("Determinism")
     class DeterminismTests {
@@ -239,6 +239,43 @@ class ErasureCoderAdvancedTest {
             assertArrayEquals(original, decoded, "Streaming decode should match");
         }
 
+        @ParameterizedTest
+        @CsvSource({
+            "10000, 1000",
+            "10001, 999",
+            "999, 4096",
+            "65536, 4096"
+        })
+        @DisplayName("should decode multi-window streams with a lost data shard")
+        void shouldRoundTripWindows(int size, int window) throws IOException {
+            byte[] original = new byte[size];
+            new SecureRandom().nextBytes(original);
+
+            ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[6];
+            for (int i = 0; i < 6; i++) {
+                outputs[i] = new ByteArrayOutputStream();
+            }
+            // One byte per read: windows must still be filled completely
+            InputStream trickle = new ByteArrayInputStream(original) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 1));
+                }
+            };
+            coder.encodeStream(trickle, size, Arrays.stream(outputs).toArray(OutputStream[]::new), window, 0);
+
+            InputStream[] inputs = {
+                new ByteArrayInputStream(outputs[5].toByteArray()),
+                new ByteArrayInputStream(outputs[0].toByteArray()),
+                new ByteArrayInputStream(outputs[3].toByteArray()),
+                new ByteArrayInputStream(outputs[2].toByteArray())
+            };
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            coder.decodeStream(inputs, new int[]{5, 0, 3, 2}, size, outputs[0].size(), decoded, window, 0);
+
+            assertArrayEquals(original, decoded.toByteArray());
+        }
+
         @Test
         @DisplayName("should handle chunk overlap correctly")
         void shouldHandleChunkOverlap() throws IOException {
@@ -357,7 +394,7 @@ class ErasureCoderAdvancedTest {
 
             ErasureCoder.EncodeResult encoded = coder.encode(data);
 
-            Map<Integer, byte[]> checksums = coder.getAllChecksums();
+            Map<Integer, byte[]> checksums = encoded.checksums();
 
             assertEquals(6, checksums.size());
             for (int i = 0; i < 6; i++) {
@@ -375,7 +412,7 @@ class ErasureCoderAdvancedTest {
             ErasureCoder.EncodeResult encoded = coder.encode(data);
 
             byte[] shard0 = encoded.shards()[0];
-            byte[] expectedChecksum = coder.getChecksum(0);
+            byte[] expectedChecksum = encoded.checksum(0);
 
             assertTrue(coder.verifyChecksum(0, expectedChecksum, shard0), 
                     "Checksum verification should succeed");
@@ -393,7 +430,7 @@ class ErasureCoderAdvancedTest {
             byte[] corrupted = shard0.clone();
             corrupted[0] = (byte) (corrupted[0] ^ 0xFF);
 
-            byte[] expectedChecksum = coder.getChecksum(0);
+            byte[] expectedChecksum = encoded.checksum(0);
 
             assertFalse(coder.verifyChecksum(0, expectedChecksum, corrupted),
                     "Checksum verification should fail for corrupted shard");
@@ -585,6 +622,56 @@ class ErasureCoderAdvancedTest {
             assertTrue(optimal >= 3, "Should increase parity on high packet loss");
         }
 
+        @Test
+        @DisplayName("should keep the configured layout without network information")
+        void adaptiveLayoutWithoutContext() {
+            ErasureCoder coderWithCtx = new ErasureCoder(4, 3, new ErasureCoder.NetworkContext());
+
+            assertEquals(new ErasureCoder.ShardLayout(4, 3), coderWithCtx.selectAdaptiveLayout(16));
+        }
+
+        @Test
+        @DisplayName("should keep the configured layout until latency or loss is sampled")
+        void adaptiveLayoutWithoutSamples() {
+            ErasureCoder.NetworkContext context = new ErasureCoder.NetworkContext();
+            context.setNetworkHealth(Transport.HealthState.HEALTHY);
+            context.setActivePeers(12);
+            ErasureCoder coderWithCtx = new ErasureCoder(4, 3, context);
+
+            assertEquals(new ErasureCoder.ShardLayout(4, 3), coderWithCtx.selectAdaptiveLayout(16));
+            assertEquals(3, coderWithCtx.selectOptimalShardCount());
+        }
+
+        @Test
+        @DisplayName("should widen data shards on a healthy, populated network")
+        void adaptiveLayoutHealthy() {
+            ErasureCoder.NetworkContext context = new ErasureCoder.NetworkContext();
+            context.setNetworkHealth(Transport.HealthState.HEALTHY);
+            context.setAverageLatency(50);
+            context.setActivePeers(12);
+
+            ErasureCoder.ShardLayout layout = new ErasureCoder(4, 2, context).selectAdaptiveLayout(16);
+
+            assertEquals(new ErasureCoder.ShardLayout(10, 2), layout);
+            context.setActivePeers(40);
+            assertEquals(16, new ErasureCoder(4, 2, context).selectAdaptiveLayout(16).dataShards());
+        }
+
+        @Test
+        @DisplayName("should spend more parity on a degraded network")
+        void adaptiveLayoutUnhealthy() {
+            ErasureCoder.NetworkContext context = new ErasureCoder.NetworkContext();
+            context.setNetworkHealth(Transport.HealthState.UNHEALTHY);
+            context.setAverageLatency(600);
+            context.setPacketLossRate(0.15);
+            context.setActivePeers(8);
+
+            ErasureCoder.ShardLayout layout = new ErasureCoder(4, 2, context).selectAdaptiveLayout(16);
+
+            assertEquals(6, layout.parityShards());
+            assertEquals(2, layout.dataShards());
+        }
+
         @Test
         @DisplayName("should select optimal peers based on metrics")
         void shouldSelectOptimalPeers() {
@@ -0,0 +1,78 @@
+package io.supernode.storage.erasure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ErasureCoderRegistry")
+class ErasureCoderRegistryTest {
+
+    @Test
+    @DisplayName("should return one coder per layout")
+    void oneCoderPerLayout() {
+        ErasureCoderRegistry registry = new ErasureCoderRegistry();
+
+        ErasureCoder a = registry.get(4, 2);
+        ErasureCoder b = registry.get(4, 2);
+        ErasureCoder c = registry.get(10, 4);
+
+        assertSame(a, b);
+        assertNotSame(a, c);
+        assertEquals(10, c.getDataShards());
+        assertEquals(4, c.getParityShards());
+        assertEquals(new ErasureCoderRegistry.RegistryStats(2, 1, 2), registry.stats());
+    }
+
+    @Test
+    @DisplayName("should cache LRC layouts apart from Reed-Solomon ones")
+    void lrcLayouts() {
+        ErasureCoderRegistry registry = new ErasureCoderRegistry();
+
+        ErasureCoder rs = registry.get(6, 4);
+        ErasureCoder lrc = registry.get(6, 4, 2);
+
+        assertNotSame(rs, lrc);
+        assertSame(lrc, registry.get(6, 4, 2));
+        LrcCoder typed = assertInstanceOf(LrcCoder.class, lrc);
+        assertEquals(2, typed.getLocalGroups());
+        assertEquals(2, typed.getGlobalParities());
+        assertFalse(rs instanceof LrcCoder);
+    }
+
+    @Test
+    @DisplayName("should construct each layout once under contention")
+    void concurrentLookups() {
+        ErasureCoderRegistry registry = new ErasureCoderRegistry();
+        Set<ErasureCoder> seen = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 1000).parallel().forEach(i -> seen.add(registry.get(6, 3)));
+
+        assertEquals(1, seen.size());
+        assertEquals(1, registry.stats().misses());
+        assertEquals(999, registry.stats().hits());
+    }
+
+    @Test
+    @DisplayName("should share a coder between concurrent encodes")
+    void concurrentEncodes() {
+        ErasureCoder coder = new ErasureCoderRegistry().get(4, 2);
+
+        IntStream.range(0, 32).parallel().forEach(i -> {
+            byte[] data = new byte[8192 + i];
+            new SecureRandom().nextBytes(data);
+            ErasureCoder.EncodeResult encoded = coder.encode(data);
+
+            byte[][] shards = encoded.shards();
+            shards[0] = null;
+            shards[3] = null;
+            byte[] decoded = coder.decode(shards, new int[]{1, 2, 4, 5}, data.length, encoded.shardSize());
+            assertArrayEquals(data, decoded);
+        });
+    }
+}
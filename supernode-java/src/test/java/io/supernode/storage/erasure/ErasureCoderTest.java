@@ -1,5 +1,6 @@
 package io.supernode.storage.erasure;
 
+import io.supernode.storage.BufferPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Random;
@@ -261,6 +263,141 @@ class ErasureCoderTest {
         }
     }
     
+    @Nested
+    @DisplayName("Decode Fast Paths")
+    class DecodeFastPathTests {
+
+        @Test
+        @DisplayName("should concatenate intact data shards without matrix work")
+        void directWhenDataShardsPresent() {
+            byte[] original = new byte[10001];
+            new SecureRandom().nextBytes(original);
+            ErasureCoder.EncodeResult encoded = coder.encode(original);
+
+            byte[] recovered = coder.decode(encoded.shards(), new int[]{5, 3, 0, 2, 1},
+                encoded.originalSize(), encoded.shardSize());
+
+            assertArrayEquals(original, recovered);
+            assertEquals(1, coder.getDirectDecodeCount());
+            assertEquals(0, coder.getDecodeCacheStats().misses());
+        }
+
+        @Test
+        @DisplayName("should invert once per erasure pattern")
+        void cachesInversePerPattern() {
+            for (int segment = 0; segment < 5; segment++) {
+                byte[] original = new byte[4096 + segment];
+                new Random(segment).nextBytes(original);
+                ErasureCoder.EncodeResult encoded = coder.encode(original);
+
+                byte[][] present = encoded.shards().clone();
+                present[1] = null;
+                int[] indices = segment % 2 == 0 ? new int[]{0, 2, 3, 4} : new int[]{4, 3, 2, 0};
+
+                assertArrayEquals(original, coder.decode(present, indices,
+                    encoded.originalSize(), encoded.shardSize()));
+            }
+
+            ErasureCoder.DecodeCacheStats stats = coder.getDecodeCacheStats();
+            assertEquals(1, stats.patterns());
+            assertEquals(1, stats.misses());
+            assertEquals(4, stats.hits());
+        }
+
+        @Test
+        @DisplayName("should bound the number of cached patterns")
+        void boundsCache() {
+            ErasureCoder wide = new ErasureCoder(4, 8);
+            byte[] original = new byte[512];
+            new SecureRandom().nextBytes(original);
+            ErasureCoder.EncodeResult encoded = wide.encode(original);
+
+            // Every 4-of-8 parity selection is a distinct pattern: C(8,4) = 70
+            int decodes = 0;
+            for (int mask = 0; mask < 256; mask++) {
+                if (Integer.bitCount(mask) != 4) continue;
+                int[] indices = new int[4];
+                for (int bit = 0, n = 0; bit < 8; bit++) {
+                    if ((mask & (1 << bit)) != 0) indices[n++] = 4 + bit;
+                }
+                assertArrayEquals(original, wide.decode(encoded.shards(), indices,
+                    encoded.originalSize(), encoded.shardSize()));
+                decodes++;
+            }
+
+            assertEquals(70, decodes);
+            assertEquals(ErasureCoder.DECODE_CACHE_SIZE, wide.getDecodeCacheStats().patterns());
+        }
+
+        @Test
+        @DisplayName("should reject duplicate indices that leave too few shards")
+        void rejectsDuplicates() {
+            ErasureCoder.EncodeResult encoded = coder.encode(new byte[100]);
+
+            assertThrows(IllegalArgumentException.class, () -> coder.decode(
+                encoded.shards(), new int[]{0, 0, 1, 2}, encoded.originalSize(), encoded.shardSize()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Delta Parity")
+    class DeltaParityTests {
+
+        @Test
+        @DisplayName("should match a full re-encode after one data shard changes")
+        void matchesReencode() {
+            byte[] original = new byte[40000];
+            new SecureRandom().nextBytes(original);
+            ErasureCoder.EncodeResult before = coder.encode(original);
+            int size = before.shardSize();
+
+            byte[] changed = original.clone();
+            for (int i = 2 * size; i < 2 * size + 500; i++) {
+                changed[i] ^= (byte) 0xA5;
+            }
+            ErasureCoder.EncodeResult after = coder.encode(changed);
+
+            byte[][] shards = before.shards();
+            coder.updateParity(2, shards[2], after.shards()[2], shards);
+
+            for (int p = DATA_SHARDS; p < DATA_SHARDS + PARITY_SHARDS; p++) {
+                assertArrayEquals(after.shards()[p], shards[p], "parity " + p);
+            }
+        }
+
+        @Test
+        @DisplayName("should build parity by folding in data shards from zero")
+        void accumulatesFromZero() {
+            byte[] original = new byte[9999];
+            new SecureRandom().nextBytes(original);
+            ErasureCoder.EncodeResult encoded = coder.encode(original);
+            int size = encoded.shardSize();
+
+            byte[][] parity = new byte[DATA_SHARDS + PARITY_SHARDS][];
+            parity[DATA_SHARDS + 1] = new byte[size];
+            for (int i = DATA_SHARDS - 1; i >= 0; i--) {
+                coder.updateParity(i, null, encoded.shards()[i], parity);
+            }
+
+            assertNull(parity[DATA_SHARDS]);
+            assertArrayEquals(encoded.shards()[DATA_SHARDS + 1], parity[DATA_SHARDS + 1]);
+        }
+
+        @Test
+        @DisplayName("should reject parity indices and mismatched sizes")
+        void rejectsBadArguments() {
+            byte[][] shards = new byte[DATA_SHARDS + PARITY_SHARDS][];
+            shards[DATA_SHARDS] = new byte[8];
+
+            assertThrows(IllegalArgumentException.class,
+                () -> coder.updateParity(DATA_SHARDS, null, new byte[8], shards));
+            assertThrows(IllegalArgumentException.class,
+                () -> coder.updateParity(0, new byte[4], new byte[8], shards));
+            assertThrows(IllegalArgumentException.class,
+                () -> coder.updateParity(0, null, new byte[16], shards));
+        }
+    }
+
     @Nested
     @DisplayName("Various Data Sizes")
     class DataSizeTests {
@@ -299,6 +436,84 @@ class ErasureCoderTest {
         }
     }
     
+    @Nested
+    @DisplayName("Slice Encoding")
+    class SliceEncodingTests {
+
+        @ParameterizedTest
+        @CsvSource({
+            "0, 1",
+            "0, 4096",
+            "7, 65537",
+            "13, 200001",
+            "0, 262144"
+        })
+        @DisplayName("should match encode() for a slice of a larger buffer")
+        void matchesEncode(int offset, int length) {
+            byte[] buffer = new byte[offset + length + 11];
+            new Random(length).nextBytes(buffer);
+            byte[] slice = Arrays.copyOfRange(buffer, offset, offset + length);
+
+            ErasureCoder.EncodeResult expected = coder.encode(slice);
+            BufferPool pool = new BufferPool(expected.shardSize() + 5, 8);
+
+            try (ErasureCoder.EncodedStripe stripe = coder.encodeSlices(buffer, offset, length, pool)) {
+                assertEquals(expected.shardSize(), stripe.shardSize());
+                assertEquals(DATA_SHARDS + PARITY_SHARDS, stripe.shardCount());
+                for (int i = 0; i < stripe.shardCount(); i++) {
+                    ByteBuffer shard = stripe.shard(i);
+                    byte[] bytes = new byte[shard.remaining()];
+                    shard.get(bytes);
+                    assertArrayEquals(expected.shards()[i], bytes, "shard " + i);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("should recover data from parity written into reused pool buffers")
+        void recoversFromPooledParity() {
+            BufferPool pool = new BufferPool(64 * 1024, 8);
+            byte[] dirty = new byte[10000];
+            Arrays.fill(dirty, (byte) 0x5A);
+            coder.encodeSlices(dirty, 0, dirty.length, pool).close();
+
+            byte[] original = new byte[10001];
+            new SecureRandom().nextBytes(original);
+
+            byte[][] shards = new byte[DATA_SHARDS + PARITY_SHARDS][];
+            int shardSize;
+            try (ErasureCoder.EncodedStripe stripe = coder.encodeSlices(original, 0, original.length, pool)) {
+                shardSize = stripe.shardSize();
+                for (int i = 0; i < stripe.shardCount(); i++) {
+                    ByteBuffer shard = stripe.shard(i);
+                    shards[i] = new byte[shard.remaining()];
+                    shard.get(shards[i]);
+                }
+            }
+            assertTrue(pool.stats().reused() > 0);
+
+            int[] indices = {1, 3, 4, 5};
+            byte[][] present = new byte[shards.length][];
+            for (int idx : indices) {
+                present[idx] = shards[idx];
+            }
+
+            assertArrayEquals(original, coder.decode(present, indices, original.length, shardSize));
+        }
+
+        @Test
+        @DisplayName("should return full data shards as views of the input")
+        void dataShardsAreViews() {
+            byte[] data = new byte[4096];
+            new SecureRandom().nextBytes(data);
+
+            try (ErasureCoder.EncodedStripe stripe = coder.encodeSlices(data, 0, data.length, null)) {
+                data[0] ^= 1;
+                assertEquals(data[0], stripe.shard(0).get(0));
+            }
+        }
+    }
+
     @Nested
     @DisplayName("Configuration")
     class ConfigurationTests {
@@ -0,0 +1,99 @@
+package io.supernode.storage.erasure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GfKernel")
+class GfKernelTest {
+
+    static Stream<Arguments> kernels() {
+        Stream.Builder<Arguments> kernels = Stream.builder();
+        kernels.add(Arguments.of(GfKernel.table()));
+        if (GfKernel.vector() != null) {
+            kernels.add(Arguments.of(GfKernel.vector()));
+        }
+        return kernels.build();
+    }
+
+    @Nested
+    @DisplayName("Field Arithmetic")
+    class FieldTests {
+
+        @Test
+        @DisplayName("product table should agree with multiplicative inverses")
+        void inverses() {
+            for (int a = 1; a < 256; a++) {
+                assertEquals(1, GaloisField.mul(a, GaloisField.inv(a)), "a=" + a);
+                assertEquals(a, GaloisField.div(GaloisField.mul(a, 0x53), 0x53), "a=" + a);
+            }
+        }
+
+        @Test
+        @DisplayName("pow should match repeated multiplication")
+        void powMatchesRepeatedMul() {
+            for (int base = 0; base < 256; base += 17) {
+                int expected = 1;
+                for (int e = 0; e < 20; e++) {
+                    assertEquals(expected, GaloisField.pow(base, e), base + "^" + e);
+                    expected = GaloisField.mul(expected, base);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    @DisplayName("mul and mulAdd should match scalar field arithmetic")
+    void matchesScalar(GfKernel kernel) {
+        Random random = new Random(7);
+        for (int c = 0; c < 256; c++) {
+            int length = random.nextInt(300);
+            int srcOffset = random.nextInt(16);
+            int dstOffset = random.nextInt(16);
+            byte[] src = new byte[srcOffset + length];
+            byte[] dst = new byte[dstOffset + length + 8];
+            random.nextBytes(src);
+            random.nextBytes(dst);
+            byte[] original = dst.clone();
+
+            kernel.mulAdd(c, src, srcOffset, dst, dstOffset, length);
+            for (int i = 0; i < dst.length; i++) {
+                int expected = original[i] & 0xFF;
+                if (i >= dstOffset && i < dstOffset + length) {
+                    expected ^= GaloisField.mul(c, src[srcOffset + i - dstOffset] & 0xFF);
+                }
+                assertEquals(expected, dst[i] & 0xFF, kernel.name() + " mulAdd c=" + c + " i=" + i);
+            }
+
+            kernel.mul(c, src, srcOffset, dst, dstOffset, length);
+            for (int i = 0; i < length; i++) {
+                assertEquals(GaloisField.mul(c, src[srcOffset + i] & 0xFF), dst[dstOffset + i] & 0xFF,
+                    kernel.name() + " mul c=" + c + " i=" + i);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    @DisplayName("coders should produce identical shards with every kernel")
+    void identicalShards(GfKernel kernel) {
+        byte[] data = new byte[100_003];
+        new Random(11).nextBytes(data);
+
+        ErasureCoder.EncodeResult reference = new ErasureCoder(10, 4, null, GfKernel.table()).encode(data);
+        ErasureCoder.EncodeResult encoded = new ErasureCoder(10, 4, null, kernel).encode(data);
+
+        for (int i = 0; i < 14; i++) {
+            assertArrayEquals(reference.shards()[i], encoded.shards()[i], "shard " + i);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.supernode.storage.erasure;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LrcCoder")
+class LrcCoderTest {
+
+    private static final int DATA_SHARDS = 6;
+    private static final int LOCAL_GROUPS = 2;
+    private static final int GLOBAL_PARITIES = 2;
+    private static final int TOTAL_SHARDS = DATA_SHARDS + LOCAL_GROUPS + GLOBAL_PARITIES;
+
+    private LrcCoder coder;
+    private byte[] data;
+    private ErasureCoder.EncodeResult encoded;
+
+    @BeforeEach
+    void setUp() {
+        coder = new LrcCoder(DATA_SHARDS, LOCAL_GROUPS, GLOBAL_PARITIES);
+        data = new byte[6000];
+        new SecureRandom().nextBytes(data);
+        encoded = coder.encode(data);
+    }
+
+    private byte[][] without(int... lost) {
+        byte[][] shards = encoded.shards().clone();
+        for (int index : lost) {
+            shards[index] = null;
+        }
+        return shards;
+    }
+
+    private static int[] presentExcept(int... lost) {
+        return IntStream.range(0, TOTAL_SHARDS)
+            .filter(i -> IntStream.of(lost).noneMatch(l -> l == i))
+            .toArray();
+    }
+
+    @Test
+    @DisplayName("should lay out data, local parities, then global parities")
+    void layout() {
+        assertEquals(TOTAL_SHARDS, encoded.shards().length);
+        assertEquals(LOCAL_GROUPS + GLOBAL_PARITIES, coder.getParityShards());
+        assertEquals(0, coder.groupOf(2));
+        assertEquals(1, coder.groupOf(3));
+        assertEquals(1, coder.groupOf(7));
+        assertEquals(-1, coder.groupOf(8));
+        assertArrayEquals(new int[]{0, 2, 6}, coder.localRepairSources(1));
+        assertArrayEquals(new int[]{3, 4, 5}, coder.localRepairSources(7));
+        assertNull(coder.localRepairSources(9));
+    }
+
+    @Test
+    @DisplayName("should rebuild any single data or local parity shard from its group")
+    void localRepair() {
+        for (int lost = 0; lost < DATA_SHARDS + LOCAL_GROUPS; lost++) {
+            byte[][] shards = new byte[TOTAL_SHARDS][];
+            for (int source : coder.localRepairSources(lost)) {
+                shards[source] = encoded.shards()[source];
+            }
+
+            coder.repairLocal(lost, shards, encoded.shardSize());
+
+            assertArrayEquals(encoded.shards()[lost], shards[lost], "shard " + lost);
+        }
+    }
+
+    @Test
+    @DisplayName("should decode every pattern of global + 1 lost shards")
+    void decodesGlobalPlusOneLosses() {
+        for (int a = 0; a < TOTAL_SHARDS; a++) {
+            for (int b = a + 1; b < TOTAL_SHARDS; b++) {
+                for (int c = b + 1; c < TOTAL_SHARDS; c++) {
+                    int[] present = presentExcept(a, b, c);
+                    assertTrue(coder.canDecode(present), a + "," + b + "," + c);
+                    assertArrayEquals(data, coder.decode(without(a, b, c), present, data.length, encoded.shardSize()));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should pick independent shards rather than the first dataShards")
+    void selectsByRank() {
+        // Parity 7 adds nothing to the intact group 1, so global 8 stands in for the lost shard
+        int[] present = {1, 2, 3, 4, 5, 7, 8};
+
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 8}, coder.selectShards(present));
+        assertFalse(coder.canDecode(new int[]{1, 2, 3, 4, 5, 7}));
+        assertThrows(IllegalArgumentException.class, () -> coder.selectShards(new int[]{1, 2, 3, 4, 5, 7}));
+        assertArrayEquals(data, coder.decode(without(0, 6, 9), present, data.length, encoded.shardSize()));
+    }
+
+    @Test
+    @DisplayName("should rebuild parity from data with updateParity")
+    void updateParityMatchesEncode() {
+        byte[][] parity = new byte[TOTAL_SHARDS][];
+        for (int p = DATA_SHARDS; p < TOTAL_SHARDS; p++) {
+            parity[p] = new byte[encoded.shardSize()];
+        }
+        for (int i = 0; i < DATA_SHARDS; i++) {
+            coder.updateParity(i, null, encoded.shards()[i], parity);
+        }
+
+        for (int p = DATA_SHARDS; p < TOTAL_SHARDS; p++) {
+            assertArrayEquals(encoded.shards()[p], parity[p], "parity " + p);
+        }
+    }
+
+    @Test
+    @DisplayName("should stream-decode from a rank-selected subset")
+    void streamDecode() throws Exception {
+        int window = 1200;
+        ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[TOTAL_SHARDS];
+        for (int i = 0; i < TOTAL_SHARDS; i++) {
+            outputs[i] = new ByteArrayOutputStream();
+        }
+        coder.encodeStream(new ByteArrayInputStream(data), data.length, (OutputStream[]) outputs, window, 0);
+
+        List<InputStream> inputs = new ArrayList<>();
+        int[] present = presentExcept(0, 1, 8);
+        for (int index : present) {
+            inputs.add(new ByteArrayInputStream(outputs[index].toByteArray()));
+        }
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        coder.decodeStream(inputs.toArray(InputStream[]::new), present, data.length,
+            outputs[0].size(), decoded, window, 0);
+
+        assertArrayEquals(data, decoded.toByteArray());
+    }
+
+    @Test
+    @DisplayName("should reject layouts without a global parity")
+    void rejectsBadLayouts() {
+        assertThrows(IllegalArgumentException.class, () -> new LrcCoder(6, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new LrcCoder(6, 7, 2));
+        assertThrows(IllegalArgumentException.class, () -> new LrcCoder(6, 2, 0));
+    }
+}
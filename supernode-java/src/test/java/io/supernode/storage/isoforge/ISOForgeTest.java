@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -237,6 +238,99 @@ class ISOForgeTest {
             assertFalse(Arrays.equals(sector0, sector1), 
                 "Different sectors should have different content");
         }
+        
+        @Test
+        @DisplayName("content sectors should be slices of the content keystream")
+        void contentSectorsMatchKeystream() {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            ISOForge forge = new ISOForge();
+            byte[] stream = new SeededRNG(seed).derive("content").bytes(40 * SECTOR_SIZE);
+            
+            for (int sector : new int[] {19, 20, 50, 51}) {
+                int offset = (sector - 19) * SECTOR_SIZE;
+                assertArrayEquals(Arrays.copyOfRange(stream, offset, offset + SECTOR_SIZE),
+                    forge.generateSector(seed, sector, SizePreset.NANO.getBytes()),
+                    "Sector " + sector + " should match content stream");
+            }
+        }
+        
+        @Test
+        @DisplayName("should generate the last sector of the largest preset")
+        void generateLastSectorOfLargestPreset() {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            ISOForge forge = new ISOForge();
+            long size = SizePreset.FULL.getBytes();
+            int lastSector = (int) (size / SECTOR_SIZE) - 1;
+            
+            byte[] expected = new SeededRNG(seed).derive("content")
+                .bytesAt((long) (lastSector - 19) * SECTOR_SIZE, SECTOR_SIZE);
+            assertArrayEquals(expected, forge.generateSector(seed, lastSector, size));
+        }
+        
+        @Test
+        @DisplayName("seeked sectors should match the sequential content stream")
+        void seekedSectorsMatchSequentialStream() {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            ISOForge forge = new ISOForge();
+            int totalSectors = 4096;
+            long size = (long) totalSectors * SECTOR_SIZE;
+            byte[] stream = new SeededRNG(seed).derive("content").bytes((totalSectors - 19) * SECTOR_SIZE);
+            
+            for (int sector : new int[] {2047, totalSectors - 1}) {
+                int offset = (sector - 19) * SECTOR_SIZE;
+                assertArrayEquals(Arrays.copyOfRange(stream, offset, offset + SECTOR_SIZE),
+                    forge.generateSector(seed, sector, size), "Sector " + sector + " should match content stream");
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Sector Ranges")
+    class SectorRangeTests {
+        
+        @ParameterizedTest
+        @ValueSource(booleans = {false, true})
+        @DisplayName("range should match individually generated sectors")
+        void rangeMatchesIndividualSectors(boolean bootable) {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            ISOForge forge = new ISOForge(bootable);
+            long size = SizePreset.NANO.getBytes();
+            
+            // Covers system area, descriptors, boot image and the start of content
+            int[][] ranges = {{0, 40}, {10, 8}, {19, 1}, {30, 64}, {4000, 33}};
+            for (int[] range : ranges) {
+                byte[] dest = new byte[range[1] * SECTOR_SIZE];
+                forge.generateSectorRange(seed, range[0], range[1], size, dest);
+                
+                for (int i = 0; i < range[1]; i++) {
+                    byte[] expected = forge.generateSector(seed, range[0] + i, size);
+                    assertArrayEquals(expected, Arrays.copyOfRange(dest, i * SECTOR_SIZE, (i + 1) * SECTOR_SIZE),
+                        "Sector " + (range[0] + i) + " should match");
+                }
+            }
+        }
+        
+        @Test
+        @DisplayName("should reject ranges past the end of the ISO")
+        void rejectOutOfRange() {
+            byte[] seed = new byte[32];
+            ISOForge forge = new ISOForge();
+            long size = SizePreset.NANO.getBytes();
+            int totalSectors = (int) (size / SECTOR_SIZE);
+            
+            assertThrows(IllegalArgumentException.class,
+                () -> forge.generateSectorRange(seed, totalSectors - 1, 2, size, new byte[2 * SECTOR_SIZE]));
+            assertThrows(IllegalArgumentException.class,
+                () -> forge.generateSectorRange(seed, 20, 2, size, new byte[SECTOR_SIZE]));
+        }
     }
     
     @Nested
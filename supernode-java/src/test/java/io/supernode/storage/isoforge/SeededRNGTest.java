@@ -158,6 +158,71 @@ class SeededRNGTest {
         }
     }
     
+    @Nested
+    @DisplayName("Random Access")
+    class RandomAccessTests {
+        
+        @Test
+        @DisplayName("bytesAt should match the sequential stream at any offset")
+        void bytesAtMatchesSequentialStream() {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            byte[] stream = new SeededRNG(seed).bytes(3 * 65536);
+            SeededRNG rng = new SeededRNG(seed);
+            
+            // Block-aligned, unaligned and buffer-boundary-crossing windows
+            int[][] windows = {{0, 2048}, {2048, 2048}, {17, 100}, {65530, 20}, {65536 - 1024, 4096}, {100000, 65536 + 7}};
+            for (int[] w : windows) {
+                byte[] expected = Arrays.copyOfRange(stream, w[0], w[0] + w[1]);
+                assertArrayEquals(expected, rng.bytesAt(w[0], w[1]),
+                    "Window at " + w[0] + " should match sequential output");
+            }
+        }
+        
+        @Test
+        @DisplayName("seek should resume the sequential stream at the given position")
+        void seekResumesStream() {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            byte[] stream = new SeededRNG(seed).bytes(2 * 65536);
+            SeededRNG rng = new SeededRNG(seed);
+            rng.bytes(10);
+            
+            rng.seek(70001);
+            assertArrayEquals(Arrays.copyOfRange(stream, 70001, 70101), rng.bytes(100));
+            assertArrayEquals(Arrays.copyOfRange(stream, 70101, 70201), rng.bytes(100));
+            
+            rng.seek(0);
+            assertArrayEquals(Arrays.copyOfRange(stream, 0, 64), rng.bytes(64));
+        }
+        
+        @Test
+        @DisplayName("bytesAt should not disturb sequential state")
+        void bytesAtIsStateless() {
+            byte[] seed = new byte[32];
+            Arrays.fill(seed, (byte) 0x42);
+            
+            SeededRNG rng1 = new SeededRNG(seed);
+            SeededRNG rng2 = new SeededRNG(seed);
+            
+            rng1.bytes(50);
+            rng1.bytesAt(1L << 32, 2048);
+            rng2.bytes(50);
+            
+            assertArrayEquals(rng2.bytes(100), rng1.bytes(100));
+        }
+        
+        @Test
+        @DisplayName("should reject negative positions")
+        void rejectNegativePosition() {
+            SeededRNG rng = new SeededRNG(new byte[32]);
+            assertThrows(IllegalArgumentException.class, () -> rng.bytesAt(-1, 16));
+            assertThrows(IllegalArgumentException.class, () -> rng.seek(-1));
+        }
+    }
+    
     @Nested
     @DisplayName("Edge Cases")
     class EdgeCaseTests {
@@ -6,7 +6,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -16,6 +19,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class MuxEngineTest {
     
     private static final int SECTOR_SIZE = 2048;
+    private static final int CHUNK_BYTES = 1024 * 1024;
     private MuxEngine muxEngine;
     private byte[] testKey;
     private byte[] testSeed;
@@ -126,6 +130,88 @@ class MuxEngineTest {
         }
     }
     
+    @Nested
+    @DisplayName("ByteBuffer Mux/Demux")
+    class ByteBufferTests {
+        
+        @Test
+        @DisplayName("buffer mux should match array mux byte for byte")
+        void bufferMuxMatchesArrayMux() {
+            byte[] original = new byte[CHUNK_BYTES];
+            new SecureRandom().nextBytes(original);
+            
+            MuxEngine.MuxResult expected = muxEngine.mux(original, testKey, testSeed, 3);
+            
+            ByteBuffer dst = ByteBuffer.allocate(MuxEngine.muxedCapacity(original.length) + 10);
+            dst.position(10);
+            MuxEngine.MuxSpan span = muxEngine.mux(ByteBuffer.wrap(original), dst, testKey, testSeed, 3);
+            
+            assertEquals(expected.sectorCount(), span.sectorCount());
+            assertEquals(expected.encryptedSize(), span.encryptedSize());
+            assertEquals(10 + span.muxedSize(), dst.position());
+            assertArrayEquals(expected.muxedData(), Arrays.copyOfRange(dst.array(), 10, 10 + span.muxedSize()));
+        }
+        
+        @Test
+        @DisplayName("should roundtrip through direct buffers without touching the source")
+        void roundtripDirectBuffers() {
+            byte[] original = new byte[70_001];
+            new SecureRandom().nextBytes(original);
+            
+            ByteBuffer muxed = ByteBuffer.allocateDirect(MuxEngine.muxedCapacity(original.length));
+            MuxEngine.MuxSpan span = muxEngine.mux(ByteBuffer.wrap(original), muxed, testKey, testSeed, 0);
+            muxed.flip();
+            ByteBuffer snapshot = ByteBuffer.allocate(muxed.remaining()).put(muxed.duplicate()).flip();
+            
+            ByteBuffer plain = ByteBuffer.allocateDirect(span.muxedSize());
+            int length = muxEngine.demux(muxed, plain, testKey, testSeed, span.sectorStart(), span.encryptedSize());
+            
+            assertEquals(original.length, length);
+            assertEquals(snapshot, muxed.rewind(), "Demux should not modify the muxed source");
+            byte[] recovered = new byte[length];
+            plain.flip().get(recovered);
+            assertArrayEquals(original, recovered);
+        }
+        
+        @Test
+        @DisplayName("buffer demux should read array-muxed data")
+        void bufferDemuxReadsArrayMux() {
+            byte[] original = "interop between array and buffer paths".getBytes();
+            MuxEngine.MuxResult muxResult = muxEngine.mux(original, testKey, testSeed);
+            
+            ByteBuffer plain = ByteBuffer.allocate(muxResult.muxedData().length);
+            int length = muxEngine.demux(ByteBuffer.wrap(muxResult.muxedData()), plain, testKey, testSeed,
+                muxResult.sectorStart(), muxResult.encryptedSize());
+            
+            assertArrayEquals(original, Arrays.copyOf(plain.array(), length));
+        }
+        
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 2048 - 28, 65536, 200_003, CHUNK_BYTES})
+        @DisplayName("stream mux should match buffer mux byte for byte")
+        void streamMuxMatchesBufferMux(int size) throws Exception {
+            byte[] original = new byte[size];
+            new SecureRandom().nextBytes(original);
+
+            ByteBuffer dst = ByteBuffer.allocate(MuxEngine.muxedCapacity(size));
+            MuxEngine.MuxSpan expected = muxEngine.mux(ByteBuffer.wrap(original), dst, testKey, testSeed, 5);
+
+            MuxEngine.MuxStream stream = muxEngine.muxStream(ByteBuffer.wrap(original), testKey, testSeed, 5);
+            byte[] streamed = stream.readAllBytes();
+
+            assertEquals(expected, stream.span());
+            assertArrayEquals(dst.array(), streamed);
+        }
+
+        @Test
+        @DisplayName("should reject an undersized destination")
+        void rejectUndersizedDestination() {
+            ByteBuffer dst = ByteBuffer.allocate(SECTOR_SIZE);
+            assertThrows(IllegalArgumentException.class,
+                () -> muxEngine.mux(ByteBuffer.wrap(new byte[SECTOR_SIZE]), dst, testKey, testSeed, 0));
+        }
+    }
+    
     @Nested
     @DisplayName("Encryption")
     class EncryptionTests {
@@ -209,6 +295,44 @@ class MuxEngineTest {
             assertEquals(expectedSectors, muxResult.sectorCount());
         }
         
+        @Test
+        @DisplayName("should roundtrip at a sector offset deep into the ISO")
+        void roundtripAtSectorOffset() {
+            byte[] original = new byte[CHUNK_BYTES];
+            new SecureRandom().nextBytes(original);
+            int sectorOffset = (int) (SizePreset.NANO.getBytes() / SECTOR_SIZE) - 1024;
+            
+            MuxEngine.MuxResult muxResult = muxEngine.mux(original, testKey, testSeed, sectorOffset);
+            byte[] recovered = muxEngine.demux(
+                muxResult.muxedData(), testKey, testSeed, muxResult.sectorStart(), muxResult.encryptedSize());
+            
+            assertEquals(sectorOffset, muxResult.sectorStart());
+            assertArrayEquals(original, recovered);
+        }
+        
+        @Test
+        @DisplayName("muxed data should be plaintext-independent ISO sectors XOR ciphertext")
+        void muxedIsCiphertextXorIsoSectors() {
+            byte[] original = new byte[5000];
+            new SecureRandom().nextBytes(original);
+            
+            MuxEngine.MuxResult muxResult = muxEngine.mux(original, testKey, testSeed, 7);
+            
+            ISOForge forge = new ISOForge();
+            byte[] xored = muxResult.muxedData().clone();
+            for (int i = 0; i < muxResult.sectorCount(); i++) {
+                byte[] isoSector = forge.generateSector(testSeed, 7 + i, SizePreset.NANO.getBytes());
+                for (int j = 0; j < SECTOR_SIZE; j++) {
+                    xored[i * SECTOR_SIZE + j] ^= isoSector[j];
+                }
+            }
+            
+            // Past the ciphertext the padding is zero, so only ISO bytes remain
+            for (int i = muxResult.encryptedSize(); i < xored.length; i++) {
+                assertEquals(0, xored[i], "Padding byte " + i + " should XOR back to zero");
+            }
+        }
+        
         @Test
         @DisplayName("muxed data should look like ISO when XORed back")
         void looksLikeISOWhenXoredBack() {
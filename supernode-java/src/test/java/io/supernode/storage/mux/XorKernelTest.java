@@ -0,0 +1,75 @@
+package io.supernode.storage.mux;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("XorKernel")
+class XorKernelTest {
+    
+    private static List<XorKernel> kernels() {
+        List<XorKernel> kernels = new ArrayList<>();
+        kernels.add(XorKernel.longWord());
+        if (XorKernel.vector() != null) {
+            kernels.add(XorKernel.vector());
+        }
+        return kernels;
+    }
+    
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 7, 8, 9, 31, 64, 65, 2048, 2048 * 3 + 13})
+    @DisplayName("all kernels should match a byte-wise XOR")
+    void kernelsMatchByteWiseXor(int length) {
+        Random random = new Random(length);
+        byte[] src = new byte[length + 5];
+        byte[] dst = new byte[length + 3];
+        random.nextBytes(src);
+        random.nextBytes(dst);
+        
+        byte[] expected = dst.clone();
+        for (int i = 0; i < length; i++) {
+            expected[3 + i] ^= src[5 + i];
+        }
+        
+        for (XorKernel kernel : kernels()) {
+            byte[] actual = dst.clone();
+            kernel.xorInto(actual, 3, src, 5, length);
+            assertArrayEquals(expected, actual, kernel.name() + " mismatch at length " + length);
+        }
+    }
+    
+    @Test
+    @DisplayName("vector kernel should be available and preferred when the module is resolved")
+    void vectorKernelPreferredWhenAvailable() {
+        boolean moduleResolved = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(moduleResolved, XorKernel.vector() != null);
+        if (moduleResolved && !"long".equals(System.getProperty(XorKernel.KERNEL_PROPERTY))) {
+            assertSame(XorKernel.vector(), XorKernel.preferred());
+        }
+    }
+    
+    @Test
+    @DisplayName("MuxEngine should produce identical output with either kernel")
+    void muxIdenticalAcrossKernels() {
+        byte[] key = new byte[32];
+        byte[] seed = new byte[32];
+        byte[] data = new byte[100_000];
+        new Random(1).nextBytes(data);
+        
+        byte[] reference = new MuxEngine(256L * 1024 * 1024, XorKernel.longWord())
+            .mux(data, key, seed).muxedData();
+        for (XorKernel kernel : kernels()) {
+            MuxEngine engine = new MuxEngine(256L * 1024 * 1024, kernel);
+            MuxEngine.MuxResult result = engine.mux(data, key, seed);
+            assertArrayEquals(reference, result.muxedData(), kernel.name());
+            assertArrayEquals(data, engine.demux(result.muxedData(), key, seed, 0, result.encryptedSize()));
+        }
+    }
+}